@@ -34,7 +34,7 @@ public class ApiGatewayApplication {
             headers.add(HttpHeaders.ACCESS_CONTROL_ALLOW_METHODS, "GET, POST, PUT, DELETE, PATCH, OPTIONS");
 
             // Set the allowed headers that can be sent with the request (e.g., Authorization, Content-Type)
-            headers.add(HttpHeaders.ACCESS_CONTROL_ALLOW_HEADERS, "Authorization, Content-Type");
+            headers.add(HttpHeaders.ACCESS_CONTROL_ALLOW_HEADERS, "Authorization, Content-Type, Idempotency-Key");
 
             // Allow credentials (like cookies or HTTP authentication headers, e.g., Authorization)
             headers.add(HttpHeaders.ACCESS_CONTROL_ALLOW_CREDENTIALS, "true");
@@ -13,6 +13,7 @@ public class Users {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
     private String emailId;
+    @Column(unique = true)
     private String username;
     private String password;
 
@@ -0,0 +1,10 @@
+-- Schema as previously created by Hibernate (ddl-auto=update). IF NOT EXISTS lets this run against
+-- databases that already have the table; Flyway is configured to baseline them at version 0.
+
+CREATE TABLE IF NOT EXISTS users (
+    id       BIGINT       NOT NULL AUTO_INCREMENT,
+    email_id VARCHAR(255),
+    username VARCHAR(255),
+    password VARCHAR(255),
+    PRIMARY KEY (id)
+) ENGINE=InnoDB;
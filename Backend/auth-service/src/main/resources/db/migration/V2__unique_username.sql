@@ -0,0 +1,4 @@
+-- findByUsername runs on every login and token check. The unique index makes it a single-row lookup
+-- and enforces in the database what AuthController only checks before saving.
+-- Fails if duplicate usernames already exist; resolve those first.
+ALTER TABLE users ADD CONSTRAINT uk_users_username UNIQUE (username);
@@ -4,10 +4,12 @@ import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
 import org.springframework.cloud.openfeign.EnableFeignClients; // Enable Feign Clients for this service
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @EnableDiscoveryClient // Enables service registration with Eureka
 @EnableFeignClients(basePackages = "com.project.order_service.feignclient") // Specify base package for Feign clients
+@EnableScheduling // Periodic sweep of Accepted orders (OrderFulfilmentWorker)
 public class OrderServiceApplication {
 
 	public static void main(String[] args) {
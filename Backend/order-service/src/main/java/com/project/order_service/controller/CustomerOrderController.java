@@ -0,0 +1,34 @@
+package com.project.order_service.controller;
+
+import com.project.order_service.dto.CustomerOrderHistoryDto;
+import com.project.order_service.service.OrderService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/customers")
+public class CustomerOrderController {
+
+    @Autowired
+    private OrderService orderService;
+
+    // One customer's orders, newest first, with their order count, units and last order date.
+    // Keyset pagination: up to `limit` orders (max 200); pass nextCursor back as ?cursor= for the next page.
+    // Endpoint: GET /api/customers/101/orders?limit=20&cursor=2025-03-01:1200
+    @GetMapping("/{customerId}/orders")
+    public ResponseEntity<CustomerOrderHistoryDto> getCustomerOrders(
+            @PathVariable Long customerId,
+            @RequestParam(value = "limit", defaultValue = "20") int limit,
+            @RequestParam(value = "cursor", required = false) String cursor) {
+        try {
+            return ResponseEntity.ok(orderService.getCustomerOrders(customerId, cursor, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+}
@@ -149,18 +149,38 @@
 package com.project.order_service.controller;
 
 import com.project.order_service.entity.Order;
+import com.project.order_service.service.IdempotencyStore;
+import com.project.order_service.service.OrderFulfilmentWorker;
 import com.project.order_service.service.OrderService;
 import com.project.order_service.exception.OrderNotFoundException;
+import com.project.order_service.dto.OrderBatchResponseDto;
+import com.project.order_service.dto.OrderPageDto;
+import com.project.order_service.dto.OrderStatusUpdateRequestDto;
+import com.project.order_service.dto.OrderStatusUpdateResultDto;
+import com.project.order_service.dto.OrderSummaryDto;
 import com.project.order_service.dto.OrderResponseDto; // NEW IMPORT
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+import java.net.URI;
 import java.time.LocalDate;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/api/orders")
@@ -169,6 +189,15 @@ public class OrderController {
     @Autowired
     private OrderService orderService;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private IdempotencyStore idempotencyStore;
+
+    @Autowired
+    private OrderFulfilmentWorker orderFulfilmentWorker;
+
     // Retrieves a list of orders within a specified date range.
     // Endpoint: GET /api/orders/by-date-range?startDate=YYYY-MM-DD&endDate=YYYY-MM-DD
     @GetMapping("/by-date-range")
@@ -190,6 +219,78 @@ public class OrderController {
         return ResponseEntity.ok(totalQuantity != null ? totalQuantity : 0L);
     }
 
+    // Sums ordered quantities per product within a date range using a single grouped query.
+    // Products without orders in the range are omitted. productIds is optional; when absent all products are included.
+    // Endpoint: GET /api/orders/sum-quantity-by-products?startDate=YYYY-MM-DD&endDate=YYYY-MM-DD&productIds=1,2,3
+    @GetMapping("/sum-quantity-by-products")
+    public ResponseEntity<Map<Long, Long>> sumQuantityByProductsAndDateRange(
+            @RequestParam("startDate") LocalDate startDate,
+            @RequestParam("endDate") LocalDate endDate,
+            @RequestParam(value = "productIds", required = false) List<Long> productIds) {
+        return ResponseEntity.ok(orderService.sumQuantityByProductForDateRange(startDate, endDate, productIds));
+    }
+
+    // Number of orders per status within a date range, read from the daily rollup.
+    // Endpoint: GET /api/orders/status-counts?startDate=YYYY-MM-DD&endDate=YYYY-MM-DD
+    @GetMapping("/status-counts")
+    public ResponseEntity<Map<String, Long>> countOrdersByStatus(
+            @RequestParam("startDate") LocalDate startDate,
+            @RequestParam("endDate") LocalDate endDate) {
+        return ResponseEntity.ok(orderService.countOrdersByStatus(startDate, endDate));
+    }
+
+    // Order count, quantity and revenue per status for a date range, grouped in the database. customerId and status
+    // filter the orders; byProduct=true adds the same totals per product (highest quantity first).
+    // Endpoint: GET /api/orders/summary?startDate=YYYY-MM-DD&endDate=YYYY-MM-DD&customerId=101&status=Delivered&byProduct=true
+    @GetMapping("/summary")
+    public ResponseEntity<OrderSummaryDto> summarizeOrders(
+            @RequestParam("startDate") LocalDate startDate,
+            @RequestParam("endDate") LocalDate endDate,
+            @RequestParam(value = "customerId", required = false) Long customerId,
+            @RequestParam(value = "status", required = false) String status,
+            @RequestParam(value = "byProduct", defaultValue = "false") boolean byProduct) {
+        return ResponseEntity.ok(orderService.summarizeOrders(startDate, endDate, customerId, status, byProduct));
+    }
+
+    // Keyset pagination: up to `limit` orders (max 200) with orderId > `after`, in id order, plus the cursor for the next page.
+    // Each item carries product name, unit price and line total, resolved with one bulk product lookup per page.
+    // Filters are optional and applied in the query.
+    // Endpoint: GET /api/orders?limit=50&after=1200&status=Pending&customerId=101&startDate=YYYY-MM-DD&endDate=YYYY-MM-DD
+    @GetMapping(params = "limit")
+    public ResponseEntity<OrderPageDto> getOrdersPage(
+            @RequestParam("limit") int limit,
+            @RequestParam(value = "after", required = false) Long after,
+            @RequestParam(value = "status", required = false) String status,
+            @RequestParam(value = "customerId", required = false) Long customerId,
+            @RequestParam(value = "startDate", required = false) LocalDate startDate,
+            @RequestParam(value = "endDate", required = false) LocalDate endDate) {
+        return ResponseEntity.ok(orderService.getOrdersPage(after, limit, status, customerId, startDate, endDate));
+    }
+
+    // Streams every matching order as NDJSON (one JSON order per line) straight from a database cursor.
+    // Endpoint: GET /api/orders/stream?status=Pending&customerId=101&startDate=YYYY-MM-DD&endDate=YYYY-MM-DD
+    @GetMapping(value = "/stream", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> streamOrders(
+            @RequestParam(value = "status", required = false) String status,
+            @RequestParam(value = "customerId", required = false) Long customerId,
+            @RequestParam(value = "startDate", required = false) LocalDate startDate,
+            @RequestParam(value = "endDate", required = false) LocalDate endDate) {
+        StreamingResponseBody body = out -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            orderService.streamOrders(status, customerId, startDate, endDate, order -> {
+                try {
+                    writer.write(objectMapper.writeValueAsString(order));
+                    writer.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            writer.flush();
+        };
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType("application/x-ndjson")).body(body);
+    }
+
+    // Returns every order. Prefer the paginated form (?limit=) for anything beyond small tables.
     // Endpoint: GET /api/orders
     @GetMapping
     public ResponseEntity<List<OrderResponseDto>> getAllOrders() { // MODIFIED RETURN TYPE
@@ -214,10 +315,45 @@ public class OrderController {
     // Creates a new order.
     // Endpoint: POST /api/orders
     // Request Body: {"customerId": 102, "productId": 3, "quantity": 1, "orderDate": "2025-06-01", "status": "Pending"}
+    // With an Idempotency-Key header, a retry carrying the same key gets the original order back (Idempotent-Replayed: true)
+    // instead of creating another one; reusing a key for a different order is rejected with 422, and a retry that
+    // outwaits a still-running first request with its key gets 409.
+    // With ?async=true the order is only checked and stored as "Accepted", and 202 comes back with the order and its
+    // Location; stock is reserved in the background and the order moves to "Pending" or "Rejected" (poll GET /api/orders/{id}).
     @PostMapping
-    @ResponseStatus(HttpStatus.CREATED)
-    public Order createOrder(@RequestBody Order order) {
-        return orderService.createOrder(order);
+    public ResponseEntity<Order> createOrder(@RequestBody Order order,
+                                             @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+                                             @RequestParam(value = "async", defaultValue = "false") boolean async) {
+        Supplier<Order> create = async ? () -> orderFulfilmentWorker.accept(order) : () -> orderService.createOrder(order);
+        try {
+            if (idempotencyKey == null || idempotencyKey.isBlank()) {
+                Order created = create.get();
+                return createdResponse(created, async).body(created);
+            }
+            IdempotencyStore.Result<Order> result = idempotencyStore.execute(idempotencyKey.trim(),
+                    Arrays.asList(order.getCustomerId(), order.getProductId(), order.getQuantity(), async), create);
+            return createdResponse(result.value(), async)
+                    .header("Idempotent-Replayed", String.valueOf(result.replayed()))
+                    .body(result.value());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    private static ResponseEntity.BodyBuilder createdResponse(Order order, boolean async) {
+        if (!async) {
+            return ResponseEntity.status(HttpStatus.CREATED);
+        }
+        return ResponseEntity.status(HttpStatus.ACCEPTED).location(URI.create("/api/orders/" + order.getOrderId()));
+    }
+
+    // Creates many orders at once with one bulk product lookup, one stock reservation call and batched inserts.
+    // Each line is created or rejected on its own; results come back in request order.
+    // Endpoint: POST /api/orders/batch
+    // Request Body: [{"customerId": 102, "productId": 3, "quantity": 1}, {"customerId": 105, "productId": 7, "quantity": 2}]
+    @PostMapping("/batch")
+    public ResponseEntity<OrderBatchResponseDto> createOrders(@RequestBody List<Order> orders) {
+        return ResponseEntity.ok(orderService.createOrders(orders));
     }
 
     // Updates an existing order.
@@ -279,8 +415,38 @@ public class OrderController {
             return ResponseEntity.ok(updatedOrder);
         } catch (OrderNotFoundException e) {
             return ResponseEntity.notFound().build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
-}
\ No newline at end of file
+
+    // Moves many orders to one status in a few set-based statements, e.g. a warehouse marking a batch Shipped.
+    // Allowed: Pending -> Shipped or Cancelled, Shipped -> Delivered, Delivered -> Completed. Orders that are missing
+    // or in another status are listed under "failed"; the rest are still updated.
+    // Endpoint: PATCH /api/orders/status  body: {"orderIds": [1, 2, 3], "status": "Shipped"}
+    @PatchMapping("/status")
+    public ResponseEntity<OrderStatusUpdateResultDto> updateOrderStatuses(@RequestBody OrderStatusUpdateRequestDto request) {
+        try {
+            return ResponseEntity.ok(orderService.updateStatuses(request.getOrderIds(), request.getStatus()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    // Fills in unitPrice/totalPrice for orders created before prices were snapshotted, using current catalog prices.
+    // Endpoint: POST /api/orders/backfill-prices
+    @PostMapping("/backfill-prices")
+    public ResponseEntity<Map<String, Integer>> backfillPrices() {
+        return ResponseEntity.ok(Map.of("updated", orderService.backfillPrices()));
+    }
+
+    // Recomputes the daily rollup and the per-customer totals from the orders table, e.g. after a bulk import.
+    // Endpoint: POST /api/orders/rollup/rebuild
+    @PostMapping("/rollup/rebuild")
+    public ResponseEntity<Map<String, Integer>> rebuildDailyRollup() {
+        return ResponseEntity.ok(Map.of("rows", orderService.rebuildDailyRollup(),
+                "customers", orderService.rebuildCustomerStats()));
+    }
+}
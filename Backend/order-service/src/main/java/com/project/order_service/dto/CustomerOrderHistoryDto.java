@@ -0,0 +1,23 @@
+package com.project.order_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CustomerOrderHistoryDto {
+    private Long customerId;
+    private long orderCount; // All of the customer's orders, not just this page
+    private long totalQuantity;
+    private LocalDate lastOrderDate;
+    private List<OrderResponseDto> items; // Newest first
+    private String nextCursor; // Pass as ?cursor= to fetch the next page; null on the last page
+    private boolean hasMore;
+}
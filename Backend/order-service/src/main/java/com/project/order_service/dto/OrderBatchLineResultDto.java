@@ -0,0 +1,17 @@
+package com.project.order_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OrderBatchLineResultDto {
+    private int line; // Zero-based index of the order in the request
+    private boolean created;
+    private Long orderId; // Set when created
+    private String error; // Set when not created
+}
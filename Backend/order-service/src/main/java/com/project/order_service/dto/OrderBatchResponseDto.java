@@ -0,0 +1,18 @@
+package com.project.order_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OrderBatchResponseDto {
+    private int created;
+    private int failed;
+    private List<OrderBatchLineResultDto> results; // One per request line, in request order
+}
@@ -0,0 +1,18 @@
+package com.project.order_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OrderPageDto {
+    private List<OrderResponseDto> items;
+    private Long nextCursor; // Pass as ?after= to fetch the next page; null on the last page
+    private boolean hasMore;
+}
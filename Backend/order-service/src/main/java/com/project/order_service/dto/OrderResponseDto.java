@@ -20,5 +20,8 @@ public class OrderResponseDto {
     private Integer quantity;
     private LocalDate orderDate;
     private String status;
+    private Double unitPrice; // Price the order was placed at (current catalog price for orders without a snapshot)
+    private Double totalPrice; // Same as lineTotal; kept so existing clients keep reading the order total
+    private Double lineTotal; // unitPrice x quantity
 
 }
\ No newline at end of file
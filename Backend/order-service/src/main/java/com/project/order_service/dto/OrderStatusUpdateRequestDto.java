@@ -0,0 +1,16 @@
+package com.project.order_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// Body of PATCH /api/orders/status: move all of orderIds to status.
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderStatusUpdateRequestDto {
+    private List<Long> orderIds;
+    private String status;
+}
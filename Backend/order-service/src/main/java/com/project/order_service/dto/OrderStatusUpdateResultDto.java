@@ -0,0 +1,29 @@
+package com.project.order_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OrderStatusUpdateResultDto {
+    private String status; // Target status
+    private int requested; // Distinct order IDs in the request
+    private List<Long> updatedIds;
+    private List<Long> unchangedIds; // Already in the target status
+    private List<Failure> failed; // Missing, or in a status the transition does not start from
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Failure {
+        private Long orderId;
+        private String currentStatus; // Null when the order does not exist
+        private String error;
+    }
+}
@@ -0,0 +1,49 @@
+package com.project.order_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Order totals for a date range, computed with GROUP BY in the database (GET /api/orders/summary).
+ * Revenue only covers orders with a stored price; unpricedOrders / unpricedQuantity say how much is missing.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OrderSummaryDto {
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private long totalOrders;
+    private long totalQuantity;
+    private double revenue;
+    private long unpricedOrders;
+    private List<StatusTotals> byStatus; // Statuses with at least one order
+    private List<ProductTotals> byProduct; // Only when requested; highest quantity first
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class StatusTotals {
+        private String status;
+        private long orders;
+        private long quantity;
+        private double revenue;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ProductTotals {
+        private Long productId;
+        private long orders;
+        private long quantity;
+        private double revenue;
+        private long unpricedQuantity;
+    }
+}
@@ -0,0 +1,15 @@
+package com.project.order_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockReservationDto {
+    private Long productId;
+    private int quantity; // Units to remove; must be positive
+    private String reason; // Recorded in Stock Service's movement journal, e.g. ORDER
+    private String referenceId; // Order ID the movement belongs to, when known
+}
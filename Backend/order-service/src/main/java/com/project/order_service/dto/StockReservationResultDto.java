@@ -0,0 +1,15 @@
+package com.project.order_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockReservationResultDto {
+    private Long productId;
+    private int quantity;
+    private boolean reserved;
+    private String message; // Why the line was not reserved; null when reserved
+}
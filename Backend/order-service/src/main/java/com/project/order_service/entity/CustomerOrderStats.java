@@ -0,0 +1,39 @@
+package com.project.order_service.entity;
+
+import java.time.LocalDate;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Per-customer order totals for the order history header. Like OrderDailyRollup, OrderServiceImpl keeps it in
+ * step with order inserts, edits and deletes in the same transaction. Every order counts, whatever its status.
+ */
+@Entity
+@Table(name = "customer_order_stats")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CustomerOrderStats {
+
+    @Id
+    private Long customerId;
+
+    @Column(nullable = false)
+    private long orderCount;
+
+    @Column(name = "qty", nullable = false)
+    private long quantity;
+
+    private LocalDate lastOrderDate; // Null once the customer has no orders left
+
+    // The contribution of a single order.
+    public static CustomerOrderStats of(Order order) {
+        return new CustomerOrderStats(order.getCustomerId(), 1, order.getQuantity(), order.getOrderDate());
+    }
+}
@@ -7,6 +7,7 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import lombok.Data; // Using Lombok for getters/setters, etc.
 import lombok.NoArgsConstructor; // Add NoArgsConstructor
@@ -19,8 +20,13 @@ import lombok.AllArgsConstructor; // Add AllArgsConstructor
 @AllArgsConstructor // Generates a constructor with all fields
 public class Order {
 
+    // IDs are handed out in blocks from order_seq (a table on MySQL) instead of IDENTITY,
+    // so Hibernate knows them before insert and can batch the INSERT statements.
+    public static final int ID_ALLOCATION_SIZE = 50;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_seq")
+    @SequenceGenerator(name = "order_seq", sequenceName = "order_seq", allocationSize = ID_ALLOCATION_SIZE)
     private Long orderId;
 
     @Column(nullable = false) // Ensures customer_id cannot be null
@@ -35,8 +41,19 @@ public class Order {
     @Column(nullable = false) // Ensures order_date cannot be null
     private LocalDate orderDate;
 
-    @Column(nullable = false) // Ensures status cannot be null
-    private String status;
+    @Column(nullable = false, length = 16) // Ensures status cannot be null; one of the OrderStatus labels
+    private OrderStatus status;
+
+    // Price snapshot taken from Product Service when the order is placed, so pricing and revenue
+    // stay correct after catalog price changes. Null only for rows created before the snapshot existed.
+    private Double unitPrice;
+
+    private Double totalPrice;
+
+    // Order without a price snapshot; createOrder fills the prices in.
+    public Order(Long orderId, Long customerId, Long productId, int quantity, LocalDate orderDate, OrderStatus status) {
+        this(orderId, customerId, productId, quantity, orderDate, status, null, null);
+    }
 
     // Lombok's @Data will generate all getters and setters.
     // You don't need to write them manually.
@@ -0,0 +1,63 @@
+package com.project.order_service.entity;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Orders pre-aggregated per product, day and status. OrderServiceImpl keeps it in step with every order
+ * write, in the same transaction, so range sums and status counts read days x products rows instead of orders.
+ */
+@Entity
+@Table(name = "order_daily_rollup")
+@IdClass(OrderDailyRollup.Key.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderDailyRollup {
+
+    @Id
+    private Long productId;
+
+    @Id
+    private LocalDate orderDate;
+
+    @Id
+    private String status; // OrderStatus label
+
+    @Column(nullable = false)
+    private long orderCount;
+
+    @Column(name = "qty", nullable = false)
+    private long quantity;
+
+    @Column(nullable = false)
+    private double revenue; // Sum of order total prices; orders without a price snapshot count as 0
+
+    // The contribution of a single order.
+    public static OrderDailyRollup of(Order order) {
+        return new OrderDailyRollup(order.getProductId(), order.getOrderDate(), order.getStatus().getLabel(), 1,
+                order.getQuantity(), order.getTotalPrice() != null ? order.getTotalPrice() : 0.0);
+    }
+
+    public Key getKey() {
+        return new Key(productId, orderDate, status);
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long productId;
+        private LocalDate orderDate;
+        private String status;
+    }
+}
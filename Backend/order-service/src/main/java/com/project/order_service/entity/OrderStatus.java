@@ -0,0 +1,79 @@
+package com.project.order_service.entity;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+import java.util.EnumSet;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Order lifecycle. Stored (see OrderStatusConverter) and serialised as the label, e.g. "Pending", which is what
+ * clients and the order_daily_rollup rows already use.
+ * Orders taken with POST /api/orders?async=true stay ACCEPTED until the fulfilment worker has reserved stock
+ * (PENDING) or given up on it (REJECTED). Neither ACCEPTED nor REJECTED orders hold stock.
+ */
+public enum OrderStatus {
+    ACCEPTED("Accepted"),
+    PENDING("Pending"),
+    SHIPPED("Shipped"),
+    DELIVERED("Delivered"),
+    COMPLETED("Completed"),
+    CANCELLED("Cancelled"),
+    REJECTED("Rejected");
+
+    private final String label;
+
+    OrderStatus(String label) {
+        this.label = label;
+    }
+
+    @JsonValue
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * Parses a label or constant name, ignoring case, surrounding whitespace and quotes ("'Delivered'").
+     * Throws IllegalArgumentException for anything else.
+     */
+    @JsonCreator
+    public static OrderStatus from(String value) {
+        return parse(value).orElseThrow(() -> new IllegalArgumentException("Unknown order status: " + value));
+    }
+
+    // Same as from(), but empty for null, blank or unknown values.
+    public static Optional<OrderStatus> parse(String value) {
+        if (value == null) {
+            return Optional.empty();
+        }
+        String normalized = value.trim();
+        if (normalized.length() > 1 && normalized.startsWith("'") && normalized.endsWith("'")) {
+            normalized = normalized.substring(1, normalized.length() - 1).trim();
+        }
+        for (OrderStatus status : values()) {
+            if (status.label.equalsIgnoreCase(normalized) || status.name().equalsIgnoreCase(normalized)) {
+                return Optional.of(status);
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Statuses an order may move to this one from with PATCH /api/orders/status; empty when this status cannot be
+     * set in bulk (Accepted, Pending and Rejected belong to order creation and fulfilment).
+     */
+    public Set<OrderStatus> bulkTransitionSources() {
+        return switch (this) {
+            case SHIPPED, CANCELLED -> EnumSet.of(PENDING);
+            case DELIVERED -> EnumSet.of(SHIPPED);
+            case COMPLETED -> EnumSet.of(DELIVERED);
+            default -> EnumSet.noneOf(OrderStatus.class);
+        };
+    }
+
+    @Override
+    public String toString() {
+        return label;
+    }
+}
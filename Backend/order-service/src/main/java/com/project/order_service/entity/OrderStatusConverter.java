@@ -0,0 +1,19 @@
+package com.project.order_service.entity;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+// Maps OrderStatus to its label in the orders.status column.
+@Converter(autoApply = true)
+public class OrderStatusConverter implements AttributeConverter<OrderStatus, String> {
+
+    @Override
+    public String convertToDatabaseColumn(OrderStatus status) {
+        return status != null ? status.getLabel() : null;
+    }
+
+    @Override
+    public OrderStatus convertToEntityAttribute(String value) {
+        return value != null ? OrderStatus.from(value) : null;
+    }
+}
@@ -0,0 +1,7 @@
+package com.project.order_service.exception;
+
+public class OrderSaveTimeoutException extends RuntimeException {
+    public OrderSaveTimeoutException(String message) {
+        super(message);
+    }
+}
@@ -4,7 +4,9 @@ import com.project.order_service.dto.ProductDto; // DTO for product data
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
 
+import java.util.List;
 import java.util.Optional;
 
 @FeignClient(name = "product-service", url = "${product-service.url:http://localhost:8081}") // 'name' is Eureka service ID, 'url' is fallback
@@ -12,4 +14,7 @@ public interface ProductClient {
 
     @GetMapping("/api/products/{id}")
     Optional<ProductDto> getProductById(@PathVariable("id") Long id);
+
+    @GetMapping("/api/products/batch")
+    List<ProductDto> getProductsByIds(@RequestParam("ids") List<Long> ids);
 }
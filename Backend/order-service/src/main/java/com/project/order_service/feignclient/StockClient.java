@@ -1,12 +1,18 @@
 package com.project.order_service.feignclient;
 
+import com.project.order_service.dto.StockAdjustmentDto;
 import com.project.order_service.dto.StockDto; // DTO for stock data
+import com.project.order_service.dto.StockReservationDto;
+import com.project.order_service.dto.StockReservationResultDto;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 
+import java.util.List;
+
 @FeignClient(name = "stock-service", url = "${stock-service.url:http://localhost:8090}") // 'name' is Eureka service ID, 'url' is fallback
 public interface StockClient {
 
@@ -15,4 +21,19 @@ public interface StockClient {
 
     @PutMapping("/api/stocks/{productId}")
     StockDto updateStock(@PathVariable("productId") Long productId, @RequestBody StockDto stockDto);
+
+    // Conditional decrement done in one statement by Stock Service; responds 409 when stock is insufficient.
+    @PostMapping("/api/stocks/{productId}/decrement")
+    StockDto decrementStock(@PathVariable("productId") Long productId, @RequestBody StockAdjustmentDto adjustment);
+
+    // Reserves stock for many lines in one call; each result says whether its line was reserved.
+    @PostMapping("/api/stocks/decrement-batch")
+    List<StockReservationResultDto> decrementStockBatch(@RequestBody List<StockReservationDto> reservations);
+
+    @PostMapping("/api/stocks/{productId}/increment")
+    StockDto incrementStock(@PathVariable("productId") Long productId, @RequestBody StockAdjustmentDto adjustment);
+
+    // Gives back what adjustment.referenceId reserved; a no-op when that reference holds no units, so safe to repeat.
+    @PostMapping("/api/stocks/{productId}/release")
+    StockDto releaseStock(@PathVariable("productId") Long productId, @RequestBody StockAdjustmentDto adjustment);
 }
\ No newline at end of file
@@ -0,0 +1,45 @@
+package com.project.order_service.repository;
+
+import java.time.LocalDate;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.project.order_service.entity.CustomerOrderStats;
+
+public interface CustomerOrderStatsRepository extends JpaRepository<CustomerOrderStats, Long> {
+
+    // Adds (or, with negative values, removes) order totals for one customer, creating the row if needed. The last
+    // order date only moves forward; a null lastOrderDate leaves it alone.
+    @Modifying
+    @Query(value = "INSERT INTO customer_order_stats (customer_id, order_count, qty, last_order_date) "
+            + "VALUES (:customerId, :orderCount, :quantity, :lastOrderDate) "
+            + "ON DUPLICATE KEY UPDATE order_count = order_count + :orderCount, qty = qty + :quantity, "
+            + "last_order_date = CASE WHEN last_order_date IS NULL OR last_order_date < :lastOrderDate "
+            + "THEN :lastOrderDate ELSE last_order_date END",
+            nativeQuery = true)
+    int applyDelta(@Param("customerId") Long customerId,
+                   @Param("orderCount") long orderCount,
+                   @Param("quantity") long quantity,
+                   @Param("lastOrderDate") LocalDate lastOrderDate);
+
+    // Re-reads the last order date after orders were removed; one probe of idx_orders_customer_date.
+    @Modifying
+    @Query(value = "UPDATE customer_order_stats SET last_order_date = "
+            + "(SELECT MAX(o.order_date) FROM orders o WHERE o.customer_id = :customerId) WHERE customer_id = :customerId",
+            nativeQuery = true)
+    int refreshLastOrderDate(@Param("customerId") Long customerId);
+
+    @Modifying
+    @Query(value = "DELETE FROM customer_order_stats", nativeQuery = true)
+    int deleteAllRows();
+
+    // Recomputes every customer's totals from the orders table.
+    @Modifying
+    @Query(value = "INSERT INTO customer_order_stats (customer_id, order_count, qty, last_order_date) "
+            + "SELECT customer_id, COUNT(*), SUM(quantity), MAX(order_date) FROM orders GROUP BY customer_id",
+            nativeQuery = true)
+    int insertFromOrders();
+}
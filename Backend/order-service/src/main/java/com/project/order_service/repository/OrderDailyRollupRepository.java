@@ -0,0 +1,69 @@
+package com.project.order_service.repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.project.order_service.entity.OrderDailyRollup;
+
+public interface OrderDailyRollupRepository extends JpaRepository<OrderDailyRollup, OrderDailyRollup.Key> {
+
+    // Adds (or, with negative values, removes) order totals for one product/day/status, creating the row if needed.
+    // A single statement, so concurrent order writes to the same row cannot lose updates.
+    @Modifying
+    @Query(value = "INSERT INTO order_daily_rollup (product_id, order_date, status, order_count, qty, revenue) "
+            + "VALUES (:productId, :orderDate, :status, :orderCount, :quantity, :revenue) "
+            + "ON DUPLICATE KEY UPDATE order_count = order_count + :orderCount, qty = qty + :quantity, revenue = revenue + :revenue",
+            nativeQuery = true)
+    int applyDelta(@Param("productId") Long productId,
+                   @Param("orderDate") LocalDate orderDate,
+                   @Param("status") String status,
+                   @Param("orderCount") long orderCount,
+                   @Param("quantity") long quantity,
+                   @Param("revenue") double revenue);
+
+    @Modifying
+    @Query(value = "DELETE FROM order_daily_rollup", nativeQuery = true)
+    int deleteAllRows();
+
+    // Recomputes every rollup row from the orders table.
+    @Modifying
+    @Query(value = "INSERT INTO order_daily_rollup (product_id, order_date, status, order_count, qty, revenue) "
+            + "SELECT product_id, order_date, status, COUNT(*), SUM(quantity), COALESCE(SUM(total_price), 0) "
+            + "FROM orders GROUP BY product_id, order_date, status",
+            nativeQuery = true)
+    int insertFromOrders();
+
+    // The quantity sums leave out Accepted and Rejected orders (see OrderStatus): they never took stock.
+    @Query("SELECT SUM(r.quantity) FROM OrderDailyRollup r WHERE r.productId = :productId AND r.orderDate BETWEEN :startDate AND :endDate"
+            + " AND r.status NOT IN ('Accepted', 'Rejected')")
+    Long sumQuantityByProductIdAndOrderDateBetween(
+            @Param("productId") Long productId,
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate);
+
+    // One row per product: [productId, SUM(quantity)] over the days in the range.
+    @Query("SELECT r.productId, SUM(r.quantity) FROM OrderDailyRollup r WHERE r.orderDate BETWEEN :startDate AND :endDate"
+            + " AND r.status NOT IN ('Accepted', 'Rejected') GROUP BY r.productId")
+    List<Object[]> sumQuantityGroupedByProductIdAndOrderDateBetween(
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate);
+
+    @Query("SELECT r.productId, SUM(r.quantity) FROM OrderDailyRollup r WHERE r.productId IN :productIds AND r.orderDate BETWEEN :startDate AND :endDate"
+            + " AND r.status NOT IN ('Accepted', 'Rejected') GROUP BY r.productId")
+    List<Object[]> sumQuantityGroupedByProductIdInAndOrderDateBetween(
+            @Param("productIds") Collection<Long> productIds,
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate);
+
+    // One row per status: [status, number of orders] over the days in the range.
+    @Query("SELECT r.status, SUM(r.orderCount) FROM OrderDailyRollup r WHERE r.orderDate BETWEEN :startDate AND :endDate GROUP BY r.status HAVING SUM(r.orderCount) > 0")
+    List<Object[]> countOrdersGroupedByStatusAndOrderDateBetween(
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate);
+}
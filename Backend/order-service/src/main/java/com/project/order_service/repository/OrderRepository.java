@@ -1,13 +1,23 @@
 package com.project.order_service.repository;
 
 import com.project.order_service.entity.Order;
+import com.project.order_service.entity.OrderStatus;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Long> {
@@ -15,10 +25,105 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
     // Custom method to find orders within a date range
     List<Order> findByOrderDateBetween(LocalDate startDate, LocalDate endDate);
 
-    // Custom method to sum quantity by product ID and date range
-    @Query("SELECT SUM(o.quantity) FROM Order o WHERE o.productId = :productId AND o.orderDate BETWEEN :startDate AND :endDate")
-    Long sumQuantityByProductIdAndOrderDateBetween(
-            @Param("productId") Long productId,
+    // Keyset page: orders with orderId > :after in id order, so each page is an index range scan
+    // whose cost does not depend on how deep into the table it is. Null filters are ignored.
+    @Query("SELECT o FROM Order o WHERE o.orderId > :after"
+            + " AND (:status IS NULL OR o.status = :status)"
+            + " AND (:customerId IS NULL OR o.customerId = :customerId)"
+            + " AND (:startDate IS NULL OR o.orderDate >= :startDate)"
+            + " AND (:endDate IS NULL OR o.orderDate <= :endDate)"
+            + " ORDER BY o.orderId ASC")
+    List<Order> findPageAfter(
+            @Param("after") Long after,
+            @Param("status") OrderStatus status,
+            @Param("customerId") Long customerId,
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate,
+            Limit limit);
+
+    // Same filters as findPageAfter, read through a cursor (see useCursorFetch in the datasource URL)
+    // instead of materialising the whole result. Must be consumed inside a transaction and closed.
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT o FROM Order o WHERE (:status IS NULL OR o.status = :status)"
+            + " AND (:customerId IS NULL OR o.customerId = :customerId)"
+            + " AND (:startDate IS NULL OR o.orderDate >= :startDate)"
+            + " AND (:endDate IS NULL OR o.orderDate <= :endDate)"
+            + " ORDER BY o.orderId ASC")
+    Stream<Order> streamFiltered(
+            @Param("status") OrderStatus status,
+            @Param("customerId") Long customerId,
             @Param("startDate") LocalDate startDate,
             @Param("endDate") LocalDate endDate);
-}
\ No newline at end of file
+
+    // Customer history, newest first: the first page, then the page after cursor (orderDate, orderId).
+    // Both read idx_orders_customer_date (customer_id, order_date DESC, order_id DESC) in index order.
+    @Query("SELECT o FROM Order o WHERE o.customerId = :customerId ORDER BY o.orderDate DESC, o.orderId DESC")
+    List<Order> findCustomerHistory(@Param("customerId") Long customerId, Limit limit);
+
+    @Query("SELECT o FROM Order o WHERE o.customerId = :customerId"
+            + " AND (o.orderDate < :beforeDate OR (o.orderDate = :beforeDate AND o.orderId < :beforeId))"
+            + " ORDER BY o.orderDate DESC, o.orderId DESC")
+    List<Order> findCustomerHistoryBefore(
+            @Param("customerId") Long customerId,
+            @Param("beforeDate") LocalDate beforeDate,
+            @Param("beforeId") Long beforeId,
+            Limit limit);
+
+    // Summary rows per status: [status, orders, quantity, revenue of priced orders, unpriced orders].
+    // customerId and status are optional filters; the (status, order_date) index serves the status filter.
+    // Like the rollup sums, both summaries leave out Accepted and Rejected orders: they were never sold, and
+    // their null price must not be read as "priced before snapshots".
+    @Query("SELECT o.status, COUNT(o), SUM(o.quantity), COALESCE(SUM(o.totalPrice), 0),"
+            + " SUM(CASE WHEN o.totalPrice IS NULL THEN 1 ELSE 0 END)"
+            + " FROM Order o WHERE o.orderDate BETWEEN :startDate AND :endDate"
+            + " AND o.status NOT IN (com.project.order_service.entity.OrderStatus.ACCEPTED,"
+            + " com.project.order_service.entity.OrderStatus.REJECTED)"
+            + " AND (:customerId IS NULL OR o.customerId = :customerId)"
+            + " AND (:status IS NULL OR o.status = :status)"
+            + " GROUP BY o.status")
+    List<Object[]> summarizeByStatus(
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate,
+            @Param("customerId") Long customerId,
+            @Param("status") OrderStatus status);
+
+    // Same filters, per product: [productId, orders, quantity, revenue of priced orders, quantity of unpriced orders].
+    @Query("SELECT o.productId, COUNT(o), SUM(o.quantity), COALESCE(SUM(o.totalPrice), 0),"
+            + " SUM(CASE WHEN o.totalPrice IS NULL THEN o.quantity ELSE 0 END)"
+            + " FROM Order o WHERE o.orderDate BETWEEN :startDate AND :endDate"
+            + " AND o.status NOT IN (com.project.order_service.entity.OrderStatus.ACCEPTED,"
+            + " com.project.order_service.entity.OrderStatus.REJECTED)"
+            + " AND (:customerId IS NULL OR o.customerId = :customerId)"
+            + " AND (:status IS NULL OR o.status = :status)"
+            + " GROUP BY o.productId ORDER BY SUM(o.quantity) DESC")
+    List<Object[]> summarizeByProduct(
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate,
+            @Param("customerId") Long customerId,
+            @Param("status") OrderStatus status);
+
+    // Orders among :ids that are in one of :statuses, row-locked until the transaction ends so the
+    // transitionStatus UPDATE that follows changes exactly these rows.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o FROM Order o WHERE o.orderId IN :ids AND o.status IN :statuses")
+    List<Order> findForStatusTransition(@Param("ids") Collection<Long> ids, @Param("statuses") Collection<OrderStatus> statuses);
+
+    // Set-based status change: only orders among :ids still in one of :fromStatuses move to :toStatus.
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Order o SET o.status = :toStatus WHERE o.orderId IN :ids AND o.status IN :fromStatuses")
+    int transitionStatus(
+            @Param("ids") Collection<Long> ids,
+            @Param("fromStatuses") Collection<OrderStatus> fromStatuses,
+            @Param("toStatus") OrderStatus toStatus);
+
+    // [orderId, status] for the given IDs; absent IDs do not exist.
+    @Query("SELECT o.orderId, o.status FROM Order o WHERE o.orderId IN :ids")
+    List<Object[]> findStatusesByIdIn(@Param("ids") Collection<Long> ids);
+
+    // IDs of orders in one status, oldest first; used to resume fulfilment of Accepted orders after a restart.
+    @Query("SELECT o.orderId FROM Order o WHERE o.status = :status ORDER BY o.orderId ASC")
+    List<Long> findIdsByStatus(@Param("status") OrderStatus status);
+
+    // Orders still missing a price snapshot, in id order, for the batched backfill.
+    List<Order> findByUnitPriceIsNullAndOrderIdGreaterThanOrderByOrderIdAsc(Long after, Limit limit);
+}
@@ -0,0 +1,144 @@
+package com.project.order_service.service;
+
+import com.project.order_service.exception.IdempotencyKeyInProgressException;
+import com.project.order_service.exception.IdempotencyKeyReuseException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Bounded in-process store of results keyed by a client-supplied Idempotency-Key.
+ * The first request for a key runs the action; later requests with the same key get its result back
+ * without running it again, and requests that arrive while it is still running wait for it, for at most
+ * waitTimeout before IdempotencyKeyInProgressException (409).
+ * Results are kept for a TTL after they complete and evicted least-recently-used once maxEntries is
+ * reached. Failures are not kept, so a retry after an error runs the action again.
+ */
+@Component
+@Slf4j
+public class IdempotencyStore {
+
+    private final Duration ttl;
+    private final int maxEntries;
+    private final Duration waitTimeout;
+    private final Clock clock;
+
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    @Autowired
+    public IdempotencyStore(@Value("${order.idempotency.ttl-seconds:86400}") long ttlSeconds,
+                            @Value("${order.idempotency.max-entries:10000}") int maxEntries,
+                            @Value("${order.idempotency.wait-timeout-ms:30000}") long waitTimeoutMillis) {
+        this(Duration.ofSeconds(ttlSeconds), maxEntries, Duration.ofMillis(waitTimeoutMillis), Clock.systemUTC());
+    }
+
+    IdempotencyStore(Duration ttl, int maxEntries, Duration waitTimeout, Clock clock) {
+        this.ttl = ttl;
+        this.maxEntries = maxEntries;
+        this.waitTimeout = waitTimeout;
+        this.clock = clock;
+    }
+
+    /**
+     * Runs the action once per key. The fingerprint identifies the request the key was first used with;
+     * reusing the key for a different request throws IdempotencyKeyReuseException.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Result<T> execute(String key, Object fingerprint, Supplier<T> action) {
+        Entry entry;
+        boolean owner = false;
+        synchronized (entries) {
+            entry = entries.get(key);
+            if (entry != null && entry.expiresAtMillis <= clock.millis()) {
+                entries.remove(key);
+                entry = null;
+            }
+            if (entry == null) {
+                entry = new Entry(fingerprint);
+                entries.put(key, entry);
+                evictEldest();
+                owner = true;
+            } else if (!Objects.equals(entry.fingerprint, fingerprint)) {
+                throw new IdempotencyKeyReuseException("Idempotency-Key " + key + " was already used for a different request.");
+            }
+        }
+
+        if (!owner) {
+            log.info("Idempotency-Key {} seen before; returning the original result.", key);
+            try {
+                return new Result<>((T) entry.result.get(waitTimeout.toMillis(), TimeUnit.MILLISECONDS), true);
+            } catch (TimeoutException e) {
+                throw new IdempotencyKeyInProgressException("A request with Idempotency-Key " + key + " is still in progress. Please retry shortly.");
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                if (e.getCause() instanceof Error cause) {
+                    throw cause;
+                }
+                throw new IllegalStateException("Request with Idempotency-Key " + key + " failed.", e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for Idempotency-Key " + key + ".", e);
+            }
+        }
+
+        T value;
+        try {
+            value = action.get();
+        } catch (Throwable e) { // Errors and sneaky checked exceptions too, or the key would stay in flight forever
+            synchronized (entries) {
+                entries.remove(key, entry);
+            }
+            entry.result.completeExceptionally(e);
+            throw e;
+        }
+        synchronized (entries) {
+            entry.expiresAtMillis = clock.millis() + ttl.toMillis();
+        }
+        entry.result.complete(value);
+        return new Result<>(value, false);
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    // Drops least-recently-used completed entries; in-flight ones stay so their waiters and retries still meet.
+    private void evictEldest() {
+        Iterator<Map.Entry<String, Entry>> eldest = entries.entrySet().iterator();
+        while (entries.size() > maxEntries && eldest.hasNext()) {
+            if (eldest.next().getValue().result.isDone()) {
+                eldest.remove();
+            }
+        }
+    }
+
+    public record Result<T>(T value, boolean replayed) {
+    }
+
+    private static final class Entry {
+        private final Object fingerprint;
+        private final CompletableFuture<Object> result = new CompletableFuture<>();
+        private long expiresAtMillis = Long.MAX_VALUE; // Set once the result is in
+
+        private Entry(Object fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.project.order_service.service;
+
+import com.project.order_service.entity.Order;
+import com.project.order_service.exception.OrderNotFoundException;
+import com.project.order_service.exception.OrderQueueFullException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the asynchronous order path (POST /api/orders?async=true). accept() stores the order as Accepted and
+ * returns straight away; a fixed pool of workers with a bounded queue then calls
+ * OrderService.fulfilAcceptedOrder, which reserves stock and moves the order to Pending or Rejected.
+ * Failures are retried with exponential backoff up to maxAttempts, after which the order is Rejected.
+ * Orders still Accepted when the service starts (e.g. after a crash) are queued again, and a periodic sweep
+ * queues any Accepted order that is not queued or waiting for a retry, e.g. one turned away by a full queue.
+ */
+@Service
+@Slf4j
+public class OrderFulfilmentWorker implements DisposableBean {
+
+    private final OrderService orderService;
+    private final ThreadPoolExecutor executor;
+    private final ScheduledExecutorService retryScheduler;
+    private final int maxAttempts;
+    private final Duration retryDelay;
+    // Orders queued, running or waiting for a retry; the sweep leaves these alone
+    private final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+
+    @Autowired
+    public OrderFulfilmentWorker(OrderService orderService,
+                                 @Value("${order.fulfilment.workers:4}") int workers,
+                                 @Value("${order.fulfilment.queue-capacity:1000}") int queueCapacity,
+                                 @Value("${order.fulfilment.max-attempts:5}") int maxAttempts,
+                                 @Value("${order.fulfilment.retry-delay-ms:500}") long retryDelayMillis) {
+        this(orderService, workers, queueCapacity, maxAttempts, Duration.ofMillis(retryDelayMillis));
+    }
+
+    OrderFulfilmentWorker(OrderService orderService, int workers, int queueCapacity, int maxAttempts, Duration retryDelay) {
+        this.orderService = orderService;
+        this.maxAttempts = maxAttempts;
+        this.retryDelay = retryDelay;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> new Thread(runnable, "order-fulfilment-" + threadCount.incrementAndGet()),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.retryScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "order-fulfilment-retry");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Stores the order as Accepted and queues its fulfilment. Throws OrderQueueFullException (429) without
+     * storing anything when the fulfilment queue is already full.
+     */
+    public Order accept(Order order) {
+        if (executor.getQueue().remainingCapacity() == 0) {
+            log.warn("Order fulfilment queue is full; not accepting order for product ID {}.", order.getProductId());
+            throw new OrderQueueFullException("Too many orders waiting for fulfilment. Please retry shortly.");
+        }
+        Order accepted = orderService.acceptOrder(order);
+        schedule(accepted.getOrderId(), 1);
+        return accepted;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeAcceptedOrders() {
+        List<Long> orderIds = orderService.getAcceptedOrderIds();
+        if (!orderIds.isEmpty()) {
+            log.info("Resuming fulfilment of {} Accepted orders.", orderIds.size());
+            queueAll(orderIds);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${order.fulfilment.sweep-interval-ms:30000}",
+            initialDelayString = "${order.fulfilment.sweep-interval-ms:30000}")
+    public void sweepAcceptedOrders() {
+        List<Long> stranded = orderService.getAcceptedOrderIds().stream()
+                .filter(orderId -> !inFlight.contains(orderId))
+                .toList();
+        if (!stranded.isEmpty()) {
+            log.info("Sweep found {} Accepted orders not queued for fulfilment.", stranded.size());
+            queueAll(stranded);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        retryScheduler.shutdownNow();
+        executor.shutdownNow();
+    }
+
+    // Queues orders until the queue is full; the rest stay Accepted for the next sweep.
+    private void queueAll(List<Long> orderIds) {
+        for (Long orderId : orderIds) {
+            if (!schedule(orderId, 1)) {
+                return;
+            }
+        }
+    }
+
+    // False when the queue is full; the order then stays Accepted until the next sweep.
+    private boolean schedule(Long orderId, int attempt) {
+        if (attempt == 1 && !inFlight.add(orderId)) {
+            return true; // Already queued, running or waiting for a retry
+        }
+        try {
+            executor.execute(() -> fulfil(orderId, attempt));
+            return true;
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(orderId);
+            log.warn("Order fulfilment queue is full; order ID {} stays Accepted until the next sweep.", orderId);
+            return false;
+        }
+    }
+
+    private void fulfil(Long orderId, int attempt) {
+        boolean retrying = false;
+        try {
+            orderService.fulfilAcceptedOrder(orderId);
+        } catch (OrderNotFoundException e) {
+            log.info("Order ID {} was deleted before fulfilment.", orderId);
+        } catch (RuntimeException e) {
+            if (attempt < maxAttempts) {
+                long delayMillis = retryDelay.toMillis() << (attempt - 1);
+                log.warn("Fulfilment of order ID {} failed (attempt {} of {}): {}. Retrying in {} ms.",
+                        orderId, attempt, maxAttempts, e.getMessage(), delayMillis);
+                try {
+                    retryScheduler.schedule(() -> schedule(orderId, attempt + 1), delayMillis, TimeUnit.MILLISECONDS);
+                    retrying = true;
+                } catch (RejectedExecutionException shuttingDown) {
+                    log.warn("Not retrying order ID {}: shutting down.", orderId);
+                }
+                return;
+            }
+            log.error("Fulfilment of order ID {} failed {} times: {}", orderId, attempt, e.getMessage());
+            try {
+                orderService.rejectAcceptedOrder(orderId);
+            } catch (RuntimeException rejectFailure) {
+                log.error("Could not reject order ID {}; it stays Accepted for the next sweep: {}", orderId, rejectFailure.getMessage());
+            }
+        } finally {
+            if (!retrying) {
+                inFlight.remove(orderId);
+            }
+        }
+    }
+}
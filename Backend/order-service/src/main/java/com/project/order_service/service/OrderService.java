@@ -25,19 +25,40 @@ package com.project.order_service.service;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Map; // Ensure this is imported if used in controller/service
+import java.util.function.Consumer;
 import com.project.order_service.entity.Order;
 import com.project.order_service.exception.OrderNotFoundException;
+import com.project.order_service.dto.OrderBatchResponseDto;
+import com.project.order_service.dto.CustomerOrderHistoryDto;
+import com.project.order_service.dto.OrderPageDto;
+import com.project.order_service.dto.OrderStatusUpdateResultDto;
+import com.project.order_service.dto.OrderSummaryDto;
 import com.project.order_service.dto.OrderResponseDto; // NEW IMPORT
 
 public interface OrderService {
     Order createOrder(Order order);
+    OrderBatchResponseDto createOrders(List<Order> orders);
+    Order acceptOrder(Order order);
+    Order fulfilAcceptedOrder(Long orderId);
+    Order rejectAcceptedOrder(Long orderId);
+    List<Long> getAcceptedOrderIds();
     List<OrderResponseDto> getAllOrders(); // MODIFIED RETURN TYPE
+    OrderPageDto getOrdersPage(Long after, int limit, String status, Long customerId, LocalDate startDate, LocalDate endDate);
+    long streamOrders(String status, Long customerId, LocalDate startDate, LocalDate endDate, Consumer<Order> sink);
     Order updateOrder(Long id, Order orderDetails) throws OrderNotFoundException;
     Order getOrderById(Long id);
     void deleteOrder(Long id);
     Order updateStatus(Long id, String status);
+    OrderStatusUpdateResultDto updateStatuses(List<Long> orderIds, String status);
     List<Order> getOrdersByDateRange(LocalDate startDate, LocalDate endDate);
     Long sumQuantityByProductIdAndDateRange(Long productId, LocalDate startDate, LocalDate endDate);
+    Map<Long, Long> sumQuantityByProductForDateRange(LocalDate startDate, LocalDate endDate, List<Long> productIds);
+    Map<String, Long> countOrdersByStatus(LocalDate startDate, LocalDate endDate);
+    CustomerOrderHistoryDto getCustomerOrders(Long customerId, String cursor, int limit);
+    OrderSummaryDto summarizeOrders(LocalDate startDate, LocalDate endDate, Long customerId, String status, boolean byProduct);
+    int rebuildDailyRollup();
+    int rebuildCustomerStats();
     Double getOrderProductPrice(Long orderId) throws OrderNotFoundException;
     Double calculateOrderTotalPrice(Long orderId) throws OrderNotFoundException;
+    int backfillPrices();
 }
\ No newline at end of file
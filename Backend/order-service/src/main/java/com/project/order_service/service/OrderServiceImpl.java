@@ -213,39 +213,119 @@
 package com.project.order_service.service;
 
 import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Optional; // NEW IMPORT
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 import java.util.stream.Collectors; // NEW IMPORT
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import com.project.order_service.entity.CustomerOrderStats;
 import com.project.order_service.entity.Order;
+import com.project.order_service.entity.OrderDailyRollup;
+import com.project.order_service.entity.OrderStatus;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import com.project.order_service.exception.OrderNotFoundException;
+import com.project.order_service.exception.OrderQueueFullException;
+import com.project.order_service.exception.OrderSaveTimeoutException;
+import com.project.order_service.repository.CustomerOrderStatsRepository;
+import com.project.order_service.repository.OrderDailyRollupRepository;
 import com.project.order_service.repository.OrderRepository;
+import feign.FeignException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import com.project.order_service.feignclient.ProductClient;
 import com.project.order_service.feignclient.StockClient;
 import com.project.order_service.dto.ProductDto;
+import com.project.order_service.dto.StockAdjustmentDto;
 import com.project.order_service.dto.StockDto;
+import com.project.order_service.dto.StockReservationDto;
+import com.project.order_service.dto.StockReservationResultDto;
+import com.project.order_service.dto.OrderBatchLineResultDto;
+import com.project.order_service.dto.OrderBatchResponseDto;
+import com.project.order_service.dto.CustomerOrderHistoryDto;
+import com.project.order_service.dto.OrderPageDto;
+import com.project.order_service.dto.OrderStatusUpdateResultDto;
+import com.project.order_service.dto.OrderSummaryDto;
 import com.project.order_service.dto.OrderResponseDto; // NEW IMPORT
 
 @Service
 @Slf4j
 public class OrderServiceImpl implements OrderService {
 
+    // Max product IDs sent per bulk lookup; keeps the query string well under URL length limits.
+    private static final int PRODUCT_BATCH_SIZE = 200;
+
+    // Orders saved per transaction by createOrders; a multiple of the JDBC batch size.
+    private static final int PERSIST_CHUNK_SIZE = 500;
+
+    // Order IDs moved per transaction by updateStatuses, i.e. the size of each IN (...) list.
+    private static final int STATUS_UPDATE_CHUNK_SIZE = 500;
+
+    // Most order IDs accepted by one bulk status update.
+    private static final int MAX_STATUS_UPDATE_IDS = 10_000;
+
+    // Upper bound for keyset pages; also one bulk product lookup per page at most.
+    private static final int MAX_PAGE_SIZE = PRODUCT_BATCH_SIZE;
+
+    // Reasons recorded in Stock Service's movement journal for stock taken by orders and given back.
+    private static final String STOCK_REASON_ORDER = "ORDER";
+    private static final String STOCK_REASON_RELEASE = "ORDER_RELEASE";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
     @Autowired
     private OrderRepository orderRepository;
 
+    @Autowired
+    private OrderDailyRollupRepository rollupRepository;
+
+    @Autowired
+    private CustomerOrderStatsRepository customerStatsRepository;
+
+    // Wraps just the database writes, so no connection is held during Product/Stock Service calls.
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
     @Autowired
     private ProductClient productClient;
     @Autowired
     private StockClient stockClient;
 
+    @Autowired
+    private OrderWriteBehindQueue writeBehindQueue;
+
+    @PostConstruct
+    void startWriteBehind() {
+        writeBehindQueue.start(this::persistNewOrders);
+    }
+
     @Override
     public Order createOrder(Order order) {
         log.debug("Attempting to create order: {}", order);
+        if (writeBehindQueue.isEnabled() && !writeBehindQueue.hasCapacity()) {
+            log.warn("Order write-behind queue is full; rejecting order for product ID {}.", order.getProductId());
+            throw new OrderQueueFullException("Too many orders waiting to be saved. Please retry shortly.");
+        }
 
         // 1. Validate Product Existence and get price from Product Service
         ProductDto product = productClient.getProductById(order.getProductId())
@@ -256,59 +336,551 @@ public class OrderServiceImpl implements OrderService {
         log.info("Product found: {} with price: {}", product.getName(), product.getPrice());
 
 
-        // 2. Check and Deduct Stock from Stock Service
-        StockDto stock = stockClient.getStockByProductId(order.getProductId());
-        if (stock == null) {
+        // 2. Deduct Stock in Stock Service (single conditional update, no read-modify-write)
+        StockDto stock;
+        try {
+            stock = stockClient.decrementStock(order.getProductId(), new StockAdjustmentDto(order.getQuantity(), STOCK_REASON_ORDER, null));
+        } catch (FeignException.Conflict e) {
+            log.warn("Insufficient stock for product ID {}. Requested: {}", order.getProductId(), order.getQuantity());
+            throw new RuntimeException("Insufficient stock for product ID: " + order.getProductId());
+        } catch (FeignException.NotFound e) {
             log.warn("Stock information not found for product ID {} during order creation.", order.getProductId());
             throw new RuntimeException("Stock information not available for product ID: " + order.getProductId());
         }
-
-        if (stock.getQuantity() < order.getQuantity()) {
-            log.warn("Insufficient stock for product ID {}. Available: {}, Requested: {}",
-                    order.getProductId(), stock.getQuantity(), order.getQuantity());
-            throw new RuntimeException("Insufficient stock for product ID: " + order.getProductId());
-        }
-
-        // Increase stock
-        stock.setQuantity(stock.getQuantity() + order.getQuantity());
-        stockClient.updateStock(order.getProductId(), stock);
-        log.info("Stock updated for product ID {}. New quantity: {}", order.getProductId(), stock.getQuantity());
+        log.info("Stock updated for product ID {}. New quantity: {}", order.getProductId(), stock != null ? stock.getQuantity() : null);
 
 
         // 3. Set order details and save
         order.setOrderDate(LocalDate.now());
-        order.setStatus("Pending"); // Initial status
+        order.setStatus(OrderStatus.PENDING); // Initial status
+        order.setUnitPrice(product.getPrice()); // Snapshot the price paid; later catalog changes don't affect this order
+        order.setTotalPrice(lineTotal(product.getPrice(), order.getQuantity()));
         try {
-            Order savedOrder = orderRepository.save(order);
+            Order savedOrder = saveNewOrder(order, () -> releaseStock(order.getProductId(), order.getQuantity(), null));
             log.info("Order saved successfully with ID: {}", savedOrder.getOrderId());
             return savedOrder;
+        } catch (OrderSaveTimeoutException e) {
+            throw e; // The stock is released once the order is known not to be saved
+        } catch (OrderQueueFullException e) {
+            log.warn("Order write-behind queue filled up; releasing stock for product ID {}.", order.getProductId());
+            releaseStock(order.getProductId(), order.getQuantity(), null);
+            throw e;
         } catch (Exception e) {
             log.error("Failed to save order: {}", e.getMessage(), e);
-            // Consider rolling back stock if order saving fails
-            // For simplicity, we're not implementing distributed transaction rollback here,
-            // but in a real-world scenario, you'd need Sagas or similar patterns.
+            // Give the reserved units back; this is a compensating call, not a distributed transaction.
+            releaseStock(order.getProductId(), order.getQuantity(), null);
             throw new RuntimeException("Failed to create order: " + e.getMessage(), e);
         }
     }
 
+    /**
+     * First half of POST /api/orders?async=true: checks the request shape only and stores the order as Accepted,
+     * without calling Product or Stock Service. OrderFulfilmentWorker then calls fulfilAcceptedOrder.
+     */
+    @Override
+    public Order acceptOrder(Order order) {
+        if (order.getCustomerId() == null || order.getProductId() == null) {
+            throw new IllegalArgumentException("customerId and productId are required.");
+        }
+        if (order.getQuantity() <= 0) {
+            throw new IllegalArgumentException("Quantity must be positive, got " + order.getQuantity() + ".");
+        }
+        order.setOrderId(null);
+        order.setOrderDate(LocalDate.now());
+        order.setStatus(OrderStatus.ACCEPTED);
+        order.setUnitPrice(null);
+        order.setTotalPrice(null);
+        Order accepted = saveNewOrder(order, () -> { });
+        log.info("Order accepted with ID: {} for product ID {}.", accepted.getOrderId(), accepted.getProductId());
+        return accepted;
+    }
+
+    /**
+     * Second half of the async path: resolves the product, reserves stock and moves an Accepted order to Pending
+     * (with its price snapshot), or to Rejected when the product is unknown or stock is short. Orders no longer
+     * Accepted are returned unchanged, so repeated calls are harmless. Transient failures (Product or Stock Service
+     * unavailable, database errors) are thrown for the caller to retry. The stock decrement carries the order ID as
+     * its reference, and Stock Service applies it at most once, so a retry after a lost response does not reserve twice.
+     */
+    @Override
+    public Order fulfilAcceptedOrder(Long orderId) {
+        Order order = orderRepository.findById(orderId)
+                .orElseThrow(() -> new OrderNotFoundException("Order with ID " + orderId + " not found."));
+        if (order.getStatus() != OrderStatus.ACCEPTED) {
+            log.info("Order ID {} is already {}; nothing to fulfil.", orderId, order.getStatus());
+            return order;
+        }
+
+        Optional<ProductDto> product = productClient.getProductById(order.getProductId());
+        if (product.isEmpty()) {
+            log.warn("Rejecting order ID {}: product with ID {} not found.", orderId, order.getProductId());
+            return completeAcceptedOrder(orderId, OrderStatus.REJECTED, null);
+        }
+        try {
+            stockClient.decrementStock(order.getProductId(),
+                    new StockAdjustmentDto(order.getQuantity(), STOCK_REASON_ORDER, String.valueOf(orderId)));
+        } catch (FeignException.Conflict | FeignException.NotFound e) {
+            log.warn("Rejecting order ID {}: stock for product ID {} is short or missing (HTTP {}).", orderId, order.getProductId(), e.status());
+            return completeAcceptedOrder(orderId, OrderStatus.REJECTED, null);
+        }
+        try {
+            return completeAcceptedOrder(orderId, OrderStatus.PENDING, product.get().getPrice());
+        } catch (RuntimeException e) {
+            releaseStock(order.getProductId(), order.getQuantity(), String.valueOf(orderId));
+            throw e;
+        }
+    }
+
+    /**
+     * Gives up on an Accepted order. A failed attempt may still have reserved stock under the order ID, so that
+     * reservation is released first; Stock Service ignores the release if nothing was reserved. If the release
+     * fails, the exception is thrown and the order stays Accepted for a later attempt.
+     */
+    @Override
+    public Order rejectAcceptedOrder(Long orderId) {
+        Order order = orderRepository.findById(orderId)
+                .orElseThrow(() -> new OrderNotFoundException("Order with ID " + orderId + " not found."));
+        if (order.getStatus() != OrderStatus.ACCEPTED) {
+            log.info("Order ID {} is already {}; not rejecting it.", orderId, order.getStatus());
+            return order;
+        }
+        log.warn("Rejecting order ID {} after repeated fulfilment failures.", orderId);
+        stockClient.releaseStock(order.getProductId(),
+                new StockAdjustmentDto(order.getQuantity(), STOCK_REASON_RELEASE, String.valueOf(orderId)));
+        return completeAcceptedOrder(orderId, OrderStatus.REJECTED, null);
+    }
+
+    @Override
+    public List<Long> getAcceptedOrderIds() {
+        return orderRepository.findIdsByStatus(OrderStatus.ACCEPTED);
+    }
+
+    // Moves an order out of Accepted, re-reading it in the transaction so a concurrent change is not overwritten.
+    private Order completeAcceptedOrder(Long orderId, OrderStatus status, Double unitPrice) {
+        return transactionTemplate.execute(tx -> {
+            Order order = orderRepository.findById(orderId)
+                    .orElseThrow(() -> new OrderNotFoundException("Order with ID " + orderId + " not found."));
+            if (order.getStatus() != OrderStatus.ACCEPTED) {
+                throw new IllegalStateException("Order " + orderId + " changed to " + order.getStatus() + " during fulfilment.");
+            }
+            OrderDailyRollup before = OrderDailyRollup.of(order);
+            order.setStatus(status);
+            if (unitPrice != null) {
+                order.setUnitPrice(unitPrice);
+                order.setTotalPrice(lineTotal(unitPrice, order.getQuantity()));
+            }
+            Order saved = orderRepository.save(order);
+            updateRollup(List.of(before), List.of(OrderDailyRollup.of(saved)));
+            log.info("Order ID {} moved from {} to {}.", orderId, OrderStatus.ACCEPTED, status);
+            return saved;
+        });
+    }
+
+    /**
+     * Creates many orders with a constant number of remote calls: the lines are validated locally, products are
+     * resolved with the bulk lookup, stock for all remaining lines is reserved with one Stock Service call, and
+     * the reserved orders are inserted in JDBC batches. Each line succeeds or fails on its own.
+     * Every reserved line carries its own reference, so when the reservation call fails after Stock Service may
+     * have committed it, the lines are released by reference and nothing that was never reserved is given back.
+     */
+    @Override
+    public OrderBatchResponseDto createOrders(List<Order> orders) {
+        log.info("Attempting to create {} orders in one batch.", orders.size());
+        String[] errors = new String[orders.size()];
+
+        // 1. Validate the lines, then every referenced product with one bulk lookup per PRODUCT_BATCH_SIZE IDs
+        for (int i = 0; i < orders.size(); i++) {
+            Order order = orders.get(i);
+            if (order == null || order.getCustomerId() == null || order.getProductId() == null) {
+                errors[i] = "customerId and productId are required.";
+            } else if (order.getQuantity() <= 0) {
+                errors[i] = "Quantity must be positive, got " + order.getQuantity() + ".";
+            }
+        }
+        Map<Long, ProductDto> productsById = fetchProductsByIds(pendingLines(errors).stream()
+                .map(i -> orders.get(i).getProductId())
+                .collect(Collectors.toSet()));
+        for (int i : pendingLines(errors)) {
+            if (!productsById.containsKey(orders.get(i).getProductId())) {
+                errors[i] = "Product with ID " + orders.get(i).getProductId() + " not found.";
+            }
+        }
+
+        // 2. Reserve stock for all remaining lines in one call
+        List<Integer> toReserve = pendingLines(errors);
+        if (!toReserve.isEmpty()) {
+            String batchReference = "batch-" + UUID.randomUUID();
+            try {
+                List<StockReservationResultDto> reservations = stockClient.decrementStockBatch(toReserve.stream()
+                        .map(i -> new StockReservationDto(orders.get(i).getProductId(), orders.get(i).getQuantity(),
+                                STOCK_REASON_ORDER, lineReference(batchReference, i)))
+                        .collect(Collectors.toList()));
+                List<StockReservationResultDto> matched = matchReservations(orders, toReserve, reservations);
+                for (int k = 0; k < toReserve.size(); k++) {
+                    if (!matched.get(k).isReserved()) {
+                        errors[toReserve.get(k)] = matched.get(k).getMessage();
+                    }
+                }
+            } catch (Exception e) {
+                log.error("Stock reservation for {} order lines failed: {}", toReserve.size(), e.getMessage());
+                // Stock Service may have committed the batch before the failure; give back whatever it reserved
+                toReserve.forEach(i -> releaseStock(orders.get(i).getProductId(), orders.get(i).getQuantity(),
+                        lineReference(batchReference, i)));
+                toReserve.forEach(i -> errors[i] = "Stock reservation failed: " + e.getMessage());
+            }
+        }
+
+        // 3. Persist the reserved orders; IDs come from the pooled sequence, so the inserts are batched
+        List<Integer> toSave = pendingLines(errors);
+        Long[] orderIds = new Long[orders.size()];
+        for (int from = 0; from < toSave.size(); from += PERSIST_CHUNK_SIZE) {
+            List<Integer> chunk = toSave.subList(from, Math.min(from + PERSIST_CHUNK_SIZE, toSave.size()));
+            List<Order> entities = new ArrayList<>(chunk.size());
+            for (int i : chunk) {
+                Order order = orders.get(i);
+                ProductDto product = productsById.get(order.getProductId());
+                order.setOrderId(null);
+                order.setOrderDate(LocalDate.now());
+                order.setStatus(OrderStatus.PENDING);
+                order.setUnitPrice(product.getPrice());
+                order.setTotalPrice(lineTotal(product.getPrice(), order.getQuantity()));
+                entities.add(order);
+            }
+            try {
+                List<Order> saved = persistNewOrders(entities);
+                for (int k = 0; k < chunk.size(); k++) {
+                    orderIds[chunk.get(k)] = saved.get(k).getOrderId();
+                }
+            } catch (Exception e) {
+                log.error("Failed to save {} orders: {}", chunk.size(), e.getMessage(), e);
+                // Give the reserved units back, one call per product
+                entities.stream()
+                        .collect(Collectors.groupingBy(Order::getProductId, Collectors.summingInt(Order::getQuantity)))
+                        .forEach((productId, quantity) -> releaseStock(productId, quantity, null));
+                chunk.forEach(i -> errors[i] = "Failed to create order: " + e.getMessage());
+            }
+        }
+
+        // 4. Report every line in request order
+        List<OrderBatchLineResultDto> results = new ArrayList<>(orders.size());
+        int created = 0;
+        for (int i = 0; i < orders.size(); i++) {
+            boolean ok = errors[i] == null;
+            created += ok ? 1 : 0;
+            results.add(OrderBatchLineResultDto.builder()
+                    .line(i)
+                    .created(ok)
+                    .orderId(ok ? orderIds[i] : null)
+                    .error(errors[i])
+                    .build());
+        }
+        log.info("Batch order creation finished: {} created, {} failed.", created, orders.size() - created);
+        return OrderBatchResponseDto.builder()
+                .created(created)
+                .failed(orders.size() - created)
+                .results(results)
+                .build();
+    }
+
+    /**
+     * Inserts one new order with its rollup delta, through the write-behind queue when that is enabled. If the wait
+     * for the queue times out, the order may still be in a batch being written; undoIfNotSaved runs later, off the
+     * flusher thread, only if that batch fails.
+     */
+    private Order saveNewOrder(Order order, Runnable undoIfNotSaved) {
+        if (writeBehindQueue.isEnabled()) {
+            // Shares a commit with other queued orders; returns once that commit is done
+            CompletableFuture<Order> saved = writeBehindQueue.submit(order);
+            try {
+                return writeBehindQueue.await(saved);
+            } catch (OrderSaveTimeoutException e) {
+                saved.whenCompleteAsync((result, error) -> {
+                    if (error != null) {
+                        undoIfNotSaved.run();
+                    }
+                });
+                throw e;
+            }
+        }
+        return transactionTemplate.execute(tx -> {
+            Order saved = orderRepository.save(order);
+            updateRollup(List.of(), List.of(OrderDailyRollup.of(saved)));
+            updateCustomerStats(List.of(), List.of(CustomerOrderStats.of(saved)));
+            return saved;
+        });
+    }
+
+    // Inserts new orders and their rollup deltas in one transaction; used by the batch endpoint and the write-behind flusher.
+    private List<Order> persistNewOrders(List<Order> orders) {
+        return transactionTemplate.execute(tx -> {
+            List<Order> saved = orderRepository.saveAll(orders);
+            updateRollup(List.of(), saved.stream().map(OrderDailyRollup::of).toList());
+            updateCustomerStats(List.of(), saved.stream().map(CustomerOrderStats::of).toList());
+            return saved;
+        });
+    }
+
+    /**
+     * Moves order contributions in order_daily_rollup: subtracts the removed ones and adds the added ones, merging
+     * deltas per product/day/status so each affected row gets one upsert. Call inside the transaction that writes
+     * the orders, so the rollup never disagrees with the orders table.
+     */
+    private void updateRollup(List<OrderDailyRollup> removed, List<OrderDailyRollup> added) {
+        Map<OrderDailyRollup.Key, OrderDailyRollup> deltas = new LinkedHashMap<>();
+        removed.forEach(contribution -> mergeRollupDelta(deltas, contribution, -1));
+        added.forEach(contribution -> mergeRollupDelta(deltas, contribution, 1));
+        for (OrderDailyRollup delta : deltas.values()) {
+            if (delta.getOrderCount() != 0 || delta.getQuantity() != 0 || delta.getRevenue() != 0.0) {
+                rollupRepository.applyDelta(delta.getProductId(), delta.getOrderDate(), delta.getStatus(),
+                        delta.getOrderCount(), delta.getQuantity(), delta.getRevenue());
+            }
+        }
+    }
+
+    /**
+     * Moves order contributions in customer_order_stats with one upsert per affected customer; call in the
+     * transaction that writes the orders, like updateRollup. The upsert only moves the last order date forward, so
+     * a customer who lost an order no later than everything added gets the date re-read from the orders table.
+     */
+    private void updateCustomerStats(List<CustomerOrderStats> removed, List<CustomerOrderStats> added) {
+        Map<Long, CustomerOrderStats> deltas = new LinkedHashMap<>();
+        Map<Long, LocalDate> latestRemoved = new HashMap<>();
+        for (CustomerOrderStats contribution : removed) {
+            CustomerOrderStats delta = customerStatsDelta(deltas, contribution.getCustomerId());
+            delta.setOrderCount(delta.getOrderCount() - contribution.getOrderCount());
+            delta.setQuantity(delta.getQuantity() - contribution.getQuantity());
+            latestRemoved.merge(contribution.getCustomerId(), contribution.getLastOrderDate(), OrderServiceImpl::later);
+        }
+        for (CustomerOrderStats contribution : added) {
+            CustomerOrderStats delta = customerStatsDelta(deltas, contribution.getCustomerId());
+            delta.setOrderCount(delta.getOrderCount() + contribution.getOrderCount());
+            delta.setQuantity(delta.getQuantity() + contribution.getQuantity());
+            delta.setLastOrderDate(later(delta.getLastOrderDate(), contribution.getLastOrderDate()));
+        }
+        for (CustomerOrderStats delta : deltas.values()) {
+            if (delta.getOrderCount() != 0 || delta.getQuantity() != 0 || delta.getLastOrderDate() != null) {
+                customerStatsRepository.applyDelta(delta.getCustomerId(), delta.getOrderCount(), delta.getQuantity(), delta.getLastOrderDate());
+            }
+        }
+        latestRemoved.forEach((customerId, removedDate) -> {
+            LocalDate addedDate = deltas.get(customerId).getLastOrderDate();
+            if (addedDate == null || addedDate.isBefore(removedDate)) {
+                customerStatsRepository.refreshLastOrderDate(customerId);
+            }
+        });
+    }
+
+    private static CustomerOrderStats customerStatsDelta(Map<Long, CustomerOrderStats> deltas, Long customerId) {
+        return deltas.computeIfAbsent(customerId, id -> new CustomerOrderStats(id, 0, 0, null));
+    }
+
+    private static LocalDate later(LocalDate a, LocalDate b) {
+        if (a == null) {
+            return b;
+        }
+        return b == null || a.isAfter(b) ? a : b;
+    }
+
+    private static void mergeRollupDelta(Map<OrderDailyRollup.Key, OrderDailyRollup> deltas, OrderDailyRollup contribution, int sign) {
+        OrderDailyRollup delta = deltas.computeIfAbsent(contribution.getKey(), key ->
+                new OrderDailyRollup(key.getProductId(), key.getOrderDate(), key.getStatus(), 0, 0, 0.0));
+        delta.setOrderCount(delta.getOrderCount() + sign * contribution.getOrderCount());
+        delta.setQuantity(delta.getQuantity() + sign * contribution.getQuantity());
+        delta.setRevenue(delta.getRevenue() + sign * contribution.getRevenue());
+    }
+
+    @Override
+    @Transactional
+    public int rebuildDailyRollup() {
+        log.info("Rebuilding order daily rollup from the orders table.");
+        int removed = rollupRepository.deleteAllRows();
+        int rows = rollupRepository.insertFromOrders();
+        log.info("Rebuilt order daily rollup: {} rows replaced by {}.", removed, rows);
+        return rows;
+    }
+
+    @Override
+    @Transactional
+    public int rebuildCustomerStats() {
+        log.info("Rebuilding customer order stats from the orders table.");
+        int removed = customerStatsRepository.deleteAllRows();
+        int rows = customerStatsRepository.insertFromOrders();
+        log.info("Rebuilt customer order stats: {} rows replaced by {}.", removed, rows);
+        return rows;
+    }
+
+    private static List<Integer> pendingLines(String[] errors) {
+        List<Integer> pending = new ArrayList<>();
+        for (int i = 0; i < errors.length; i++) {
+            if (errors[i] == null) {
+                pending.add(i);
+            }
+        }
+        return pending;
+    }
+
+    private static String lineReference(String batchReference, int line) {
+        return batchReference + "-" + line;
+    }
+
+    /**
+     * Pairs each reserved line with its result by product ID, taking the results for a product in the order they
+     * come back, so a response in a different product order is still read correctly. Throws when the response
+     * does not have exactly one result per line.
+     */
+    private static List<StockReservationResultDto> matchReservations(List<Order> orders, List<Integer> lines,
+                                                                     List<StockReservationResultDto> reservations) {
+        if (reservations == null || reservations.size() != lines.size()) {
+            throw new IllegalStateException("Stock Service returned " + (reservations == null ? 0 : reservations.size())
+                    + " reservation results for " + lines.size() + " lines.");
+        }
+        Map<Long, ArrayDeque<StockReservationResultDto>> byProduct = new HashMap<>();
+        reservations.forEach(result -> byProduct.computeIfAbsent(result.getProductId(), id -> new ArrayDeque<>()).add(result));
+        List<StockReservationResultDto> matched = new ArrayList<>(lines.size());
+        for (int i : lines) {
+            ArrayDeque<StockReservationResultDto> results = byProduct.get(orders.get(i).getProductId());
+            if (results == null || results.isEmpty()) {
+                throw new IllegalStateException("Stock Service returned no reservation result for product ID "
+                        + orders.get(i).getProductId() + ".");
+            }
+            matched.add(results.poll());
+        }
+        return matched;
+    }
+
+    // Gives reserved units back; with a reference only what that reference still holds, so repeats are harmless.
+    private void releaseStock(Long productId, int quantity, String referenceId) {
+        try {
+            if (referenceId != null) {
+                stockClient.releaseStock(productId, new StockAdjustmentDto(quantity, STOCK_REASON_RELEASE, referenceId));
+            } else {
+                stockClient.incrementStock(productId, new StockAdjustmentDto(quantity, STOCK_REASON_RELEASE, null));
+            }
+            log.info("Released {} units of stock for product ID {} after failed order creation.", quantity, productId);
+        } catch (Exception e) {
+            log.error("Failed to release {} units of stock for product ID {}: {}", quantity, productId, e.getMessage());
+        }
+    }
+
     @Override
     public List<OrderResponseDto> getAllOrders() { // MODIFIED METHOD SIGNATURE
         log.info("Fetching all orders and enriching with product names.");
-        List<Order> orders = orderRepository.findAll();
+        return toResponseDtos(orderRepository.findAll());
+    }
+
+    @Override
+    public OrderPageDto getOrdersPage(Long after, int limit, String status, Long customerId, LocalDate startDate, LocalDate endDate) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        if (isUnknownStatus(status)) {
+            return OrderPageDto.builder().items(List.of()).hasMore(false).build();
+        }
+        OrderStatus statusFilter = OrderStatus.parse(status).orElse(null);
+        log.info("Fetching order page after ID {} (limit {}, status {}, customer {}, {} to {}).",
+                after, pageSize, statusFilter, customerId, startDate, endDate);
+
+        // Ask for one extra row to learn whether another page exists without a count query.
+        List<Order> orders = orderRepository.findPageAfter(after != null ? after : 0L, statusFilter, customerId,
+                startDate, endDate, Limit.of(pageSize + 1));
+        boolean hasMore = orders.size() > pageSize;
+        if (hasMore) {
+            orders = orders.subList(0, pageSize);
+        }
+        Long nextCursor = hasMore ? orders.get(orders.size() - 1).getOrderId() : null;
+
+        return OrderPageDto.builder()
+                .items(toResponseDtos(orders))
+                .nextCursor(nextCursor)
+                .hasMore(hasMore)
+                .build();
+    }
+
+    /**
+     * One page of a customer's orders, newest first, plus their totals from customer_order_stats (a primary key
+     * read, however many orders the customer has). The cursor is "orderDate:orderId" of the last order returned.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public CustomerOrderHistoryDto getCustomerOrders(Long customerId, String cursor, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        log.info("Fetching order history for customer {} (cursor {}, limit {}).", customerId, cursor, pageSize);
+        CustomerOrderStats stats = customerStatsRepository.findById(customerId)
+                .orElseGet(() -> new CustomerOrderStats(customerId, 0, 0, null));
+
+        // Ask for one extra row to learn whether another page exists without a count query.
+        List<Order> orders;
+        if (cursor == null || cursor.isBlank()) {
+            orders = orderRepository.findCustomerHistory(customerId, Limit.of(pageSize + 1));
+        } else {
+            String[] parts = cursor.split(":", 2);
+            try {
+                orders = orderRepository.findCustomerHistoryBefore(customerId, LocalDate.parse(parts[0]),
+                        Long.parseLong(parts[1]), Limit.of(pageSize + 1));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+            }
+        }
+        boolean hasMore = orders.size() > pageSize;
+        if (hasMore) {
+            orders = orders.subList(0, pageSize);
+        }
+        Order last = hasMore ? orders.get(orders.size() - 1) : null;
+
+        return CustomerOrderHistoryDto.builder()
+                .customerId(customerId)
+                .orderCount(stats.getOrderCount())
+                .totalQuantity(stats.getQuantity())
+                .lastOrderDate(stats.getLastOrderDate())
+                .items(toResponseDtos(orders))
+                .nextCursor(last != null ? last.getOrderDate() + ":" + last.getOrderId() : null)
+                .hasMore(hasMore)
+                .build();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long streamOrders(String status, Long customerId, LocalDate startDate, LocalDate endDate, Consumer<Order> sink) {
+        if (isUnknownStatus(status)) {
+            return 0;
+        }
+        OrderStatus statusFilter = OrderStatus.parse(status).orElse(null);
+        long count = 0;
+        try (Stream<Order> orders = orderRepository.streamFiltered(statusFilter, customerId, startDate, endDate)) {
+            Iterator<Order> iterator = orders.iterator();
+            while (iterator.hasNext()) {
+                Order order = iterator.next();
+                sink.accept(order);
+                entityManager.detach(order); // Keep the persistence context from growing with the stream
+                count++;
+            }
+        }
+        log.info("Streamed {} orders (status {}, customer {}, {} to {}).", count, statusFilter, customerId, startDate, endDate);
+        return count;
+    }
+
+    // A status filter that names no known status matches no orders.
+    private static boolean isUnknownStatus(String status) {
+        return status != null && !status.isBlank() && OrderStatus.parse(status).isEmpty();
+    }
+
+    private List<OrderResponseDto> toResponseDtos(List<Order> orders) {
+        Map<Long, ProductDto> productsById = fetchProductsByIds(orders.stream()
+                .map(Order::getProductId)
+                .collect(Collectors.toSet()));
 
         return orders.stream()
                 .map(order -> {
+                    ProductDto product = productsById.get(order.getProductId());
                     String productName = "Unknown Product"; // Default value
-                    try {
-                        Optional<ProductDto> productOptional = productClient.getProductById(order.getProductId());
-                        if (productOptional.isPresent()) {
-                            productName = productOptional.get().getName();
-                        } else {
-                            log.warn("Product with ID {} not found for order ID {} during enrichment.", order.getProductId(), order.getOrderId());
-                        }
-                    } catch (Exception e) {
-                        log.error("Error fetching product details for ID {} (Order ID {}): {}", order.getProductId(), order.getOrderId(), e.getMessage());
+                    if (product != null) {
+                        productName = product.getName();
+                    } else {
+                        log.warn("Product with ID {} not found for order ID {} during enrichment.", order.getProductId(), order.getOrderId());
                     }
+                    // Orders without a price snapshot are priced from the same bulk lookup, never per row.
+                    Double unitPrice = order.getUnitPrice() != null ? order.getUnitPrice()
+                            : product != null ? product.getPrice() : null;
+                    Double total = order.getTotalPrice() != null ? order.getTotalPrice()
+                            : lineTotal(unitPrice, order.getQuantity());
 
                     return OrderResponseDto.builder()
                             .orderId(order.getOrderId())
@@ -317,12 +889,38 @@ public class OrderServiceImpl implements OrderService {
                             .productName(productName) // Set the fetched product name
                             .quantity(order.getQuantity())
                             .orderDate(order.getOrderDate())
-                            .status(order.getStatus())
+                            .status(order.getStatus().getLabel())
+                            .unitPrice(unitPrice)
+                            .totalPrice(total)
+                            .lineTotal(total)
                             .build();
                 })
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Resolves the given product IDs through the Product Service bulk endpoint,
+     * PRODUCT_BATCH_SIZE IDs per call, so enrichment costs one round trip per chunk
+     * instead of one per order. A failed chunk is logged and its products are left out.
+     */
+    private Map<Long, ProductDto> fetchProductsByIds(Collection<Long> productIds) {
+        Map<Long, ProductDto> productsById = new HashMap<>();
+        List<Long> ids = new ArrayList<>(productIds);
+        for (int from = 0; from < ids.size(); from += PRODUCT_BATCH_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(from + PRODUCT_BATCH_SIZE, ids.size()));
+            try {
+                List<ProductDto> products = productClient.getProductsByIds(chunk);
+                if (products != null) {
+                    products.forEach(product -> productsById.put(product.getId(), product));
+                }
+            } catch (Exception e) {
+                log.error("Error fetching product details for {} product IDs: {}", chunk.size(), e.getMessage());
+            }
+        }
+        log.debug("Resolved {} of {} distinct product IDs.", productsById.size(), ids.size());
+        return productsById;
+    }
+
     @Override
     @Transactional // Ensures the update operation is atomic
     public Order updateOrder(Long id, Order orderDetails) throws OrderNotFoundException {
@@ -330,13 +928,31 @@ public class OrderServiceImpl implements OrderService {
         Order existingOrder = orderRepository.findById(id)
                 .orElseThrow(() -> new OrderNotFoundException("Order not found with ID: " + id));
 
+        boolean productChanged = !Objects.equals(existingOrder.getProductId(), orderDetails.getProductId());
+        OrderDailyRollup before = OrderDailyRollup.of(existingOrder);
+        CustomerOrderStats customerBefore = CustomerOrderStats.of(existingOrder);
+
         existingOrder.setCustomerId(orderDetails.getCustomerId());
         existingOrder.setProductId(orderDetails.getProductId());
         existingOrder.setQuantity(orderDetails.getQuantity());
         existingOrder.setOrderDate(orderDetails.getOrderDate());
         existingOrder.setStatus(orderDetails.getStatus());
 
-        return orderRepository.save(existingOrder);
+        // Keep the original unit price unless the order now refers to a different product.
+        if (productChanged || existingOrder.getUnitPrice() == null) {
+            ProductDto product = productClient.getProductById(existingOrder.getProductId())
+                    .orElseThrow(() -> {
+                        log.warn("Product with ID {} not found for update of order ID {}.", existingOrder.getProductId(), id);
+                        return new OrderNotFoundException("Product with ID " + existingOrder.getProductId() + " not found.");
+                    });
+            existingOrder.setUnitPrice(product.getPrice());
+        }
+        existingOrder.setTotalPrice(lineTotal(existingOrder.getUnitPrice(), existingOrder.getQuantity()));
+
+        Order saved = orderRepository.save(existingOrder);
+        updateRollup(List.of(before), List.of(OrderDailyRollup.of(saved)));
+        updateCustomerStats(List.of(customerBefore), List.of(CustomerOrderStats.of(saved)));
+        return saved;
     }
 
     @Override
@@ -350,17 +966,22 @@ public class OrderServiceImpl implements OrderService {
     }
 
     @Override
+    @Transactional
     public void deleteOrder(Long id) {
         log.info("Attempting to delete order with ID: {}", id);
-        if (!orderRepository.existsById(id)) {
-            log.warn("Attempted to delete non-existent order with ID: {}", id);
-            throw new OrderNotFoundException("Order with ID " + id + " not found, cannot delete.");
-        }
-        orderRepository.deleteById(id);
+        Order order = orderRepository.findById(id)
+                .orElseThrow(() -> {
+                    log.warn("Attempted to delete non-existent order with ID: {}", id);
+                    return new OrderNotFoundException("Order with ID " + id + " not found, cannot delete.");
+                });
+        orderRepository.delete(order);
+        updateRollup(List.of(OrderDailyRollup.of(order)), List.of());
+        updateCustomerStats(List.of(CustomerOrderStats.of(order)), List.of());
         log.info("Order with ID: {} deleted successfully.", id);
     }
 
     @Override
+    @Transactional
     public Order updateStatus(Long id, String status) {
         log.info("Attempting to update status for order ID: {} to '{}'", id, status);
         Order order = orderRepository.findById(id)
@@ -368,9 +989,11 @@ public class OrderServiceImpl implements OrderService {
                     log.warn("Order with ID {} not found for status update.", id);
                     return new OrderNotFoundException("Order with ID " + id + " not found, cannot update status.");
                 });
-        order.setStatus(status.trim());
+        OrderDailyRollup before = OrderDailyRollup.of(order);
+        order.setStatus(OrderStatus.from(status)); // IllegalArgumentException for an unknown status
         try {
             Order updatedOrder = orderRepository.save(order);
+            updateRollup(List.of(before), List.of(OrderDailyRollup.of(updatedOrder)));
             log.info("Order ID: {} status successfully updated to '{}'", id, updatedOrder.getStatus());
             return updatedOrder;
         } catch (Exception e) {
@@ -379,6 +1002,74 @@ public class OrderServiceImpl implements OrderService {
         }
     }
 
+    /**
+     * Moves many orders to one status with a few set-based statements per chunk of STATUS_UPDATE_CHUNK_SIZE IDs:
+     * a locking SELECT of the orders allowed to make the transition, one UPDATE ... WHERE order_id IN (...) AND
+     * status IN (...), and one rollup upsert per (product, day, old status). Each chunk is its own transaction.
+     * Orders that are missing or in a status the transition does not start from are reported, not fatal.
+     */
+    @Override
+    public OrderStatusUpdateResultDto updateStatuses(List<Long> orderIds, String status) {
+        OrderStatus target = OrderStatus.from(status); // IllegalArgumentException for an unknown status
+        Set<OrderStatus> sources = target.bulkTransitionSources();
+        if (sources.isEmpty()) {
+            throw new IllegalArgumentException("Orders cannot be moved to " + target + " in bulk.");
+        }
+        List<Long> ids = orderIds == null ? List.of() : orderIds.stream().filter(Objects::nonNull).distinct().toList();
+        if (ids.isEmpty() || ids.size() > MAX_STATUS_UPDATE_IDS) {
+            throw new IllegalArgumentException("Between 1 and " + MAX_STATUS_UPDATE_IDS + " order IDs are required.");
+        }
+        log.info("Moving {} orders from {} to {}.", ids.size(), sources, target);
+
+        OrderStatusUpdateResultDto result = OrderStatusUpdateResultDto.builder()
+                .status(target.getLabel())
+                .requested(ids.size())
+                .updatedIds(new ArrayList<>())
+                .unchangedIds(new ArrayList<>())
+                .failed(new ArrayList<>())
+                .build();
+        for (int from = 0; from < ids.size(); from += STATUS_UPDATE_CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(from + STATUS_UPDATE_CHUNK_SIZE, ids.size()));
+            transactionTemplate.executeWithoutResult(tx -> transitionChunk(chunk, sources, target, result));
+        }
+        log.info("Moved {} of {} orders to {} ({} already there, {} failed).", result.getUpdatedIds().size(),
+                ids.size(), target, result.getUnchangedIds().size(), result.getFailed().size());
+        return result;
+    }
+
+    private void transitionChunk(List<Long> ids, Set<OrderStatus> sources, OrderStatus target, OrderStatusUpdateResultDto result) {
+        List<Order> orders = orderRepository.findForStatusTransition(ids, sources);
+        Set<Long> moved = new HashSet<>();
+        if (!orders.isEmpty()) {
+            List<OrderDailyRollup> before = orders.stream().map(OrderDailyRollup::of).toList();
+            int updated = orderRepository.transitionStatus(ids, sources, target);
+            if (updated != orders.size()) { // Cannot happen while the rows are locked; roll the chunk back if it does
+                throw new IllegalStateException("Expected to move " + orders.size() + " orders to " + target + " but moved " + updated + ".");
+            }
+            orders.forEach(order -> order.setStatus(target)); // Detached by the bulk UPDATE; only feeds the rollup
+            updateRollup(before, orders.stream().map(OrderDailyRollup::of).toList());
+            orders.forEach(order -> moved.add(order.getOrderId()));
+        }
+        List<Long> skipped = ids.stream().filter(id -> !moved.contains(id)).toList();
+        Map<Long, OrderStatus> currentStatuses = new HashMap<>();
+        if (!skipped.isEmpty()) {
+            orderRepository.findStatusesByIdIn(skipped).forEach(row -> currentStatuses.put((Long) row[0], (OrderStatus) row[1]));
+        }
+        for (Long id : ids) {
+            OrderStatus current = currentStatuses.get(id);
+            if (moved.contains(id)) {
+                result.getUpdatedIds().add(id);
+            } else if (current == target) {
+                result.getUnchangedIds().add(id);
+            } else if (current == null) {
+                result.getFailed().add(new OrderStatusUpdateResultDto.Failure(id, null, "Order with ID " + id + " not found."));
+            } else {
+                result.getFailed().add(new OrderStatusUpdateResultDto.Failure(id, current.getLabel(),
+                        "Cannot move order from " + current + " to " + target + "."));
+            }
+        }
+    }
+
     @Override
     public List<Order> getOrdersByDateRange(LocalDate startDate, LocalDate endDate) {
         log.info("Fetching orders between {} and {}", startDate, endDate);
@@ -390,7 +1081,7 @@ public class OrderServiceImpl implements OrderService {
     @Override
     public Long sumQuantityByProductIdAndDateRange(Long productId, LocalDate startDate, LocalDate endDate) {
         log.info("Summing quantity for product ID {} between {} and {}", productId, startDate, endDate);
-        Long sum = orderRepository.sumQuantityByProductIdAndOrderDateBetween(productId, startDate, endDate);
+        Long sum = rollupRepository.sumQuantityByProductIdAndOrderDateBetween(productId, startDate, endDate);
         if (sum == null) {
             log.info("No orders found for product ID {} between {} and {}.", productId, startDate, endDate);
             return 0L;
@@ -399,6 +1090,71 @@ public class OrderServiceImpl implements OrderService {
         return sum;
     }
 
+    @Override
+    public Map<Long, Long> sumQuantityByProductForDateRange(LocalDate startDate, LocalDate endDate, List<Long> productIds) {
+        log.info("Summing quantity per product between {} and {} for {} products", startDate, endDate,
+                productIds == null || productIds.isEmpty() ? "all" : productIds.size());
+        List<Object[]> rows = (productIds == null || productIds.isEmpty())
+                ? rollupRepository.sumQuantityGroupedByProductIdAndOrderDateBetween(startDate, endDate)
+                : rollupRepository.sumQuantityGroupedByProductIdInAndOrderDateBetween(productIds, startDate, endDate);
+
+        Map<Long, Long> quantitiesByProduct = new HashMap<>();
+        for (Object[] row : rows) {
+            quantitiesByProduct.put((Long) row[0], row[1] != null ? ((Number) row[1]).longValue() : 0L);
+        }
+        log.info("Found ordered quantities for {} products between {} and {}.", quantitiesByProduct.size(), startDate, endDate);
+        return quantitiesByProduct;
+    }
+
+    @Override
+    public Map<String, Long> countOrdersByStatus(LocalDate startDate, LocalDate endDate) {
+        log.info("Counting orders per status between {} and {}", startDate, endDate);
+        Map<String, Long> countsByStatus = new LinkedHashMap<>();
+        for (Object[] row : rollupRepository.countOrdersGroupedByStatusAndOrderDateBetween(startDate, endDate)) {
+            countsByStatus.put((String) row[0], ((Number) row[1]).longValue());
+        }
+        return countsByStatus;
+    }
+
+    /**
+     * Counts, quantity and revenue per status (and optionally per product) for a date range, aggregated by the
+     * database. Unlike the rollup-based counts this reads the orders table, so it can filter by customer and
+     * tell priced from unpriced orders. A status that names no known status matches nothing. Accepted and Rejected
+     * orders are left out, as in the rollups, so they never count as sold or as revenue.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public OrderSummaryDto summarizeOrders(LocalDate startDate, LocalDate endDate, Long customerId, String status, boolean byProduct) {
+        log.info("Summarising orders between {} and {} (customer {}, status {}).", startDate, endDate, customerId, status);
+        OrderSummaryDto summary = OrderSummaryDto.builder()
+                .startDate(startDate)
+                .endDate(endDate)
+                .byStatus(new ArrayList<>())
+                .byProduct(byProduct ? new ArrayList<>() : null)
+                .build();
+        if (isUnknownStatus(status)) {
+            return summary;
+        }
+        OrderStatus statusFilter = OrderStatus.parse(status).orElse(null);
+
+        for (Object[] row : orderRepository.summarizeByStatus(startDate, endDate, customerId, statusFilter)) {
+            OrderSummaryDto.StatusTotals totals = new OrderSummaryDto.StatusTotals(((OrderStatus) row[0]).getLabel(),
+                    ((Number) row[1]).longValue(), ((Number) row[2]).longValue(), ((Number) row[3]).doubleValue());
+            summary.getByStatus().add(totals);
+            summary.setTotalOrders(summary.getTotalOrders() + totals.getOrders());
+            summary.setTotalQuantity(summary.getTotalQuantity() + totals.getQuantity());
+            summary.setRevenue(summary.getRevenue() + totals.getRevenue());
+            summary.setUnpricedOrders(summary.getUnpricedOrders() + ((Number) row[4]).longValue());
+        }
+        if (byProduct) {
+            for (Object[] row : orderRepository.summarizeByProduct(startDate, endDate, customerId, statusFilter)) {
+                summary.getByProduct().add(new OrderSummaryDto.ProductTotals((Long) row[0], ((Number) row[1]).longValue(),
+                        ((Number) row[2]).longValue(), ((Number) row[3]).doubleValue(), ((Number) row[4]).longValue()));
+            }
+        }
+        return summary;
+    }
+
     @Override
     public Double getOrderProductPrice(Long orderId) throws OrderNotFoundException {
         log.info("Attempting to get product price for order ID: {}", orderId);
@@ -408,6 +1164,18 @@ public class OrderServiceImpl implements OrderService {
                     return new OrderNotFoundException("Order with ID " + orderId + " not found.");
                 });
 
+        Double unitPrice = unitPriceOf(order);
+        log.info("Product price for order ID {}: {}", orderId, unitPrice);
+        return unitPrice;
+    }
+
+    // Orders placed before prices were snapshotted are priced from the current catalog without saving anything;
+    // POST /api/orders/backfill-prices stores their snapshots.
+    private Double unitPriceOf(Order order) {
+        if (order.getUnitPrice() != null) {
+            return order.getUnitPrice();
+        }
+        Long orderId = order.getOrderId();
         ProductDto product = productClient.getProductById(order.getProductId())
                 .orElseThrow(() -> {
                     log.error("Product with ID {} associated with order ID {} not found in Product Service.",
@@ -420,11 +1188,14 @@ public class OrderServiceImpl implements OrderService {
                     order.getProductId(), orderId);
             throw new RuntimeException("Product price not available for order ID: " + orderId);
         }
-
-        log.info("Product price for order ID {}: {}", orderId, product.getPrice());
+        log.debug("Order ID {} has no price snapshot; using the current catalog price {}.", orderId, product.getPrice());
         return product.getPrice();
     }
 
+    private static Double lineTotal(Double unitPrice, int quantity) {
+        return unitPrice != null ? unitPrice * quantity : null;
+    }
+
     @Override
     public Double calculateOrderTotalPrice(Long orderId) throws OrderNotFoundException {
         log.info("Attempting to calculate total price for order ID: {}", orderId);
@@ -434,10 +1205,50 @@ public class OrderServiceImpl implements OrderService {
                     return new OrderNotFoundException("Order with ID " + orderId + " not found.");
                 });
 
-        Double productPrice = getOrderProductPrice(orderId);
-
-        Double totalPrice = order.getQuantity() * productPrice;
+        Double totalPrice = order.getTotalPrice() != null ? order.getTotalPrice()
+                : lineTotal(unitPriceOf(order), order.getQuantity());
         log.info("Total price for order ID {}: {}", orderId, totalPrice);
         return totalPrice;
     }
+
+    @Override
+    public int backfillPrices() {
+        log.info("Backfilling price snapshots for orders without one.");
+        int updated = 0;
+        long after = 0L;
+        while (true) {
+            List<Order> batch = orderRepository.findByUnitPriceIsNullAndOrderIdGreaterThanOrderByOrderIdAsc(
+                    after, Limit.of(PRODUCT_BATCH_SIZE));
+            if (batch.isEmpty()) {
+                break;
+            }
+            after = batch.get(batch.size() - 1).getOrderId();
+
+            // Historical prices are unknown, so existing orders get the current catalog price.
+            Map<Long, ProductDto> productsById = fetchProductsByIds(batch.stream()
+                    .map(Order::getProductId)
+                    .collect(Collectors.toSet()));
+            List<Order> priced = new ArrayList<>();
+            List<OrderDailyRollup> unpriced = new ArrayList<>();
+            for (Order order : batch) {
+                ProductDto product = productsById.get(order.getProductId());
+                if (product == null || product.getPrice() == null) {
+                    log.warn("No price available for product ID {}; order ID {} left without a price snapshot.",
+                            order.getProductId(), order.getOrderId());
+                    continue;
+                }
+                unpriced.add(OrderDailyRollup.of(order));
+                order.setUnitPrice(product.getPrice());
+                order.setTotalPrice(lineTotal(product.getPrice(), order.getQuantity()));
+                priced.add(order);
+            }
+            transactionTemplate.executeWithoutResult(tx -> {
+                orderRepository.saveAll(priced);
+                updateRollup(unpriced, priced.stream().map(OrderDailyRollup::of).toList());
+            });
+            updated += priced.size();
+        }
+        log.info("Backfilled price snapshots for {} orders.", updated);
+        return updated;
+    }
 }
\ No newline at end of file
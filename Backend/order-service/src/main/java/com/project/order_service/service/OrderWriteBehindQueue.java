@@ -0,0 +1,219 @@
+package com.project.order_service.service;
+
+import com.project.order_service.entity.Order;
+import com.project.order_service.exception.OrderQueueFullException;
+import com.project.order_service.exception.OrderSaveTimeoutException;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+/**
+ * Optional write-behind path for new orders (order.write-behind.enabled). Callers hand validated orders to a
+ * bounded in-memory queue and wait on a future; a single flusher thread persists whatever has queued up in one
+ * transaction of up to maxBatchSize orders, waiting at most maxDelay for a batch to fill, so many concurrent
+ * createOrder calls share one commit. A future completes only after its batch has committed.
+ * When the queue is full, submit throws OrderQueueFullException (429) instead of blocking, and await gives up
+ * after waitTimeout with OrderSaveTimeoutException (503) so a stalled flusher cannot hold request threads forever.
+ * Metrics: order.write_behind.batch.size, order.write_behind.flush (tagged by outcome), order.write_behind.queue.size.
+ */
+@Component
+@Slf4j
+public class OrderWriteBehindQueue implements DisposableBean {
+
+    private final boolean enabled;
+    private final int maxBatchSize;
+    private final long maxDelayNanos;
+    private final Duration waitTimeout;
+    private final BlockingQueue<PendingOrder> queue;
+
+    private final DistributionSummary batchSize;
+    private final Timer flushSuccess;
+    private final Timer flushFailure;
+
+    private volatile boolean running;
+    private Thread flusher;
+
+    @Autowired
+    public OrderWriteBehindQueue(MeterRegistry meterRegistry,
+                                 @Value("${order.write-behind.enabled:false}") boolean enabled,
+                                 @Value("${order.write-behind.capacity:10000}") int capacity,
+                                 @Value("${order.write-behind.max-batch-size:200}") int maxBatchSize,
+                                 @Value("${order.write-behind.max-delay-ms:5}") long maxDelayMillis,
+                                 @Value("${order.write-behind.wait-timeout-ms:10000}") long waitTimeoutMillis) {
+        this(meterRegistry, enabled, capacity, maxBatchSize, Duration.ofMillis(maxDelayMillis), Duration.ofMillis(waitTimeoutMillis));
+    }
+
+    OrderWriteBehindQueue(MeterRegistry meterRegistry, boolean enabled, int capacity, int maxBatchSize, Duration maxDelay,
+                          Duration waitTimeout) {
+        this.enabled = enabled;
+        this.maxBatchSize = maxBatchSize;
+        this.maxDelayNanos = maxDelay.toNanos();
+        this.waitTimeout = waitTimeout;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = DistributionSummary.builder("order.write_behind.batch.size").register(meterRegistry);
+        this.flushSuccess = Timer.builder("order.write_behind.flush").tag("outcome", "success").register(meterRegistry);
+        this.flushFailure = Timer.builder("order.write_behind.flush").tag("outcome", "failure").register(meterRegistry);
+        Gauge.builder("order.write_behind.queue.size", queue, BlockingQueue::size).register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Starts the flusher. The persister saves a batch of new orders in one transaction and returns them,
+     * with their IDs, in the same order.
+     */
+    public synchronized void start(Function<List<Order>, List<Order>> persister) {
+        if (!enabled || running) {
+            return;
+        }
+        running = true;
+        flusher = new Thread(() -> runFlusher(persister), "order-write-behind");
+        flusher.setDaemon(true);
+        flusher.start();
+        log.info("Order write-behind enabled: up to {} orders per commit, {} µs max delay, {} queued at most.",
+                maxBatchSize, TimeUnit.NANOSECONDS.toMicros(maxDelayNanos), queue.remainingCapacity());
+    }
+
+    // Cheap check so callers can turn a request away before doing any remote work for it.
+    public boolean hasCapacity() {
+        return queue.remainingCapacity() > 0;
+    }
+
+    public CompletableFuture<Order> submit(Order order) {
+        if (!running) {
+            throw new IllegalStateException("Order write-behind queue is not running.");
+        }
+        PendingOrder pending = new PendingOrder(order, new CompletableFuture<>());
+        if (!queue.offer(pending)) {
+            throw new OrderQueueFullException("Too many orders waiting to be saved. Please retry shortly.");
+        }
+        return pending.saved;
+    }
+
+    /**
+     * Waits up to waitTimeout for a submitted order's batch to commit. On timeout an order that is still queued is
+     * taken out, and its future fails, so it will not be saved; an order whose batch is already being written keeps
+     * its future, which completes when that commit ends. Either way the caller gets OrderSaveTimeoutException.
+     */
+    public Order await(CompletableFuture<Order> saved) {
+        try {
+            return saved.get(waitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            OrderSaveTimeoutException timeout = new OrderSaveTimeoutException(
+                    "Order was not saved within " + waitTimeout.toMillis() + " ms. Please retry shortly.");
+            if (queue.removeIf(pending -> pending.saved == saved)) {
+                saved.completeExceptionally(timeout);
+            }
+            log.warn("Gave up waiting {} ms for a queued order to be saved.", waitTimeout.toMillis());
+            throw timeout;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Failed to save order: " + e.getCause(), e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for order to be saved.", e);
+        }
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        Thread thread;
+        synchronized (this) {
+            running = false;
+            thread = flusher;
+        }
+        if (thread != null) {
+            thread.join(TimeUnit.SECONDS.toMillis(10)); // Lets the flusher drain what is already queued
+        }
+    }
+
+    private void runFlusher(Function<List<Order>, List<Order>> persister) {
+        List<PendingOrder> batch = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingOrder first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + maxDelayNanos;
+                while (batch.size() < maxBatchSize) {
+                    queue.drainTo(batch, maxBatchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= maxBatchSize || remaining <= 0) {
+                        break;
+                    }
+                    PendingOrder next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                flush(batch, persister);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Throwable e) {
+                // Whatever went wrong, no caller may be left waiting on this batch, and the flusher keeps running
+                log.error("Order write-behind flusher error: {}", e.getMessage(), e);
+                batch.forEach(pending -> pending.saved.completeExceptionally(e));
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<PendingOrder> batch, Function<List<Order>, List<Order>> persister) {
+        batchSize.record(batch.size());
+        long start = System.nanoTime();
+        try {
+            List<Order> saved = persister.apply(batch.stream().map(PendingOrder::order).toList());
+            flushSuccess.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).saved.complete(saved.get(i));
+            }
+            log.debug("Persisted {} queued orders in one commit.", batch.size());
+        } catch (Throwable e) {
+            flushFailure.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            if (batch.size() == 1) {
+                batch.get(0).saved.completeExceptionally(e);
+                return;
+            }
+            // One bad order must not fail the others it happened to share a commit with
+            log.warn("Batch of {} queued orders failed ({}); saving them one by one.", batch.size(), e.getMessage());
+            for (PendingOrder pending : batch) {
+                // The failed batch may already have given the order a sequence ID that has no row; with it set,
+                // the retry would be treated as an update of a missing row instead of an insert.
+                pending.order().setOrderId(null);
+                flush(new ArrayList<>(List.of(pending)), persister);
+            }
+        }
+    }
+
+    private record PendingOrder(Order order, CompletableFuture<Order> saved) {
+    }
+}
@@ -0,0 +1,36 @@
+-- Schema as previously created by Hibernate (ddl-auto=update). IF NOT EXISTS lets this run against
+-- databases that already have the tables; Flyway is configured to baseline them at version 0.
+
+CREATE TABLE IF NOT EXISTS orders (
+    order_id    BIGINT       NOT NULL,
+    customer_id BIGINT       NOT NULL,
+    product_id  BIGINT       NOT NULL,
+    quantity    INT          NOT NULL,
+    order_date  DATE         NOT NULL,
+    status      VARCHAR(255) NOT NULL,
+    unit_price  DOUBLE,
+    total_price DOUBLE,
+    PRIMARY KEY (order_id)
+) ENGINE=InnoDB;
+
+-- Pooled ID generator for Order (MySQL has no sequences, so Hibernate keeps the next value in a table).
+CREATE TABLE IF NOT EXISTS order_seq (
+    next_val BIGINT
+) ENGINE=InnoDB;
+
+INSERT INTO order_seq (next_val)
+SELECT 1 FROM DUAL WHERE NOT EXISTS (SELECT * FROM order_seq);
+
+-- Order IDs used to come from AUTO_INCREMENT; start handing out blocks above the highest existing ID
+-- (plus one allocation block of 50, as the pooled optimizer may return values below next_val).
+UPDATE order_seq SET next_val = GREATEST(next_val, (SELECT COALESCE(MAX(order_id), 0) FROM orders) + 51);
+
+CREATE TABLE IF NOT EXISTS order_daily_rollup (
+    product_id  BIGINT       NOT NULL,
+    order_date  DATE         NOT NULL,
+    status      VARCHAR(255) NOT NULL,
+    order_count BIGINT       NOT NULL,
+    qty         BIGINT       NOT NULL,
+    revenue     DOUBLE       NOT NULL,
+    PRIMARY KEY (product_id, order_date, status)
+) ENGINE=InnoDB;
@@ -0,0 +1,7 @@
+-- findByOrderDateBetween (order and supplier reports) and the date filters of the keyset page and stream.
+CREATE INDEX idx_orders_order_date ON orders (order_date);
+
+-- Per-product range sums use the rollup primary key (product_id, order_date, status).
+-- These cover the all-products range sum and the status counts, so both are answered from the index alone.
+CREATE INDEX idx_rollup_date_product ON order_daily_rollup (order_date, product_id, qty);
+CREATE INDEX idx_rollup_date_status ON order_daily_rollup (order_date, status, order_count);
@@ -0,0 +1,4 @@
+-- The per-product quantity sums now skip Accepted and Rejected orders, so the index carries status as well
+-- and keeps covering them.
+DROP INDEX idx_rollup_date_product ON order_daily_rollup;
+CREATE INDEX idx_rollup_date_product ON order_daily_rollup (order_date, product_id, status, qty);
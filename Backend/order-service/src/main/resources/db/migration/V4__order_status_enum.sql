@@ -0,0 +1,27 @@
+-- Order.status is now an enum (OrderStatus) stored as its label. Normalise existing values: surrounding
+-- whitespace and quotes ('Delivered') go, and known statuses get their canonical spelling.
+UPDATE orders SET status = TRIM(BOTH '''' FROM TRIM(status));
+UPDATE orders SET status = CASE UPPER(status)
+    WHEN 'ACCEPTED' THEN 'Accepted'
+    WHEN 'PENDING' THEN 'Pending'
+    WHEN 'SHIPPED' THEN 'Shipped'
+    WHEN 'DELIVERED' THEN 'Delivered'
+    WHEN 'COMPLETED' THEN 'Completed'
+    WHEN 'CANCELLED' THEN 'Cancelled'
+    WHEN 'CANCELED' THEN 'Cancelled'
+    WHEN 'REJECTED' THEN 'Rejected'
+    ELSE status END;
+
+-- Fails if any other status is left; fix those rows by hand and rerun.
+ALTER TABLE orders MODIFY status VARCHAR(16) NOT NULL;
+ALTER TABLE orders ADD CONSTRAINT chk_orders_status
+    CHECK (status IN ('Accepted', 'Pending', 'Shipped', 'Delivered', 'Completed', 'Cancelled', 'Rejected'));
+
+-- Status filters and GROUP BY status over a date range (GET /api/orders/summary, the page and stream filters).
+CREATE INDEX idx_orders_status_date ON orders (status, order_date);
+
+-- The rollup is keyed by status, so rebuild it from the normalised rows.
+DELETE FROM order_daily_rollup;
+INSERT INTO order_daily_rollup (product_id, order_date, status, order_count, qty, revenue)
+SELECT product_id, order_date, status, COUNT(*), SUM(quantity), COALESCE(SUM(total_price), 0)
+FROM orders GROUP BY product_id, order_date, status;
@@ -0,0 +1,15 @@
+-- Customer order history (GET /api/customers/{customerId}/orders): newest first, keyset-paginated on
+-- (order_date, order_id), so each page is one forward range scan of this index.
+CREATE INDEX idx_orders_customer_date ON orders (customer_id, order_date DESC, order_id DESC);
+
+-- Per-customer totals for the history header, maintained by OrderServiceImpl on every order write.
+CREATE TABLE customer_order_stats (
+    customer_id     BIGINT NOT NULL,
+    order_count     BIGINT NOT NULL,
+    qty             BIGINT NOT NULL,
+    last_order_date DATE,
+    PRIMARY KEY (customer_id)
+) ENGINE=InnoDB;
+
+INSERT INTO customer_order_stats (customer_id, order_count, qty, last_order_date)
+SELECT customer_id, COUNT(*), SUM(quantity), MAX(order_date) FROM orders GROUP BY customer_id;
@@ -0,0 +1,166 @@
+package com.project.order_service.repository;
+
+import com.project.order_service.entity.OrderStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Repeatable before/after benchmark for the order query indexes (V2__order_query_indexes.sql, amended by V3 to V5).
+ * The schema comes from the Flyway migrations (and is checked by ddl-auto=validate) on an in-memory H2 database
+ * in MySQL mode, seeded with a year of orders. Each query is planned and timed with none of these indexes, then
+ * with all of them. The plans are asserted, and the indexed run must not be clearly slower; some indexed queries
+ * are fast either way, so no speed-up is required. Average timings and plans are published as JUnit report entries
+ * and carried in the assertion messages. Seeding takes most of a minute, so it runs only with -Pbenchmark.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:order-index-benchmark;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.show-sql=false",
+        "logging.level.org.hibernate.SQL=INFO",
+        "logging.level.org.hibernate.type.descriptor.sql=INFO"})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // Index DDL commits, so run each query on its own
+@Tag("benchmark")
+class OrderQueryIndexBenchmarkTest {
+
+    private static final int ORDERS = 300_000; // About 820 orders a day over 50 products and 3 statuses
+    private static final int RUNS = 20;
+    private static final int WARM_UP_RUNS = 10;
+    private static final LocalDate FIRST_DAY = LocalDate.of(2024, 1, 1);
+
+    // Index name -> DDL, as left by the migrations (V2, V3, V4, V5)
+    private static final Map<String, String> INDEXES = Map.of(
+            "idx_orders_order_date", "CREATE INDEX idx_orders_order_date ON orders (order_date)",
+            "idx_orders_customer_date", "CREATE INDEX idx_orders_customer_date ON orders (customer_id, order_date DESC, order_id DESC)",
+            "idx_orders_status_date", "CREATE INDEX idx_orders_status_date ON orders (status, order_date)",
+            "idx_rollup_date_product", "CREATE INDEX idx_rollup_date_product ON order_daily_rollup (order_date, product_id, status, qty)",
+            "idx_rollup_date_status", "CREATE INDEX idx_rollup_date_status ON order_daily_rollup (order_date, status, order_count)");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderDailyRollupRepository rollupRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void seed() {
+        if (jdbcTemplate.queryForObject("SELECT COUNT(*) FROM orders", Long.class) > 0) {
+            return;
+        }
+        jdbcTemplate.update("INSERT INTO orders (order_id, customer_id, product_id, quantity, order_date, status, unit_price, total_price) "
+                + "SELECT X, MOD(X, 5000) + 1, MOD(X * 7, 50) + 1, MOD(X, 5) + 1, DATEADD(DAY, MOD(X, 365), DATE '2024-01-01'), "
+                + "CASE MOD(X, 3) WHEN 0 THEN 'Pending' WHEN 1 THEN 'Shipped' ELSE 'Delivered' END, 10.0, 10.0 * (MOD(X, 5) + 1) "
+                + "FROM SYSTEM_RANGE(1, " + ORDERS + ")");
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> rollupRepository.insertFromOrders());
+        jdbcTemplate.execute("ANALYZE");
+    }
+
+    @Test
+    void ordersByDateRange_shouldUseOrderDateIndex(TestReporter reporter) {
+        LocalDate start = FIRST_DAY.plusDays(100);
+        LocalDate end = start.plusDays(6);
+        compare(reporter, "findByOrderDateBetween (1 week)", "idx_orders_order_date",
+                "SELECT * FROM orders WHERE order_date BETWEEN DATE '" + start + "' AND DATE '" + end + "'",
+                () -> orderRepository.findByOrderDateBetween(start, end).size());
+    }
+
+    @Test
+    void quantityPerProductForRange_shouldBeCoveredByRollupIndex(TestReporter reporter) {
+        LocalDate start = FIRST_DAY.plusDays(30);
+        LocalDate end = start.plusDays(29);
+        compare(reporter, "sumQuantityGroupedByProductIdAndOrderDateBetween (30 days)", "idx_rollup_date_product",
+                "SELECT product_id, SUM(qty) FROM order_daily_rollup WHERE order_date BETWEEN DATE '" + start
+                        + "' AND DATE '" + end + "' AND status NOT IN ('Accepted', 'Rejected') GROUP BY product_id",
+                () -> rollupRepository.sumQuantityGroupedByProductIdAndOrderDateBetween(start, end).size());
+    }
+
+    @Test
+    void statusCountsForRange_shouldBeCoveredByRollupIndex(TestReporter reporter) {
+        LocalDate start = FIRST_DAY.plusDays(200);
+        LocalDate end = start.plusDays(29);
+        compare(reporter, "countOrdersGroupedByStatusAndOrderDateBetween (30 days)", "idx_rollup_date_status",
+                "SELECT status, SUM(order_count) FROM order_daily_rollup WHERE order_date BETWEEN DATE '" + start
+                        + "' AND DATE '" + end + "' GROUP BY status",
+                () -> rollupRepository.countOrdersGroupedByStatusAndOrderDateBetween(start, end).size());
+    }
+
+    @Test
+    void summaryForStatus_shouldUseStatusDateIndex(TestReporter reporter) {
+        LocalDate start = FIRST_DAY.plusDays(60);
+        LocalDate end = start.plusDays(29);
+        compare(reporter, "summarizeByStatus, status = Shipped (30 days)", "idx_orders_status_date",
+                "SELECT status, COUNT(*), SUM(quantity) FROM orders WHERE order_date BETWEEN DATE '" + start
+                        + "' AND DATE '" + end + "' AND status = 'Shipped' GROUP BY status",
+                () -> orderRepository.summarizeByStatus(start, end, null, OrderStatus.SHIPPED).size());
+    }
+
+    @Test
+    void customerHistoryPage_shouldUseCustomerDateIndex(TestReporter reporter) {
+        LocalDate before = FIRST_DAY.plusDays(300);
+        compare(reporter, "findCustomerHistoryBefore (20 orders)", "idx_orders_customer_date",
+                "SELECT * FROM orders WHERE customer_id = 42 AND (order_date < DATE '" + before + "' OR (order_date = DATE '"
+                        + before + "' AND order_id < 1000000)) ORDER BY order_date DESC, order_id DESC LIMIT 20",
+                () -> orderRepository.findCustomerHistoryBefore(42L, before, 1_000_000L, Limit.of(20)).size());
+    }
+
+    private void compare(TestReporter reporter, String label, String index, String explainSql, Runnable query) {
+        INDEXES.keySet().forEach(name -> jdbcTemplate.execute("DROP INDEX " + name));
+        String planWithout;
+        double millisWithout;
+        try {
+            planWithout = plan(explainSql);
+            millisWithout = averageMillis(query);
+        } finally {
+            INDEXES.values().forEach(jdbcTemplate::execute);
+        }
+        String planWith = plan(explainSql);
+        double millisWith = averageMillis(query);
+
+        String without = String.format("%.2f ms  %s", millisWithout, planWithout);
+        String with = String.format("%.2f ms  %s", millisWith, planWith);
+        reporter.publishEntry(Map.of(label + " without indexes", without, label + " with " + index, with));
+        String timings = String.format("%s: %.2f ms without indexes, %.2f ms with %s", label, millisWithout, millisWith, index);
+        assertThat(planWith).as(timings).containsIgnoringCase(index);
+        INDEXES.keySet().forEach(name -> assertThat(planWithout).as(timings).doesNotContainIgnoringCase(name));
+        assertThat(millisWith).as(timings).isLessThanOrEqualTo(millisWithout * 2 + 1);
+    }
+
+    private String plan(String sql) {
+        return jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class).replaceAll("\\s+", " ");
+    }
+
+    private static double averageMillis(Runnable query) {
+        for (int i = 0; i < WARM_UP_RUNS; i++) {
+            query.run();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < RUNS; i++) {
+            query.run();
+        }
+        return (System.nanoTime() - start) / 1e6 / RUNS;
+    }
+}
@@ -0,0 +1,73 @@
+package com.project.order_service.repository;
+
+import com.project.order_service.entity.Order;
+import com.project.order_service.entity.OrderStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The per-status and per-product summaries behind GET /api/orders/summary (and so the order report), run against
+ * the Flyway schema on an in-memory H2 database in MySQL mode.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:order-summary;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.show-sql=false",
+        "logging.level.org.hibernate.SQL=INFO",
+        "logging.level.org.hibernate.type.descriptor.sql=INFO"})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OrderSummaryQueryTest {
+
+    private static final LocalDate DAY = LocalDate.of(2024, 1, 10);
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @AfterEach
+    void tearDown() {
+        orderRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Rejected and still-Accepted orders in range should not count as orders, units or unpriced sales")
+    void summaries_shouldLeaveOutAcceptedAndRejectedOrders() {
+        // Arrange: async orders that never took stock carry no price
+        orderRepository.saveAll(List.of(
+                new Order(null, 101L, 201L, 2, DAY, OrderStatus.PENDING, 10.0, 20.0),
+                new Order(null, 102L, 201L, 1, DAY, OrderStatus.DELIVERED, 10.0, 10.0),
+                new Order(null, 103L, 201L, 5, DAY, OrderStatus.REJECTED, null, null),
+                new Order(null, 104L, 202L, 7, DAY, OrderStatus.ACCEPTED, null, null)));
+
+        // Act
+        List<Object[]> byStatus = orderRepository.summarizeByStatus(DAY.minusDays(1), DAY.plusDays(1), null, null);
+        List<Object[]> byProduct = orderRepository.summarizeByProduct(DAY.minusDays(1), DAY.plusDays(1), null, null);
+        List<Object[]> rejectedOnly = orderRepository.summarizeByStatus(DAY, DAY, null, OrderStatus.REJECTED);
+
+        // Assert
+        assertEquals(2, byStatus.size());
+        assertTrue(byStatus.stream().noneMatch(row -> row[0] == OrderStatus.REJECTED || row[0] == OrderStatus.ACCEPTED));
+        assertEquals(0L, byStatus.stream().mapToLong(row -> ((Number) row[4]).longValue()).sum());
+        assertEquals(1, byProduct.size());
+        Object[] product = byProduct.get(0);
+        assertEquals(201L, product[0]);
+        assertEquals(2L, ((Number) product[1]).longValue());
+        assertEquals(3L, ((Number) product[2]).longValue());
+        assertEquals(30.0, ((Number) product[3]).doubleValue());
+        assertEquals(0L, ((Number) product[4]).longValue());
+        assertTrue(rejectedOnly.isEmpty());
+    }
+}
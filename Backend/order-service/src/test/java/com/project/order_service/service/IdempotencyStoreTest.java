@@ -0,0 +1,184 @@
+package com.project.order_service.service;
+
+import com.project.order_service.exception.IdempotencyKeyInProgressException;
+import com.project.order_service.exception.IdempotencyKeyReuseException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IdempotencyStoreTest {
+
+    private final MutableClock clock = new MutableClock(Instant.parse("2024-01-15T10:00:00Z"));
+    private final AtomicInteger runs = new AtomicInteger();
+
+    private IdempotencyStore idempotencyStore;
+
+    @BeforeEach
+    void setUp() {
+        idempotencyStore = new IdempotencyStore(Duration.ofMinutes(10), 2, Duration.ofSeconds(5), clock);
+    }
+
+    @Test
+    @DisplayName("Should replay the original result for a repeated key without running the action again")
+    void shouldReplayResultForRepeatedKey() {
+        // Act
+        IdempotencyStore.Result<String> first = idempotencyStore.execute("key-1", List.of(101L, 1L, 2), this::createOrder);
+        IdempotencyStore.Result<String> retry = idempotencyStore.execute("key-1", List.of(101L, 1L, 2), this::createOrder);
+
+        // Assert
+        assertEquals("order-1", first.value());
+        assertFalse(first.replayed());
+        assertEquals("order-1", retry.value());
+        assertTrue(retry.replayed());
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    @DisplayName("Should make a concurrent request with the same key wait for the in-flight result")
+    void shouldWaitOnInFlightResult() throws Exception {
+        // Arrange
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<IdempotencyStore.Result<String>> first = executor.submit(() -> idempotencyStore.execute("key-1", "order", () -> {
+                started.countDown();
+                await(release);
+                return createOrder();
+            }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            // Act
+            Future<IdempotencyStore.Result<String>> second = executor.submit(() -> idempotencyStore.execute("key-1", "order", this::createOrder));
+            Thread.sleep(100);
+            assertFalse(second.isDone());
+            release.countDown();
+
+            // Assert
+            assertEquals("order-1", first.get(5, TimeUnit.SECONDS).value());
+            assertEquals("order-1", second.get(5, TimeUnit.SECONDS).value());
+            assertTrue(second.get().replayed());
+            assertEquals(1, runs.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Should turn a waiting request away once the in-flight one outlasts the wait timeout")
+    void shouldStopWaitingAfterTimeout() throws Exception {
+        // Arrange
+        idempotencyStore = new IdempotencyStore(Duration.ofMinutes(10), 2, Duration.ofMillis(50), clock);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<IdempotencyStore.Result<String>> first = executor.submit(() -> idempotencyStore.execute("key-1", "order", () -> {
+                started.countDown();
+                await(release);
+                return createOrder();
+            }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            // Act & Assert
+            assertThrows(IdempotencyKeyInProgressException.class, () -> idempotencyStore.execute("key-1", "order", this::createOrder));
+            release.countDown();
+            assertEquals("order-1", first.get(5, TimeUnit.SECONDS).value());
+            assertTrue(idempotencyStore.execute("key-1", "order", this::createOrder).replayed());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Should release the key when the action throws an Error or a checked exception")
+    void shouldReleaseKeyAfterErrorOrCheckedException() {
+        // Act & Assert
+        assertThrows(StackOverflowError.class, () -> idempotencyStore.execute("key-1", "order", () -> {
+            throw new StackOverflowError();
+        }));
+        assertThrows(Exception.class, () -> idempotencyStore.execute("key-2", "order", () -> sneakyThrow(new Exception("Checked"))));
+        assertEquals(0, idempotencyStore.size());
+
+        // Retries run the action instead of waiting on the failed attempts
+        assertFalse(idempotencyStore.execute("key-1", "order", this::createOrder).replayed());
+        assertFalse(idempotencyStore.execute("key-2", "order", this::createOrder).replayed());
+    }
+
+    @Test
+    @DisplayName("Should reject a key reused for a different request")
+    void shouldRejectKeyReusedForDifferentRequest() {
+        // Arrange
+        idempotencyStore.execute("key-1", List.of(101L, 1L, 2), this::createOrder);
+
+        // Act & Assert
+        assertThrows(IdempotencyKeyReuseException.class,
+                () -> idempotencyStore.execute("key-1", List.of(101L, 1L, 5), this::createOrder));
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    @DisplayName("Should not keep failures, so a retry runs the action again")
+    void shouldRunAgainAfterFailure() {
+        // Arrange
+        assertThrows(IllegalStateException.class, () -> idempotencyStore.execute("key-1", "order", () -> {
+            runs.incrementAndGet();
+            throw new IllegalStateException("Stock service unavailable");
+        }));
+
+        // Act
+        IdempotencyStore.Result<String> retry = idempotencyStore.execute("key-1", "order", this::createOrder);
+
+        // Assert
+        assertEquals("order-2", retry.value());
+        assertFalse(retry.replayed());
+    }
+
+    @Test
+    @DisplayName("Should forget results after the TTL and evict least-recently-used keys beyond the bound")
+    void shouldExpireAndEvictEntries() {
+        // Arrange
+        idempotencyStore.execute("key-1", "order", this::createOrder);
+        clock.advance(Duration.ofMinutes(11));
+
+        // Act
+        IdempotencyStore.Result<String> afterTtl = idempotencyStore.execute("key-1", "order", this::createOrder);
+        idempotencyStore.execute("key-2", "order", this::createOrder);
+        idempotencyStore.execute("key-3", "order", this::createOrder);
+
+        // Assert
+        assertFalse(afterTtl.replayed());
+        assertEquals(2, idempotencyStore.size());
+        assertFalse(idempotencyStore.execute("key-1", "order", this::createOrder).replayed());
+        assertTrue(idempotencyStore.execute("key-3", "order", this::createOrder).replayed());
+    }
+
+    private String createOrder() {
+        return "order-" + runs.incrementAndGet();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T, E extends Throwable> T sneakyThrow(Throwable e) throws E {
+        throw (E) e;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.project.order_service.service;
+
+import com.project.order_service.entity.Order;
+import com.project.order_service.entity.OrderStatus;
+import com.project.order_service.exception.OrderQueueFullException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class OrderFulfilmentWorkerTest {
+
+    @Mock
+    private OrderService orderService;
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private OrderFulfilmentWorker worker;
+
+    private Order order;
+    private Order accepted;
+
+    @BeforeEach
+    void setUp() {
+        worker = new OrderFulfilmentWorker(orderService, 1, 1, 3, Duration.ofMillis(10));
+        order = new Order(null, 101L, 201L, 5, null, null);
+        accepted = new Order(7L, 101L, 201L, 5, LocalDate.now(), OrderStatus.ACCEPTED);
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        worker.destroy();
+    }
+
+    @Test
+    @DisplayName("Should return the Accepted order at once and fulfil it in the background")
+    void shouldAcceptAndFulfilInBackground() {
+        // Arrange
+        when(orderService.acceptOrder(order)).thenReturn(accepted);
+
+        // Act
+        Order result = worker.accept(order);
+
+        // Assert
+        assertSame(accepted, result);
+        verify(orderService, timeout(5000)).fulfilAcceptedOrder(7L);
+    }
+
+    @Test
+    @DisplayName("Should retry failed fulfilment with backoff until it succeeds")
+    void shouldRetryTransientFailures() {
+        // Arrange
+        when(orderService.acceptOrder(order)).thenReturn(accepted);
+        when(orderService.fulfilAcceptedOrder(7L))
+                .thenThrow(new IllegalStateException("Stock Service unavailable"))
+                .thenReturn(accepted);
+
+        // Act
+        worker.accept(order);
+
+        // Assert
+        verify(orderService, timeout(5000).times(2)).fulfilAcceptedOrder(7L);
+        verify(orderService, after(100).never()).rejectAcceptedOrder(any());
+    }
+
+    @Test
+    @DisplayName("Should reject the order once every attempt has failed")
+    void shouldRejectAfterMaxAttempts() {
+        // Arrange
+        when(orderService.acceptOrder(order)).thenReturn(accepted);
+        when(orderService.fulfilAcceptedOrder(7L)).thenThrow(new IllegalStateException("Stock Service unavailable"));
+
+        // Act
+        worker.accept(order);
+
+        // Assert
+        verify(orderService, timeout(5000)).rejectAcceptedOrder(7L);
+        verify(orderService, times(3)).fulfilAcceptedOrder(7L);
+    }
+
+    @Test
+    @DisplayName("Should answer 429 without storing the order when the fulfilment queue is full")
+    void shouldRejectWhenQueueIsFull() throws Exception {
+        // Arrange
+        CountDownLatch running = new CountDownLatch(1);
+        Order second = new Order(8L, 101L, 201L, 5, LocalDate.now(), OrderStatus.ACCEPTED);
+        when(orderService.acceptOrder(order)).thenReturn(accepted, second);
+        when(orderService.fulfilAcceptedOrder(7L)).thenAnswer(invocation -> {
+            running.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return accepted;
+        });
+        worker.accept(order); // Occupies the only worker
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+        worker.accept(order); // Occupies the only queue slot
+
+        // Act & Assert
+        assertThrows(OrderQueueFullException.class, () -> worker.accept(order));
+        verify(orderService, times(2)).acceptOrder(order);
+    }
+
+    @Test
+    @DisplayName("Should queue orders left Accepted by a previous run")
+    void shouldResumeAcceptedOrders() {
+        // Arrange
+        when(orderService.getAcceptedOrderIds()).thenReturn(List.of(3L, 4L));
+
+        // Act
+        worker.resumeAcceptedOrders();
+
+        // Assert
+        verify(orderService, timeout(5000)).fulfilAcceptedOrder(3L);
+        verify(orderService, timeout(5000)).fulfilAcceptedOrder(4L);
+    }
+
+    @Test
+    @DisplayName("Should queue orders turned away by a full queue on the next sweep")
+    void shouldSweepOrdersTurnedAwayByFullQueue() throws Exception {
+        // Arrange: a backlog larger than the one worker plus one queue slot
+        CountDownLatch running = new CountDownLatch(1);
+        when(orderService.getAcceptedOrderIds()).thenReturn(List.of(3L, 4L, 5L), List.of(5L));
+        when(orderService.fulfilAcceptedOrder(3L)).thenAnswer(invocation -> {
+            running.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return accepted;
+        });
+        worker.resumeAcceptedOrders(); // 3 runs, 4 takes the queue slot, 5 is turned away
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+        release.countDown();
+        verify(orderService, timeout(5000)).fulfilAcceptedOrder(4L);
+
+        // Act
+        worker.sweepAcceptedOrders();
+
+        // Assert
+        verify(orderService, timeout(5000)).fulfilAcceptedOrder(5L);
+        verify(orderService, times(1)).fulfilAcceptedOrder(3L);
+    }
+
+    @Test
+    @DisplayName("The sweep should leave alone orders that are running or waiting for a retry")
+    void shouldNotSweepOrdersInFlight() throws Exception {
+        // Arrange
+        CountDownLatch running = new CountDownLatch(1);
+        when(orderService.acceptOrder(order)).thenReturn(accepted);
+        when(orderService.getAcceptedOrderIds()).thenReturn(List.of(7L));
+        when(orderService.fulfilAcceptedOrder(7L)).thenAnswer(invocation -> {
+            running.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return accepted;
+        });
+        worker.accept(order);
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+
+        // Act
+        worker.sweepAcceptedOrders();
+        release.countDown();
+
+        // Assert
+        verify(orderService, after(200).times(1)).fulfilAcceptedOrder(7L);
+    }
+}
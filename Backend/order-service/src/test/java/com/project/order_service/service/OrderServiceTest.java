@@ -1,25 +1,61 @@
 package com.project.order_service.service;
 
+import com.project.order_service.dto.CustomerOrderHistoryDto;
+import com.project.order_service.dto.OrderBatchResponseDto;
+import com.project.order_service.dto.OrderPageDto;
 import com.project.order_service.dto.OrderResponseDto;
+import com.project.order_service.dto.OrderStatusUpdateResultDto;
+import com.project.order_service.dto.OrderSummaryDto;
 import com.project.order_service.dto.ProductDto;
+import com.project.order_service.dto.StockAdjustmentDto;
 import com.project.order_service.dto.StockDto;
+import com.project.order_service.dto.StockReservationDto;
+import com.project.order_service.dto.StockReservationResultDto;
+import com.project.order_service.entity.CustomerOrderStats;
 import com.project.order_service.entity.Order;
+import com.project.order_service.entity.OrderStatus;
 import com.project.order_service.exception.OrderNotFoundException;
+import com.project.order_service.exception.OrderQueueFullException;
+import com.project.order_service.exception.OrderSaveTimeoutException;
 import com.project.order_service.feignclient.ProductClient;
 import com.project.order_service.feignclient.StockClient;
+import com.project.order_service.repository.CustomerOrderStatsRepository;
+import com.project.order_service.repository.OrderDailyRollupRepository;
 import com.project.order_service.repository.OrderRepository;
+import feign.FeignException;
+import jakarta.persistence.EntityManager;
+import feign.Request;
+import feign.RequestTemplate;
+import feign.RetryableException;
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.*;
@@ -47,6 +83,21 @@ public class OrderServiceTest {
     @Mock // Creates a mock instance of StockClient
     private StockClient stockClient;
 
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private OrderDailyRollupRepository rollupRepository;
+
+    @Mock
+    private CustomerOrderStatsRepository customerStatsRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private OrderWriteBehindQueue writeBehindQueue;
+
     @InjectMocks // Injects the mocks into OrderServiceImpl
     private OrderServiceImpl orderService;
 
@@ -57,9 +108,24 @@ public class OrderServiceTest {
     @BeforeEach
     void setUp() {
         // Initialize common test data before each test
-        sampleOrder = new Order(1L, 101L, 201L, 5, LocalDate.now(), "Pending");
+        sampleOrder = new Order(1L, 101L, 201L, 5, LocalDate.now(), OrderStatus.PENDING);
         sampleProductDto = new ProductDto(201L, "Test Product", "Description", 100.0, 10, "url");
         sampleStockDto = new StockDto(201L, 10, 2, false);
+
+        // Run transaction callbacks inline
+        lenient().when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        lenient().doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+    }
+
+    // Builds the FeignException subtype Stock Service would produce for the given HTTP status.
+    private static FeignException feignException(int status) {
+        Request request = Request.create(Request.HttpMethod.POST, "/api/stocks", new HashMap<>(), null, StandardCharsets.UTF_8, new RequestTemplate());
+        return FeignException.errorStatus("StockClient#decrementStock",
+                feign.Response.builder().status(status).reason("error").request(request).headers(new HashMap<>()).build());
     }
 
     // --- createOrder Tests ---
@@ -67,23 +133,22 @@ public class OrderServiceTest {
     void createOrder_shouldCreateOrderSuccessfully_whenProductAndStockAreAvailable() {
         // Mock behavior of external clients
         when(productClient.getProductById(sampleOrder.getProductId())).thenReturn(Optional.of(sampleProductDto));
-        when(stockClient.getStockByProductId(sampleOrder.getProductId())).thenReturn(sampleStockDto);
+        when(stockClient.decrementStock(eq(sampleOrder.getProductId()), any(StockAdjustmentDto.class))).thenReturn(sampleStockDto);
         // Mock behavior of repository save
         when(orderRepository.save(any(Order.class))).thenReturn(sampleOrder);
-        when(stockClient.updateStock(eq(sampleOrder.getProductId()), any(StockDto.class))).thenReturn(sampleStockDto); // Mock updateStock
 
         Order createdOrder = orderService.createOrder(sampleOrder);
 
         // Assertions
         assertThat(createdOrder).isNotNull();
         assertThat(createdOrder.getOrderId()).isEqualTo(1L);
-        assertThat(createdOrder.getStatus()).isEqualTo("Pending");
+        assertThat(createdOrder.getStatus()).isEqualTo(OrderStatus.PENDING);
         assertThat(createdOrder.getOrderDate()).isEqualTo(LocalDate.now());
 
         // Verify interactions with mocks
         verify(productClient, times(1)).getProductById(sampleOrder.getProductId());
-        verify(stockClient, times(1)).getStockByProductId(sampleOrder.getProductId());
-        verify(stockClient, times(1)).updateStock(eq(sampleOrder.getProductId()), any(StockDto.class));
+        verify(stockClient, times(1)).decrementStock(sampleOrder.getProductId(), new StockAdjustmentDto(sampleOrder.getQuantity(), "ORDER", null));
+        verify(stockClient, never()).updateStock(anyLong(), any(StockDto.class)); // No read-modify-write of the stock row
         verify(orderRepository, times(1)).save(any(Order.class));
     }
 
@@ -101,7 +166,7 @@ public class OrderServiceTest {
 
         // Verify interactions
         verify(productClient, times(1)).getProductById(sampleOrder.getProductId());
-        verify(stockClient, never()).getStockByProductId(anyLong()); // Should not call stock service
+        verify(stockClient, never()).decrementStock(anyLong(), any(StockAdjustmentDto.class)); // Should not call stock service
         verify(orderRepository, never()).save(any(Order.class));     // Should not save order
     }
 
@@ -109,8 +174,8 @@ public class OrderServiceTest {
     void createOrder_shouldThrowException_whenStockInfoNotFound() {
         // Mock product client to return product
         when(productClient.getProductById(sampleOrder.getProductId())).thenReturn(Optional.of(sampleProductDto));
-        // Mock stock client to return null for stock info
-        when(stockClient.getStockByProductId(sampleOrder.getProductId())).thenReturn(null);
+        // Mock stock client to answer 404: no stock row for this product
+        when(stockClient.decrementStock(eq(sampleOrder.getProductId()), any(StockAdjustmentDto.class))).thenThrow(feignException(404));
 
         // Assert that RuntimeException is thrown
         RuntimeException thrown = assertThrows(RuntimeException.class, () -> {
@@ -121,7 +186,7 @@ public class OrderServiceTest {
 
         // Verify interactions
         verify(productClient, times(1)).getProductById(sampleOrder.getProductId());
-        verify(stockClient, times(1)).getStockByProductId(sampleOrder.getProductId());
+        verify(stockClient, times(1)).decrementStock(eq(sampleOrder.getProductId()), any(StockAdjustmentDto.class));
         verify(stockClient, never()).updateStock(anyLong(), any(StockDto.class));
         verify(orderRepository, never()).save(any(Order.class));
     }
@@ -131,8 +196,8 @@ public class OrderServiceTest {
         sampleOrder.setQuantity(15); // Request more than available stock (10)
         // Mock product client to return product
         when(productClient.getProductById(sampleOrder.getProductId())).thenReturn(Optional.of(sampleProductDto));
-        // Mock stock client to return stock with quantity 10
-        when(stockClient.getStockByProductId(sampleOrder.getProductId())).thenReturn(sampleStockDto);
+        // Mock stock client to answer 409: conditional decrement rejected
+        when(stockClient.decrementStock(eq(sampleOrder.getProductId()), any(StockAdjustmentDto.class))).thenThrow(feignException(409));
 
         // Assert that RuntimeException is thrown
         RuntimeException thrown = assertThrows(RuntimeException.class, () -> {
@@ -143,7 +208,7 @@ public class OrderServiceTest {
 
         // Verify interactions
         verify(productClient, times(1)).getProductById(sampleOrder.getProductId());
-        verify(stockClient, times(1)).getStockByProductId(sampleOrder.getProductId());
+        verify(stockClient, times(1)).decrementStock(eq(sampleOrder.getProductId()), any(StockAdjustmentDto.class));
         verify(stockClient, never()).updateStock(anyLong(), any(StockDto.class)); // Should not update stock
         verify(orderRepository, never()).save(any(Order.class));                 // Should not save order
     }
@@ -152,8 +217,7 @@ public class OrderServiceTest {
     void createOrder_shouldThrowException_whenOrderRepositoryFailsToSave() {
         // Mock successful product and stock checks
         when(productClient.getProductById(sampleOrder.getProductId())).thenReturn(Optional.of(sampleProductDto));
-        when(stockClient.getStockByProductId(sampleOrder.getProductId())).thenReturn(sampleStockDto);
-        when(stockClient.updateStock(eq(sampleOrder.getProductId()), any(StockDto.class))).thenReturn(sampleStockDto);
+        when(stockClient.decrementStock(eq(sampleOrder.getProductId()), any(StockAdjustmentDto.class))).thenReturn(sampleStockDto);
         // Mock repository save to throw an exception
         when(orderRepository.save(any(Order.class))).thenThrow(new RuntimeException("DB save error"));
 
@@ -166,15 +230,228 @@ public class OrderServiceTest {
 
         // Verify interactions
         verify(productClient, times(1)).getProductById(sampleOrder.getProductId());
-        verify(stockClient, times(1)).getStockByProductId(sampleOrder.getProductId());
-        verify(stockClient, times(1)).updateStock(eq(sampleOrder.getProductId()), any(StockDto.class)); // Stock was updated
+        verify(stockClient, times(1)).decrementStock(eq(sampleOrder.getProductId()), any(StockAdjustmentDto.class)); // Stock was reserved
+        verify(stockClient, times(1)).incrementStock(sampleOrder.getProductId(), new StockAdjustmentDto(sampleOrder.getQuantity(), "ORDER_RELEASE", null)); // ...and released again
         verify(orderRepository, times(1)).save(any(Order.class));
     }
 
+    @Test
+    void createOrder_shouldSaveThroughWriteBehindQueue_whenEnabled() {
+        when(writeBehindQueue.isEnabled()).thenReturn(true);
+        when(writeBehindQueue.hasCapacity()).thenReturn(true);
+        when(productClient.getProductById(sampleOrder.getProductId())).thenReturn(Optional.of(sampleProductDto));
+        when(stockClient.decrementStock(eq(sampleOrder.getProductId()), any(StockAdjustmentDto.class))).thenReturn(sampleStockDto);
+        CompletableFuture<Order> saved = CompletableFuture.completedFuture(sampleOrder);
+        when(writeBehindQueue.submit(sampleOrder)).thenReturn(saved);
+        when(writeBehindQueue.await(saved)).thenReturn(sampleOrder);
+
+        Order createdOrder = orderService.createOrder(sampleOrder);
+
+        assertThat(createdOrder.getOrderId()).isEqualTo(1L);
+        assertThat(createdOrder.getTotalPrice()).isEqualTo(500.0);
+        verify(writeBehindQueue).submit(sampleOrder);
+        verify(orderRepository, never()).save(any(Order.class)); // The flusher does the insert
+    }
+
+    @Test
+    void createOrder_shouldRejectBeforeRemoteCalls_whenWriteBehindQueueIsFull() {
+        when(writeBehindQueue.isEnabled()).thenReturn(true);
+        when(writeBehindQueue.hasCapacity()).thenReturn(false);
+
+        assertThrows(OrderQueueFullException.class, () -> orderService.createOrder(sampleOrder));
+
+        verifyNoInteractions(productClient, stockClient);
+        verify(writeBehindQueue, never()).submit(any(Order.class));
+    }
+
+    @Test
+    void createOrder_shouldReleaseStock_whenWriteBehindQueueFillsUpAfterReservation() {
+        when(writeBehindQueue.isEnabled()).thenReturn(true);
+        when(writeBehindQueue.hasCapacity()).thenReturn(true);
+        when(productClient.getProductById(sampleOrder.getProductId())).thenReturn(Optional.of(sampleProductDto));
+        when(stockClient.decrementStock(eq(sampleOrder.getProductId()), any(StockAdjustmentDto.class))).thenReturn(sampleStockDto);
+        when(writeBehindQueue.submit(sampleOrder)).thenThrow(new OrderQueueFullException("full"));
+
+        assertThrows(OrderQueueFullException.class, () -> orderService.createOrder(sampleOrder));
+
+        verify(stockClient).incrementStock(sampleOrder.getProductId(), new StockAdjustmentDto(sampleOrder.getQuantity(), "ORDER_RELEASE", null));
+    }
+
+    @Test
+    void createOrder_shouldReleaseStockOnlyIfOrderIsNotSaved_whenWriteBehindWaitTimesOut() {
+        when(writeBehindQueue.isEnabled()).thenReturn(true);
+        when(writeBehindQueue.hasCapacity()).thenReturn(true);
+        when(productClient.getProductById(sampleOrder.getProductId())).thenReturn(Optional.of(sampleProductDto));
+        when(stockClient.decrementStock(eq(sampleOrder.getProductId()), any(StockAdjustmentDto.class))).thenReturn(sampleStockDto);
+        CompletableFuture<Order> saved = new CompletableFuture<>();
+        when(writeBehindQueue.submit(sampleOrder)).thenReturn(saved);
+        when(writeBehindQueue.await(saved)).thenThrow(new OrderSaveTimeoutException("timed out"));
+
+        assertThrows(OrderSaveTimeoutException.class, () -> orderService.createOrder(sampleOrder));
+        verify(stockClient, never()).incrementStock(anyLong(), any(StockAdjustmentDto.class)); // Its batch may still commit
+
+        saved.completeExceptionally(new IllegalStateException("batch failed"));
+        verify(stockClient, timeout(5000)).incrementStock(sampleOrder.getProductId(), new StockAdjustmentDto(sampleOrder.getQuantity(), "ORDER_RELEASE", null));
+    }
+
+    // --- Async acceptance / fulfilment Tests ---
+    @Test
+    void acceptOrder_shouldStoreAcceptedOrderWithoutRemoteCalls() {
+        when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> {
+            Order saved = invocation.getArgument(0);
+            saved.setOrderId(42L);
+            return saved;
+        });
+
+        Order accepted = orderService.acceptOrder(sampleOrder);
+
+        assertThat(accepted.getOrderId()).isEqualTo(42L);
+        assertThat(accepted.getStatus()).isEqualTo(OrderStatus.ACCEPTED);
+        assertThat(accepted.getTotalPrice()).isNull();
+        verifyNoInteractions(productClient, stockClient);
+        verify(rollupRepository).applyDelta(201L, LocalDate.now(), "Accepted", 1, 5, 0.0);
+    }
+
+    @Test
+    void acceptOrder_shouldRejectInvalidQuantity() {
+        sampleOrder.setQuantity(0);
+
+        assertThrows(IllegalArgumentException.class, () -> orderService.acceptOrder(sampleOrder));
+
+        verify(orderRepository, never()).save(any(Order.class));
+    }
+
+    @Test
+    void fulfilAcceptedOrder_shouldReserveStockAndMoveToPending() {
+        sampleOrder.setStatus(OrderStatus.ACCEPTED);
+        when(orderRepository.findById(1L)).thenReturn(Optional.of(sampleOrder));
+        when(productClient.getProductById(201L)).thenReturn(Optional.of(sampleProductDto));
+        when(stockClient.decrementStock(201L, new StockAdjustmentDto(5, "ORDER", "1"))).thenReturn(sampleStockDto);
+        when(orderRepository.save(sampleOrder)).thenReturn(sampleOrder);
+
+        Order fulfilled = orderService.fulfilAcceptedOrder(1L);
+
+        assertThat(fulfilled.getStatus()).isEqualTo(OrderStatus.PENDING);
+        assertThat(fulfilled.getUnitPrice()).isEqualTo(100.0);
+        assertThat(fulfilled.getTotalPrice()).isEqualTo(500.0);
+        verify(rollupRepository).applyDelta(201L, sampleOrder.getOrderDate(), "Accepted", -1, -5, 0.0);
+        verify(rollupRepository).applyDelta(201L, sampleOrder.getOrderDate(), "Pending", 1, 5, 500.0);
+    }
+
+    @Test
+    void fulfilAcceptedOrder_shouldReject_whenStockIsShort() {
+        sampleOrder.setStatus(OrderStatus.ACCEPTED);
+        when(orderRepository.findById(1L)).thenReturn(Optional.of(sampleOrder));
+        when(productClient.getProductById(201L)).thenReturn(Optional.of(sampleProductDto));
+        when(stockClient.decrementStock(eq(201L), any(StockAdjustmentDto.class))).thenThrow(feignException(409));
+        when(orderRepository.save(sampleOrder)).thenReturn(sampleOrder);
+
+        Order rejected = orderService.fulfilAcceptedOrder(1L);
+
+        assertThat(rejected.getStatus()).isEqualTo(OrderStatus.REJECTED);
+        assertThat(rejected.getTotalPrice()).isNull();
+        verify(stockClient, never()).incrementStock(anyLong(), any(StockAdjustmentDto.class));
+    }
+
+    @Test
+    void fulfilAcceptedOrder_shouldPropagateTransientFailures() {
+        sampleOrder.setStatus(OrderStatus.ACCEPTED);
+        when(orderRepository.findById(1L)).thenReturn(Optional.of(sampleOrder));
+        when(productClient.getProductById(201L)).thenReturn(Optional.of(sampleProductDto));
+        when(stockClient.decrementStock(eq(201L), any(StockAdjustmentDto.class))).thenThrow(feignException(503));
+
+        assertThrows(FeignException.class, () -> orderService.fulfilAcceptedOrder(1L));
+
+        assertThat(sampleOrder.getStatus()).isEqualTo(OrderStatus.ACCEPTED);
+        verify(orderRepository, never()).save(any(Order.class));
+    }
+
+    @Test
+    void fulfilAcceptedOrder_shouldReserveOnce_whenRetriedAfterDecrementResponseWasLost() {
+        // Stock Service as seen over the wire: the first decrement commits but times out on the way back,
+        // and a repeat carrying the same reference is not applied again
+        Set<String> heldReferences = new HashSet<>();
+        AtomicInteger quantity = new AtomicInteger(50);
+        AtomicBoolean responseLost = new AtomicBoolean(true);
+        Request request = Request.create(Request.HttpMethod.POST, "/api/stocks/201/decrement", new HashMap<>(), null, StandardCharsets.UTF_8, new RequestTemplate());
+        when(stockClient.decrementStock(eq(201L), any(StockAdjustmentDto.class))).thenAnswer(invocation -> {
+            StockAdjustmentDto adjustment = invocation.getArgument(1);
+            if (heldReferences.add(adjustment.getReferenceId())) {
+                quantity.addAndGet(-adjustment.getQuantity());
+            }
+            if (responseLost.getAndSet(false)) {
+                throw new RetryableException(-1, "Read timed out", Request.HttpMethod.POST, (Long) null, request);
+            }
+            return sampleStockDto;
+        });
+        Order accepted = new Order(1L, 101L, 201L, 5, LocalDate.now(), OrderStatus.ACCEPTED);
+        when(orderRepository.findById(1L)).thenReturn(Optional.of(accepted));
+        when(productClient.getProductById(201L)).thenReturn(Optional.of(sampleProductDto));
+        when(orderRepository.save(accepted)).thenReturn(accepted);
+
+        assertThrows(RetryableException.class, () -> orderService.fulfilAcceptedOrder(1L)); // The worker retries this
+        Order fulfilled = orderService.fulfilAcceptedOrder(1L);
+
+        assertThat(fulfilled.getStatus()).isEqualTo(OrderStatus.PENDING);
+        assertThat(quantity.get()).isEqualTo(45);
+        verify(stockClient, times(2)).decrementStock(201L, new StockAdjustmentDto(5, "ORDER", "1"));
+        verify(stockClient, never()).incrementStock(anyLong(), any(StockAdjustmentDto.class));
+    }
+
+    @Test
+    void fulfilAcceptedOrder_shouldReleaseStock_whenOrderChangedMeanwhile() {
+        Order accepted = new Order(1L, 101L, 201L, 5, LocalDate.now(), OrderStatus.ACCEPTED);
+        Order cancelledMeanwhile = new Order(1L, 101L, 201L, 5, LocalDate.now(), OrderStatus.CANCELLED);
+        when(orderRepository.findById(1L)).thenReturn(Optional.of(accepted), Optional.of(cancelledMeanwhile));
+        when(productClient.getProductById(201L)).thenReturn(Optional.of(sampleProductDto));
+        when(stockClient.decrementStock(201L, new StockAdjustmentDto(5, "ORDER", "1"))).thenReturn(sampleStockDto);
+
+        assertThrows(IllegalStateException.class, () -> orderService.fulfilAcceptedOrder(1L));
+
+        verify(stockClient).releaseStock(201L, new StockAdjustmentDto(5, "ORDER_RELEASE", "1"));
+        verify(orderRepository, never()).save(any(Order.class));
+    }
+
+    @Test
+    void rejectAcceptedOrder_shouldReleaseReservationBeforeRejecting() {
+        Order accepted = new Order(1L, 101L, 201L, 5, LocalDate.now(), OrderStatus.ACCEPTED);
+        when(orderRepository.findById(1L)).thenReturn(Optional.of(accepted));
+        when(orderRepository.save(accepted)).thenReturn(accepted);
+
+        Order rejected = orderService.rejectAcceptedOrder(1L);
+
+        assertThat(rejected.getStatus()).isEqualTo(OrderStatus.REJECTED);
+        InOrder inOrder = inOrder(stockClient, orderRepository);
+        inOrder.verify(stockClient).releaseStock(201L, new StockAdjustmentDto(5, "ORDER_RELEASE", "1"));
+        inOrder.verify(orderRepository).save(accepted);
+    }
+
+    @Test
+    void rejectAcceptedOrder_shouldLeaveOrderAccepted_whenReleaseFails() {
+        Order accepted = new Order(1L, 101L, 201L, 5, LocalDate.now(), OrderStatus.ACCEPTED);
+        when(orderRepository.findById(1L)).thenReturn(Optional.of(accepted));
+        when(stockClient.releaseStock(eq(201L), any(StockAdjustmentDto.class))).thenThrow(feignException(503));
+
+        assertThrows(FeignException.class, () -> orderService.rejectAcceptedOrder(1L));
+
+        assertThat(accepted.getStatus()).isEqualTo(OrderStatus.ACCEPTED);
+        verify(orderRepository, never()).save(any(Order.class));
+    }
+
+    @Test
+    void fulfilAcceptedOrder_shouldDoNothing_whenOrderIsNoLongerAccepted() {
+        when(orderRepository.findById(1L)).thenReturn(Optional.of(sampleOrder));
+
+        Order result = orderService.fulfilAcceptedOrder(1L);
+
+        assertThat(result.getStatus()).isEqualTo(OrderStatus.PENDING);
+        verifyNoInteractions(productClient, stockClient);
+    }
+
     // --- getAllOrders Tests ---
     @Test
     void getAllOrders_shouldReturnListOfOrders() {
-        List<Order> orders = Arrays.asList(sampleOrder, new Order(2L, 102L, 202L, 1, LocalDate.now(), "Completed"));
+        List<Order> orders = Arrays.asList(sampleOrder, new Order(2L, 102L, 202L, 1, LocalDate.now(), OrderStatus.COMPLETED));
         when(orderRepository.findAll()).thenReturn(orders);
 
         List<Order> result = orderService.getAllOrders()
@@ -186,13 +463,13 @@ public class OrderServiceTest {
                     order.setProductId(orderResponseDto.getProductId());
                     order.setQuantity(orderResponseDto.getQuantity());
                     order.setOrderDate(orderResponseDto.getOrderDate());
-                    order.setStatus(orderResponseDto.getStatus());
+                    order.setStatus(OrderStatus.from(orderResponseDto.getStatus()));
                     return order;
                 })
                 .toList();
 
         assertThat(result).hasSize(2);
-        assertThat(result).containsExactlyInAnyOrder(sampleOrder, new Order(2L, 102L, 202L, 1, LocalDate.now(), "Completed"));
+        assertThat(result).containsExactlyInAnyOrder(sampleOrder, new Order(2L, 102L, 202L, 1, LocalDate.now(), OrderStatus.COMPLETED));
         verify(orderRepository, times(1)).findAll();
     }
 
@@ -209,13 +486,55 @@ public class OrderServiceTest {
                     order.setProductId(orderResponseDto.getProductId());
                     order.setQuantity(orderResponseDto.getQuantity());
                     order.setOrderDate(orderResponseDto.getOrderDate());
-                    order.setStatus(orderResponseDto.getStatus());
+                    order.setStatus(OrderStatus.from(orderResponseDto.getStatus()));
                     return order;
                 })
                 .toList();
 
         assertThat(result).isEmpty();
         verify(orderRepository, times(1)).findAll();
+        verify(productClient, never()).getProductsByIds(anyList());
+    }
+
+    @Test
+    void getAllOrders_shouldResolveProductNamesInBulk_independentOfOrderCount() {
+        // 450 distinct products -> 3 bulk calls of at most 200 IDs, whether there are 1k or 50k orders.
+        when(productClient.getProductsByIds(anyList())).thenAnswer(invocation -> {
+            List<Long> ids = invocation.getArgument(0);
+            assertThat(ids.size()).isLessThanOrEqualTo(200);
+            return ids.stream()
+                    .filter(id -> id != 449L) // One product no longer exists in Product Service
+                    .map(id -> new ProductDto(id, "Product " + id, "Description", 10.0, 1, "url"))
+                    .toList();
+        });
+
+        for (int orderCount : new int[]{1_000, 50_000}) {
+            List<Order> orders = new ArrayList<>(orderCount);
+            for (long i = 0; i < orderCount; i++) {
+                orders.add(new Order(i, 100L + i % 7, i % 450, 1, LocalDate.now(), OrderStatus.PENDING));
+            }
+            when(orderRepository.findAll()).thenReturn(orders);
+            clearInvocations(productClient);
+
+            List<OrderResponseDto> result = orderService.getAllOrders();
+
+            assertThat(result).hasSize(orderCount);
+            assertThat(result.get(3).getProductName()).isEqualTo("Product 3");
+            assertThat(result.get(449).getProductName()).isEqualTo("Unknown Product");
+            verify(productClient, times(3)).getProductsByIds(anyList());
+            verify(productClient, never()).getProductById(anyLong());
+        }
+    }
+
+    @Test
+    void getAllOrders_shouldFallBackToUnknownProduct_whenBulkLookupFails() {
+        when(orderRepository.findAll()).thenReturn(List.of(sampleOrder));
+        when(productClient.getProductsByIds(anyList())).thenThrow(new RuntimeException("Service Unavailable"));
+
+        List<OrderResponseDto> result = orderService.getAllOrders();
+
+        assertThat(result).hasSize(1);
+        assertThat(result.get(0).getProductName()).isEqualTo("Unknown Product");
     }
 
     // --- getOrderById Tests ---
@@ -240,42 +559,98 @@ public class OrderServiceTest {
     // --- deleteOrder Tests ---
     @Test
     void deleteOrder_shouldDeleteOrderSuccessfully() {
-        when(orderRepository.existsById(1L)).thenReturn(true);
-        doNothing().when(orderRepository).deleteById(1L);
+        when(orderRepository.findById(1L)).thenReturn(Optional.of(sampleOrder));
 
         assertDoesNotThrow(() -> orderService.deleteOrder(1L));
 
-        verify(orderRepository, times(1)).existsById(1L);
-        verify(orderRepository, times(1)).deleteById(1L);
+        verify(orderRepository, times(1)).delete(sampleOrder);
+        verify(rollupRepository, times(1)).applyDelta(201L, sampleOrder.getOrderDate(), "Pending", -1, -5, 0.0);
+        verify(customerStatsRepository).applyDelta(101L, -1, -5, null);
+        verify(customerStatsRepository).refreshLastOrderDate(101L); // The deleted order may have been the latest
     }
 
     @Test
     void deleteOrder_shouldThrowOrderNotFoundException_whenOrderDoesNotExist() {
-        when(orderRepository.existsById(99L)).thenReturn(false);
+        when(orderRepository.findById(99L)).thenReturn(Optional.empty());
 
         assertThrows(OrderNotFoundException.class, () -> orderService.deleteOrder(99L));
 
-        verify(orderRepository, times(1)).existsById(99L);
-        verify(orderRepository, never()).deleteById(anyLong());
+        verify(orderRepository, never()).delete(any(Order.class));
+        verifyNoInteractions(rollupRepository);
     }
 
     // --- updateStatus Tests ---
     @Test
     void updateStatus_shouldUpdateOrderStatusSuccessfully() {
         String newStatus = "Delivered";
-        Order existingOrder = new Order(1L, 101L, 201L, 5, LocalDate.now(), "Pending");
-        Order updatedOrder = new Order(1L, 101L, 201L, 5, LocalDate.now(), newStatus);
+        Order existingOrder = new Order(1L, 101L, 201L, 5, LocalDate.now(), OrderStatus.PENDING);
+        Order updatedOrder = new Order(1L, 101L, 201L, 5, LocalDate.now(), OrderStatus.DELIVERED);
 
         when(orderRepository.findById(1L)).thenReturn(Optional.of(existingOrder));
         when(orderRepository.save(any(Order.class))).thenReturn(updatedOrder);
 
         Order result = orderService.updateStatus(1L, newStatus);
 
-        assertThat(result.getStatus()).isEqualTo(newStatus);
+        assertThat(result.getStatus()).isEqualTo(OrderStatus.DELIVERED);
         verify(orderRepository, times(1)).findById(1L);
         verify(orderRepository, times(1)).save(existingOrder); // Verify save was called with the modified existingOrder
     }
 
+    @Test
+    void updateStatuses_shouldMoveAllowedOrdersAndReportTheRest() {
+        // Arrange: 1 and 2 are Pending, 3 is already Shipped, 4 is Delivered, 5 does not exist
+        LocalDate day = LocalDate.of(2025, 3, 1);
+        Order first = new Order(1L, 101L, 201L, 2, day, OrderStatus.PENDING, 10.0, 20.0);
+        Order second = new Order(2L, 102L, 201L, 3, day, OrderStatus.PENDING, 10.0, 30.0);
+        List<Long> ids = List.of(1L, 2L, 3L, 4L, 5L);
+        when(orderRepository.findForStatusTransition(ids, Set.of(OrderStatus.PENDING))).thenReturn(List.of(first, second));
+        when(orderRepository.transitionStatus(ids, Set.of(OrderStatus.PENDING), OrderStatus.SHIPPED)).thenReturn(2);
+        when(orderRepository.findStatusesByIdIn(List.of(3L, 4L, 5L))).thenReturn(List.of(
+                new Object[]{3L, OrderStatus.SHIPPED}, new Object[]{4L, OrderStatus.DELIVERED}));
+
+        // Act
+        OrderStatusUpdateResultDto result = orderService.updateStatuses(List.of(1L, 2L, 3L, 4L, 5L, 1L), "shipped");
+
+        // Assert
+        assertEquals("Shipped", result.getStatus());
+        assertEquals(5, result.getRequested());
+        assertEquals(List.of(1L, 2L), result.getUpdatedIds());
+        assertEquals(List.of(3L), result.getUnchangedIds());
+        assertEquals(List.of(
+                new OrderStatusUpdateResultDto.Failure(4L, "Delivered", "Cannot move order from Delivered to Shipped."),
+                new OrderStatusUpdateResultDto.Failure(5L, null, "Order with ID 5 not found.")), result.getFailed());
+        verify(rollupRepository).applyDelta(201L, day, "Pending", -2, -5, -50.0);
+        verify(rollupRepository).applyDelta(201L, day, "Shipped", 2, 5, 50.0);
+        verify(orderRepository, never()).save(any(Order.class));
+        verify(orderRepository, never()).findById(any());
+    }
+
+    @Test
+    void updateStatuses_shouldUseOneTransactionPerChunk() {
+        List<Long> ids = new ArrayList<>();
+        for (long id = 1; id <= 501; id++) {
+            ids.add(id);
+        }
+        when(orderRepository.findForStatusTransition(any(), any())).thenReturn(Collections.emptyList());
+        when(orderRepository.findStatusesByIdIn(any())).thenReturn(Collections.emptyList());
+
+        OrderStatusUpdateResultDto result = orderService.updateStatuses(ids, "Delivered");
+
+        assertEquals(501, result.getFailed().size());
+        verify(transactionTemplate, times(2)).executeWithoutResult(any());
+        verify(orderRepository).findForStatusTransition(ids.subList(0, 500), Set.of(OrderStatus.SHIPPED));
+        verify(orderRepository).findForStatusTransition(ids.subList(500, 501), Set.of(OrderStatus.SHIPPED));
+        verify(orderRepository, never()).transitionStatus(any(), any(), any());
+    }
+
+    @Test
+    void updateStatuses_shouldRejectStatusesThatCannotBeSetInBulk() {
+        assertThrows(IllegalArgumentException.class, () -> orderService.updateStatuses(List.of(1L), "Pending"));
+        assertThrows(IllegalArgumentException.class, () -> orderService.updateStatuses(List.of(1L), "Lost"));
+        assertThrows(IllegalArgumentException.class, () -> orderService.updateStatuses(List.of(), "Shipped"));
+        verifyNoInteractions(orderRepository);
+    }
+
     @Test
     void updateStatus_shouldThrowOrderNotFoundException_whenOrderDoesNotExist() {
         when(orderRepository.findById(99L)).thenReturn(Optional.empty());
@@ -290,10 +665,11 @@ public class OrderServiceTest {
     @Test
     void updateOrder_shouldUpdateAllOrderDetailsSuccessfully() {
         Long orderId = 1L;
-        Order existingOrder = new Order(orderId, 101L, 201L, 5, LocalDate.of(2024, 1, 1), "Pending");
-        Order updatedDetails = new Order(orderId, 102L, 202L, 10, LocalDate.of(2024, 2, 1), "Shipped");
+        Order existingOrder = new Order(orderId, 101L, 201L, 5, LocalDate.of(2024, 1, 1), OrderStatus.PENDING);
+        Order updatedDetails = new Order(orderId, 102L, 202L, 10, LocalDate.of(2024, 2, 1), OrderStatus.SHIPPED);
 
         when(orderRepository.findById(orderId)).thenReturn(Optional.of(existingOrder));
+        when(productClient.getProductById(202L)).thenReturn(Optional.of(sampleProductDto));
         when(orderRepository.save(any(Order.class))).thenReturn(updatedDetails);
 
         Order result = orderService.updateOrder(orderId, updatedDetails);
@@ -313,7 +689,7 @@ public class OrderServiceTest {
     @Test
     void updateOrder_shouldThrowOrderNotFoundException_whenOrderToUpdateDoesNotExist() {
         Long orderId = 99L;
-        Order updatedDetails = new Order(orderId, 102L, 202L, 10, LocalDate.of(2024, 2, 1), "Shipped");
+        Order updatedDetails = new Order(orderId, 102L, 202L, 10, LocalDate.of(2024, 2, 1), OrderStatus.SHIPPED);
 
         when(orderRepository.findById(orderId)).thenReturn(Optional.empty());
 
@@ -323,14 +699,27 @@ public class OrderServiceTest {
         verify(orderRepository, never()).save(any(Order.class));
     }
 
+    @Test
+    void updateOrder_shouldRejectUpdate_whenNewProductIsNotFound() {
+        Order existingOrder = new Order(1L, 101L, 201L, 5, LocalDate.of(2024, 1, 1), OrderStatus.PENDING, 20.0, 100.0);
+        Order updatedDetails = new Order(1L, 101L, 999L, 5, LocalDate.of(2024, 1, 1), OrderStatus.PENDING);
+        when(orderRepository.findById(1L)).thenReturn(Optional.of(existingOrder));
+        when(productClient.getProductById(999L)).thenReturn(Optional.empty());
+
+        assertThrows(OrderNotFoundException.class, () -> orderService.updateOrder(1L, updatedDetails));
+
+        verify(orderRepository, never()).save(any(Order.class));
+        verifyNoInteractions(rollupRepository, customerStatsRepository);
+    }
+
     // --- getOrdersByDateRange Tests ---
     @Test
     void getOrdersByDateRange_shouldReturnOrdersInGivenRange() {
         LocalDate startDate = LocalDate.of(2025, 1, 1);
         LocalDate endDate = LocalDate.of(2025, 1, 31);
         List<Order> ordersInDateRange = Arrays.asList(
-                new Order(1L, 101L, 201L, 2, LocalDate.of(2025, 1, 15), "Pending"),
-                new Order(2L, 102L, 202L, 1, LocalDate.of(2025, 1, 20), "Completed")
+                new Order(1L, 101L, 201L, 2, LocalDate.of(2025, 1, 15), OrderStatus.PENDING),
+                new Order(2L, 102L, 202L, 1, LocalDate.of(2025, 1, 20), OrderStatus.COMPLETED)
         );
 
         when(orderRepository.findByOrderDateBetween(startDate, endDate)).thenReturn(ordersInDateRange);
@@ -363,12 +752,12 @@ public class OrderServiceTest {
         LocalDate endDate = LocalDate.of(2025, 1, 31);
         Long expectedSum = 15L;
 
-        when(orderRepository.sumQuantityByProductIdAndOrderDateBetween(productId, startDate, endDate)).thenReturn(expectedSum);
+        when(rollupRepository.sumQuantityByProductIdAndOrderDateBetween(productId, startDate, endDate)).thenReturn(expectedSum);
 
         Long result = orderService.sumQuantityByProductIdAndDateRange(productId, startDate, endDate);
 
         assertThat(result).isEqualTo(expectedSum);
-        verify(orderRepository, times(1)).sumQuantityByProductIdAndOrderDateBetween(productId, startDate, endDate);
+        verify(rollupRepository, times(1)).sumQuantityByProductIdAndOrderDateBetween(productId, startDate, endDate);
     }
 
     @Test
@@ -377,11 +766,535 @@ public class OrderServiceTest {
         LocalDate startDate = LocalDate.of(2025, 1, 1);
         LocalDate endDate = LocalDate.of(2025, 1, 31);
 
-        when(orderRepository.sumQuantityByProductIdAndOrderDateBetween(productId, startDate, endDate)).thenReturn(null);
+        when(rollupRepository.sumQuantityByProductIdAndOrderDateBetween(productId, startDate, endDate)).thenReturn(null);
 
         Long result = orderService.sumQuantityByProductIdAndDateRange(productId, startDate, endDate);
 
         assertThat(result).isEqualTo(0L); // Service returns 0L if repository returns null
-        verify(orderRepository, times(1)).sumQuantityByProductIdAndOrderDateBetween(productId, startDate, endDate);
+        verify(rollupRepository, times(1)).sumQuantityByProductIdAndOrderDateBetween(productId, startDate, endDate);
+    }
+
+    // --- sumQuantityByProductForDateRange Tests ---
+    @Test
+    void sumQuantityByProductForDateRange_shouldMapGroupedRows_forAllProducts() {
+        LocalDate startDate = LocalDate.of(2025, 1, 1);
+        LocalDate endDate = LocalDate.of(2025, 1, 31);
+        List<Object[]> rows = List.of(new Object[]{201L, 15L}, new Object[]{202L, 4L});
+
+        when(rollupRepository.sumQuantityGroupedByProductIdAndOrderDateBetween(startDate, endDate)).thenReturn(rows);
+
+        Map<Long, Long> result = orderService.sumQuantityByProductForDateRange(startDate, endDate, null);
+
+        assertThat(result).containsOnly(Map.entry(201L, 15L), Map.entry(202L, 4L));
+        verify(rollupRepository, times(1)).sumQuantityGroupedByProductIdAndOrderDateBetween(startDate, endDate);
+        verify(rollupRepository, never()).sumQuantityByProductIdAndOrderDateBetween(anyLong(), any(), any());
+    }
+
+    @Test
+    void sumQuantityByProductForDateRange_shouldRestrictToGivenProductIds() {
+        LocalDate startDate = LocalDate.of(2025, 1, 1);
+        LocalDate endDate = LocalDate.of(2025, 1, 31);
+        List<Long> productIds = List.of(201L, 999L);
+        List<Object[]> rows = Collections.singletonList(new Object[]{201L, 15L});
+
+        when(rollupRepository.sumQuantityGroupedByProductIdInAndOrderDateBetween(productIds, startDate, endDate)).thenReturn(rows);
+
+        Map<Long, Long> result = orderService.sumQuantityByProductForDateRange(startDate, endDate, productIds);
+
+        assertThat(result).containsOnly(Map.entry(201L, 15L)); // Products without orders are absent
+        verify(rollupRepository, never()).sumQuantityGroupedByProductIdAndOrderDateBetween(any(), any());
+    }
+
+    // --- getOrdersPage / streamOrders Tests ---
+    @Test
+    void getOrdersPage_shouldReturnPageWithCursor_whenMoreOrdersExist() {
+        List<Order> rows = new ArrayList<>();
+        for (long id = 11; id <= 14; id++) {
+            rows.add(new Order(id, 101L, 201L, 1, LocalDate.now(), OrderStatus.PENDING));
+        }
+        when(orderRepository.findPageAfter(10L, OrderStatus.PENDING, 101L, null, null, Limit.of(4))).thenReturn(rows);
+        when(productClient.getProductsByIds(any())).thenReturn(List.of(sampleProductDto));
+
+        OrderPageDto page = orderService.getOrdersPage(10L, 3, "Pending", 101L, null, null);
+
+        assertThat(page.getItems()).extracting(OrderResponseDto::getOrderId).containsExactly(11L, 12L, 13L);
+        assertThat(page.getItems()).allMatch(item -> "Test Product".equals(item.getProductName()));
+        assertTrue(page.isHasMore());
+        assertEquals(13L, page.getNextCursor());
+        verify(productClient, times(1)).getProductsByIds(any());
+    }
+
+    @Test
+    void getOrdersPage_shouldEmbedPricing_usingSnapshotOrOneBulkLookup() {
+        Order snapshotted = new Order(1L, 101L, 201L, 2, LocalDate.now(), OrderStatus.PENDING, 80.0, 160.0);
+        Order legacy = new Order(2L, 101L, 201L, 3, LocalDate.now(), OrderStatus.PENDING);
+        when(orderRepository.findPageAfter(0L, null, null, null, null, Limit.of(51))).thenReturn(List.of(snapshotted, legacy));
+        when(productClient.getProductsByIds(any())).thenReturn(List.of(sampleProductDto));
+
+        OrderPageDto page = orderService.getOrdersPage(null, 50, null, null, null, null);
+
+        OrderResponseDto first = page.getItems().get(0);
+        OrderResponseDto second = page.getItems().get(1);
+        assertEquals(80.0, first.getUnitPrice());
+        assertEquals(160.0, first.getLineTotal());
+        assertEquals(160.0, first.getTotalPrice()); // Still sent under its original name
+        assertEquals(100.0, second.getUnitPrice()); // Catalog price for the order without a snapshot
+        assertEquals(300.0, second.getLineTotal());
+        assertEquals("Test Product", second.getProductName());
+        verify(productClient, times(1)).getProductsByIds(any());
+        verify(productClient, never()).getProductById(any());
+        verify(orderRepository, never()).save(any(Order.class));
+    }
+
+    @Test
+    void getOrdersPage_shouldReturnLastPageAndClampLimit() {
+        LocalDate start = LocalDate.of(2025, 1, 1);
+        LocalDate end = LocalDate.of(2025, 1, 31);
+        when(orderRepository.findPageAfter(0L, null, null, start, end, Limit.of(201))).thenReturn(List.of(sampleOrder));
+        when(productClient.getProductsByIds(any())).thenReturn(List.of(sampleProductDto));
+
+        OrderPageDto page = orderService.getOrdersPage(null, 10_000, " ", null, start, end);
+
+        assertEquals(1, page.getItems().size());
+        assertFalse(page.isHasMore());
+        assertNull(page.getNextCursor());
+        verify(orderRepository, never()).findAll();
+    }
+
+    @Test
+    void streamOrders_shouldPassEveryOrderToSinkAndDetachIt() {
+        Order second = new Order(2L, 102L, 202L, 3, LocalDate.now(), OrderStatus.SHIPPED);
+        Stream<Order> rows = Stream.of(sampleOrder, second);
+        AtomicBoolean closed = new AtomicBoolean();
+        when(orderRepository.streamFiltered(OrderStatus.PENDING, null, null, null)).thenReturn(rows.onClose(() -> closed.set(true)));
+        List<Long> seen = new ArrayList<>();
+
+        long count = orderService.streamOrders("Pending", null, null, null, order -> seen.add(order.getOrderId()));
+
+        assertEquals(2, count);
+        assertThat(seen).containsExactly(1L, 2L);
+        assertTrue(closed.get());
+        verify(entityManager).detach(sampleOrder);
+        verify(entityManager).detach(second);
+    }
+
+    // --- Price snapshot Tests ---
+    @Test
+    void createOrder_shouldSnapshotUnitAndTotalPrice() {
+        when(productClient.getProductById(sampleOrder.getProductId())).thenReturn(Optional.of(sampleProductDto));
+        when(stockClient.decrementStock(eq(sampleOrder.getProductId()), any(StockAdjustmentDto.class))).thenReturn(sampleStockDto);
+        when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Order createdOrder = orderService.createOrder(sampleOrder);
+
+        assertEquals(100.0, createdOrder.getUnitPrice());
+        assertEquals(500.0, createdOrder.getTotalPrice()); // 5 x 100.0
+    }
+
+    @Test
+    void calculateOrderTotalPrice_shouldReadSnapshotWithoutProductLookup() {
+        Order priced = new Order(1L, 101L, 201L, 4, LocalDate.now(), OrderStatus.PENDING, 25.0, 100.0);
+        when(orderRepository.findById(1L)).thenReturn(Optional.of(priced));
+
+        assertEquals(100.0, orderService.calculateOrderTotalPrice(1L));
+        assertEquals(25.0, orderService.getOrderProductPrice(1L));
+
+        verify(orderRepository, times(2)).findById(1L); // Once per call, not twice per total
+        verify(productClient, never()).getProductById(any());
+        verify(orderRepository, never()).save(any(Order.class));
+    }
+
+    @Test
+    void getOrderProductPrice_shouldUseCurrentPriceWithoutSaving_whenOrderHasNoSnapshot() {
+        when(orderRepository.findById(1L)).thenReturn(Optional.of(sampleOrder));
+        when(productClient.getProductById(201L)).thenReturn(Optional.of(sampleProductDto));
+
+        assertEquals(100.0, orderService.getOrderProductPrice(1L));
+        assertEquals(500.0, orderService.calculateOrderTotalPrice(1L)); // 5 x 100.0
+
+        assertNull(sampleOrder.getUnitPrice());
+        assertNull(sampleOrder.getTotalPrice());
+        verify(orderRepository, never()).save(any(Order.class));
+        verifyNoInteractions(rollupRepository);
+    }
+
+    @Test
+    void updateOrder_shouldKeepUnitPriceAndRecomputeTotal_whenProductIsUnchanged() {
+        Order existingOrder = new Order(1L, 101L, 201L, 5, LocalDate.of(2024, 1, 1), OrderStatus.PENDING, 20.0, 100.0);
+        Order updatedDetails = new Order(1L, 101L, 201L, 7, LocalDate.of(2024, 1, 1), OrderStatus.PENDING);
+        when(orderRepository.findById(1L)).thenReturn(Optional.of(existingOrder));
+        when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Order result = orderService.updateOrder(1L, updatedDetails);
+
+        assertEquals(20.0, result.getUnitPrice());
+        assertEquals(140.0, result.getTotalPrice());
+        verify(productClient, never()).getProductById(any());
+    }
+
+    @Test
+    void backfillPrices_shouldPriceOrdersInBatchesAndSkipUnknownProducts() {
+        Order first = new Order(1L, 101L, 201L, 2, LocalDate.now(), OrderStatus.PENDING);
+        Order unknownProduct = new Order(2L, 101L, 999L, 1, LocalDate.now(), OrderStatus.PENDING);
+        Order third = new Order(3L, 102L, 201L, 3, LocalDate.now(), OrderStatus.SHIPPED);
+        when(orderRepository.findByUnitPriceIsNullAndOrderIdGreaterThanOrderByOrderIdAsc(0L, Limit.of(200)))
+                .thenReturn(List.of(first, unknownProduct));
+        when(orderRepository.findByUnitPriceIsNullAndOrderIdGreaterThanOrderByOrderIdAsc(2L, Limit.of(200)))
+                .thenReturn(List.of(third));
+        when(orderRepository.findByUnitPriceIsNullAndOrderIdGreaterThanOrderByOrderIdAsc(3L, Limit.of(200)))
+                .thenReturn(Collections.emptyList());
+        when(productClient.getProductsByIds(any())).thenReturn(List.of(sampleProductDto));
+
+        int updated = orderService.backfillPrices();
+
+        assertEquals(2, updated);
+        assertEquals(200.0, first.getTotalPrice());
+        assertEquals(300.0, third.getTotalPrice());
+        assertNull(unknownProduct.getUnitPrice());
+        verify(orderRepository).saveAll(List.of(first));
+        verify(orderRepository).saveAll(List.of(third));
+        verify(productClient, times(2)).getProductsByIds(any()); // One bulk lookup per batch
+    }
+
+    // --- createOrders (batch) Tests ---
+    @Test
+    void createOrders_shouldReportEachLine_withOneProductAndOneStockCall() {
+        List<Order> lines = List.of(
+                new Order(null, 101L, 201L, 2, null, null),
+                new Order(null, 102L, 999L, 1, null, null), // Unknown product
+                new Order(null, 103L, 201L, 0, null, null), // Invalid quantity
+                new Order(null, 104L, 201L, 50, null, null)); // Stock Service rejects
+        when(productClient.getProductsByIds(any())).thenReturn(List.of(sampleProductDto));
+        when(stockClient.decrementStockBatch(argThat(reservations -> reservations.size() == 2
+                && reservations.get(0).getQuantity() == 2 && reservations.get(1).getQuantity() == 50
+                && reservations.get(0).getReferenceId() != null
+                && !reservations.get(0).getReferenceId().equals(reservations.get(1).getReferenceId()))))
+                .thenReturn(List.of(new StockReservationResultDto(201L, 2, true, null),
+                        new StockReservationResultDto(201L, 50, false, "Insufficient stock")));
+        when(orderRepository.saveAll(any())).thenAnswer(invocation -> {
+            List<Order> toSave = invocation.getArgument(0);
+            toSave.get(0).setOrderId(500L);
+            return toSave;
+        });
+
+        OrderBatchResponseDto response = orderService.createOrders(lines);
+
+        assertEquals(1, response.getCreated());
+        assertEquals(3, response.getFailed());
+        assertEquals(500L, response.getResults().get(0).getOrderId());
+        assertEquals(200.0, lines.get(0).getTotalPrice());
+        assertEquals(OrderStatus.PENDING, lines.get(0).getStatus());
+        assertEquals("Product with ID 999 not found.", response.getResults().get(1).getError());
+        assertTrue(response.getResults().get(2).getError().startsWith("Quantity must be positive"));
+        assertEquals("Insufficient stock", response.getResults().get(3).getError());
+        verify(productClient, times(1)).getProductsByIds(any());
+        verify(productClient, never()).getProductById(any());
+        verify(stockClient, never()).decrementStock(any(), any());
+        verify(orderRepository, never()).save(any(Order.class));
+    }
+
+    @Test
+    void createOrders_shouldReleaseStockPerProduct_whenSaveFails() {
+        List<Order> lines = List.of(new Order(null, 101L, 201L, 2, null, null), new Order(null, 102L, 201L, 3, null, null));
+        when(productClient.getProductsByIds(any())).thenReturn(List.of(sampleProductDto));
+        when(stockClient.decrementStockBatch(any())).thenReturn(List.of(
+                new StockReservationResultDto(201L, 2, true, null), new StockReservationResultDto(201L, 3, true, null)));
+        when(orderRepository.saveAll(any())).thenThrow(new RuntimeException("DB down"));
+
+        OrderBatchResponseDto response = orderService.createOrders(lines);
+
+        assertEquals(0, response.getCreated());
+        assertTrue(response.getResults().stream().allMatch(line -> line.getError().contains("DB down")));
+        verify(stockClient, times(1)).incrementStock(eq(201L), argThat(adjustment -> adjustment.getQuantity() == 5));
+    }
+
+    @Test
+    void createOrders_shouldMatchReservationResultsByProduct_whenStockServiceReordersThem() {
+        List<Order> lines = List.of(new Order(null, 101L, 201L, 2, null, null), new Order(null, 102L, 202L, 3, null, null));
+        when(productClient.getProductsByIds(any())).thenReturn(List.of(sampleProductDto,
+                new ProductDto(202L, "Other Product", "Description", 10.0, 10, "url")));
+        when(stockClient.decrementStockBatch(any())).thenReturn(List.of(
+                new StockReservationResultDto(202L, 3, false, "Insufficient stock"), new StockReservationResultDto(201L, 2, true, null)));
+        when(orderRepository.saveAll(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        OrderBatchResponseDto response = orderService.createOrders(lines);
+
+        assertTrue(response.getResults().get(0).isCreated());
+        assertEquals("Insufficient stock", response.getResults().get(1).getError());
+        verify(orderRepository).saveAll(List.of(lines.get(0)));
+    }
+
+    @Test
+    void createOrders_shouldReleaseEachLineByReference_whenReservationResponseDoesNotMatchRequest() {
+        List<Order> lines = List.of(new Order(null, 101L, 201L, 2, null, null), new Order(null, 102L, 201L, 3, null, null));
+        when(productClient.getProductsByIds(any())).thenReturn(List.of(sampleProductDto));
+        List<StockReservationDto> sent = new ArrayList<>();
+        when(stockClient.decrementStockBatch(any())).thenAnswer(invocation -> {
+            sent.addAll(invocation.getArgument(0));
+            return List.of(new StockReservationResultDto(201L, 2, true, null)); // One result for two lines
+        });
+
+        OrderBatchResponseDto response = orderService.createOrders(lines);
+
+        assertEquals(0, response.getCreated());
+        assertTrue(response.getResults().stream().allMatch(line -> line.getError().startsWith("Stock reservation failed")));
+        for (StockReservationDto reservation : sent) {
+            verify(stockClient).releaseStock(eq(201L), argThat(adjustment -> adjustment.getQuantity() == reservation.getQuantity()
+                    && reservation.getReferenceId().equals(adjustment.getReferenceId())));
+        }
+        verify(stockClient, never()).incrementStock(any(), any());
+        verify(orderRepository, never()).saveAll(any());
+    }
+
+    @Test
+    void createOrders_shouldReleaseCommittedReservations_whenStockResponseIsLost() {
+        // Stock Service commits the batch, then the response times out
+        List<Order> lines = List.of(new Order(null, 101L, 201L, 2, null, null), new Order(null, 102L, 201L, 3, null, null));
+        when(productClient.getProductsByIds(any())).thenReturn(List.of(sampleProductDto));
+        Set<String> heldReferences = new HashSet<>();
+        AtomicInteger quantity = new AtomicInteger(50);
+        Request request = Request.create(Request.HttpMethod.POST, "/api/stocks/decrement-batch", new HashMap<>(), null, StandardCharsets.UTF_8, new RequestTemplate());
+        when(stockClient.decrementStockBatch(any())).thenAnswer(invocation -> {
+            List<StockReservationDto> reservations = invocation.getArgument(0);
+            reservations.forEach(reservation -> {
+                heldReferences.add(reservation.getReferenceId());
+                quantity.addAndGet(-reservation.getQuantity());
+            });
+            throw new RetryableException(-1, "Read timed out", Request.HttpMethod.POST, (Long) null, request);
+        });
+        when(stockClient.releaseStock(eq(201L), any(StockAdjustmentDto.class))).thenAnswer(invocation -> {
+            StockAdjustmentDto adjustment = invocation.getArgument(1);
+            if (heldReferences.remove(adjustment.getReferenceId())) {
+                quantity.addAndGet(adjustment.getQuantity());
+            }
+            return sampleStockDto;
+        });
+
+        OrderBatchResponseDto response = orderService.createOrders(lines);
+
+        assertEquals(2, response.getFailed());
+        assertEquals(50, quantity.get());
+        assertTrue(heldReferences.isEmpty());
+        verify(orderRepository, never()).saveAll(any());
+    }
+
+    /**
+     * Throughput of the batch path against one POST /api/orders per order, with every remote call and
+     * every database round trip simulated at 1 ms (the batch insert costs one round trip per JDBC batch of 50).
+     * Runs only with -Pbenchmark.
+     */
+    @Test
+    @Tag("benchmark")
+    void createOrders_benchmark_shouldBeFarFasterThanSingleOrderPath() {
+        int orderCount = 300;
+        when(productClient.getProductById(201L)).thenAnswer(invocation -> { pause(); return Optional.of(sampleProductDto); });
+        when(stockClient.decrementStock(eq(201L), any(StockAdjustmentDto.class))).thenAnswer(invocation -> { pause(); return sampleStockDto; });
+        when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> { pause(); return invocation.getArgument(0); });
+        when(productClient.getProductsByIds(any())).thenAnswer(invocation -> { pause(); return List.of(sampleProductDto); });
+        when(stockClient.decrementStockBatch(any())).thenAnswer(invocation -> {
+            pause();
+            List<StockReservationDto> reservations = invocation.getArgument(0);
+            return reservations.stream()
+                    .map(r -> new StockReservationResultDto(r.getProductId(), r.getQuantity(), true, null))
+                    .toList();
+        });
+        when(orderRepository.saveAll(any())).thenAnswer(invocation -> {
+            List<Order> toSave = invocation.getArgument(0);
+            for (int batch = 0; batch < toSave.size(); batch += 50) {
+                pause();
+            }
+            return toSave;
+        });
+
+        long singleStart = System.nanoTime();
+        for (int i = 0; i < orderCount; i++) {
+            orderService.createOrder(new Order(null, 101L, 201L, 1, null, null));
+        }
+        long singleNanos = System.nanoTime() - singleStart;
+
+        List<Order> lines = new ArrayList<>();
+        for (int i = 0; i < orderCount; i++) {
+            lines.add(new Order(null, 101L, 201L, 1, null, null));
+        }
+        long batchStart = System.nanoTime();
+        OrderBatchResponseDto response = orderService.createOrders(lines);
+        long batchNanos = System.nanoTime() - batchStart;
+
+        assertEquals(orderCount, response.getCreated());
+        assertTrue(batchNanos * 10 < singleNanos, "Batch path should be at least 10x faster");
+        verify(productClient, times(1)).getProductsByIds(any());
+        verify(stockClient, times(1)).decrementStockBatch(any());
+    }
+
+    private static void pause() throws InterruptedException {
+        Thread.sleep(1);
+    }
+
+    // --- Daily rollup Tests ---
+    @Test
+    void createOrder_shouldAddOrderToDailyRollupInTheSaveTransaction() {
+        when(productClient.getProductById(201L)).thenReturn(Optional.of(sampleProductDto));
+        when(stockClient.decrementStock(eq(201L), any(StockAdjustmentDto.class))).thenReturn(sampleStockDto);
+        when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Order created = orderService.createOrder(sampleOrder);
+
+        verify(transactionTemplate, times(1)).execute(any());
+        verify(rollupRepository, times(1)).applyDelta(201L, created.getOrderDate(), "Pending", 1, 5, 500.0);
+        verify(customerStatsRepository, times(1)).applyDelta(101L, 1, 5, created.getOrderDate());
+    }
+
+    @Test
+    void updateStatus_shouldMoveOrderBetweenStatusRollupRows() {
+        LocalDate day = LocalDate.of(2025, 3, 1);
+        Order order = new Order(1L, 101L, 201L, 4, day, OrderStatus.PENDING, 10.0, 40.0);
+        when(orderRepository.findById(1L)).thenReturn(Optional.of(order));
+        when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        orderService.updateStatus(1L, " Shipped ");
+
+        verify(rollupRepository).applyDelta(201L, day, "Pending", -1, -4, -40.0);
+        verify(rollupRepository).applyDelta(201L, day, "Shipped", 1, 4, 40.0);
+        verifyNoMoreInteractions(rollupRepository);
+    }
+
+    @Test
+    void updateOrder_shouldApplyOneNetDelta_whenRollupKeyIsUnchanged() {
+        LocalDate day = LocalDate.of(2025, 3, 1);
+        Order existingOrder = new Order(1L, 101L, 201L, 4, day, OrderStatus.PENDING, 10.0, 40.0);
+        when(orderRepository.findById(1L)).thenReturn(Optional.of(existingOrder));
+        when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        orderService.updateOrder(1L, new Order(1L, 102L, 201L, 6, day, OrderStatus.PENDING));
+
+        verify(rollupRepository).applyDelta(201L, day, "Pending", 0, 2, 20.0);
+        verifyNoMoreInteractions(rollupRepository);
+        // The order moved from customer 101 to 102
+        verify(customerStatsRepository).applyDelta(101L, -1, -4, null);
+        verify(customerStatsRepository).applyDelta(102L, 1, 6, day);
+        verify(customerStatsRepository).refreshLastOrderDate(101L);
+        verifyNoMoreInteractions(customerStatsRepository);
+    }
+
+    @Test
+    void updateOrder_shouldNotReReadLastOrderDate_whenOrderKeepsOrMovesForwardItsDate() {
+        LocalDate day = LocalDate.of(2025, 3, 1);
+        Order existingOrder = new Order(1L, 101L, 201L, 4, day, OrderStatus.PENDING, 10.0, 40.0);
+        when(orderRepository.findById(1L)).thenReturn(Optional.of(existingOrder));
+        when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        orderService.updateOrder(1L, new Order(1L, 101L, 201L, 5, day.plusDays(2), OrderStatus.PENDING));
+
+        verify(customerStatsRepository).applyDelta(101L, 0, 1, day.plusDays(2));
+        verifyNoMoreInteractions(customerStatsRepository);
+    }
+
+    @Test
+    void getCustomerOrders_shouldReturnNewestFirstPageWithStatsAndCursor() {
+        LocalDate day = LocalDate.of(2025, 3, 1);
+        List<Order> rows = List.of(
+                new Order(9L, 101L, 201L, 1, day, OrderStatus.PENDING),
+                new Order(7L, 101L, 201L, 2, day, OrderStatus.SHIPPED),
+                new Order(3L, 101L, 201L, 3, day.minusDays(1), OrderStatus.DELIVERED));
+        when(customerStatsRepository.findById(101L)).thenReturn(Optional.of(new CustomerOrderStats(101L, 40L, 95L, day)));
+        when(orderRepository.findCustomerHistory(101L, Limit.of(3))).thenReturn(rows);
+        when(productClient.getProductsByIds(any())).thenReturn(List.of(sampleProductDto));
+
+        CustomerOrderHistoryDto history = orderService.getCustomerOrders(101L, null, 2);
+
+        assertEquals(40L, history.getOrderCount());
+        assertEquals(95L, history.getTotalQuantity());
+        assertEquals(day, history.getLastOrderDate());
+        assertEquals(List.of(9L, 7L), history.getItems().stream().map(OrderResponseDto::getOrderId).toList());
+        assertTrue(history.isHasMore());
+        assertEquals("2025-03-01:7", history.getNextCursor());
+    }
+
+    @Test
+    void getCustomerOrders_shouldContinueAfterCursor() {
+        LocalDate day = LocalDate.of(2025, 3, 1);
+        when(customerStatsRepository.findById(101L)).thenReturn(Optional.empty());
+        when(orderRepository.findCustomerHistoryBefore(101L, day, 7L, Limit.of(3))).thenReturn(Collections.emptyList());
+
+        CustomerOrderHistoryDto history = orderService.getCustomerOrders(101L, "2025-03-01:7", 2);
+
+        assertEquals(0L, history.getOrderCount());
+        assertTrue(history.getItems().isEmpty());
+        assertFalse(history.isHasMore());
+        assertNull(history.getNextCursor());
+        assertThrows(IllegalArgumentException.class, () -> orderService.getCustomerOrders(101L, "yesterday", 2));
+    }
+
+    @Test
+    void createOrders_shouldMergeRollupDeltasPerProductDayAndStatus() {
+        List<Order> lines = List.of(new Order(null, 101L, 201L, 2, null, null), new Order(null, 102L, 201L, 3, null, null));
+        when(productClient.getProductsByIds(any())).thenReturn(List.of(sampleProductDto));
+        when(stockClient.decrementStockBatch(any())).thenReturn(List.of(
+                new StockReservationResultDto(201L, 2, true, null), new StockReservationResultDto(201L, 3, true, null)));
+        when(orderRepository.saveAll(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        orderService.createOrders(lines);
+
+        verify(rollupRepository, times(1)).applyDelta(201L, LocalDate.now(), "Pending", 2, 5, 500.0);
+    }
+
+    @Test
+    void countOrdersByStatus_shouldReadStatusCountsFromRollup() {
+        LocalDate start = LocalDate.of(2025, 1, 1);
+        LocalDate end = LocalDate.of(2025, 12, 31);
+        List<Object[]> rows = List.of(new Object[]{"Pending", 7L}, new Object[]{"Shipped", 3L});
+        when(rollupRepository.countOrdersGroupedByStatusAndOrderDateBetween(start, end)).thenReturn(rows);
+
+        Map<String, Long> counts = orderService.countOrdersByStatus(start, end);
+
+        assertEquals(Map.of("Pending", 7L, "Shipped", 3L), counts);
+        verifyNoInteractions(orderRepository);
+    }
+
+    @Test
+    void summarizeOrders_shouldTotalStatusRowsAndListProducts() {
+        LocalDate start = LocalDate.of(2025, 1, 1);
+        LocalDate end = LocalDate.of(2025, 1, 31);
+        List<Object[]> statusRows = List.of(
+                new Object[]{OrderStatus.PENDING, 4L, 9L, 90.0, 1L},
+                new Object[]{OrderStatus.DELIVERED, 2L, 3L, 30.0, 0L});
+        List<Object[]> productRows = List.<Object[]>of(new Object[]{201L, 6L, 12L, 120.0, 2L});
+        when(orderRepository.summarizeByStatus(start, end, 101L, OrderStatus.PENDING)).thenReturn(statusRows);
+        when(orderRepository.summarizeByProduct(start, end, 101L, OrderStatus.PENDING)).thenReturn(productRows);
+
+        OrderSummaryDto summary = orderService.summarizeOrders(start, end, 101L, "'pending'", true);
+
+        assertEquals(6L, summary.getTotalOrders());
+        assertEquals(12L, summary.getTotalQuantity());
+        assertEquals(120.0, summary.getRevenue());
+        assertEquals(1L, summary.getUnpricedOrders());
+        assertEquals(List.of(new OrderSummaryDto.StatusTotals("Pending", 4L, 9L, 90.0),
+                new OrderSummaryDto.StatusTotals("Delivered", 2L, 3L, 30.0)), summary.getByStatus());
+        assertEquals(List.of(new OrderSummaryDto.ProductTotals(201L, 6L, 12L, 120.0, 2L)), summary.getByProduct());
+    }
+
+    @Test
+    void summarizeOrders_shouldReturnEmptySummary_forUnknownStatus() {
+        LocalDate start = LocalDate.of(2025, 1, 1);
+        LocalDate end = LocalDate.of(2025, 1, 31);
+
+        OrderSummaryDto summary = orderService.summarizeOrders(start, end, null, "Lost", false);
+
+        assertEquals(0L, summary.getTotalOrders());
+        assertTrue(summary.getByStatus().isEmpty());
+        assertNull(summary.getByProduct());
+        verifyNoInteractions(orderRepository);
+    }
+
+    @Test
+    void rebuildDailyRollup_shouldReplaceRowsFromOrdersTable() {
+        when(rollupRepository.deleteAllRows()).thenReturn(12);
+        when(rollupRepository.insertFromOrders()).thenReturn(10);
+
+        assertEquals(10, orderService.rebuildDailyRollup());
+
+        InOrder inOrder = inOrder(rollupRepository);
+        inOrder.verify(rollupRepository).deleteAllRows();
+        inOrder.verify(rollupRepository).insertFromOrders();
     }
-}
\ No newline at end of file
+}
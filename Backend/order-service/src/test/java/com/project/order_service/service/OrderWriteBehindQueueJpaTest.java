@@ -0,0 +1,84 @@
+package com.project.order_service.service;
+
+import com.project.order_service.entity.Order;
+import com.project.order_service.entity.OrderStatus;
+import com.project.order_service.repository.OrderRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Write-behind batches persisted through the real OrderRepository, against the Flyway schema on an in-memory H2
+ * database in MySQL mode, so the one-by-one fallback after a failed commit runs through JPA as in production.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:order-write-behind;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.show-sql=false",
+        "logging.level.org.hibernate.SQL=INFO",
+        "logging.level.org.hibernate.type.descriptor.sql=INFO"})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // Each batch commits or rolls back on its own, as in production
+class OrderWriteBehindQueueJpaTest {
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private OrderWriteBehindQueue queue;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (queue != null) {
+            queue.destroy();
+        }
+        orderRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Orders that shared a rolled-back commit with a bad order should still be inserted on the one-by-one retry")
+    void shouldInsertGoodOrdersAfterFailedBatch() throws Exception {
+        // Arrange
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        queue = new OrderWriteBehindQueue(new SimpleMeterRegistry(), true, 100, 10, Duration.ofMillis(200), Duration.ofSeconds(5));
+        queue.start(orders -> transactionTemplate.execute(status -> orderRepository.saveAll(orders)));
+
+        // Act: the order without a customer violates NOT NULL and rolls the whole batch back
+        CompletableFuture<Order> good = queue.submit(order(101L, 201L));
+        CompletableFuture<Order> bad = queue.submit(order(null, 666L));
+        CompletableFuture<Order> alsoGood = queue.submit(order(102L, 202L));
+
+        // Assert
+        Long goodId = good.get(5, TimeUnit.SECONDS).getOrderId();
+        Long alsoGoodId = alsoGood.get(5, TimeUnit.SECONDS).getOrderId();
+        assertThrows(ExecutionException.class, () -> bad.get(5, TimeUnit.SECONDS));
+        assertEquals(201L, orderRepository.findById(goodId).orElseThrow().getProductId());
+        assertEquals(202L, orderRepository.findById(alsoGoodId).orElseThrow().getProductId());
+        assertEquals(2, orderRepository.count());
+    }
+
+    private static Order order(Long customerId, Long productId) {
+        return new Order(null, customerId, productId, 1, LocalDate.now(), OrderStatus.PENDING, 10.0, 10.0);
+    }
+}
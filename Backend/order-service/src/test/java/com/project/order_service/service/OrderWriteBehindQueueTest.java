@@ -0,0 +1,215 @@
+package com.project.order_service.service;
+
+import com.project.order_service.entity.Order;
+import com.project.order_service.entity.OrderStatus;
+import com.project.order_service.exception.OrderQueueFullException;
+import com.project.order_service.exception.OrderSaveTimeoutException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OrderWriteBehindQueueTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+    private final AtomicLong nextId = new AtomicLong();
+
+    private OrderWriteBehindQueue queue;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (queue != null) {
+            queue.destroy();
+        }
+    }
+
+    @Test
+    @DisplayName("Should persist orders queued close together in one batch and complete each future with its saved order")
+    void shouldGroupQueuedOrdersIntoBatches() throws Exception {
+        // Arrange
+        queue = new OrderWriteBehindQueue(meterRegistry, true, 100, 4, Duration.ofMillis(200), Duration.ofSeconds(5));
+        queue.start(this::save);
+
+        // Act
+        List<CompletableFuture<Order>> futures = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            futures.add(queue.submit(order(201L)));
+        }
+
+        // Assert
+        for (int i = 0; i < futures.size(); i++) {
+            assertEquals(i + 1, futures.get(i).get(5, TimeUnit.SECONDS).getOrderId());
+        }
+        assertEquals(List.of(4, 4, 2), batchSizes);
+        assertEquals(3, meterRegistry.get("order.write_behind.batch.size").summary().count());
+        assertEquals(10.0, meterRegistry.get("order.write_behind.batch.size").summary().totalAmount());
+        assertEquals(3, meterRegistry.get("order.write_behind.flush").tag("outcome", "success").timer().count());
+    }
+
+    @Test
+    @DisplayName("Should reject orders once the queue is full and complete futures only after the commit")
+    void shouldRejectWhenFull() throws Exception {
+        // Arrange
+        CountDownLatch flushing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        queue = new OrderWriteBehindQueue(meterRegistry, true, 1, 1, Duration.ZERO, Duration.ofSeconds(5));
+        queue.start(orders -> {
+            flushing.countDown();
+            await(release);
+            return save(orders);
+        });
+
+        // Act
+        CompletableFuture<Order> first = queue.submit(order(201L));
+        assertTrue(flushing.await(5, TimeUnit.SECONDS)); // Flusher holds the first order
+        CompletableFuture<Order> second = queue.submit(order(202L)); // Fills the only slot
+
+        // Assert
+        assertFalse(queue.hasCapacity());
+        assertThrows(OrderQueueFullException.class, () -> queue.submit(order(203L)));
+        assertFalse(first.isDone());
+        release.countDown();
+        assertEquals(201L, first.get(5, TimeUnit.SECONDS).getProductId());
+        assertEquals(202L, second.get(5, TimeUnit.SECONDS).getProductId());
+    }
+
+    @Test
+    @DisplayName("Should retry a failed batch order by order so only the bad order fails")
+    void shouldIsolateFailingOrder() throws Exception {
+        // Arrange
+        queue = new OrderWriteBehindQueue(meterRegistry, true, 100, 10, Duration.ofMillis(200), Duration.ofSeconds(5));
+        queue.start(orders -> {
+            if (orders.stream().anyMatch(order -> order.getProductId() == 666L)) {
+                throw new IllegalStateException("Constraint violation");
+            }
+            return save(orders);
+        });
+
+        // Act
+        CompletableFuture<Order> good = queue.submit(order(201L));
+        CompletableFuture<Order> bad = queue.submit(order(666L));
+        CompletableFuture<Order> alsoGood = queue.submit(order(202L));
+
+        // Assert
+        assertNotNull(good.get(5, TimeUnit.SECONDS).getOrderId());
+        assertNotNull(alsoGood.get(5, TimeUnit.SECONDS).getOrderId());
+        ExecutionException thrown = assertThrows(ExecutionException.class, () -> bad.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, thrown.getCause());
+        assertEquals(2, meterRegistry.get("order.write_behind.flush").tag("outcome", "failure").timer().count());
+    }
+
+    @Test
+    @DisplayName("Should stop waiting after the wait timeout and drop an order that is still queued")
+    void shouldGiveUpWaitingAndDropQueuedOrder() throws Exception {
+        // Arrange: the flusher is stuck on the first order, so the second stays queued
+        CountDownLatch flushing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        queue = new OrderWriteBehindQueue(meterRegistry, true, 10, 1, Duration.ZERO, Duration.ofMillis(50));
+        queue.start(orders -> {
+            flushing.countDown();
+            await(release);
+            return save(orders);
+        });
+        CompletableFuture<Order> inFlight = queue.submit(order(201L));
+        assertTrue(flushing.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Order> queued = queue.submit(order(202L));
+
+        // Act & Assert
+        assertThrows(OrderSaveTimeoutException.class, () -> queue.await(inFlight));
+        assertThrows(OrderSaveTimeoutException.class, () -> queue.await(queued));
+        assertFalse(inFlight.isDone()); // Its batch is still being written
+        ExecutionException dropped = assertThrows(ExecutionException.class, () -> queued.get(1, TimeUnit.SECONDS));
+        assertInstanceOf(OrderSaveTimeoutException.class, dropped.getCause());
+        release.countDown();
+        assertEquals(201L, inFlight.get(5, TimeUnit.SECONDS).getProductId());
+        assertEquals(List.of(1), batchSizes);
+    }
+
+    @Test
+    @DisplayName("Should fail the batch's futures on an Error from the persister and keep flushing")
+    void shouldSurviveErrorsFromPersister() throws Exception {
+        // Arrange
+        queue = new OrderWriteBehindQueue(meterRegistry, true, 100, 10, Duration.ZERO, Duration.ofSeconds(5));
+        queue.start(orders -> {
+            if (orders.get(0).getProductId() == 666L) {
+                throw new StackOverflowError("persister blew up");
+            }
+            return save(orders);
+        });
+
+        // Act
+        CompletableFuture<Order> failed = queue.submit(order(666L));
+        ExecutionException thrown = assertThrows(ExecutionException.class, () -> failed.get(5, TimeUnit.SECONDS));
+        CompletableFuture<Order> next = queue.submit(order(201L));
+
+        // Assert
+        assertInstanceOf(StackOverflowError.class, thrown.getCause());
+        assertThrows(StackOverflowError.class, () -> queue.await(failed));
+        assertEquals(201L, queue.await(next).getProductId());
+    }
+
+    @Test
+    @DisplayName("Should flush what is still queued on shutdown")
+    void shouldDrainOnShutdown() throws Exception {
+        // Arrange
+        queue = new OrderWriteBehindQueue(meterRegistry, true, 100, 50, Duration.ofSeconds(1), Duration.ofSeconds(5));
+        queue.start(this::save);
+        CompletableFuture<Order> pending = queue.submit(order(201L));
+
+        // Act
+        queue.destroy();
+
+        // Assert
+        assertTrue(pending.isDone());
+        assertEquals(1L, pending.get().getOrderId());
+        assertThrows(IllegalStateException.class, () -> queue.submit(order(202L)));
+    }
+
+    @Test
+    @DisplayName("Should not start a flusher when write-behind is disabled")
+    void shouldStayIdleWhenDisabled() {
+        // Arrange
+        queue = new OrderWriteBehindQueue(meterRegistry, false, 100, 10, Duration.ofMillis(5), Duration.ofSeconds(5));
+        Function<List<Order>, List<Order>> persister = this::save;
+
+        // Act
+        queue.start(persister);
+
+        // Assert
+        assertFalse(queue.isEnabled());
+        assertThrows(IllegalStateException.class, () -> queue.submit(order(201L)));
+    }
+
+    private List<Order> save(List<Order> orders) {
+        batchSizes.add(orders.size());
+        orders.forEach(order -> order.setOrderId(nextId.incrementAndGet()));
+        return orders;
+    }
+
+    private static Order order(Long productId) {
+        return new Order(null, 101L, productId, 1, LocalDate.now(), OrderStatus.PENDING);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -84,6 +84,34 @@ public class ProductController {
         }
     }
 
+    // Bulk lookup used by other services to resolve many products in one round trip.
+    // Returns plain product rows without stock enrichment; unknown IDs are simply absent.
+    // Endpoint: GET /api/products/batch?ids=1,2,3
+    @GetMapping("/batch")
+    public ResponseEntity<List<Product>> getProductsByIds(@RequestParam("ids") List<Long> ids) {
+        log.info("Fetching products in batch for {} IDs", ids.size());
+        try {
+            return ResponseEntity.ok(productService.getProductsByIds(ids));
+        } catch (Exception e) {
+            log.error("Error fetching products in batch", e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    // Existence check used by stock-service to validate stock writes; reads IDs only, no product details or stock.
+    // Returns the subset of the given IDs that exist.
+    // Endpoint: GET /api/products/exists?ids=1,2,3
+    @GetMapping("/exists")
+    public ResponseEntity<List<Long>> getExistingProductIds(@RequestParam("ids") List<Long> ids) {
+        log.debug("Checking existence of {} product IDs", ids.size());
+        try {
+            return ResponseEntity.ok(productService.getExistingProductIds(ids));
+        } catch (Exception e) {
+            log.error("Error checking product existence", e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<ProductResponseDto> getProductById(@PathVariable Long id) {
         log.info("Fetching product by ID: {} with stock information", id);
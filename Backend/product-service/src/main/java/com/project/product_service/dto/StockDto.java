@@ -16,4 +16,5 @@ public class StockDto {
     private int quantity;
     private int reorderLevel;
     private boolean lowStock; // This is often a derived property in the Stock entity
+    private Long version; // Optimistic-lock version; updates must send back the one they read
 }
\ No newline at end of file
@@ -4,6 +4,7 @@ import com.project.product_service.dto.StockDto;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
 import java.util.Optional;
 
 // This client will be used by product-service to SEND data to stock-service
@@ -12,6 +13,10 @@ public interface StockClient {
     @GetMapping("/api/stocks/{productId}")
     Optional<StockDto> getStockByProductId(@PathVariable("productId") Long productId);
 
+    // Stock rows for many products in one call; products without a stock row are simply absent.
+    @GetMapping("/api/stocks")
+    List<StockDto> getStocksByProductIds(@RequestParam("productIds") List<Long> productIds);
+
     @PostMapping("/api/stocks")
     StockDto addStock(@RequestBody StockDto stockDto);
 
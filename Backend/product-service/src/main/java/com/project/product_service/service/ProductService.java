@@ -12,6 +12,8 @@ public interface ProductService {
     Product createProduct(ProductRequestDto productRequestDto);
     List<Product> getAllProducts(); // No change
     Optional<Product> getProductById(Long id); // No change, returns raw Product for internal mapping
+    List<Product> getProductsByIds(List<Long> ids); // Bulk lookup, raw Products without stock enrichment
+    List<Long> getExistingProductIds(List<Long> ids); // Existence check for other services, IDs only
     ProductResponseDto getProductByIdWithStock(Long id); // Returns enriched DTO
     List<ProductResponseDto> getAllProductsWithStock(); // Returns enriched DTO
 
@@ -8,8 +8,14 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import com.project.product_service.feignclient.StockClient;
@@ -21,6 +27,12 @@ import com.project.product_service.dto.ProductResponseDto;
 @Slf4j
 public class ProductServiceImpl implements ProductService {
 
+    // Stock updates that lose a concurrent-write race (409) are re-read and retried this many times in total.
+    private static final int STOCK_UPDATE_ATTEMPTS = 3;
+
+    // Product IDs per batch stock request when enriching a list, keeping the query string a sensible length.
+    private static final int STOCK_BATCH_SIZE = 200;
+
     private final ProductRepository productRepository;
     private final StockClient stockClient; // Correct: Single instance injected
 
@@ -33,13 +45,7 @@ public class ProductServiceImpl implements ProductService {
             Optional<StockDto> stockOptional = stockClient.getStockByProductId(product.getId());
             if (stockOptional.isPresent()) {
                 stockDetails = stockOptional.get();
-                if (stockDetails.getQuantity() <= 0) {
-                    stockStatus = "Out of Stock";
-                } else if (stockDetails.isLowStock()) {
-                    stockStatus = "Low Stock";
-                } else {
-                    stockStatus = "In Stock";
-                }
+                stockStatus = stockStatusOf(stockDetails);
                 log.debug("Stock found for product {}: Quantity={}, Low Stock={}",
                         product.getId(), stockDetails.getQuantity(), stockDetails.isLowStock());
             } else {
@@ -54,6 +60,19 @@ public class ProductServiceImpl implements ProductService {
             stockStatus = "Stock Service Error";
         }
 
+        return toResponseDto(product, stockDetails, stockStatus);
+    }
+
+    private static String stockStatusOf(StockDto stockDetails) {
+        if (stockDetails.getQuantity() <= 0) {
+            return "Out of Stock";
+        } else if (stockDetails.isLowStock()) {
+            return "Low Stock";
+        }
+        return "In Stock";
+    }
+
+    private static ProductResponseDto toResponseDto(Product product, StockDto stockDetails, String stockStatus) {
         return ProductResponseDto.builder()
                 .id(product.getId())
                 .name(product.getName())
@@ -122,8 +141,36 @@ public class ProductServiceImpl implements ProductService {
     public List<ProductResponseDto> getAllProductsWithStock() {
         log.info("Fetching all products and enriching with stock information.");
         List<Product> products = getAllProducts();
+        return mapProductsToProductResponseDtos(products);
+    }
+
+    // List version of mapProductToProductResponseDto: stock for all products is fetched in batches of
+    // STOCK_BATCH_SIZE rather than one call per product. A failed batch marks only its own products.
+    private List<ProductResponseDto> mapProductsToProductResponseDtos(List<Product> products) {
+        List<Long> ids = products.stream().map(Product::getId).distinct().collect(Collectors.toList());
+        Map<Long, StockDto> stockByProductId = new HashMap<>();
+        Set<Long> failedIds = new HashSet<>();
+        for (int from = 0; from < ids.size(); from += STOCK_BATCH_SIZE) {
+            List<Long> batch = ids.subList(from, Math.min(from + STOCK_BATCH_SIZE, ids.size()));
+            try {
+                stockClient.getStocksByProductIds(batch)
+                        .forEach(stock -> stockByProductId.put(stock.getProductId(), stock));
+            } catch (Exception e) {
+                log.error("Error fetching stock for {} products from Stock Service: {}", batch.size(), e.getMessage(), e);
+                failedIds.addAll(batch);
+            }
+        }
+        log.debug("Fetched stock for {} of {} products in {} batch call(s).", stockByProductId.size(), ids.size(),
+                (ids.size() + STOCK_BATCH_SIZE - 1) / STOCK_BATCH_SIZE);
+
         return products.stream()
-                .map(this::mapProductToProductResponseDto)
+                .map(product -> {
+                    StockDto stockDetails = stockByProductId.get(product.getId());
+                    if (stockDetails != null) {
+                        return toResponseDto(product, stockDetails, stockStatusOf(stockDetails));
+                    }
+                    return toResponseDto(product, null, failedIds.contains(product.getId()) ? "Stock Service Error" : "No Stock Record");
+                })
                 .collect(Collectors.toList());
     }
 
@@ -142,6 +189,36 @@ public class ProductServiceImpl implements ProductService {
         }
     }
 
+    @Override
+    public List<Product> getProductsByIds(List<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<Long> distinctIds = ids.stream().filter(Objects::nonNull).distinct().collect(Collectors.toList());
+        log.info("Fetching {} products by ID from database.", distinctIds.size());
+        try {
+            return productRepository.findAllById(distinctIds);
+        } catch (Exception e) {
+            log.error("Error occurred while fetching products by IDs from database", e);
+            throw new RuntimeException("Failed to fetch products from database", e);
+        }
+    }
+
+    @Override
+    public List<Long> getExistingProductIds(List<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<Long> distinctIds = ids.stream().filter(Objects::nonNull).distinct().collect(Collectors.toList());
+        log.debug("Checking existence of {} product IDs.", distinctIds.size());
+        try {
+            return productRepository.findExistingIds(distinctIds);
+        } catch (Exception e) {
+            log.error("Error occurred while checking product IDs in database", e);
+            throw new RuntimeException("Failed to check products in database", e);
+        }
+    }
+
     public ProductResponseDto getProductByIdWithStock(Long id) {
         log.info("Fetching product with id: {} and enriching with stock information.", id);
         Product product = getProductById(id)
@@ -172,53 +249,33 @@ public class ProductServiceImpl implements ProductService {
             // --- NEW: Call Stock Service to update stock (or add if it doesn't exist) ---
             if (productRequestDto.getInitialStockQuantity() != null || productRequestDto.getReorderLevel() != null) {
                 try {
-                    StockDto stockToUpdate = new StockDto();
-                    stockToUpdate.setProductId(id);
-
-                    // Only update quantity if provided, otherwise keep existing
-                    if (productRequestDto.getInitialStockQuantity() != null) {
-                        stockToUpdate.setQuantity(productRequestDto.getInitialStockQuantity());
-                    } else {
-                        // If quantity is null, fetch existing stock and use its quantity
-                        // Correct: Call method on the injected 'stockClient' instance
-                        Optional<StockDto> currentStock = stockClient.getStockByProductId(id);
-                        if (currentStock.isPresent()) {
-                            stockToUpdate.setQuantity(currentStock.get().getQuantity());
-                        } else {
-                            // If no quantity provided and no existing stock, default to 0 or handle error
-                            stockToUpdate.setQuantity(0);
-                            log.warn("No stock quantity provided and no existing stock for product {}. Setting quantity to 0.", id);
-                        }
-                    }
+                    // Read the current row once: it fills in whichever field was not provided and supplies the
+                    // version Stock Service checks the update against. On a 409 someone else changed the row in
+                    // between, so re-read and re-apply on top of their change.
+                    Optional<StockDto> currentStock = stockClient.getStockByProductId(id);
+                    for (int attempt = 1; ; attempt++) {
+                        StockDto stockToUpdate = stockUpdateFor(id, productRequestDto, currentStock);
 
-                    // Only update reorderLevel if provided
-                    if (productRequestDto.getReorderLevel() != null) {
-                        stockToUpdate.setReorderLevel(productRequestDto.getReorderLevel());
-                    } else {
-                        // If reorderLevel is null, fetch existing stock and use its reorderLevel
-                        // Correct: Call method on the injected 'stockClient' instance
-                        Optional<StockDto> currentStock = stockClient.getStockByProductId(id);
-                        if (currentStock.isPresent()) {
-                            stockToUpdate.setReorderLevel(currentStock.get().getReorderLevel());
-                        } else {
-                            stockToUpdate.setReorderLevel(0); // Default if no existing stock
-                            log.warn("No reorder level provided and no existing stock for product {}. Setting reorder level to 0.", id);
+                        // Attempt to update stock. If it's a 404 (stock record doesn't exist), create it.
+                        try {
+                            stockClient.updateStock(id, stockToUpdate);
+                            log.info("Stock updated for product ID {}: Quantity={}, ReorderLevel={}",
+                                    id, stockToUpdate.getQuantity(), stockToUpdate.getReorderLevel());
+                        } catch (feign.FeignException.NotFound e) {
+                            // If update fails because stock record doesn't exist, create it
+                            log.warn("Stock record not found for product ID {} during update. Attempting to add new stock.", id);
+                            stockClient.addStock(stockToUpdate); // Add new stock if not found
+                            log.info("New stock record created for product ID {}: Quantity={}, ReorderLevel={}",
+                                    id, stockToUpdate.getQuantity(), stockToUpdate.getReorderLevel());
+                        } catch (feign.FeignException.Conflict e) {
+                            if (attempt >= STOCK_UPDATE_ATTEMPTS) {
+                                throw e;
+                            }
+                            log.warn("Stock for product ID {} changed concurrently (attempt {}). Re-reading and retrying.", id, attempt);
+                            currentStock = stockClient.getStockByProductId(id);
+                            continue;
                         }
-                    }
-
-                    // Attempt to update stock. If it's a 404 (stock record doesn't exist), create it.
-                    try {
-                        // Correct: Call method on the injected 'stockClient' instance
-                        stockClient.updateStock(id, stockToUpdate);
-                        log.info("Stock updated for product ID {}: Quantity={}, ReorderLevel={}",
-                                id, stockToUpdate.getQuantity(), stockToUpdate.getReorderLevel());
-                    } catch (feign.FeignException.NotFound e) {
-                        // If update fails because stock record doesn't exist, create it
-                        log.warn("Stock record not found for product ID {} during update. Attempting to add new stock.", id);
-                        // Correct: Call method on the injected 'stockClient' instance
-                        stockClient.addStock(stockToUpdate); // Add new stock if not found
-                        log.info("New stock record created for product ID {}: Quantity={}, ReorderLevel={}",
-                                id, stockToUpdate.getQuantity(), stockToUpdate.getReorderLevel());
+                        break;
                     }
                 } catch (Exception e) {
                     log.error("Error updating/adding stock for product ID {}: {}", id, e.getMessage(), e);
@@ -238,6 +295,36 @@ public class ProductServiceImpl implements ProductService {
         }
     }
 
+    // Stock values to send for a product update: the provided quantity/reorder level, the current ones otherwise
+    // (0 when there is no stock row yet), and the version they were read at.
+    private StockDto stockUpdateFor(Long id, ProductRequestDto productRequestDto, Optional<StockDto> currentStock) {
+        StockDto stockToUpdate = new StockDto();
+        stockToUpdate.setProductId(id);
+        currentStock.ifPresent(stock -> stockToUpdate.setVersion(stock.getVersion()));
+
+        // Only update quantity if provided, otherwise keep existing
+        if (productRequestDto.getInitialStockQuantity() != null) {
+            stockToUpdate.setQuantity(productRequestDto.getInitialStockQuantity());
+        } else if (currentStock.isPresent()) {
+            stockToUpdate.setQuantity(currentStock.get().getQuantity());
+        } else {
+            // If no quantity provided and no existing stock, default to 0
+            stockToUpdate.setQuantity(0);
+            log.warn("No stock quantity provided and no existing stock for product {}. Setting quantity to 0.", id);
+        }
+
+        // Only update reorderLevel if provided
+        if (productRequestDto.getReorderLevel() != null) {
+            stockToUpdate.setReorderLevel(productRequestDto.getReorderLevel());
+        } else if (currentStock.isPresent()) {
+            stockToUpdate.setReorderLevel(currentStock.get().getReorderLevel());
+        } else {
+            stockToUpdate.setReorderLevel(0); // Default if no existing stock
+            log.warn("No reorder level provided and no existing stock for product {}. Setting reorder level to 0.", id);
+        }
+        return stockToUpdate;
+    }
+
     @Override
     public void deleteProduct(Long id) {
         log.info("Deleting product with id: {}", id);
@@ -0,0 +1,11 @@
+-- Schema as previously created by Hibernate (ddl-auto=update). IF NOT EXISTS lets this run against
+-- databases that already have the table; Flyway is configured to baseline them at version 0.
+
+CREATE TABLE IF NOT EXISTS products (
+    id          BIGINT       NOT NULL AUTO_INCREMENT,
+    name        VARCHAR(255) NOT NULL,
+    description VARCHAR(255),
+    price       DOUBLE,
+    image_url   VARCHAR(255),
+    PRIMARY KEY (id)
+) ENGINE=InnoDB;
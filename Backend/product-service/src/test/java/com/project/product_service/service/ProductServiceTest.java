@@ -25,9 +25,11 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.LongStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -143,9 +145,8 @@ class ProductServiceImplTest {
         List<Product> products = Arrays.asList(product1, product2);
         when(productRepository.findAll()).thenReturn(products);
 
-        // product1 has stock, product2 stock service error
-        when(stockClient.getStockByProductId(1L)).thenReturn(Optional.of(stockDto1));
-        doThrow(new RuntimeException("Connection refused")).when(stockClient).getStockByProductId(2L);
+        // Scenario 1: one batch call; product1 has stock, product2 has no stock row
+        when(stockClient.getStocksByProductIds(Arrays.asList(1L, 2L))).thenReturn(List.of(stockDto1));
 
         List<ProductResponseDto> result = productService.getAllProductsWithStock();
 
@@ -157,11 +158,38 @@ class ProductServiceImplTest {
         assertEquals(stockDto1, response1.getStockDetails());
 
         ProductResponseDto response2 = result.stream().filter(p -> p.getId().equals(2L)).findFirst().orElseThrow();
-        assertEquals("Stock Service Error", response2.getStockStatus());
+        assertEquals("No Stock Record", response2.getStockStatus());
         assertNull(response2.getStockDetails());
 
         verify(productRepository).findAll();
-        verify(stockClient, times(2)).getStockByProductId(anyLong()); // Both attempts for stock fetch
+        verify(stockClient, times(1)).getStocksByProductIds(anyList());
+        verify(stockClient, never()).getStockByProductId(anyLong()); // No per-product calls
+
+        // Scenario 2: the batch call fails, so every product in it reports a stock service error
+        reset(productRepository, stockClient);
+        when(productRepository.findAll()).thenReturn(products);
+        when(stockClient.getStocksByProductIds(anyList())).thenThrow(new RuntimeException("Connection refused"));
+
+        result = productService.getAllProductsWithStock();
+
+        assertEquals(2, result.size());
+        assertTrue(result.stream().allMatch(p -> "Stock Service Error".equals(p.getStockStatus()) && p.getStockDetails() == null));
+    }
+
+    @Test
+    @DisplayName("3b. Should enrich a large catalog with a few batched stock calls")
+    void getAllProductsWithStock_BatchesLargeCatalogs() {
+        List<Product> products = LongStream.rangeClosed(1, 450)
+                .mapToObj(id -> Product.builder().id(id).name("Product " + id).price(1.0).build())
+                .toList();
+        when(productRepository.findAll()).thenReturn(products);
+        when(stockClient.getStocksByProductIds(anyList())).thenReturn(List.of(stockDto1));
+
+        List<ProductResponseDto> result = productService.getAllProductsWithStock();
+
+        assertEquals(450, result.size());
+        assertEquals(1, result.stream().filter(p -> "In Stock".equals(p.getStockStatus())).count());
+        verify(stockClient, times(3)).getStocksByProductIds(anyList()); // 200 + 200 + 50
     }
 
     // 4. Test for getting a single product with stock info, and ProductNotFoundException
@@ -187,6 +215,42 @@ class ProductServiceImplTest {
         verify(stockClient, never()).getStockByProductId(anyLong());
     }
 
+    // 9. Test for bulk product lookup used by other services
+    @Test
+    @DisplayName("9. Should return products for a batch of IDs in one repository call, ignoring duplicates and nulls")
+    void getProductsByIds_Comprehensive() {
+        when(productRepository.findAllById(Arrays.asList(1L, 2L))).thenReturn(Arrays.asList(product1, product2));
+
+        List<Product> result = productService.getProductsByIds(Arrays.asList(1L, 2L, 1L, null));
+
+        assertEquals(2, result.size());
+        verify(productRepository, times(1)).findAllById(Arrays.asList(1L, 2L));
+        verify(stockClient, never()).getStockByProductId(anyLong()); // No stock enrichment for bulk lookups
+
+        // Empty input never reaches the database
+        reset(productRepository);
+        assertTrue(productService.getProductsByIds(Collections.emptyList()).isEmpty());
+        verify(productRepository, never()).findAllById(any());
+    }
+
+    // 10. Test for the ID-only existence check used by stock-service
+    @Test
+    @DisplayName("10. Should return only the existing IDs in one repository call, ignoring duplicates and nulls")
+    void getExistingProductIds_Comprehensive() {
+        when(productRepository.findExistingIds(Arrays.asList(1L, 2L, 3L))).thenReturn(Arrays.asList(1L, 2L));
+
+        List<Long> result = productService.getExistingProductIds(Arrays.asList(1L, 2L, 3L, 2L, null));
+
+        assertEquals(Arrays.asList(1L, 2L), result);
+        verify(productRepository, times(1)).findExistingIds(Arrays.asList(1L, 2L, 3L));
+        verify(productRepository, never()).findAllById(any());
+        verifyNoInteractions(stockClient);
+
+        reset(productRepository);
+        assertTrue(productService.getExistingProductIds(Collections.emptyList()).isEmpty());
+        verify(productRepository, never()).findExistingIds(any());
+    }
+
     // 5. Test for successful product update, with stock update and stock creation (if not found)
     @Test
     @DisplayName("5. Should update product: with stock and create stock if not found")
@@ -1,13 +1,18 @@
 package com.project.report_service.controller;
 
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 // import org.slf4j.Logger;
 // import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import com.project.report_service.exception.*;
 import com.project.report_service.service.*;
 import com.project.report_service.dto.ReportRequest;
+
+import java.util.Map;
 @RestController
 @RequestMapping("/api/reports")
 public class ReportController {
@@ -17,25 +22,80 @@ public class ReportController {
     @Autowired
     private ReportService reportService;
 
+    @Autowired
+    private ReportJobService reportJobService;
+
+    @Autowired
+    private ReportExporter reportExporter;
+
 
     @PostMapping("/generate")
     public ResponseEntity<?> generateReport(@RequestBody ReportRequest request) {
         try {
-            switch (request.getReportType().toLowerCase()) {
-                case "inventory":
-                    return ResponseEntity.ok(reportService.generateInventoryReport(request));
-                case "order":
-                    return ResponseEntity.ok(reportService.generateOrderReport(request));
-                case "supplier":
-                    return ResponseEntity.ok(reportService.generateSupplierReport(request));
-                default:
-                    throw new InvalidReportTypeException("Invalid report type: " + request.getReportType());
-            }
+            return ResponseEntity.ok(reportService.generateReport(request));
         } catch (InvalidReportTypeException | InvalidDateRangeException e) {
             return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (UpstreamTimeoutException e) {
+            return ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT).body(e.getMessage());
         } catch (Exception e) {
             return ResponseEntity.internalServerError().body("Unexpected error: " + e.getMessage());
         }
     }
-}
 
+    // Admin: drop cached reports, all of them or only one report type (e.g. after a data correction).
+    @DeleteMapping("/cache")
+    public ResponseEntity<Map<String, Object>> invalidateCache(@RequestParam(value = "reportType", required = false) String reportType) {
+        int invalidated = reportService.invalidateCachedReports(reportType);
+        return ResponseEntity.ok(Map.of("invalidated", invalidated));
+    }
+
+    // Submit a report to run in the background; returns 202 with the job id to poll.
+    @PostMapping("/jobs")
+    public ResponseEntity<?> submitReportJob(@RequestBody ReportRequest request) {
+        try {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(reportJobService.submit(request));
+        } catch (InvalidReportTypeException | InvalidDateRangeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (ReportJobQueueFullException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(e.getMessage());
+        }
+    }
+
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<?> getReportJob(@PathVariable String jobId) {
+        try {
+            return ResponseEntity.ok(reportJobService.getJob(jobId));
+        } catch (ReportJobNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        }
+    }
+
+    @GetMapping("/jobs/{jobId}/result")
+    public ResponseEntity<?> getReportJobResult(@PathVariable String jobId) {
+        try {
+            return ResponseEntity.ok(reportJobService.getResult(jobId));
+        } catch (ReportJobNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        }
+    }
+
+    // Stream inventory/supplier report rows as NDJSON (default) or CSV while they are computed.
+    @PostMapping("/export")
+    public ResponseEntity<?> exportReport(@RequestBody ReportRequest request,
+                                          @RequestParam(value = "format", defaultValue = "ndjson") String format) {
+        try {
+            ReportExporter.Format exportFormat = ReportExporter.Format.from(format);
+            reportExporter.validate(request);
+            StreamingResponseBody body = out -> reportExporter.export(request, exportFormat, out);
+            return ResponseEntity.ok()
+                    .contentType(exportFormat.getMediaType())
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + request.getReportType().trim().toLowerCase()
+                            + "-report." + exportFormat.name().toLowerCase() + "\"")
+                    .body(body);
+        } catch (InvalidReportTypeException | InvalidDateRangeException | IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+}
@@ -15,4 +15,11 @@ public class OrderDto {
     private int quantity;
     private LocalDate orderDate;
     private String status;
+    // Price snapshot taken by order-service when the order was placed; null for orders not yet backfilled.
+    private Double unitPrice;
+    private Double totalPrice;
+
+    public OrderDto(Long orderId, Long customerId, Long productId, int quantity, LocalDate orderDate, String status) {
+        this(orderId, customerId, productId, quantity, orderDate, status, null, null);
+    }
 }
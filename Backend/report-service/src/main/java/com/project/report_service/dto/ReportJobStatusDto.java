@@ -0,0 +1,24 @@
+package com.project.report_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReportJobStatusDto {
+    private String jobId;
+    private String reportType;
+    private String status; // QUEUED, RUNNING, COMPLETED or FAILED
+    private Integer queuePosition; // Jobs ahead of this one; only set while QUEUED
+    private Long rowsProcessed; // Upstream rows processed so far (inventory and supplier reports)
+    private Long rowsTotal; // Upstream rows to process; null until they have been fetched
+    private Integer percentComplete; // 100 once COMPLETED; null while the total is unknown
+    private Instant submittedAt;
+    private Instant startedAt;
+    private Instant completedAt;
+    private String error; // Only set when FAILED
+}
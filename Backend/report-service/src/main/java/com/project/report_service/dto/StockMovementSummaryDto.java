@@ -0,0 +1,17 @@
+package com.project.report_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Mirrors stock-service's StockMovementSummaryDto: one product's stock movements over a date range.
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockMovementSummaryDto {
+    private Long productId;
+    private long openingQuantity; // Balance at the start of the range
+    private long added; // Sum of positive movements in the range
+    private long removed; // Sum of negative movements in the range, as a positive number
+    private long closingQuantity; // openingQuantity + added - removed
+}
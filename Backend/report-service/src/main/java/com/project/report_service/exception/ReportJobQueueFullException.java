@@ -0,0 +1,7 @@
+package com.project.report_service.exception;
+
+public class ReportJobQueueFullException extends RuntimeException {
+    public ReportJobQueueFullException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.project.report_service.exception;
+
+public class UpstreamTimeoutException extends RuntimeException {
+    public UpstreamTimeoutException(String message) {
+        super(message);
+    }
+}
@@ -1,11 +1,13 @@
 package com.project.report_service.feignclient;
 
 import com.project.report_service.dto.OrderDto; // DTO for order data
+import com.project.report_service.dto.OrderSummaryDto;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 import org.springframework.format.annotation.DateTimeFormat; // Import this!
 
 @FeignClient(name = "order-service", url = "${order-service.url:http://localhost:8087}")
@@ -26,4 +28,20 @@ public interface OrderClient {
             @RequestParam("productId") Long productId,
             @RequestParam("startDate") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate, // Add @DateTimeFormat
             @RequestParam("endDate") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate); // Add @DateTimeFormat
+
+    // productId -> total ordered quantity in the range, from one grouped query. Products without orders are absent.
+    @GetMapping("/api/orders/sum-quantity-by-products")
+    Map<Long, Long> sumQuantityByProductsAndDateRange(
+            @RequestParam("startDate") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam("endDate") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(value = "productIds", required = false) List<Long> productIds);
+
+    // Counts, quantity and revenue per status (and per product when byProduct is true), grouped by order-service.
+    @GetMapping("/api/orders/summary")
+    OrderSummaryDto getOrderSummary(
+            @RequestParam("startDate") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam("endDate") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(value = "customerId", required = false) Long customerId,
+            @RequestParam(value = "status", required = false) String status,
+            @RequestParam("byProduct") boolean byProduct);
 }
\ No newline at end of file
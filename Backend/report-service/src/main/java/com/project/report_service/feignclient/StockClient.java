@@ -1,9 +1,14 @@
 package com.project.report_service.feignclient;
 
 import com.project.report_service.dto.StockDto; // DTO for stock data
+import com.project.report_service.dto.StockMovementSummaryDto;
 import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import java.time.LocalDate;
 import java.util.List;
 
 @FeignClient(name = "stock-service", url = "${stock-service.url:http://localhost:8090}")
@@ -14,4 +19,11 @@ public interface StockClient {
 
     @GetMapping("/api/stocks/{productId}")
     StockDto getStockByProductId(@PathVariable("productId") Long productId);
+
+    // Opening balance, units added/removed and closing balance per product from the stock movement journal,
+    // in one grouped call. Products with no stock at the start and no movements in the range are absent.
+    @GetMapping("/api/stocks/movements/summary")
+    List<StockMovementSummaryDto> getMovementSummary(
+            @RequestParam(value = "startDate", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(value = "endDate", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate);
 }
@@ -5,6 +5,7 @@ import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @FeignClient(name = "supplier-service", url = "${supplier-service.url:http://localhost:8089}")
@@ -19,4 +20,7 @@ public interface SupplierClient {
     @GetMapping("/api/suppliers/products-supplied-count/{supplierId}")
     Long getProductsSuppliedCountBySupplier(@PathVariable("supplierId") Long supplierId);
 
+    @GetMapping("/api/suppliers/products-supplied-counts")
+    Map<Long, Long> getProductsSuppliedCounts();
+
 }
\ No newline at end of file
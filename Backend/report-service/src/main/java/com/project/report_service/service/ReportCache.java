@@ -0,0 +1,177 @@
+package com.project.report_service.service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.project.report_service.dto.ReportRequest;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Bounded in-process cache of generated reports, keyed by a canonical form of the ReportRequest.
+ * Entries are evicted least-recently-used once maxEntries is reached, and expire after a TTL that is
+ * much longer for ranges that ended before today (their inputs no longer change).
+ * Lookups are counted in the {@code report.cache.requests} metric, tagged by report type and hit/miss.
+ */
+@Component
+public class ReportCache {
+
+    private static final Logger log = LoggerFactory.getLogger(ReportCache.class);
+
+    static final String REQUESTS_METRIC = "report.cache.requests";
+
+    private static final Pattern INTEGER = Pattern.compile("[+-]?\\d{1,18}");
+
+    private final MeterRegistry meterRegistry;
+    private final Duration liveTtl;
+    private final Duration historicalTtl;
+    private final int maxEntries;
+    private final Clock clock;
+
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    @Autowired
+    public ReportCache(MeterRegistry meterRegistry,
+                       @Value("${report.cache.ttl-seconds:60}") long liveTtlSeconds,
+                       @Value("${report.cache.historical-ttl-seconds:3600}") long historicalTtlSeconds,
+                       @Value("${report.cache.max-entries:500}") int maxEntries) {
+        this(meterRegistry, Duration.ofSeconds(liveTtlSeconds), Duration.ofSeconds(historicalTtlSeconds), maxEntries, Clock.systemDefaultZone());
+    }
+
+    ReportCache(MeterRegistry meterRegistry, Duration liveTtl, Duration historicalTtl, int maxEntries, Clock clock) {
+        this.meterRegistry = meterRegistry;
+        this.liveTtl = liveTtl;
+        this.historicalTtl = historicalTtl;
+        this.maxEntries = maxEntries;
+        this.clock = clock;
+        Gauge.builder("report.cache.size", this, ReportCache::size).register(meterRegistry);
+    }
+
+    /**
+     * Returns the cached report for an equivalent request, or computes and caches it.
+     * Failures are not cached. Two concurrent misses for the same key may both compute.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T getOrCompute(ReportRequest request, Supplier<T> compute) {
+        Key key = Key.of(request);
+        long now = clock.millis();
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.expiresAtMillis > now) {
+                counter(key.reportType, "hit").increment();
+                log.debug("Report cache hit for {}", key);
+                return (T) entry.value;
+            }
+            if (entry != null) {
+                entries.remove(key);
+            }
+        }
+        counter(key.reportType, "miss").increment();
+        log.debug("Report cache miss for {}", key);
+
+        T value = compute.get();
+        long expiresAt = clock.millis() + ttlFor(request).toMillis();
+        synchronized (entries) {
+            entries.put(key, new Entry(value, expiresAt));
+            Iterator<Map.Entry<Key, Entry>> eldest = entries.entrySet().iterator();
+            while (entries.size() > maxEntries && eldest.hasNext()) {
+                eldest.next();
+                eldest.remove();
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Drops cached reports, either all of them or only those of one report type.
+     * Returns the number of entries removed.
+     */
+    public int invalidate(String reportType) {
+        int removed;
+        synchronized (entries) {
+            int before = entries.size();
+            if (reportType == null || reportType.isBlank()) {
+                entries.clear();
+            } else {
+                String type = normalizeType(reportType);
+                entries.keySet().removeIf(key -> key.reportType.equals(type));
+            }
+            removed = before - entries.size();
+        }
+        log.info("Invalidated {} cached reports (reportType: {}).", removed, reportType == null ? "all" : reportType);
+        return removed;
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private Duration ttlFor(ReportRequest request) {
+        LocalDate today = LocalDate.now(clock);
+        return request.getEndDate() != null && request.getEndDate().isBefore(today) ? historicalTtl : liveTtl;
+    }
+
+    private Counter counter(String reportType, String result) {
+        return Counter.builder(REQUESTS_METRIC)
+                .tag("reportType", reportType)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private static String normalizeType(String reportType) {
+        return reportType == null ? "" : reportType.trim().toLowerCase();
+    }
+
+    /**
+     * Integral parameter values compare equal whether they arrived as JSON numbers or strings
+     * ("5" and 5), since the report filters parse both the same way. Other values keep their type
+     * so that e.g. 5.0 (ignored by the integer filters) does not share an entry with 5.
+     */
+    static String normalizeValue(Object value) {
+        if (value == null) {
+            return "null";
+        }
+        if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+            return "int:" + value;
+        }
+        if (value instanceof String s && INTEGER.matcher(s).matches()) {
+            return "int:" + Long.parseLong(s);
+        }
+        if (value instanceof String s) {
+            return "str:" + s;
+        }
+        return value.getClass().getSimpleName() + ":" + value;
+    }
+
+    record Key(String reportType, LocalDate startDate, LocalDate endDate, SortedMap<String, String> parameters) {
+
+        static Key of(ReportRequest request) {
+            SortedMap<String, String> parameters = new TreeMap<>();
+            if (request.getParameters() != null) {
+                request.getParameters().forEach((name, value) -> parameters.put(name, normalizeValue(value)));
+            }
+            return new Key(normalizeType(request.getReportType()), request.getStartDate(), request.getEndDate(), parameters);
+        }
+    }
+
+    private record Entry(Object value, long expiresAtMillis) {
+    }
+}
@@ -0,0 +1,140 @@
+package com.project.report_service.service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.report_service.dto.ReportRequest;
+import com.project.report_service.exception.InvalidReportTypeException;
+
+/**
+ * Writes inventory and supplier reports as NDJSON or CSV while the rows are computed,
+ * so memory use does not grow with the number of rows exported.
+ */
+@Component
+public class ReportExporter {
+
+    private static final Logger log = LoggerFactory.getLogger(ReportExporter.class);
+
+    private static final List<String> INVENTORY_COLUMNS = List.of("productId", "productName", "initialStock",
+            "stockAdded", "stockRemoved", "finalStock", "reorderLevel", "isLowStock");
+    private static final List<String> SUPPLIER_COLUMNS = List.of("supplierId", "supplierName",
+            "productsSupplied", "totalQuantitySupplied");
+
+    public enum Format {
+        NDJSON(MediaType.parseMediaType("application/x-ndjson")),
+        CSV(MediaType.parseMediaType("text/csv"));
+
+        private final MediaType mediaType;
+
+        Format(MediaType mediaType) {
+            this.mediaType = mediaType;
+        }
+
+        public MediaType getMediaType() {
+            return mediaType;
+        }
+
+        public static Format from(String value) {
+            for (Format format : values()) {
+                if (format.name().equalsIgnoreCase(value)) {
+                    return format;
+                }
+            }
+            throw new IllegalArgumentException("Unsupported export format: " + value + ". Use ndjson or csv.");
+        }
+    }
+
+    private final ReportService reportService;
+    private final ObjectMapper objectMapper;
+
+    public ReportExporter(ReportService reportService, ObjectMapper objectMapper) {
+        this.reportService = reportService;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Checks the request up front, before any response bytes are written.
+     * Only row-based reports (inventory, supplier) can be exported.
+     */
+    public void validate(ReportRequest request) {
+        reportService.validateRequest(request);
+        String reportType = request.getReportType().trim().toLowerCase();
+        if (!reportType.equals("inventory") && !reportType.equals("supplier")) {
+            throw new InvalidReportTypeException("Report type " + request.getReportType() + " cannot be exported as rows.");
+        }
+    }
+
+    public long export(ReportRequest request, Format format, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        long rows;
+        try {
+            if (request.getReportType().trim().equalsIgnoreCase("inventory")) {
+                writeHeader(writer, format, INVENTORY_COLUMNS);
+                rows = reportService.streamInventoryReport(request, row -> writeRow(writer, format, row, Arrays.asList(
+                        row.getProductId(), row.getProductName(), row.getInitialStock(), row.getStockAdded(),
+                        row.getStockRemoved(), row.getFinalStock(), row.getReorderLevel(), row.getIsLowStock())));
+            } else {
+                writeHeader(writer, format, SUPPLIER_COLUMNS);
+                rows = reportService.streamSupplierReport(request, row -> writeRow(writer, format, row, Arrays.asList(
+                        row.getSupplierId(), row.getSupplierName(), row.getProductsSupplied(), row.getTotalQuantitySupplied())));
+            }
+        } catch (RuntimeException e) {
+            if (e.getCause() instanceof UncheckedIOException io) {
+                throw io.getCause(); // Client went away mid-stream
+            }
+            throw e;
+        }
+        writer.flush();
+        log.info("Exported {} {} report rows as {}.", rows, request.getReportType(), format);
+        return rows;
+    }
+
+    private void writeHeader(Writer writer, Format format, List<String> columns) throws IOException {
+        if (format == Format.CSV) {
+            writer.write(String.join(",", columns));
+            writer.write('\n');
+        }
+    }
+
+    private void writeRow(Writer writer, Format format, Object row, List<Object> values) {
+        try {
+            if (format == Format.NDJSON) {
+                writer.write(objectMapper.writeValueAsString(row));
+            } else {
+                for (int i = 0; i < values.size(); i++) {
+                    if (i > 0) {
+                        writer.write(',');
+                    }
+                    writer.write(csvValue(values.get(i)));
+                }
+            }
+            writer.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static String csvValue(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        if (text.indexOf(',') >= 0 || text.indexOf('"') >= 0 || text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0) {
+            return '"' + text.replace("\"", "\"\"") + '"';
+        }
+        return text;
+    }
+}
@@ -0,0 +1,211 @@
+package com.project.report_service.service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.project.report_service.dto.ReportJobStatusDto;
+import com.project.report_service.dto.ReportRequest;
+import com.project.report_service.exception.ReportJobNotFoundException;
+import com.project.report_service.exception.ReportJobQueueFullException;
+
+/**
+ * Runs reports in the background so callers can submit, poll and download instead of holding
+ * a request thread (and the gateway connection) open for the whole run.
+ * A fixed pool of workers with a bounded queue executes the jobs; an identical request that arrives
+ * while a job for it is still queued or running is merged into that job. Running inventory and
+ * supplier jobs report progress as rows processed out of the rows fetched from upstream. Finished
+ * jobs are kept for the configured retention and then forgotten.
+ */
+@Service
+public class ReportJobService implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(ReportJobService.class);
+
+    private final ReportService reportService;
+    private final ThreadPoolExecutor executor;
+    private final Duration retention;
+    private final Clock clock;
+
+    private final Map<String, ReportJob> jobs = new ConcurrentHashMap<>();
+    private final Map<ReportCache.Key, ReportJob> inFlight = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ReportJobService(ReportService reportService,
+                            @Value("${report.jobs.workers:4}") int workers,
+                            @Value("${report.jobs.queue-capacity:50}") int queueCapacity,
+                            @Value("${report.jobs.retention-minutes:30}") long retentionMinutes) {
+        this(reportService, workers, queueCapacity, Duration.ofMinutes(retentionMinutes), Clock.systemUTC());
+    }
+
+    ReportJobService(ReportService reportService, int workers, int queueCapacity, Duration retention, Clock clock) {
+        this.reportService = reportService;
+        this.retention = retention;
+        this.clock = clock;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> new Thread(runnable, "report-job-" + threadCount.incrementAndGet()),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    public ReportJobStatusDto submit(ReportRequest request) {
+        reportService.validateRequest(request);
+        purgeExpired();
+
+        ReportCache.Key key = ReportCache.Key.of(request);
+        synchronized (inFlight) {
+            ReportJob existing = inFlight.get(key);
+            if (existing != null) {
+                log.info("Merged report request {} into in-flight job {}.", key, existing.id);
+                return toDto(existing);
+            }
+            ReportJob job = new ReportJob(UUID.randomUUID().toString(), key, request, clock.instant());
+            jobs.put(job.id, job);
+            inFlight.put(key, job);
+            try {
+                executor.execute(job.task);
+            } catch (RejectedExecutionException e) {
+                jobs.remove(job.id);
+                inFlight.remove(key);
+                log.warn("Rejected report job for {}: queue is full.", key);
+                throw new ReportJobQueueFullException("Too many report jobs queued. Please retry later.");
+            }
+            log.info("Queued report job {} for {}.", job.id, key);
+            return toDto(job);
+        }
+    }
+
+    public ReportJobStatusDto getJob(String jobId) {
+        return toDto(findJob(jobId));
+    }
+
+    /**
+     * Returns the finished report payload. Throws IllegalStateException if the job is still
+     * queued or running, or if it failed.
+     */
+    public Object getResult(String jobId) {
+        ReportJob job = findJob(jobId);
+        if (job.status != Status.COMPLETED) {
+            throw new IllegalStateException("Report job " + jobId + " is " + job.status
+                    + (job.error != null ? ": " + job.error : "."));
+        }
+        return job.result;
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    private ReportJob findJob(String jobId) {
+        purgeExpired();
+        ReportJob job = jobs.get(jobId);
+        if (job == null) {
+            throw new ReportJobNotFoundException("Report job " + jobId + " not found or expired.");
+        }
+        return job;
+    }
+
+    private void purgeExpired() {
+        Instant cutoff = clock.instant().minus(retention);
+        jobs.values().removeIf(job -> job.completedAt != null && job.completedAt.isBefore(cutoff));
+    }
+
+    private void run(ReportJob job) {
+        job.startedAt = clock.instant();
+        job.status = Status.RUNNING;
+        log.info("Running report job {}.", job.id);
+        try {
+            job.result = reportService.generateReport(job.request, job);
+            job.completedAt = clock.instant();
+            job.status = Status.COMPLETED;
+            log.info("Report job {} completed.", job.id);
+        } catch (RuntimeException e) {
+            job.error = e.getMessage();
+            job.completedAt = clock.instant();
+            job.status = Status.FAILED;
+            log.error("Report job {} failed: {}", job.id, e.getMessage(), e);
+        } finally {
+            inFlight.remove(job.key, job);
+        }
+    }
+
+    private ReportJobStatusDto toDto(ReportJob job) {
+        Integer queuePosition = null;
+        if (job.status == Status.QUEUED) {
+            int position = 0;
+            for (Runnable queued : executor.getQueue()) {
+                if (queued == job.task) {
+                    queuePosition = position;
+                    break;
+                }
+                position++;
+            }
+        }
+        Long rowsTotal = job.rowsTotal;
+        long rowsProcessed = job.rowsProcessed.get();
+        Integer percentComplete = null;
+        if (job.status == Status.COMPLETED) {
+            percentComplete = 100;
+        } else if (job.status == Status.QUEUED) {
+            percentComplete = 0;
+        } else if (rowsTotal != null) {
+            percentComplete = rowsTotal == 0 ? 100 : (int) Math.min(100, rowsProcessed * 100 / rowsTotal);
+        }
+        return new ReportJobStatusDto(job.id, job.key.reportType(), job.status.name(), queuePosition,
+                rowsProcessed, rowsTotal, percentComplete, job.submittedAt, job.startedAt, job.completedAt, job.error);
+    }
+
+    private enum Status { QUEUED, RUNNING, COMPLETED, FAILED }
+
+    private final class ReportJob implements ReportProgress {
+
+        private final String id;
+        private final ReportCache.Key key;
+        private final ReportRequest request;
+        private final Instant submittedAt;
+        private final Runnable task = () -> run(this);
+
+        private volatile Status status = Status.QUEUED;
+        private volatile Instant startedAt;
+        private volatile Instant completedAt;
+        private volatile Object result;
+        private volatile String error;
+        private volatile Long rowsTotal;
+        private final AtomicLong rowsProcessed = new AtomicLong();
+
+        private ReportJob(String id, ReportCache.Key key, ReportRequest request, Instant submittedAt) {
+            this.id = id;
+            this.key = key;
+            this.request = request;
+            this.submittedAt = submittedAt;
+        }
+
+        @Override
+        public void rowsFetched(long total) {
+            rowsTotal = total;
+        }
+
+        @Override
+        public void rowProcessed() {
+            rowsProcessed.incrementAndGet();
+        }
+    }
+}
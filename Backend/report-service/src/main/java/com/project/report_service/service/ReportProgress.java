@@ -0,0 +1,23 @@
+package com.project.report_service.service;
+
+/**
+ * Progress of one report run, for the row-by-row reports (inventory, supplier): how many upstream rows there are
+ * to process once they have been fetched, then each row as it is processed, whether or not a filter keeps it.
+ * Called from the thread running the report.
+ */
+public interface ReportProgress {
+
+    ReportProgress NONE = new ReportProgress() {
+        @Override
+        public void rowsFetched(long total) {
+        }
+
+        @Override
+        public void rowProcessed() {
+        }
+    };
+
+    void rowsFetched(long total);
+
+    void rowProcessed();
+}
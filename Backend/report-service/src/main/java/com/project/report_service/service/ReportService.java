@@ -2,9 +2,23 @@ package com.project.report_service.service;
 
 import com.project.report_service.dto.*;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface ReportService {
     List<InventoryReportDto> generateInventoryReport(ReportRequest request);
     OrderReportDto generateOrderReport(ReportRequest request);
     List<SupplierReportDto> generateSupplierReport(ReportRequest request);
+
+    // Row-by-row variants for streaming export: filtered rows go straight to the sink, nothing is collected.
+    // Return the number of rows emitted.
+    long streamInventoryReport(ReportRequest request, Consumer<InventoryReportDto> sink);
+    long streamSupplierReport(ReportRequest request, Consumer<SupplierReportDto> sink);
+
+    // Dispatches on reportType and serves repeated requests from the report cache.
+    Object generateReport(ReportRequest request);
+    // Same, reporting row progress of inventory and supplier reports as they are computed.
+    Object generateReport(ReportRequest request, ReportProgress progress);
+    // Throws InvalidReportTypeException / InvalidDateRangeException without fetching anything.
+    void validateRequest(ReportRequest request);
+    int invalidateCachedReports(String reportType);
 }
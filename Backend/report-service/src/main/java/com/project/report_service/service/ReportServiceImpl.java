@@ -2,8 +2,11 @@ package com.project.report_service.service;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
@@ -11,19 +14,25 @@ import org.springframework.stereotype.Service;
 
 import com.project.report_service.dto.InventoryReportDto;
 import com.project.report_service.dto.OrderReportDto;
+import com.project.report_service.dto.OrderSummaryDto;
 import com.project.report_service.dto.ReportRequest;
 import com.project.report_service.dto.SupplierReportDto;
 
 import com.project.report_service.dto.ProductDto;
 import com.project.report_service.dto.OrderDto;
 import com.project.report_service.dto.StockDto;
+import com.project.report_service.dto.StockMovementSummaryDto;
 import com.project.report_service.dto.SupplierDto;
 
 import com.project.report_service.exception.InvalidDateRangeException;
+import com.project.report_service.exception.InvalidReportTypeException;
+import com.project.report_service.exception.UpstreamTimeoutException;
 import com.project.report_service.feignclient.OrderClient;
 import com.project.report_service.feignclient.ProductClient;
 import com.project.report_service.feignclient.StockClient;
 import com.project.report_service.feignclient.SupplierClient;
+import com.project.report_service.service.UpstreamCallExecutor.Scope;
+import com.project.report_service.service.UpstreamCallExecutor.UpstreamCall;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -33,6 +42,8 @@ public class ReportServiceImpl implements ReportService {
 
     private static final Logger log = LoggerFactory.getLogger(ReportServiceImpl.class);
 
+    private static final Set<String> REPORT_TYPES = Set.of("inventory", "order", "supplier");
+
     @Autowired
     private ProductClient productClient;
     @Autowired
@@ -41,6 +52,10 @@ public class ReportServiceImpl implements ReportService {
     private StockClient stockClient;
     @Autowired
     private SupplierClient supplierClient;
+    @Autowired
+    private UpstreamCallExecutor upstreamCallExecutor;
+    @Autowired
+    private ReportCache reportCache;
 
 
     private void validateDateRange(LocalDate startDate, LocalDate endDate) {
@@ -53,47 +68,85 @@ public class ReportServiceImpl implements ReportService {
     }
 
     @Override
-    public List<InventoryReportDto> generateInventoryReport(ReportRequest request) {
-        log.info("Generating inventory report for request: {}", request);
-        try {
-            validateDateRange(request.getStartDate(), request.getEndDate());
+    public Object generateReport(ReportRequest request) {
+        return generateReport(request, ReportProgress.NONE);
+    }
 
-            List<ProductDto> products = productClient.getAllProducts();
-            List<StockDto> stocks = stockClient.getAllStocks();
-            Map<Long, StockDto> stockMap = stocks.stream()
-                    .collect(Collectors.toMap(StockDto::getProductId, stock -> stock));
+    @Override
+    public Object generateReport(ReportRequest request, ReportProgress progress) {
+        String reportType = request.getReportType() == null ? "" : request.getReportType().trim().toLowerCase();
+        switch (reportType) {
+            case "inventory":
+                return reportCache.getOrCompute(request, () -> generateInventoryReport(request, progress));
+            case "order":
+                return reportCache.getOrCompute(request, () -> generateOrderReport(request));
+            case "supplier":
+                return reportCache.getOrCompute(request, () -> generateSupplierReport(request, progress));
+            default:
+                throw new InvalidReportTypeException("Invalid report type: " + request.getReportType());
+        }
+    }
 
-            log.debug("Found {} products and {} stock entries for inventory report.", products.size(), stocks.size());
+    @Override
+    public void validateRequest(ReportRequest request) {
+        String reportType = request.getReportType() == null ? "" : request.getReportType().trim().toLowerCase();
+        if (!REPORT_TYPES.contains(reportType)) {
+            throw new InvalidReportTypeException("Invalid report type: " + request.getReportType());
+        }
+        validateDateRange(request.getStartDate(), request.getEndDate());
+    }
 
-            List<InventoryReportDto> reportData = new ArrayList<>();
+    @Override
+    public int invalidateCachedReports(String reportType) {
+        return reportCache.invalidate(reportType);
+    }
 
-            for (ProductDto product : products) {
-                StockDto stock = stockMap.get(product.getId());
-                InventoryReportDto dto = new InventoryReportDto();
-                dto.setProductId(product.getId());
-                dto.setProductName(product.getName());
-                dto.setInitialStock(stock != null ? stock.getQuantity() : 0);
+    @Override
+    public List<InventoryReportDto> generateInventoryReport(ReportRequest request) {
+        return generateInventoryReport(request, ReportProgress.NONE);
+    }
 
-                Long stockRemoved = orderClient.sumQuantityByProductIdAndDateRange(
-                        product.getId(), request.getStartDate(), request.getEndDate());
-                dto.setStockRemoved(stockRemoved != null ? stockRemoved.intValue() : 0);
+    private List<InventoryReportDto> generateInventoryReport(ReportRequest request, ReportProgress progress) {
+        log.info("Generating inventory report for request: {}", request);
+        List<InventoryReportDto> reportData = new ArrayList<>();
+        streamInventoryReport(request, reportData::add, progress);
+        log.info("Inventory report generated successfully with {} entries (after filtering).", reportData.size());
+        return reportData;
+    }
 
-                dto.setStockAdded(0); // Assuming no stock added logic here, or would need another service call
+    @Override
+    public long streamInventoryReport(ReportRequest request, Consumer<InventoryReportDto> sink) {
+        return streamInventoryReport(request, sink, ReportProgress.NONE);
+    }
 
-                int finalStock = (stock != null ? stock.getQuantity() : 0) - dto.getStockRemoved() + dto.getStockAdded();
-                dto.setFinalStock(Math.max(0, finalStock));
-                dto.setReorderLevel(stock != null ? stock.getReorderLevel() : 0);
-                dto.setIsLowStock(dto.getFinalStock() < dto.getReorderLevel());
-                reportData.add(dto);
-                log.debug("Processed inventory data for product ID {}: {}", product.getId(), dto);
-            }
+    private long streamInventoryReport(ReportRequest request, Consumer<InventoryReportDto> sink, ReportProgress progress) {
+        try (Scope calls = upstreamCallExecutor.openScope()) {
+            validateDateRange(request.getStartDate(), request.getEndDate());
+
+            // Independent upstream calls run concurrently; the report waits only for the slowest one.
+            UpstreamCall<List<ProductDto>> productsCall =
+                    calls.submit("product-service.getAllProducts", productClient::getAllProducts);
+            UpstreamCall<List<StockDto>> stocksCall =
+                    calls.submit("stock-service.getAllStocks", stockClient::getAllStocks);
+            UpstreamCall<List<StockMovementSummaryDto>> movementsCall =
+                    calls.submit("stock-service.getMovementSummary",
+                            () -> stockClient.getMovementSummary(request.getStartDate(), request.getEndDate()));
+
+            List<ProductDto> products = productsCall.join();
+            List<StockDto> stocks = stocksCall.join();
+            Map<Long, StockDto> stockMap = stocks.stream()
+                    .collect(Collectors.toMap(StockDto::getProductId, stock -> stock));
 
-            // --- FILTERING LOGIC FOR INVENTORY REPORT (minStock) ---
-            List<InventoryReportDto> filteredReportData = reportData; // Start with all processed data
+            Map<Long, StockMovementSummaryDto> movementsByProduct = movementsCall.join().stream()
+                    .collect(Collectors.toMap(StockMovementSummaryDto::getProductId, movements -> movements));
 
+            log.debug("Found {} products, {} stock entries and stock movements for {} products for inventory report.",
+                    products.size(), stocks.size(), movementsByProduct.size());
+
+            // --- FILTERING LOGIC FOR INVENTORY REPORT (minStock), applied row by row ---
+            Integer minStock = null;
             if (request.getParameters() != null && request.getParameters().containsKey("minStock")) {
                 Object minStockObj = request.getParameters().get("minStock");
-                Integer minStock = null;
 
                 if (minStockObj instanceof Integer) {
                     minStock = (Integer) minStockObj;
@@ -105,23 +158,43 @@ public class ReportServiceImpl implements ReportService {
                     }
                 }
 
-                if (minStock != null) {
-                    final Integer filterValue = minStock; // Make it effectively final for lambda
-                    filteredReportData = reportData.stream()
-                            .filter(inventoryDto -> inventoryDto.getFinalStock() >= filterValue)
-                            .collect(Collectors.toList());
-                    log.debug("Filtered inventory report by minStock: {}. Resulting entries: {}", filterValue, filteredReportData.size());
-                } else {
+                if (minStock == null) {
                     log.warn("minStock parameter found but is not a valid number. Not applying filter.");
                 }
             }
-            // --- END NEW FILTERING LOGIC FOR INVENTORY REPORT ---
 
-            log.info("Inventory report generated successfully with {} entries (after filtering).", filteredReportData.size());
-            return filteredReportData;
+            progress.rowsFetched(products.size());
+            long written = 0;
+            for (ProductDto product : products) {
+                StockDto stock = stockMap.get(product.getId());
+                InventoryReportDto dto = new InventoryReportDto();
+                dto.setProductId(product.getId());
+                dto.setProductName(product.getName());
+                // Balances and movements over the range come from stock-service's journal. A product missing
+                // from the summary had no stock at the start and nothing moved during the range.
+                StockMovementSummaryDto movements = movementsByProduct.get(product.getId());
+                dto.setInitialStock(movements != null ? (int) movements.getOpeningQuantity() : 0);
+                dto.setStockAdded(movements != null ? (int) movements.getAdded() : 0);
+                dto.setStockRemoved(movements != null ? (int) movements.getRemoved() : 0);
+                dto.setFinalStock(movements != null ? (int) movements.getClosingQuantity() : 0);
+                dto.setReorderLevel(stock != null ? stock.getReorderLevel() : 0);
+                dto.setIsLowStock(dto.getFinalStock() < dto.getReorderLevel());
+                log.debug("Processed inventory data for product ID {}: {}", product.getId(), dto);
+
+                if (minStock == null || dto.getFinalStock() >= minStock) {
+                    sink.accept(dto);
+                    written++;
+                }
+                progress.rowProcessed();
+            }
+            log.debug("Inventory report emitted {} of {} rows (minStock: {}).", written, products.size(), minStock);
+            return written;
         } catch (InvalidDateRangeException e) {
             log.error("Failed to generate inventory report due to invalid date range: {}", e.getMessage(), e);
             throw e;
+        } catch (UpstreamTimeoutException e) {
+            log.error("Failed to generate inventory report because an upstream call timed out: {}", e.getMessage(), e);
+            throw e;
         } catch (Exception e) {
             log.error("An unexpected error occurred while generating inventory report: {}", e.getMessage(), e);
             throw new RuntimeException("Error generating inventory report", e);
@@ -131,14 +204,14 @@ public class ReportServiceImpl implements ReportService {
     @Override
     public OrderReportDto generateOrderReport(ReportRequest request) {
         log.info("Generating order report for request: {}", request);
-        try {
+        try (Scope calls = upstreamCallExecutor.openScope()) {
             validateDateRange(request.getStartDate(), request.getEndDate());
 
-            List<OrderDto> orders = orderClient.getOrdersByDateRange(request.getStartDate(), request.getEndDate());
-            log.debug("Initially found {} orders for order report between {} and {}.", orders.size(), request.getStartDate(), request.getEndDate());
-
-            // --- FILTERING LOGIC FOR ORDER REPORT (status, customerId) ---
+            // --- FILTERING LOGIC FOR ORDER REPORT (status, customerId), applied by order-service ---
             String statusFilter = request.getParameters() != null ? (String) request.getParameters().get("status") : null;
+            if (statusFilter != null && statusFilter.isBlank()) {
+                statusFilter = null;
+            }
 
             Long customerIdFilter = null;
             if (request.getParameters() != null && request.getParameters().containsKey("customerId")) {
@@ -156,70 +229,35 @@ public class ReportServiceImpl implements ReportService {
                 }
             }
 
-            // FIX: Introduce a final variable for customerIdFilter before lambda usage
+            // Counts and sums are grouped in order-service's database; only one row per status and product comes back.
+            final String finalStatusFilter = statusFilter;
             final Long finalCustomerIdFilter = customerIdFilter;
-
-
-            // Helper to strip quotes from status string if present (e.g., "'Delivered'" -> "Delivered")
-            java.util.function.Function<String, String> stripQuotes = s -> {
-                if (s != null && s.length() > 1 && s.startsWith("'") && s.endsWith("'")) {
-                    return s.substring(1, s.length() - 1);
-                }
-                return s;
-            };
-
-            List<OrderDto> filteredOrders = orders.stream()
-                    .filter(order -> {
-                        boolean matchesStatus = true;
-                        if (statusFilter != null && !statusFilter.isEmpty()) {
-                            String processedStatusFilter = stripQuotes.apply(statusFilter);
-                            String processedOrderStatus = stripQuotes.apply(order.getStatus());
-                            matchesStatus = processedStatusFilter.equalsIgnoreCase(processedOrderStatus);
-                        }
-
-                        boolean matchesCustomerId = true;
-                        // Use the effectively final variable here
-                        if (finalCustomerIdFilter != null) {
-                            matchesCustomerId = finalCustomerIdFilter.equals(order.getCustomerId());
-                        }
-                        return matchesStatus && matchesCustomerId;
-                    })
-                    .collect(Collectors.toList());
-
-            log.debug("After applying parameters (status: {}, customerId: {}), filtered down to {} orders.",
-                    statusFilter, finalCustomerIdFilter, filteredOrders.size());
-            // --- END FILTERING LOGIC FOR ORDER REPORT ---
-
-
-            // All subsequent calculations should use 'filteredOrders'
-            long totalOrders = filteredOrders.size();
-
-            long pendingOrders = filteredOrders.stream()
-                    .filter(order -> "Pending".equalsIgnoreCase(stripQuotes.apply(order.getStatus())))
-                    .count();
-            long shippedOrders = filteredOrders.stream()
-                    .filter(order -> "Shipped".equalsIgnoreCase(stripQuotes.apply(order.getStatus())))
-                    .count();
-            long deliveredOrders = filteredOrders.stream()
-                    .filter(order -> "Delivered".equalsIgnoreCase(stripQuotes.apply(order.getStatus())))
-                    .count();
-
-            List<ProductDto> allProducts = productClient.getAllProducts();
+            UpstreamCall<OrderSummaryDto> summaryCall = calls.submit("order-service.getOrderSummary",
+                    () -> orderClient.getOrderSummary(request.getStartDate(), request.getEndDate(),
+                            finalCustomerIdFilter, finalStatusFilter, true));
+            UpstreamCall<List<ProductDto>> productsCall =
+                    calls.submit("product-service.getAllProducts", productClient::getAllProducts);
+
+            OrderSummaryDto summary = summaryCall.join();
+            log.debug("Order summary between {} and {} (status: {}, customerId: {}): {} orders over {} statuses.",
+                    request.getStartDate(), request.getEndDate(), statusFilter, customerIdFilter,
+                    summary.getTotalOrders(), summary.getByStatus().size());
+
+            Map<String, Long> ordersByStatus = summary.getByStatus().stream()
+                    .collect(Collectors.toMap(OrderSummaryDto.StatusTotals::getStatus, OrderSummaryDto.StatusTotals::getOrders));
+            long totalOrders = summary.getTotalOrders();
+            long pendingOrders = ordersByStatus.getOrDefault("Pending", 0L);
+            long shippedOrders = ordersByStatus.getOrDefault("Shipped", 0L);
+            long deliveredOrders = ordersByStatus.getOrDefault("Delivered", 0L);
+
+            List<ProductDto> allProducts = productsCall.join();
             Map<Long, ProductDto> productMap = allProducts.stream()
                     .collect(Collectors.toMap(ProductDto::getId, product -> product));
 
-            double totalRevenue = filteredOrders.stream()
-                    .mapToDouble(order -> {
-                        ProductDto product = productMap.get(order.getProductId());
-                        if (product != null && product.getPrice() != null) {
-                            return order.getQuantity() * product.getPrice();
-                        } else {
-                            log.warn("Product or price not found for product ID {} in order ID {}. Skipping from revenue calculation.", order.getProductId(), order.getOrderId());
-                            return 0.0;
-                        }
-                    }).sum();
-
-            List<OrderReportDto.TopSellingProductDto> topSellingProducts = getTopSellingProducts(filteredOrders, productMap);
+            List<OrderReportDto.TopSellingProductDto> topSellingProducts = getTopSellingProducts(summary.getByProduct(), productMap);
+            double totalRevenue = topSellingProducts.stream()
+                    .mapToDouble(OrderReportDto.TopSellingProductDto::getTotalRevenue)
+                    .sum();
 
             OrderReportDto orderReportDto = new OrderReportDto();
             orderReportDto.setTotalOrders(totalOrders);
@@ -234,6 +272,9 @@ public class ReportServiceImpl implements ReportService {
         } catch (InvalidDateRangeException e) {
             log.error("Failed to generate order report due to invalid date range: {}", e.getMessage(), e);
             throw e;
+        } catch (UpstreamTimeoutException e) {
+            log.error("Failed to generate order report because an upstream call timed out: {}", e.getMessage(), e);
+            throw e;
         } catch (Exception e) {
             log.error("An unexpected error occurred while generating order report: {}", e.getMessage(), e);
             throw new RuntimeException("Error generating order report", e);
@@ -243,34 +284,46 @@ public class ReportServiceImpl implements ReportService {
 
     @Override
     public List<SupplierReportDto> generateSupplierReport(ReportRequest request) {
-        log.info("Generating supplier report for request: {}", request);
-        try {
-            validateDateRange(request.getStartDate(), request.getEndDate());
+        return generateSupplierReport(request, ReportProgress.NONE);
+    }
 
-            List<SupplierDto> suppliers = supplierClient.getAllSuppliers();
-            log.debug("Found {} suppliers for supplier report.", suppliers.size());
+    private List<SupplierReportDto> generateSupplierReport(ReportRequest request, ReportProgress progress) {
+        log.info("Generating supplier report for request: {}", request);
+        List<SupplierReportDto> reportData = new ArrayList<>();
+        streamSupplierReport(request, reportData::add, progress);
+        log.info("Supplier report generated successfully with {} entries (after filtering).", reportData.size());
+        return reportData;
+    }
 
-            List<SupplierReportDto> supplierReportData = new ArrayList<>();
+    @Override
+    public long streamSupplierReport(ReportRequest request, Consumer<SupplierReportDto> sink) {
+        return streamSupplierReport(request, sink, ReportProgress.NONE);
+    }
 
-            for (SupplierDto supplier : suppliers) {
-                Long totalQuantitySupplied = getTotalQuantitySupplied(supplier.getSupplierId(), request.getStartDate(), request.getEndDate());
-                Long productsSuppliedCount = supplierClient.getProductsSuppliedCountBySupplier(supplier.getSupplierId());
+    private long streamSupplierReport(ReportRequest request, Consumer<SupplierReportDto> sink, ReportProgress progress) {
+        try (Scope calls = upstreamCallExecutor.openScope()) {
+            validateDateRange(request.getStartDate(), request.getEndDate());
 
-                SupplierReportDto dto = new SupplierReportDto();
-                dto.setSupplierId(supplier.getSupplierId());
-                dto.setSupplierName(supplier.getName());
-                dto.setProductsSupplied(productsSuppliedCount);
-                dto.setTotalQuantitySupplied(totalQuantitySupplied);
-                supplierReportData.add(dto);
-                log.debug("Processed supplier data for supplier ID {}: {}", supplier.getSupplierId(), dto);
-            }
+            // Fetch suppliers, orders, products and product counts once for the whole report, concurrently.
+            UpstreamCall<List<SupplierDto>> suppliersCall =
+                    calls.submit("supplier-service.getAllSuppliers", supplierClient::getAllSuppliers);
+            UpstreamCall<List<OrderDto>> ordersCall = calls.submit("order-service.getOrdersByDateRange",
+                    () -> orderClient.getOrdersByDateRange(request.getStartDate(), request.getEndDate()));
+            UpstreamCall<List<ProductDto>> productsCall =
+                    calls.submit("product-service.getAllProducts", productClient::getAllProducts);
+            UpstreamCall<Map<Long, Long>> countsCall =
+                    calls.submit("supplier-service.getProductsSuppliedCounts", supplierClient::getProductsSuppliedCounts);
+
+            List<SupplierDto> suppliers = suppliersCall.join();
+            log.debug("Found {} suppliers for supplier report.", suppliers.size());
 
-            // --- FILTERING LOGIC FOR SUPPLIER REPORT (minProductsSupplied) ---
-            List<SupplierReportDto> filteredReportData = supplierReportData; // Start with all processed data
+            Map<Long, Long> quantityBySupplier = getTotalQuantitySuppliedBySupplier(ordersCall.join(), productsCall.join());
+            Map<Long, Long> productsSuppliedCounts = countsCall.join();
 
+            // --- FILTERING LOGIC FOR SUPPLIER REPORT (minProductsSupplied), applied row by row ---
+            Long minProductsSupplied = null;
             if (request.getParameters() != null && request.getParameters().containsKey("minProductsSupplied")) {
                 Object minProductsSuppliedObj = request.getParameters().get("minProductsSupplied");
-                Long minProductsSupplied = null;
 
                 if (minProductsSuppliedObj instanceof Integer) { // Handle both Integer and Long types
                     minProductsSupplied = ((Integer) minProductsSuppliedObj).longValue();
@@ -284,68 +337,93 @@ public class ReportServiceImpl implements ReportService {
                     }
                 }
 
-                if (minProductsSupplied != null) {
-                    final Long filterValue = minProductsSupplied;
-                    filteredReportData = supplierReportData.stream()
-                            .filter(supplierDto -> supplierDto.getProductsSupplied() >= filterValue)
-                            .collect(Collectors.toList());
-                    log.debug("Filtered supplier report by minProductsSupplied: {}. Resulting entries: {}", filterValue, filteredReportData.size());
-                } else {
+                if (minProductsSupplied == null) {
                     log.warn("minProductsSupplied parameter found but is not a valid number. Not applying filter.");
                 }
             }
-            // --- END FILTERING LOGIC FOR SUPPLIER REPORT ---
 
-            log.info("Supplier report generated successfully with {} entries (after filtering).", filteredReportData.size());
-            return filteredReportData;
+            progress.rowsFetched(suppliers.size());
+            long written = 0;
+            for (SupplierDto supplier : suppliers) {
+                Long totalQuantitySupplied = quantityBySupplier.getOrDefault(supplier.getSupplierId(), 0L);
+                Long productsSuppliedCount = productsSuppliedCounts.getOrDefault(supplier.getSupplierId(), 0L);
+
+                SupplierReportDto dto = new SupplierReportDto();
+                dto.setSupplierId(supplier.getSupplierId());
+                dto.setSupplierName(supplier.getName());
+                dto.setProductsSupplied(productsSuppliedCount);
+                dto.setTotalQuantitySupplied(totalQuantitySupplied);
+                log.debug("Processed supplier data for supplier ID {}: {}", supplier.getSupplierId(), dto);
+
+                if (minProductsSupplied == null || dto.getProductsSupplied() >= minProductsSupplied) {
+                    sink.accept(dto);
+                    written++;
+                }
+                progress.rowProcessed();
+            }
+            log.debug("Supplier report emitted {} of {} rows (minProductsSupplied: {}).", written, suppliers.size(), minProductsSupplied);
+            return written;
         } catch (InvalidDateRangeException e) {
             log.error("Failed to generate supplier report due to invalid date range: {}", e.getMessage(), e);
             throw e;
+        } catch (UpstreamTimeoutException e) {
+            log.error("Failed to generate supplier report because an upstream call timed out: {}", e.getMessage(), e);
+            throw e;
         } catch (Exception e) {
             log.error("An unexpected error occurred while generating supplier report: {}", e.getMessage(), e);
             throw new RuntimeException("Error generating supplier report", e);
         }
     }
 
-    private List<OrderReportDto.TopSellingProductDto> getTopSellingProducts(List<OrderDto> orders, Map<Long, ProductDto> productMap) {
-        log.debug("Calculating top selling products from {} orders.", orders.size());
-        Map<Long, Long> unitsSoldPerProduct = orders.stream()
-                .collect(Collectors.groupingBy(OrderDto::getProductId, Collectors.summingLong(OrderDto::getQuantity)));
-
-        return unitsSoldPerProduct.entrySet().stream()
-                .map(entry -> {
-                    Long productId = entry.getKey();
-                    Long unitsSold = entry.getValue();
-                    ProductDto product = productMap.get(productId);
-                    String productName = (product != null) ? product.getName() : "Unknown Product";
-                    Double totalRevenue = (product != null && product.getPrice() != null) ? unitsSold * product.getPrice() : 0.0;
-
+    private List<OrderReportDto.TopSellingProductDto> getTopSellingProducts(List<OrderSummaryDto.ProductTotals> productTotals, Map<Long, ProductDto> productMap) {
+        log.debug("Building top selling products from {} product totals.", productTotals.size());
+        return productTotals.stream()
+                .map(totals -> {
+                    ProductDto product = productMap.get(totals.getProductId());
                     OrderReportDto.TopSellingProductDto dto = new OrderReportDto.TopSellingProductDto();
-                    dto.setProductName(productName);
-                    dto.setUnitsSold(unitsSold);
-                    dto.setTotalRevenue(totalRevenue);
+                    dto.setProductName(product != null ? product.getName() : "Unknown Product");
+                    dto.setUnitsSold(totals.getQuantity());
+                    dto.setTotalRevenue(productRevenue(totals, product));
                     return dto;
                 })
                 .sorted((d1, d2) -> Long.compare(d2.getUnitsSold(), d1.getUnitsSold()))
                 .collect(Collectors.toList());
     }
 
-    private Long getTotalQuantitySupplied(Long supplierId, LocalDate startDate, LocalDate endDate) {
-        log.debug("Calculating total quantity supplied by supplier ID {} between {} and {}.", supplierId, startDate, endDate);
+    /**
+     * Revenue of one product at the prices its orders were placed at. Units from orders placed before
+     * order-service kept a price snapshot fall back to the current catalog price.
+     */
+    private double productRevenue(OrderSummaryDto.ProductTotals totals, ProductDto product) {
+        if (totals.getUnpricedQuantity() == 0) {
+            return totals.getRevenue();
+        }
+        if (product != null && product.getPrice() != null) {
+            return totals.getRevenue() + totals.getUnpricedQuantity() * product.getPrice();
+        }
+        log.warn("Product or price not found for product ID {}. Skipping {} unpriced units from revenue calculation.",
+                totals.getProductId(), totals.getUnpricedQuantity());
+        return totals.getRevenue();
+    }
+
+    private Map<Long, Long> getTotalQuantitySuppliedBySupplier(List<OrderDto> orders, List<ProductDto> products) {
+        log.debug("Calculating total quantity supplied per supplier from {} orders and {} products.", orders.size(), products.size());
 
-        List<OrderDto> orders = orderClient.getOrdersByDateRange(startDate, endDate);
-        List<ProductDto> products = productClient.getAllProducts();
-        Map<Long, ProductDto> productMap = products.stream()
-                .collect(Collectors.toMap(ProductDto::getId, p -> p));
+        Map<Long, Long> supplierIdByProductId = new HashMap<>();
+        for (ProductDto product : products) {
+            if (product.getId() != null && product.getSupplierId() != null) {
+                supplierIdByProductId.put(product.getId(), product.getSupplierId());
+            }
+        }
 
-        long totalQuantity = orders.stream()
-                .filter(order -> {
-                    ProductDto product = productMap.get(order.getProductId());
-                    return product != null && product.getSupplierId() != null && product.getSupplierId().equals(supplierId);
-                })
-                .mapToLong(OrderDto::getQuantity)
-                .sum();
-        log.debug("Total quantity supplied by supplier ID {}: {}", supplierId, totalQuantity);
-        return totalQuantity;
+        Map<Long, Long> quantityBySupplier = new HashMap<>();
+        for (OrderDto order : orders) {
+            Long supplierId = supplierIdByProductId.get(order.getProductId());
+            if (supplierId != null) {
+                quantityBySupplier.merge(supplierId, (long) order.getQuantity(), Long::sum);
+            }
+        }
+        log.debug("Total quantity supplied computed for {} suppliers from {} orders.", quantityBySupplier.size(), orders.size());
+        return quantityBySupplier;
     }
 }
\ No newline at end of file
@@ -0,0 +1,150 @@
+package com.project.report_service.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.project.report_service.exception.UpstreamTimeoutException;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Runs independent upstream (Feign) calls concurrently on virtual threads so a report
+ * waits for its slowest dependency instead of the sum of all of them.
+ * Every call is timed under the {@code report.upstream.call} metric, tagged by upstream name and outcome.
+ * Calls submitted through a {@link Scope} are cancelled together when the scope closes, so a report that fails
+ * on one upstream does not leave the others running.
+ */
+@Component
+public class UpstreamCallExecutor implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(UpstreamCallExecutor.class);
+
+    static final String METRIC_NAME = "report.upstream.call";
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final MeterRegistry meterRegistry;
+    private final Duration timeout;
+
+    public UpstreamCallExecutor(MeterRegistry meterRegistry,
+                                @Value("${report.upstream.timeout-ms:5000}") long timeoutMs) {
+        this.meterRegistry = meterRegistry;
+        this.timeout = Duration.ofMillis(timeoutMs);
+    }
+
+    /**
+     * Starts the call immediately and returns a handle to join on later.
+     * The timeout is counted from submission, so joining several calls in sequence
+     * does not stack their timeouts.
+     */
+    public <T> UpstreamCall<T> submit(String upstream, Supplier<T> call) {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        Future<T> future = executor.submit(() -> {
+            long start = System.nanoTime();
+            String outcome = "success";
+            try {
+                return call.get();
+            } catch (RuntimeException e) {
+                outcome = "error";
+                throw e;
+            } finally {
+                Timer.builder(METRIC_NAME)
+                        .tag("upstream", upstream)
+                        .tag("outcome", outcome)
+                        .register(meterRegistry)
+                        .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        });
+        return new UpstreamCall<>(upstream, future, deadline);
+    }
+
+    // Opens a scope for the calls of one report; use it in try-with-resources.
+    public Scope openScope() {
+        return new Scope();
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Tracks the calls submitted through it and cancels every one that has not finished when it is closed,
+     * e.g. because joining a sibling threw.
+     */
+    public final class Scope implements AutoCloseable {
+
+        private final List<UpstreamCall<?>> calls = new ArrayList<>();
+
+        private Scope() {
+        }
+
+        public <T> UpstreamCall<T> submit(String upstream, Supplier<T> call) {
+            UpstreamCall<T> submitted = UpstreamCallExecutor.this.submit(upstream, call);
+            calls.add(submitted);
+            return submitted;
+        }
+
+        @Override
+        public void close() {
+            calls.forEach(UpstreamCall::cancel);
+        }
+    }
+
+    public static final class UpstreamCall<T> {
+
+        private final String upstream;
+        private final Future<T> future;
+        private final long deadlineNanos;
+
+        private UpstreamCall(String upstream, Future<T> future, long deadlineNanos) {
+            this.upstream = upstream;
+            this.future = future;
+            this.deadlineNanos = deadlineNanos;
+        }
+
+        /**
+         * Waits for the result, rethrowing the upstream's own RuntimeException (e.g. a FeignException)
+         * and cancelling the call if it has not finished by its deadline.
+         */
+        public T join() {
+            try {
+                return future.get(Math.max(0, deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                future.cancel(true);
+                log.warn("Upstream call {} timed out.", upstream);
+                throw new UpstreamTimeoutException("Upstream call " + upstream + " timed out.");
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException runtimeException) {
+                    throw runtimeException;
+                }
+                throw new RuntimeException("Upstream call " + upstream + " failed.", e.getCause());
+            } catch (InterruptedException e) {
+                future.cancel(true);
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while waiting for upstream call " + upstream + ".", e);
+            }
+        }
+
+        // Interrupts the call if it is still running; a no-op once it has finished.
+        public void cancel() {
+            if (future.cancel(true)) {
+                log.debug("Upstream call {} cancelled.", upstream);
+            }
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.project.report_service.service;
+
+import com.project.report_service.dto.*;
+import com.project.report_service.feignclient.OrderClient;
+import com.project.report_service.feignclient.ProductClient;
+import com.project.report_service.feignclient.StockClient;
+import com.project.report_service.feignclient.SupplierClient;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * ReportExporter on top of the real ReportServiceImpl with mocked upstream clients. The heap test streams 500k rows
+ * and forces garbage collections, so it runs only with -Pbenchmark.
+ */
+@ExtendWith(MockitoExtension.class)
+public class ReportExporterTest {
+
+    @Mock
+    private ProductClient productClient;
+
+    @Mock
+    private OrderClient orderClient;
+
+    @Mock
+    private StockClient stockClient;
+
+    @Mock
+    private SupplierClient supplierClient;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Spy
+    private UpstreamCallExecutor upstreamCallExecutor = new UpstreamCallExecutor(meterRegistry, 1000);
+
+    private final MutableClock clock = new MutableClock(LocalDate.of(2024, 1, 15).atStartOfDay(ZoneOffset.UTC).toInstant());
+
+    @Spy
+    private ReportCache reportCache = new ReportCache(meterRegistry, Duration.ofSeconds(60), Duration.ofHours(1), 3, clock);
+
+    @InjectMocks
+    private ReportServiceImpl reportService;
+
+    private ReportExporter exporter;
+    private ReportRequest inventoryReportRequest;
+
+    @BeforeEach
+    void setUp() {
+        exporter = new ReportExporter(reportService, new ObjectMapper());
+        inventoryReportRequest = new ReportRequest("inventory", LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 31), null);
+    }
+
+    @Test
+    @DisplayName("Should export supplier rows as CSV with row-by-row filtering")
+    void shouldExportSupplierReportAsCsv() throws Exception {
+        // Arrange
+        when(supplierClient.getAllSuppliers()).thenReturn(Arrays.asList(
+                new SupplierDto(1L, "Acme, Inc.", "contactA", Collections.emptyList()),
+                new SupplierDto(2L, "Tiny Co", "contactB", Collections.emptyList())));
+        when(supplierClient.getProductsSuppliedCounts()).thenReturn(Map.of(1L, 3L, 2L, 1L));
+        when(orderClient.getOrdersByDateRange(any(LocalDate.class), any(LocalDate.class))).thenReturn(Collections.emptyList());
+        when(productClient.getAllProducts()).thenReturn(Collections.emptyList());
+        ReportRequest request = new ReportRequest("supplier", LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 31),
+                Map.of("minProductsSupplied", "2"));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Act
+        long rows = exporter.export(request, ReportExporter.Format.CSV, out);
+
+        // Assert
+        assertEquals(1, rows);
+        assertEquals("supplierId,supplierName,productsSupplied,totalQuantitySupplied\n1,\"Acme, Inc.\",3,0\n",
+                out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @DisplayName("Should stream one NDJSON line per inventory row")
+    void shouldExportInventoryReportAsNdjson() throws Exception {
+        // Arrange
+        stubInventoryInputs(generatedProducts(3));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Act
+        long rows = exporter.export(inventoryReportRequest, ReportExporter.Format.NDJSON, out);
+
+        // Assert
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(3, rows);
+        assertEquals(3, lines.length);
+        for (int i = 0; i < lines.length; i++) {
+            InventoryReportDto row = new ObjectMapper().readValue(lines[i], InventoryReportDto.class);
+            assertEquals(i, row.getProductId());
+            assertEquals("Product " + i, row.getProductName());
+        }
+    }
+
+    @Test
+    @Tag("benchmark")
+    @DisplayName("Should keep heap flat while streaming a growing number of inventory rows")
+    void shouldStreamInventoryExportWithFlatHeap() throws Exception {
+        // Arrange: products are generated on access so only the report pipeline can retain memory
+        int rowCount = 500_000;
+        stubInventoryInputs(generatedProducts(rowCount));
+
+        // Sample the heap after 50k rows and again after all 500k rows have been written
+        long[] usedHeap = new long[2];
+        OutputStream sampling = new OutputStream() {
+            private long lines;
+
+            @Override
+            public void write(int b) {
+                if (b == '\n' && (++lines == 50_000 || lines == rowCount)) {
+                    usedHeap[lines == rowCount ? 1 : 0] = usedHeapAfterGc();
+                }
+            }
+        };
+
+        // Act
+        long rows = exporter.export(inventoryReportRequest, ReportExporter.Format.NDJSON, sampling);
+
+        // Assert: 450k more rows must not be retained (a collected list would hold tens of MB)
+        assertEquals(rowCount, rows);
+        assertTrue(usedHeap[0] > 0 && usedHeap[1] > 0, "Heap was not sampled at both checkpoints");
+        long growth = usedHeap[1] - usedHeap[0];
+        assertTrue(growth < 16 * 1024 * 1024, "Heap grew by " + growth / 1024 + " KB while streaming");
+    }
+
+    private void stubInventoryInputs(List<ProductDto> products) {
+        when(productClient.getAllProducts()).thenReturn(products);
+        when(stockClient.getAllStocks()).thenReturn(Collections.emptyList());
+        when(stockClient.getMovementSummary(any(LocalDate.class), any(LocalDate.class))).thenReturn(Collections.emptyList());
+    }
+
+    private static List<ProductDto> generatedProducts(int count) {
+        return new AbstractList<>() {
+            @Override
+            public ProductDto get(int index) {
+                return new ProductDto((long) index, "Product " + index, "desc", 1.0, 10, "url", 1L);
+            }
+
+            @Override
+            public int size() {
+                return count;
+            }
+        };
+    }
+
+    private static long usedHeapAfterGc() {
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,208 @@
+package com.project.report_service.service;
+
+import com.project.report_service.dto.ReportJobStatusDto;
+import com.project.report_service.dto.ReportRequest;
+import com.project.report_service.exception.InvalidReportTypeException;
+import com.project.report_service.exception.ReportJobNotFoundException;
+import com.project.report_service.exception.ReportJobQueueFullException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ReportJobServiceTest {
+
+    @Mock
+    private ReportService reportService;
+
+    private final MutableClock clock = new MutableClock(Instant.parse("2024-01-15T10:00:00Z"));
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private ReportJobService reportJobService;
+
+    private ReportRequest inventoryRequest;
+    private ReportRequest supplierRequest;
+
+    @BeforeEach
+    void setUp() {
+        reportJobService = new ReportJobService(reportService, 1, 1, Duration.ofMinutes(30), clock);
+        inventoryRequest = new ReportRequest("inventory", LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 31), null);
+        supplierRequest = new ReportRequest("supplier", LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 31), null);
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        reportJobService.destroy();
+    }
+
+    @Test
+    @DisplayName("Should run a submitted job in the background and serve its result")
+    void shouldRunJobAndServeResult() throws Exception {
+        // Arrange
+        List<String> payload = List.of("row");
+        when(reportService.generateReport(eq(inventoryRequest), any())).thenReturn(payload);
+
+        // Act
+        ReportJobStatusDto submitted = reportJobService.submit(inventoryRequest);
+        ReportJobStatusDto finished = awaitFinished(submitted.getJobId());
+
+        // Assert
+        assertEquals("inventory", submitted.getReportType());
+        assertEquals("COMPLETED", finished.getStatus());
+        assertNotNull(finished.getCompletedAt());
+        assertSame(payload, reportJobService.getResult(submitted.getJobId()));
+    }
+
+    @Test
+    @DisplayName("Should merge identical requests into the in-flight job")
+    void shouldMergeIdenticalInFlightRequests() throws Exception {
+        // Arrange
+        when(reportService.generateReport(any(ReportRequest.class), any())).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return List.of();
+        });
+
+        // Act
+        ReportJobStatusDto first = reportJobService.submit(inventoryRequest);
+        ReportJobStatusDto second = reportJobService.submit(
+                new ReportRequest("Inventory", LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 31), null));
+        release.countDown();
+        awaitFinished(first.getJobId());
+
+        // Assert
+        assertEquals(first.getJobId(), second.getJobId());
+        verify(reportService, times(1)).generateReport(any(ReportRequest.class), any());
+    }
+
+    @Test
+    @DisplayName("Should report queue position and reject jobs beyond the queue capacity")
+    void shouldRejectJobsWhenQueueIsFull() throws Exception {
+        // Arrange: one worker busy, one queue slot
+        when(reportService.generateReport(any(ReportRequest.class), any())).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return List.of();
+        });
+        ReportJobStatusDto running = reportJobService.submit(inventoryRequest);
+        awaitStatus(running.getJobId(), "RUNNING");
+
+        // Act
+        ReportJobStatusDto queued = reportJobService.submit(supplierRequest);
+
+        // Assert
+        assertEquals("QUEUED", queued.getStatus());
+        assertEquals(0, queued.getQueuePosition());
+        assertThrows(ReportJobQueueFullException.class, () -> reportJobService.submit(
+                new ReportRequest("order", LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 31), null)));
+        assertThrows(IllegalStateException.class, () -> reportJobService.getResult(queued.getJobId()));
+    }
+
+    @Test
+    @DisplayName("Should report rows processed out of rows fetched while the job is running")
+    void shouldReportRowProgressWhileRunning() throws Exception {
+        // Arrange: the report has fetched 4 rows and processed 2 when it blocks
+        when(reportService.generateReport(eq(inventoryRequest), any())).thenAnswer(invocation -> {
+            ReportProgress progress = invocation.getArgument(1);
+            progress.rowsFetched(4);
+            progress.rowProcessed();
+            progress.rowProcessed();
+            release.await(5, TimeUnit.SECONDS);
+            progress.rowProcessed();
+            progress.rowProcessed();
+            return List.of();
+        });
+        ReportJobStatusDto submitted = reportJobService.submit(inventoryRequest);
+        awaitStatus(submitted.getJobId(), "RUNNING");
+
+        // Act
+        ReportJobStatusDto running = awaitRowsProcessed(submitted.getJobId(), 2);
+        release.countDown();
+        ReportJobStatusDto finished = awaitFinished(submitted.getJobId());
+
+        // Assert
+        assertEquals(4L, running.getRowsTotal());
+        assertEquals(50, running.getPercentComplete());
+        assertEquals("COMPLETED", finished.getStatus());
+        assertEquals(4L, finished.getRowsProcessed());
+        assertEquals(100, finished.getPercentComplete());
+    }
+
+    @Test
+    @DisplayName("Should record failures and forget finished jobs after the retention period")
+    void shouldRecordFailureAndExpireAfterRetention() throws Exception {
+        // Arrange
+        when(reportService.generateReport(eq(inventoryRequest), any())).thenThrow(new RuntimeException("order-service down"));
+
+        // Act
+        ReportJobStatusDto submitted = reportJobService.submit(inventoryRequest);
+        ReportJobStatusDto finished = awaitFinished(submitted.getJobId());
+
+        // Assert
+        assertEquals("FAILED", finished.getStatus());
+        assertEquals("order-service down", finished.getError());
+        IllegalStateException ex = assertThrows(IllegalStateException.class, () -> reportJobService.getResult(submitted.getJobId()));
+        assertTrue(ex.getMessage().contains("order-service down"));
+
+        clock.advance(Duration.ofMinutes(31));
+        assertThrows(ReportJobNotFoundException.class, () -> reportJobService.getJob(submitted.getJobId()));
+    }
+
+    @Test
+    @DisplayName("Should reject invalid requests before queueing a job")
+    void shouldRejectInvalidRequestsUpFront() {
+        // Arrange
+        ReportRequest invalid = new ReportRequest("sales", null, null, null);
+        doThrow(new InvalidReportTypeException("Invalid report type: sales")).when(reportService).validateRequest(invalid);
+
+        // Act & Assert
+        assertThrows(InvalidReportTypeException.class, () -> reportJobService.submit(invalid));
+        verify(reportService, never()).generateReport(any(ReportRequest.class), any());
+    }
+
+    private ReportJobStatusDto awaitFinished(String jobId) throws InterruptedException {
+        for (int i = 0; i < 500; i++) {
+            ReportJobStatusDto status = reportJobService.getJob(jobId);
+            if ("COMPLETED".equals(status.getStatus()) || "FAILED".equals(status.getStatus())) {
+                return status;
+            }
+            Thread.sleep(10);
+        }
+        return fail("Job " + jobId + " did not finish");
+    }
+
+    private ReportJobStatusDto awaitRowsProcessed(String jobId, long expected) throws InterruptedException {
+        for (int i = 0; i < 500; i++) {
+            ReportJobStatusDto status = reportJobService.getJob(jobId);
+            if (status.getRowsProcessed() == expected) {
+                return status;
+            }
+            Thread.sleep(10);
+        }
+        return fail("Job " + jobId + " never processed " + expected + " rows");
+    }
+
+    private void awaitStatus(String jobId, String expected) throws InterruptedException {
+        for (int i = 0; i < 500; i++) {
+            if (expected.equals(reportJobService.getJob(jobId).getStatus())) {
+                return;
+            }
+            Thread.sleep(10);
+        }
+        fail("Job " + jobId + " never reached " + expected);
+    }
+}
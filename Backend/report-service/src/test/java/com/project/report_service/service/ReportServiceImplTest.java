@@ -2,20 +2,28 @@ package com.project.report_service.service;
 
 import com.project.report_service.dto.*;
 import com.project.report_service.exception.InvalidDateRangeException;
+import com.project.report_service.exception.InvalidReportTypeException;
+import com.project.report_service.exception.UpstreamTimeoutException;
 import com.project.report_service.feignclient.OrderClient;
 import com.project.report_service.feignclient.ProductClient;
 import com.project.report_service.feignclient.StockClient;
 import com.project.report_service.feignclient.SupplierClient;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.time.Duration;
 import java.time.LocalDate;
+import java.time.ZoneOffset;
 import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -36,6 +44,17 @@ public class ReportServiceImplTest {
     @Mock
     private SupplierClient supplierClient;
 
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Spy
+    private UpstreamCallExecutor upstreamCallExecutor = new UpstreamCallExecutor(meterRegistry, 1000);
+
+    // "Today" for the cache is inside the January 2024 range used by most requests below
+    private final MutableClock clock = new MutableClock(LocalDate.of(2024, 1, 15).atStartOfDay(ZoneOffset.UTC).toInstant());
+
+    @Spy
+    private ReportCache reportCache = new ReportCache(meterRegistry, Duration.ofSeconds(60), Duration.ofHours(1), 3, clock);
+
     @InjectMocks
     private ReportServiceImpl reportService;
 
@@ -78,8 +97,9 @@ public class ReportServiceImplTest {
 
         when(productClient.getAllProducts()).thenReturn(products);
         when(stockClient.getAllStocks()).thenReturn(stocks);
-        when(orderClient.sumQuantityByProductIdAndDateRange(eq(1L), any(LocalDate.class), any(LocalDate.class))).thenReturn(5L); // 5 Laptops sold
-        when(orderClient.sumQuantityByProductIdAndDateRange(eq(2L), any(LocalDate.class), any(LocalDate.class))).thenReturn(10L); // 10 Mice sold
+        when(stockClient.getMovementSummary(any(LocalDate.class), any(LocalDate.class))).thenReturn(List.of(
+                new StockMovementSummaryDto(1L, 45, 0, 5, 40), // 5 Laptops sold
+                new StockMovementSummaryDto(2L, 60, 40, 10, 90))); // 40 Mice restocked, 10 sold
 
         // Act
         List<InventoryReportDto> result = reportService.generateInventoryReport(inventoryReportRequest);
@@ -91,9 +111,9 @@ public class ReportServiceImplTest {
         InventoryReportDto dto1 = result.get(0);
         assertEquals(1L, dto1.getProductId());
         assertEquals("Laptop", dto1.getProductName());
-        assertEquals(40, dto1.getInitialStock());
+        assertEquals(45, dto1.getInitialStock());
         assertEquals(5, dto1.getStockRemoved());
-        assertEquals(35, dto1.getFinalStock()); // 40 - 5
+        assertEquals(40, dto1.getFinalStock()); // 45 - 5
         assertEquals(0, dto1.getStockAdded());
         assertEquals(10, dto1.getReorderLevel());
         assertFalse(dto1.getIsLowStock());
@@ -101,16 +121,73 @@ public class ReportServiceImplTest {
         InventoryReportDto dto2 = result.get(1);
         assertEquals(2L, dto2.getProductId());
         assertEquals("Mouse", dto2.getProductName());
-        assertEquals(90, dto2.getInitialStock());
+        assertEquals(60, dto2.getInitialStock());
         assertEquals(10, dto2.getStockRemoved());
-        assertEquals(80, dto2.getFinalStock()); // 90 - 10
-        assertEquals(0, dto2.getStockAdded());
+        assertEquals(90, dto2.getFinalStock()); // 60 + 40 - 10
+        assertEquals(40, dto2.getStockAdded());
         assertEquals(20, dto2.getReorderLevel());
         assertFalse(dto2.getIsLowStock());
 
         verify(productClient, times(1)).getAllProducts();
         verify(stockClient, times(1)).getAllStocks();
-        verify(orderClient, times(2)).sumQuantityByProductIdAndDateRange(anyLong(), any(LocalDate.class), any(LocalDate.class));
+        verify(stockClient, times(1)).getMovementSummary(any(LocalDate.class), any(LocalDate.class)); // One grouped call for all products
+        verifyNoInteractions(orderClient);
+    }
+
+    @Test
+    @DisplayName("Should report zero balances and movements for products absent from the movement summary")
+    void shouldReportZeroStockForProductsWithoutMovements() {
+        // Arrange
+        ProductDto product1 = new ProductDto(1L, "Laptop", "Description", 1200.0, 50, "url1", 1L);
+        when(productClient.getAllProducts()).thenReturn(List.of(product1));
+        when(stockClient.getAllStocks()).thenReturn(List.of(new StockDto(1L, 40, 10, false)));
+        when(stockClient.getMovementSummary(any(LocalDate.class), any(LocalDate.class))).thenReturn(Collections.emptyList());
+
+        // Act
+        List<InventoryReportDto> result = reportService.generateInventoryReport(inventoryReportRequest);
+
+        // Assert
+        assertEquals(1, result.size());
+        assertEquals(0, result.get(0).getInitialStock());
+        assertEquals(0, result.get(0).getStockAdded());
+        assertEquals(0, result.get(0).getStockRemoved());
+        assertEquals(0, result.get(0).getFinalStock());
+        assertEquals(10, result.get(0).getReorderLevel()); // Reorder level still comes from the current stock row
+        assertTrue(result.get(0).getIsLowStock());
+    }
+
+    @Test
+    @DisplayName("Should report progress over every fetched product, including rows the filter drops")
+    void shouldReportInventoryProgressPerProduct() {
+        // Arrange
+        when(productClient.getAllProducts()).thenReturn(List.of(
+                new ProductDto(1L, "Laptop", "Description", 1200.0, 50, "url1", 1L),
+                new ProductDto(2L, "Mouse", "Description", 25.0, 100, "url2", 2L)));
+        when(stockClient.getAllStocks()).thenReturn(List.of(new StockDto(1L, 40, 10, false), new StockDto(2L, 90, 20, false)));
+        when(stockClient.getMovementSummary(any(LocalDate.class), any(LocalDate.class))).thenReturn(List.of(
+                new StockMovementSummaryDto(1L, 45, 0, 5, 40),
+                new StockMovementSummaryDto(2L, 60, 40, 10, 90)));
+        ReportRequest request = new ReportRequest("inventory", LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 31),
+                Map.of("minStock", 50)); // Keeps only the Mouse
+        List<String> events = new ArrayList<>();
+        ReportProgress progress = new ReportProgress() {
+            @Override
+            public void rowsFetched(long total) {
+                events.add("fetched " + total);
+            }
+
+            @Override
+            public void rowProcessed() {
+                events.add("row");
+            }
+        };
+
+        // Act
+        List<?> result = (List<?>) reportService.generateReport(request, progress);
+
+        // Assert
+        assertEquals(1, result.size());
+        assertEquals(List.of("fetched 2", "row", "row"), events);
     }
 
     @Test
@@ -119,6 +196,7 @@ public class ReportServiceImplTest {
         // Arrange
         when(productClient.getAllProducts()).thenReturn(Collections.emptyList());
         when(stockClient.getAllStocks()).thenReturn(Collections.emptyList());
+        when(stockClient.getMovementSummary(any(LocalDate.class), any(LocalDate.class))).thenReturn(Collections.emptyList());
 
         // Act
         List<InventoryReportDto> result = reportService.generateInventoryReport(inventoryReportRequest);
@@ -129,7 +207,7 @@ public class ReportServiceImplTest {
 
         verify(productClient, times(1)).getAllProducts();
         verify(stockClient, times(1)).getAllStocks();
-        verify(orderClient, never()).sumQuantityByProductIdAndDateRange(anyLong(), any(LocalDate.class), any(LocalDate.class));
+        verify(stockClient, times(1)).getMovementSummary(any(LocalDate.class), any(LocalDate.class));
     }
 
     @Test
@@ -140,29 +218,25 @@ public class ReportServiceImplTest {
 
         verify(productClient, never()).getAllProducts();
         verify(stockClient, never()).getAllStocks();
-        verify(orderClient, never()).sumQuantityByProductIdAndDateRange(anyLong(), any(LocalDate.class), any(LocalDate.class));
+        verify(stockClient, never()).getMovementSummary(any(), any());
     }
 
     @Test
     @DisplayName("Should generate order report successfully with filters")
     void shouldGenerateOrderReportSuccessfullyWithFilters() {
-        // Arrange
+        // Arrange: order-service applies the filters; orders 1 and 3 (customer 101, Delivered) match
         LocalDate startDate = LocalDate.of(2024, 1, 1);
         LocalDate endDate = LocalDate.of(2024, 1, 31);
 
-        OrderDto order1 = new OrderDto(1L, 101L, 10L, 2, LocalDate.of(2024, 1, 10), "Delivered");
-        OrderDto order2 = new OrderDto(2L, 102L, 11L, 1, LocalDate.of(2024, 1, 15), "Pending");
-        OrderDto order3 = new OrderDto(3L, 101L, 10L, 3, LocalDate.of(2024, 1, 20), "Delivered");
-        OrderDto order4 = new OrderDto(4L, 101L, 12L, 1, LocalDate.of(2024, 1, 25), "Shipped"); // Should be filtered out by status
-
-        List<OrderDto> allOrders = Arrays.asList(order1, order2, order3, order4);
+        OrderSummaryDto summary = summary(
+                List.of(new OrderSummaryDto.StatusTotals("Delivered", 2L, 5L, 0.0)),
+                List.of(new OrderSummaryDto.ProductTotals(10L, 2L, 5L, 0.0, 5L)));
 
         ProductDto product10 = new ProductDto(10L, "Tablet", "Description", 300.0, 20, "url", 1L);
         ProductDto product11 = new ProductDto(11L, "Keyboard", "Description", 75.0, 30, "url", 2L);
-        ProductDto product12 = new ProductDto(12L, "Monitor", "Description", 200.0, 15, "url", 1L);
-        List<ProductDto> allProducts = Arrays.asList(product10, product11, product12);
+        List<ProductDto> allProducts = Arrays.asList(product10, product11);
 
-        when(orderClient.getOrdersByDateRange(startDate, endDate)).thenReturn(allOrders);
+        when(orderClient.getOrderSummary(startDate, endDate, 101L, "Delivered", true)).thenReturn(summary);
         when(productClient.getAllProducts()).thenReturn(allProducts);
 
         // Act
@@ -170,22 +244,23 @@ public class ReportServiceImplTest {
 
         // Assert
         assertNotNull(result);
-        assertEquals(2L, result.getTotalOrders()); // Only order1 and order3 match customerId 101 AND status "Delivered"
+        assertEquals(2L, result.getTotalOrders());
         assertEquals(0L, result.getPendingOrders());
         assertEquals(0L, result.getShippedOrders());
         assertEquals(2L, result.getDeliveredOrders());
-        assertEquals(1500.0, result.getTotalRevenue()); // (2 * 300) + (3 * 300) = 600 + 900 = 1500
+        assertEquals(1500.0, result.getTotalRevenue()); // 5 unpriced units * 300 catalog price
 
         List<OrderReportDto.TopSellingProductDto> topSellingProducts = result.getTopSellingProducts();
         assertNotNull(topSellingProducts);
-        assertEquals(1, topSellingProducts.size()); // Only product 10 was sold by customer 101 with status delivered
+        assertEquals(1, topSellingProducts.size());
 
         OrderReportDto.TopSellingProductDto topProduct = topSellingProducts.get(0);
         assertEquals("Tablet", topProduct.getProductName());
         assertEquals(5L, topProduct.getUnitsSold());
         assertEquals(1500.0, topProduct.getTotalRevenue());
 
-        verify(orderClient, times(1)).getOrdersByDateRange(startDate, endDate);
+        verify(orderClient, times(1)).getOrderSummary(startDate, endDate, 101L, "Delivered", true);
+        verify(orderClient, never()).getOrdersByDateRange(any(LocalDate.class), any(LocalDate.class));
         verify(productClient, times(1)).getAllProducts();
     }
 
@@ -197,19 +272,20 @@ public class ReportServiceImplTest {
         LocalDate endDate = LocalDate.of(2024, 1, 31);
         ReportRequest noFilterOrderRequest = new ReportRequest("order", startDate, endDate, null);
 
-        OrderDto order1 = new OrderDto(1L, 101L, 10L, 2, LocalDate.of(2024, 1, 10), "Delivered");
-        OrderDto order2 = new OrderDto(2L, 102L, 11L, 1, LocalDate.of(2024, 1, 15), "Pending");
-        OrderDto order3 = new OrderDto(3L, 101L, 10L, 3, LocalDate.of(2024, 1, 20), "Delivered");
-        OrderDto order4 = new OrderDto(4L, 103L, 12L, 1, LocalDate.of(2024, 1, 25), "Shipped");
-
-        List<OrderDto> allOrders = Arrays.asList(order1, order2, order3, order4);
+        OrderSummaryDto summary = summary(
+                List.of(new OrderSummaryDto.StatusTotals("Delivered", 2L, 5L, 1500.0),
+                        new OrderSummaryDto.StatusTotals("Pending", 1L, 1L, 75.0),
+                        new OrderSummaryDto.StatusTotals("Shipped", 1L, 1L, 200.0)),
+                List.of(new OrderSummaryDto.ProductTotals(10L, 2L, 5L, 1500.0, 0L),
+                        new OrderSummaryDto.ProductTotals(11L, 1L, 1L, 75.0, 0L),
+                        new OrderSummaryDto.ProductTotals(12L, 1L, 1L, 200.0, 0L)));
 
         ProductDto product10 = new ProductDto(10L, "Tablet", "Description", 300.0, 20, "url", 1L);
         ProductDto product11 = new ProductDto(11L, "Keyboard", "Description", 75.0, 30, "url", 2L);
         ProductDto product12 = new ProductDto(12L, "Monitor", "Description", 200.0, 15, "url", 1L);
         List<ProductDto> allProducts = Arrays.asList(product10, product11, product12);
 
-        when(orderClient.getOrdersByDateRange(startDate, endDate)).thenReturn(allOrders);
+        when(orderClient.getOrderSummary(startDate, endDate, null, null, true)).thenReturn(summary);
         when(productClient.getAllProducts()).thenReturn(allProducts);
 
         // Act
@@ -221,7 +297,7 @@ public class ReportServiceImplTest {
         assertEquals(1L, result.getPendingOrders());
         assertEquals(1L, result.getShippedOrders());
         assertEquals(2L, result.getDeliveredOrders());
-        assertEquals(1775.0, result.getTotalRevenue()); // Corrected expected value
+        assertEquals(1775.0, result.getTotalRevenue());
 
         List<OrderReportDto.TopSellingProductDto> topSellingProducts = result.getTopSellingProducts();
         assertNotNull(topSellingProducts);
@@ -239,18 +315,42 @@ public class ReportServiceImplTest {
         assertTrue(topSellingProducts.stream()
                 .anyMatch(p -> "Keyboard".equals(p.getProductName()) && p.getUnitsSold() == 1L && p.getTotalRevenue() == 75.0));
 
-        verify(orderClient, times(1)).getOrdersByDateRange(startDate, endDate);
+        verify(orderClient, times(1)).getOrderSummary(startDate, endDate, null, null, true);
         verify(productClient, times(1)).getAllProducts();
     }
 
 
+    @Test
+    @DisplayName("Should use the order price snapshot for revenue and fall back to catalog price for legacy orders")
+    void shouldUseOrderPriceSnapshotForRevenue() {
+        // Arrange: Tablet was sold at 250.0 (2 units) and has since been repriced to 300.0; 1 legacy unit has no snapshot
+        LocalDate startDate = LocalDate.of(2024, 1, 1);
+        LocalDate endDate = LocalDate.of(2024, 1, 31);
+        ReportRequest noFilterOrderRequest = new ReportRequest("order", startDate, endDate, null);
+
+        OrderSummaryDto summary = summary(
+                List.of(new OrderSummaryDto.StatusTotals("Delivered", 1L, 2L, 500.0),
+                        new OrderSummaryDto.StatusTotals("Pending", 1L, 1L, 0.0)),
+                List.of(new OrderSummaryDto.ProductTotals(10L, 2L, 3L, 500.0, 1L)));
+
+        when(orderClient.getOrderSummary(startDate, endDate, null, null, true)).thenReturn(summary);
+        when(productClient.getAllProducts()).thenReturn(List.of(new ProductDto(10L, "Tablet", "Description", 300.0, 20, "url", 1L)));
+
+        // Act
+        OrderReportDto result = reportService.generateOrderReport(noFilterOrderRequest);
+
+        // Assert
+        assertEquals(800.0, result.getTotalRevenue()); // 500 (snapshot) + 1 * 300 (catalog)
+        assertEquals(800.0, result.getTopSellingProducts().get(0).getTotalRevenue());
+    }
+
     @Test
     @DisplayName("Should throw InvalidDateRangeException for order report with invalid date range")
     void shouldThrowInvalidDateRangeExceptionForOrderReport() {
         // Act & Assert
         assertThrows(InvalidDateRangeException.class, () -> reportService.generateOrderReport(invalidDateRangeRequest));
 
-        verify(orderClient, never()).getOrdersByDateRange(any(LocalDate.class), any(LocalDate.class));
+        verify(orderClient, never()).getOrderSummary(any(LocalDate.class), any(LocalDate.class), any(), any(), anyBoolean());
         verify(productClient, never()).getAllProducts();
     }
 
@@ -277,10 +377,9 @@ public class ReportServiceImplTest {
 
 
         when(supplierClient.getAllSuppliers()).thenReturn(suppliers);
-        when(supplierClient.getProductsSuppliedCountBySupplier(1L)).thenReturn(2L); // For Supplier A
-        when(supplierClient.getProductsSuppliedCountBySupplier(2L)).thenReturn(1L); // For Supplier B
+        when(supplierClient.getProductsSuppliedCounts()).thenReturn(Map.of(1L, 2L, 2L, 1L));
 
-        // Mock the internal calls within getTotalQuantitySupplied
+        // Orders and products are fetched once for the whole report
         when(orderClient.getOrdersByDateRange(startDate, endDate)).thenReturn(orders);
         when(productClient.getAllProducts()).thenReturn(products);
 
@@ -305,9 +404,10 @@ public class ReportServiceImplTest {
         assertEquals(8L, dto2.getTotalQuantitySupplied()); // 8 (product 12)
 
         verify(supplierClient, times(1)).getAllSuppliers();
-        verify(supplierClient, times(2)).getProductsSuppliedCountBySupplier(anyLong());
-        verify(orderClient, times(2)).getOrdersByDateRange(startDate, endDate); // Called once per supplier inside the loop
-        verify(productClient, times(2)).getAllProducts(); // Called once per supplier inside the loop
+        verify(supplierClient, times(1)).getProductsSuppliedCounts();
+        verify(supplierClient, never()).getProductsSuppliedCountBySupplier(anyLong());
+        verify(orderClient, times(1)).getOrdersByDateRange(startDate, endDate); // Single snapshot, not once per supplier
+        verify(productClient, times(1)).getAllProducts(); // Single snapshot, not once per supplier
     }
 
     @Test
@@ -315,6 +415,10 @@ public class ReportServiceImplTest {
     void shouldHandleEmptySupplierDataForSupplierReport() {
         // Arrange
         when(supplierClient.getAllSuppliers()).thenReturn(Collections.emptyList());
+        // Inputs are fetched concurrently with the supplier list, so they are requested even when it is empty
+        when(supplierClient.getProductsSuppliedCounts()).thenReturn(Collections.emptyMap());
+        when(orderClient.getOrdersByDateRange(any(LocalDate.class), any(LocalDate.class))).thenReturn(Collections.emptyList());
+        when(productClient.getAllProducts()).thenReturn(Collections.emptyList());
 
         // Act
         List<SupplierReportDto> result = reportService.generateSupplierReport(supplierReportRequest);
@@ -325,8 +429,6 @@ public class ReportServiceImplTest {
 
         verify(supplierClient, times(1)).getAllSuppliers();
         verify(supplierClient, never()).getProductsSuppliedCountBySupplier(anyLong());
-        verify(orderClient, never()).getOrdersByDateRange(any(LocalDate.class), any(LocalDate.class));
-        verify(productClient, never()).getAllProducts();
     }
 
     @Test
@@ -339,4 +441,214 @@ public class ReportServiceImplTest {
         verify(orderClient, never()).getOrdersByDateRange(any(LocalDate.class), any(LocalDate.class));
         verify(productClient, never()).getAllProducts();
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Should fetch orders, products and counts once regardless of supplier count")
+    void shouldFetchSupplierReportInputsOnceForManySuppliers() {
+        // Arrange: 500 suppliers, each supplying one product with one order
+        List<SupplierDto> suppliers = new ArrayList<>();
+        List<ProductDto> products = new ArrayList<>();
+        List<OrderDto> orders = new ArrayList<>();
+        Map<Long, Long> counts = new HashMap<>();
+        for (long i = 1; i <= 500; i++) {
+            suppliers.add(new SupplierDto(i, "Supplier " + i, "contact", Collections.emptyList()));
+            products.add(new ProductDto(1000L + i, "Product " + i, "desc", 1.0, 10, "url", i));
+            orders.add(new OrderDto(i, 1L, 1000L + i, (int) i, LocalDate.of(2024, 1, 5), "Delivered"));
+            counts.put(i, 1L);
+        }
+        when(supplierClient.getAllSuppliers()).thenReturn(suppliers);
+        when(supplierClient.getProductsSuppliedCounts()).thenReturn(counts);
+        when(orderClient.getOrdersByDateRange(any(LocalDate.class), any(LocalDate.class))).thenReturn(orders);
+        when(productClient.getAllProducts()).thenReturn(products);
+
+        // Act
+        List<SupplierReportDto> result = reportService.generateSupplierReport(supplierReportRequest);
+
+        // Assert
+        assertEquals(500, result.size());
+        assertEquals(250L, result.get(249).getTotalQuantitySupplied());
+        assertEquals(1L, result.get(249).getProductsSupplied());
+        verify(orderClient, times(1)).getOrdersByDateRange(any(LocalDate.class), any(LocalDate.class));
+        verify(productClient, times(1)).getAllProducts();
+        verify(supplierClient, times(1)).getProductsSuppliedCounts();
+        verify(supplierClient, never()).getProductsSuppliedCountBySupplier(anyLong());
+    }
+
+    @Test
+    @DisplayName("Should fetch upstream data concurrently so latency tracks the slowest call")
+    void shouldFetchUpstreamDataConcurrently() {
+        // Arrange: each upstream call returns only once all three are running at the same time
+        CountDownLatch allRunning = new CountDownLatch(3);
+        when(productClient.getAllProducts()).thenAnswer(invocation -> awaitSiblings(allRunning));
+        when(stockClient.getAllStocks()).thenAnswer(invocation -> awaitSiblings(allRunning));
+        when(stockClient.getMovementSummary(any(LocalDate.class), any(LocalDate.class)))
+                .thenAnswer(invocation -> awaitSiblings(allRunning));
+
+        // Act
+        reportService.generateInventoryReport(inventoryReportRequest);
+
+        // Assert: sequential calls would never have seen all three running
+        assertEquals(0, allRunning.getCount());
+        assertEquals(1, meterRegistry.get("report.upstream.call").tag("upstream", "product-service.getAllProducts").timer().count());
+        assertEquals(1, meterRegistry.get("report.upstream.call").tag("upstream", "stock-service.getAllStocks").timer().count());
+        assertEquals(1, meterRegistry.get("report.upstream.call").tag("upstream", "stock-service.getMovementSummary").timer().count());
+    }
+
+    @Test
+    @DisplayName("Should fail with UpstreamTimeoutException when an upstream call exceeds its timeout")
+    void shouldThrowUpstreamTimeoutExceptionWhenUpstreamIsTooSlow() throws InterruptedException {
+        // Arrange: the stock call blocks until it is interrupted
+        CountDownLatch interrupted = new CountDownLatch(1);
+        when(productClient.getAllProducts()).thenReturn(Collections.emptyList());
+        when(stockClient.getAllStocks()).thenAnswer(invocation -> blockUntilInterrupted(interrupted));
+        when(stockClient.getMovementSummary(any(LocalDate.class), any(LocalDate.class))).thenReturn(Collections.emptyList());
+
+        // Act & Assert
+        assertThrows(UpstreamTimeoutException.class, () -> reportService.generateInventoryReport(inventoryReportRequest));
+        assertTrue(await(interrupted), "Timed-out call was not cancelled");
+    }
+
+    @Test
+    @DisplayName("Should cancel the remaining upstream calls when one of them fails")
+    void shouldCancelSiblingCallsWhenOneFails() throws InterruptedException {
+        // Arrange: the product call fails once the stock call is running; the stock call blocks until interrupted
+        CountDownLatch stocksRunning = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        when(productClient.getAllProducts()).thenAnswer(invocation -> {
+            await(stocksRunning);
+            throw new RuntimeException("product-service down");
+        });
+        when(stockClient.getAllStocks()).thenAnswer(invocation -> {
+            stocksRunning.countDown();
+            return blockUntilInterrupted(interrupted);
+        });
+        lenient().when(stockClient.getMovementSummary(any(LocalDate.class), any(LocalDate.class))).thenReturn(Collections.emptyList());
+
+        // Act & Assert
+        assertThrows(RuntimeException.class, () -> reportService.generateInventoryReport(inventoryReportRequest));
+        assertTrue(await(interrupted), "Sibling call was not cancelled");
+    }
+
+    @Test
+    @DisplayName("Should propagate upstream failures and record them in the call metrics")
+    void shouldRecordFailedUpstreamCallInMetrics() {
+        // Arrange
+        when(orderClient.getOrderSummary(any(LocalDate.class), any(LocalDate.class), any(), any(), anyBoolean()))
+                .thenThrow(new RuntimeException("order-service down"));
+        // The concurrent product fetch may or may not have run by the time the order call fails
+        lenient().when(productClient.getAllProducts()).thenReturn(Collections.emptyList());
+
+        // Act & Assert
+        RuntimeException ex = assertThrows(RuntimeException.class, () -> reportService.generateOrderReport(orderReportRequest));
+        assertEquals("order-service down", ex.getCause().getMessage());
+        assertEquals(1, meterRegistry.get("report.upstream.call")
+                .tags("upstream", "order-service.getOrderSummary", "outcome", "error").timer().count());
+    }
+
+    @Test
+    @DisplayName("Should serve equivalent report requests from the cache")
+    void shouldServeEquivalentRequestsFromCache() {
+        // Arrange
+        stubEmptyInventoryInputs();
+        ReportRequest numeric = new ReportRequest("inventory", LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 31), Map.of("minStock", 5));
+        ReportRequest text = new ReportRequest(" Inventory", LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 31), Map.of("minStock", "5"));
+
+        // Act
+        Object first = reportService.generateReport(numeric);
+        Object second = reportService.generateReport(text);
+
+        // Assert
+        assertSame(first, second);
+        verify(productClient, times(1)).getAllProducts();
+        assertEquals(1, meterRegistry.get("report.cache.requests").tags("reportType", "inventory", "result", "miss").counter().count());
+        assertEquals(1, meterRegistry.get("report.cache.requests").tags("reportType", "inventory", "result", "hit").counter().count());
+    }
+
+    @Test
+    @DisplayName("Should keep reports for past date ranges longer than ranges that include today")
+    void shouldCacheHistoricalRangesLongerThanLiveRanges() {
+        // Arrange
+        stubEmptyInventoryInputs();
+        ReportRequest live = new ReportRequest("inventory", LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 31), null);
+        ReportRequest historical = new ReportRequest("inventory", LocalDate.of(2023, 1, 1), LocalDate.of(2023, 12, 31), null);
+        reportService.generateReport(live);
+        reportService.generateReport(historical);
+
+        // Act: past the live TTL but within the historical one
+        clock.advance(Duration.ofSeconds(61));
+        reportService.generateReport(live);
+        reportService.generateReport(historical);
+
+        // Assert: only the live report was recomputed
+        verify(productClient, times(3)).getAllProducts();
+
+        // Act: past the historical TTL too
+        clock.advance(Duration.ofHours(1));
+        reportService.generateReport(historical);
+        verify(productClient, times(4)).getAllProducts();
+    }
+
+    @Test
+    @DisplayName("Should recompute a report after its type is invalidated and bound the cache size")
+    void shouldInvalidateByTypeAndEvictBeyondMaxEntries() {
+        // Arrange
+        stubEmptyInventoryInputs();
+        for (int day = 1; day <= 4; day++) {
+            reportService.generateReport(new ReportRequest("inventory", LocalDate.of(2024, 1, day), LocalDate.of(2024, 1, 31), null));
+        }
+        assertEquals(3, reportCache.size());
+
+        // Act
+        int invalidated = reportService.invalidateCachedReports("INVENTORY");
+        reportService.generateReport(new ReportRequest("inventory", LocalDate.of(2024, 1, 4), LocalDate.of(2024, 1, 31), null));
+
+        // Assert
+        assertEquals(3, invalidated);
+        verify(productClient, times(5)).getAllProducts();
+    }
+
+    @Test
+    @DisplayName("Should reject unknown report types without touching the cache")
+    void shouldRejectUnknownReportType() {
+        assertThrows(InvalidReportTypeException.class,
+                () -> reportService.generateReport(new ReportRequest("sales", null, null, null)));
+        assertEquals(0, reportCache.size());
+    }
+
+    private static OrderSummaryDto summary(List<OrderSummaryDto.StatusTotals> byStatus, List<OrderSummaryDto.ProductTotals> byProduct) {
+        OrderSummaryDto summary = new OrderSummaryDto();
+        byStatus.forEach(totals -> {
+            summary.setTotalOrders(summary.getTotalOrders() + totals.getOrders());
+            summary.setTotalQuantity(summary.getTotalQuantity() + totals.getQuantity());
+            summary.setRevenue(summary.getRevenue() + totals.getRevenue());
+        });
+        summary.setByStatus(byStatus);
+        summary.setByProduct(byProduct);
+        return summary;
+    }
+
+    private static <T> List<T> awaitSiblings(CountDownLatch allRunning) throws InterruptedException {
+        allRunning.countDown();
+        allRunning.await(5, TimeUnit.SECONDS);
+        return Collections.emptyList();
+    }
+
+    private static <T> List<T> blockUntilInterrupted(CountDownLatch interrupted) {
+        try {
+            new CountDownLatch(1).await();
+        } catch (InterruptedException e) {
+            interrupted.countDown();
+        }
+        return Collections.emptyList();
+    }
+
+    private static boolean await(CountDownLatch latch) throws InterruptedException {
+        return latch.await(5, TimeUnit.SECONDS);
+    }
+
+    private void stubEmptyInventoryInputs() {
+        when(productClient.getAllProducts()).thenReturn(Collections.emptyList());
+        when(stockClient.getAllStocks()).thenReturn(Collections.emptyList());
+        when(stockClient.getMovementSummary(any(LocalDate.class), any(LocalDate.class))).thenReturn(Collections.emptyList());
+    }
+}
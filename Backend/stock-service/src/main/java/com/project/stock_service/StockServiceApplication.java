@@ -4,10 +4,12 @@ import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
 import org.springframework.cloud.openfeign.EnableFeignClients; // Enable Feign Clients for this service
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @EnableDiscoveryClient // Enables service registration with Eureka
 @EnableFeignClients // Enables scanning for Feign clients within this service (even if not consuming)
+@EnableScheduling // Daily stock snapshots (StockLedger)
 public class StockServiceApplication {
     public static void main(String[] args) {
         SpringApplication.run(StockServiceApplication.class, args);
@@ -1,15 +1,27 @@
 package com.project.stock_service.controller;
 
+import com.project.stock_service.dto.StockAdjustmentDto;
+import com.project.stock_service.dto.StockBalanceDto;
+import com.project.stock_service.dto.StockChangeDto;
+import com.project.stock_service.dto.StockMovementSummaryDto;
+import com.project.stock_service.dto.StockReservationDto;
+import com.project.stock_service.dto.StockReservationResultDto;
 import com.project.stock_service.model.Stock;
+import com.project.stock_service.service.HotStockEngine;
+import com.project.stock_service.service.StockLedger;
 import com.project.stock_service.service.StockService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus; 
 import org.springframework.http.ResponseEntity; 
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/stocks")
@@ -21,6 +33,12 @@ public class StockController {
     @Autowired
     private StockService stockService;
 
+    @Autowired
+    private StockLedger stockLedger;
+
+    @Autowired
+    private HotStockEngine hotStockEngine;
+
     // http://localhost:8080/api/stocks
     // {
     //     "productId": 2,
@@ -41,7 +59,8 @@ public class StockController {
     // {
     //     "productId": 2,      // Must match the path variable {productId}
     //     "quantity": 60,      // New quantity
-    //     "location": "Warehouse B" // New location
+    //     "reorderLevel": 10,  // New reorder level
+    //     "version": 4         // Version from the last read; 409 with currentVersion if the row changed since
     // }
     @PutMapping("/{productId}")
     public Stock updateStock(@PathVariable Long productId, @RequestBody Stock stock){
@@ -51,6 +70,56 @@ public class StockController {
         return updatedStock;
     }
 
+    // Atomically removes units, e.g. when an order is placed. Responds 409 if stock is insufficient.
+    // With a referenceId, a repeat is not applied again while that reference still holds the units.
+    @PostMapping("/{productId}/decrement")
+    public Stock decrementStock(@PathVariable Long productId, @RequestBody StockAdjustmentDto adjustment){
+        logger.info("Received request to decrement stock for productId: {} by {}", productId, adjustment.getQuantity());
+        Stock updatedStock = stockService.decrementStock(productId, adjustment.getQuantity(), adjustment.getReason(), adjustment.getReferenceId());
+        logger.info("Stock decremented successfully for productId: {}: {}", productId, updatedStock);
+        return updatedStock;
+    }
+
+    // Atomically adds units, e.g. restocking or releasing a reservation.
+    @PostMapping("/{productId}/increment")
+    public Stock incrementStock(@PathVariable Long productId, @RequestBody StockAdjustmentDto adjustment){
+        logger.info("Received request to increment stock for productId: {} by {}", productId, adjustment.getQuantity());
+        Stock updatedStock = stockService.incrementStock(productId, adjustment.getQuantity(), adjustment.getReason(), adjustment.getReferenceId());
+        logger.info("Stock incremented successfully for productId: {}: {}", productId, updatedStock);
+        return updatedStock;
+    }
+
+    // Gives back the units a referenceId reserved, e.g. when an order is rejected. Only applied while that reference
+    // still holds units, so it is safe to repeat, or to send when the reservation may never have happened.
+    // {"quantity": 3, "reason": "ORDER_RELEASE", "referenceId": "42"}
+    @PostMapping("/{productId}/release")
+    public Stock releaseReservation(@PathVariable Long productId, @RequestBody StockAdjustmentDto adjustment){
+        logger.info("Received request to release reservation {} of productId: {}", adjustment.getReferenceId(), productId);
+        Stock updatedStock = stockService.releaseReservation(productId, adjustment.getQuantity(), adjustment.getReason(), adjustment.getReferenceId());
+        logger.info("Reservation released for productId: {}: {}", productId, updatedStock);
+        return updatedStock;
+    }
+
+    // Signed quantity change and/or new reorder level, retried server-side on concurrent writes.
+    // Responds 409 if stock would go negative, or if the row kept changing (the body then carries currentVersion).
+    // {"quantityDelta": -3, "reorderLevel": 10}
+    @PostMapping("/{productId}/adjust")
+    public Stock adjustStock(@PathVariable Long productId, @RequestBody StockChangeDto change){
+        logger.info("Received request to adjust stock for productId: {} by {} (reorder level {})", productId, change.getQuantityDelta(), change.getReorderLevel());
+        Stock updatedStock = stockService.adjustStock(productId, change.getQuantityDelta(), change.getReorderLevel(),
+                change.getReason(), change.getReferenceId());
+        logger.info("Stock adjusted successfully for productId: {}: {}", productId, updatedStock);
+        return updatedStock;
+    }
+
+    // Reserves stock for many order lines in one call; each line is reserved or rejected independently.
+    // [{"productId": 2, "quantity": 3}, {"productId": 5, "quantity": 1}]
+    @PostMapping("/decrement-batch")
+    public List<StockReservationResultDto> decrementStockBatch(@RequestBody List<StockReservationDto> reservations){
+        logger.info("Received request to reserve stock for {} lines", reservations.size());
+        return stockService.decrementStockBatch(reservations);
+    }
+
     @DeleteMapping("/{productId}")
     public ResponseEntity<Void> deleteStock(@PathVariable Long productId){ // Return ResponseEntity for more control
         logger.info("Received request to delete stock for productId: {}", productId);
@@ -59,14 +128,75 @@ public class StockController {
         return ResponseEntity.noContent().build(); // Standard practice for successful DELETE
     }
 
+    // All stock rows, or only those for the given products: /api/stocks?productIds=1,2,3
+    // Products without a stock row are left out of the response rather than failing the request.
     @GetMapping
-    public List<Stock> getAllStock(){
+    public List<Stock> getAllStock(@RequestParam(required = false) List<Long> productIds){
+        if (productIds != null) {
+            logger.info("Received request to get stocks for {} productIds", productIds.size());
+            List<Stock> stocks = stockService.getStocksByProductIds(productIds);
+            logger.info("Retrieved {} of {} requested stocks", stocks.size(), productIds.size());
+            return stocks;
+        }
         logger.info("Received request to get all stocks");
         List<Stock> stocks = stockService.getAllStock();
         logger.info("Retrieved {} stocks", stocks.size());
         return stocks;
     }
 
+    // Opening balance, units added, units removed and closing balance per product, from the movement journal.
+    // /api/stocks/movements/summary?startDate=2024-05-01&endDate=2024-05-31 (both optional, inclusive)
+    @GetMapping("/movements/summary")
+    public List<StockMovementSummaryDto> getMovementSummary(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate){
+        logger.info("Received request to summarize stock movements between {} and {}", startDate, endDate);
+        List<StockMovementSummaryDto> summary = stockLedger.summarize(startDate, endDate);
+        logger.info("Summarized stock movements for {} products", summary.size());
+        return summary;
+    }
+
+    // Quantity of one product as of a point in time: /api/stocks/2/balance?at=2024-05-01T00:00:00 (default now)
+    @GetMapping("/{productId}/balance")
+    public StockBalanceDto getBalance(@PathVariable Long productId,
+                                      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime at){
+        LocalDateTime asOf = at != null ? at : LocalDateTime.now();
+        logger.info("Received request to get stock balance for productId: {} at {}", productId, asOf);
+        return new StockBalanceDto(productId, asOf, stockLedger.balanceAt(productId, asOf));
+    }
+
+    // Takes the balance snapshot at the given time (default: start of today), e.g. to catch up after downtime.
+    // A daily snapshot is also taken on schedule (stock.snapshot.cron).
+    @PostMapping("/snapshots")
+    public ResponseEntity<Map<String, Object>> takeSnapshot(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime at){
+        LocalDateTime snapshotAt = at != null ? at : LocalDate.now().atStartOfDay();
+        logger.info("Received request to take stock snapshot at {}", snapshotAt);
+        int products = stockLedger.takeSnapshot(snapshotAt);
+        return ResponseEntity.ok(Map.of("snapshotAt", snapshotAt.toString(), "products", products));
+    }
+
+    // Hot-SKU mode (stock.hot.enabled): the product's quantity moves to an in-memory counter, and its changes are
+    // journaled locally and written to the stock row in batches. Enable it before the traffic arrives.
+    @PostMapping("/{productId}/hot")
+    public Stock enableHotMode(@PathVariable Long productId){
+        logger.info("Received request to put productId {} into hot-SKU mode", productId);
+        return hotStockEngine.enable(productId);
+    }
+
+    // Flushes the product's pending changes and hands it back to the database paths.
+    @DeleteMapping("/{productId}/hot")
+    public Stock disableHotMode(@PathVariable Long productId){
+        logger.info("Received request to take productId {} out of hot-SKU mode", productId);
+        return hotStockEngine.disable(productId);
+    }
+
+    @GetMapping("/hot")
+    public List<Stock> getHotStocks(){
+        logger.info("Received request to get stocks in hot-SKU mode");
+        return hotStockEngine.getHotStocks();
+    }
+
     @GetMapping("/{productId}")
     public Stock getStockByProductId(@PathVariable Long productId){
         logger.info("Received request to get stock by productId: {}", productId);
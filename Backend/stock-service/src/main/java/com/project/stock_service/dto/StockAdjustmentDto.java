@@ -0,0 +1,18 @@
+package com.project.stock_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockAdjustmentDto {
+    private int quantity; // Units to add or remove; must be positive
+    private String reason; // Journal reason, e.g. ORDER or RESTOCK; defaults to INCREMENT/DECREMENT
+    private String referenceId; // Optional ID of what caused the change, e.g. an order ID
+
+    public StockAdjustmentDto(int quantity) {
+        this(quantity, null, null);
+    }
+}
@@ -0,0 +1,17 @@
+package com.project.stock_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Quantity of one product as of a point in time, reconstructed from the movement journal.
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockBalanceDto {
+    private Long productId;
+    private LocalDateTime at;
+    private long quantity;
+}
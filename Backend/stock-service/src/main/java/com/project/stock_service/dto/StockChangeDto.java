@@ -0,0 +1,16 @@
+package com.project.stock_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Body of POST /api/stocks/{productId}/adjust: a signed quantity change and/or a new reorder level.
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockChangeDto {
+    private int quantityDelta; // Units to add (positive) or remove (negative)
+    private Integer reorderLevel; // Null keeps the current reorder level
+    private String reason; // Journal reason for a quantity change; defaults to ADJUSTMENT
+    private String referenceId; // Optional ID of what caused the change
+}
@@ -0,0 +1,17 @@
+package com.project.stock_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Stock movements of one product over a date range, from GET /api/stocks/movements/summary.
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockMovementSummaryDto {
+    private Long productId;
+    private long openingQuantity; // Balance at the start of the range
+    private long added; // Sum of positive movements in the range
+    private long removed; // Sum of negative movements in the range, as a positive number
+    private long closingQuantity; // openingQuantity + added - removed
+}
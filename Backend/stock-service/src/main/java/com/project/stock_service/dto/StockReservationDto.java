@@ -0,0 +1,19 @@
+package com.project.stock_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockReservationDto {
+    private Long productId;
+    private int quantity; // Units to remove; must be positive
+    private String reason; // Journal reason; defaults to RESERVATION
+    private String referenceId; // Optional ID of what caused the change, e.g. an order ID
+
+    public StockReservationDto(Long productId, int quantity) {
+        this(productId, quantity, null, null);
+    }
+}
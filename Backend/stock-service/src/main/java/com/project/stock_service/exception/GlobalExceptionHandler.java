@@ -28,6 +28,20 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(errorDetails, HttpStatus.CONFLICT);
     }
 
+    @ExceptionHandler(InsufficientStockException.class)
+    public ResponseEntity<ErrorDetails> handleInsufficientStockException(InsufficientStockException ex, WebRequest request) {
+        ErrorDetails errorDetails = new ErrorDetails(LocalDateTime.now(), ex.getMessage(), request.getDescription(false));
+        logger.warn("InsufficientStockException: {} - Path: {}", ex.getMessage(), request.getDescription(false));
+        return new ResponseEntity<>(errorDetails, HttpStatus.CONFLICT);
+    }
+
+    @ExceptionHandler(StockVersionConflictException.class)
+    public ResponseEntity<ErrorDetails> handleStockVersionConflictException(StockVersionConflictException ex, WebRequest request) {
+        ErrorDetails errorDetails = new VersionConflictDetails(LocalDateTime.now(), ex.getMessage(), request.getDescription(false), ex.getCurrentVersion());
+        logger.warn("StockVersionConflictException: {} - Path: {}", ex.getMessage(), request.getDescription(false));
+        return new ResponseEntity<>(errorDetails, HttpStatus.CONFLICT);
+    }
+
     @ExceptionHandler(InvalidInputException.class)
     public ResponseEntity<ErrorDetails> handleInvalidInputException(InvalidInputException ex, WebRequest request) {
         ErrorDetails errorDetails = new ErrorDetails(LocalDateTime.now(), ex.getMessage(), request.getDescription(false));
@@ -0,0 +1,19 @@
+package com.project.stock_service.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+// A conditional stock write lost to a concurrent one; carries the row's version at the time of the failure.
+@ResponseStatus(value = HttpStatus.CONFLICT)
+public class StockVersionConflictException extends RuntimeException {
+    private final Long currentVersion;
+
+    public StockVersionConflictException(String message, Long currentVersion) {
+        super(message);
+        this.currentVersion = currentVersion;
+    }
+
+    public Long getCurrentVersion() {
+        return currentVersion;
+    }
+}
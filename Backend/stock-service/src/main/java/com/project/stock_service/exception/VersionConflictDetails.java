@@ -0,0 +1,21 @@
+package com.project.stock_service.exception;
+
+import java.time.LocalDateTime;
+
+// ErrorDetails for a 409 on a conditional write, plus the version to re-read and retry from.
+public class VersionConflictDetails extends ErrorDetails {
+    private Long currentVersion;
+
+    public VersionConflictDetails(LocalDateTime timestamp, String message, String details, Long currentVersion) {
+        super(timestamp, message, details);
+        this.currentVersion = currentVersion;
+    }
+
+    public Long getCurrentVersion() {
+        return currentVersion;
+    }
+
+    public void setCurrentVersion(Long currentVersion) {
+        this.currentVersion = currentVersion;
+    }
+}
@@ -5,7 +5,9 @@ import com.project.stock_service.dto.ProductDto; // You'll need to define this D
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
 
+import java.util.List;
 import java.util.Optional;
 
 @FeignClient(name = "product-service", url = "${product-service.url:http://localhost:8081}") // Assuming product-service runs on 8081
@@ -14,7 +16,7 @@ public interface ProductClient {
     @GetMapping("/api/products/{productId}")
     Optional<ProductDto> getProductById(@PathVariable("productId") Long productId);
 
-    // You might also need a method to check if a product exists without fetching full details
-    // @GetMapping("/api/products/exists/{productId}")
-    // boolean productExists(@PathVariable("productId") Long productId);
+    // IDs among the given ones that exist, without fetching product details or stock; used by ProductExistenceCache
+    @GetMapping("/api/products/exists")
+    List<Long> getExistingProductIds(@RequestParam("ids") List<Long> productIds);
 }
\ No newline at end of file
@@ -0,0 +1,24 @@
+package com.project.stock_service.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+// Last hot-SKU journal sequence written to the database for one journal (one stock-service instance).
+@Entity
+@Table(name = "hot_stock_checkpoint")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class HotStockCheckpoint {
+    @Id
+    @Column(name = "journal_name", length = 64)
+    private String journalName;
+
+    @Column(name = "last_sequence", nullable = false)
+    private long lastSequence;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
@@ -15,6 +15,16 @@ public class Stock {
     private int quantity;
     private int reorderLevel;
 
+    // Bumped by every write, including the single-statement adjustments in StockRepository. PUT /api/stocks/{id}
+    // must send back the version it read, and fails with 409 if the row has changed since.
+    @Version
+    @Column(nullable = false)
+    private Long version;
+
+    public Stock(Long productId, int quantity, int reorderLevel) {
+        this(productId, quantity, reorderLevel, null);
+    }
+
     public boolean isLowStock() { 
         return quantity <= reorderLevel;
     }
@@ -0,0 +1,38 @@
+package com.project.stock_service.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+// One entry of the append-only stock journal: a signed quantity change, why it happened and what caused it.
+@Entity
+@Table(name = "stock_movement")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockMovement {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "movement_id")
+    private Long movementId;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(nullable = false)
+    private int delta;
+
+    @Column(nullable = false, length = 32)
+    private String reason;
+
+    @Column(name = "reference_id", length = 64)
+    private String referenceId;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    public StockMovement(Long productId, int delta, String reason, String referenceId, LocalDateTime createdAt) {
+        this(null, productId, delta, reason, referenceId, createdAt);
+    }
+}
@@ -0,0 +1,35 @@
+package com.project.stock_service.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+// Balance of one product at snapshotAt, i.e. the sum of all its movements created before that time.
+@Entity
+@Table(name = "stock_snapshot")
+@IdClass(StockSnapshot.Key.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockSnapshot {
+    @Id
+    @Column(name = "snapshot_at")
+    private LocalDateTime snapshotAt;
+
+    @Id
+    @Column(name = "product_id")
+    private Long productId;
+
+    @Column(nullable = false)
+    private int quantity;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private LocalDateTime snapshotAt;
+        private Long productId;
+    }
+}
@@ -0,0 +1,7 @@
+package com.project.stock_service.repository;
+
+import com.project.stock_service.model.HotStockCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface HotStockCheckpointRepository extends JpaRepository<HotStockCheckpoint, String> {
+}
@@ -0,0 +1,34 @@
+package com.project.stock_service.repository;
+
+import com.project.stock_service.model.StockMovement;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface StockMovementRepository extends JpaRepository<StockMovement, Long> {
+
+    // Net change of one product in [from, to); 0 when nothing moved. Reads idx_movement_product_time.
+    @Query("SELECT COALESCE(SUM(m.delta), 0) FROM StockMovement m"
+            + " WHERE m.productId = :productId AND m.createdAt >= :from AND m.createdAt < :to")
+    long sumDeltaForProduct(@Param("productId") Long productId, @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    // [productId, net change] for every product that moved in [from, to).
+    @Query("SELECT m.productId, SUM(m.delta) FROM StockMovement m"
+            + " WHERE m.createdAt >= :from AND m.createdAt < :to GROUP BY m.productId")
+    List<Object[]> sumDeltaByProduct(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    // [productId, units added, units removed] for every product that moved in [from, to); covered by idx_movement_time_product.
+    @Query("SELECT m.productId, SUM(CASE WHEN m.delta > 0 THEN m.delta ELSE 0 END),"
+            + " SUM(CASE WHEN m.delta < 0 THEN -m.delta ELSE 0 END)"
+            + " FROM StockMovement m WHERE m.createdAt >= :from AND m.createdAt < :to GROUP BY m.productId")
+    List<Object[]> sumAddedAndRemovedByProduct(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    // Newest movement a reference made on one product; reads idx_movement_reference.
+    Optional<StockMovement> findFirstByProductIdAndReferenceIdOrderByMovementIdDesc(Long productId, String referenceId);
+}
@@ -1,8 +1,48 @@
 package com.project.stock_service.repository;
 
 import com.project.stock_service.model.Stock;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
 
 public interface StockRepository extends JpaRepository<Stock, Long> {
-}
 
+    // Conditional decrement in a single statement; returns 0 when the row is missing or stock is insufficient.
+    // Bulk updates bypass @Version, so each statement bumps the version itself.
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Stock s SET s.quantity = s.quantity - :amount, s.version = s.version + 1"
+            + " WHERE s.productId = :productId AND s.quantity >= :amount")
+    int decrementQuantity(@Param("productId") Long productId, @Param("amount") int amount);
+
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Stock s SET s.quantity = s.quantity + :amount, s.version = s.version + 1 WHERE s.productId = :productId")
+    int incrementQuantity(@Param("productId") Long productId, @Param("amount") int amount);
+
+    // Compare-and-set write: returns 0 when the row is missing or no longer at :version.
+    @Transactional // Runs in its own transaction when called outside one (adjustStock, updateStock)
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Stock s SET s.quantity = :quantity, s.reorderLevel = :reorderLevel, s.version = s.version + 1"
+            + " WHERE s.productId = :productId AND s.version = :version")
+    int updateIfVersion(@Param("productId") Long productId,
+                        @Param("quantity") int quantity,
+                        @Param("reorderLevel") int reorderLevel,
+                        @Param("version") Long version);
+
+    // Quantity and version as plain values, so they come from the database even if the entity is already loaded.
+    // Rows are [productId, quantity, version].
+    @Query("SELECT s.productId, s.quantity, s.version FROM Stock s WHERE s.productId IN :productIds")
+    List<Object[]> findQuantitiesAndVersions(@Param("productIds") Collection<Long> productIds);
+
+    // Row-locks all requested stock items so a batch reservation can be allocated in one pass. Rows are locked in
+    // product ID order, so concurrent batches over overlapping products cannot deadlock on each other.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM Stock s WHERE s.productId IN :productIds ORDER BY s.productId")
+    List<Stock> findAllForUpdate(@Param("productIds") Collection<Long> productIds);
+}
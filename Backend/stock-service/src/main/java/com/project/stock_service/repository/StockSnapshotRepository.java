@@ -0,0 +1,40 @@
+package com.project.stock_service.repository;
+
+import com.project.stock_service.model.StockSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface StockSnapshotRepository extends JpaRepository<StockSnapshot, StockSnapshot.Key> {
+
+    // Latest snapshot time at or before :at; a seek on the (snapshot_at, product_id) primary key.
+    @Query("SELECT MAX(s.snapshotAt) FROM StockSnapshot s WHERE s.snapshotAt <= :at")
+    Optional<LocalDateTime> findLatestSnapshotAtOrBefore(@Param("at") LocalDateTime at);
+
+    @Query("SELECT MAX(s.snapshotAt) FROM StockSnapshot s")
+    Optional<LocalDateTime> findLatestSnapshotAt();
+
+    List<StockSnapshot> findBySnapshotAt(LocalDateTime snapshotAt);
+
+    Optional<StockSnapshot> findBySnapshotAtAndProductId(LocalDateTime snapshotAt, Long productId);
+
+    // Rolls the snapshot at :previous forward to :snapshotAt by adding the movements created in [previous, snapshotAt).
+    // Pass a time before the first movement as :previous when there is no earlier snapshot. Zero balances are skipped.
+    @Transactional // Also runs from the scheduled snapshot, outside any caller transaction
+    @Modifying
+    @Query(value = "INSERT INTO stock_snapshot (snapshot_at, product_id, quantity)"
+            + " SELECT :snapshotAt, t.product_id, SUM(t.qty) FROM ("
+            + "   SELECT product_id, quantity AS qty FROM stock_snapshot WHERE snapshot_at = :previous"
+            + "   UNION ALL"
+            + "   SELECT product_id, delta AS qty FROM stock_movement WHERE created_at >= :previous AND created_at < :snapshotAt"
+            + " ) t GROUP BY t.product_id HAVING SUM(t.qty) <> 0", nativeQuery = true)
+    int insertRolledForward(@Param("previous") LocalDateTime previous, @Param("snapshotAt") LocalDateTime snapshotAt);
+}
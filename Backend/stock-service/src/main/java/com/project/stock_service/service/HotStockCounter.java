@@ -0,0 +1,149 @@
+package com.project.stock_service.service;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Lock-free, striped quantity of one hot product. The quantity is split across stripes that each sit on their own
+ * cache lines; a thread reserves from its home stripe with a single CAS and only looks at the other stripes when its
+ * own runs short. A reservation never takes the total below zero: when no single stripe can cover it, the stripes
+ * are pooled under a lock and the request is decided against the exact total.
+ * Each stripe also counts the operations in progress on it, so close() can wait for them before the product leaves
+ * hot-SKU mode.
+ */
+final class HotStockCounter {
+
+    // Longs per stripe: [0] quantity, [1] operations in progress, the rest padding (128 bytes in all)
+    private static final int PAD = 16;
+
+    private final AtomicLongArray cells;
+    private final int mask;
+    private volatile boolean closed;
+    private volatile boolean deficit; // Total below zero after a correction: reserve only through the pooled path
+
+    HotStockCounter(long quantity, int stripes) {
+        int size = 1;
+        while (size < stripes) {
+            size <<= 1;
+        }
+        this.cells = new AtomicLongArray(size * PAD);
+        this.mask = size - 1;
+        spread(quantity);
+    }
+
+    /**
+     * Registers an operation on the calling thread's home stripe and returns that stripe, or -1 once the counter
+     * is closed. Every stripe returned must be handed back to exit().
+     */
+    int enter() {
+        int stripe = homeStripe();
+        cells.getAndIncrement(stripe * PAD + 1);
+        if (closed) {
+            cells.getAndDecrement(stripe * PAD + 1);
+            return -1;
+        }
+        return stripe;
+    }
+
+    void exit(int stripe) {
+        cells.getAndDecrement(stripe * PAD + 1);
+    }
+
+    // Takes amount units if the total allows it, starting at the given stripe.
+    boolean tryReserve(int stripe, long amount) {
+        if (deficit) {
+            return reservePooled(amount);
+        }
+        for (int i = 0; i <= mask; i++) {
+            if (tryTake((stripe + i) & mask, amount)) {
+                return true;
+            }
+        }
+        return reservePooled(amount);
+    }
+
+    void release(int stripe, long amount) {
+        cells.getAndAdd(stripe * PAD, amount);
+    }
+
+    // Applies a correction of either sign to the total, e.g. for a change made to the stock row outside hot-SKU mode.
+    synchronized void adjust(long delta) {
+        spread(drain() + delta);
+    }
+
+    // The total at this moment; concurrent operations may already have moved it.
+    long available() {
+        long total = 0;
+        for (int stripe = 0; stripe <= mask; stripe++) {
+            total += cells.get(stripe * PAD);
+        }
+        return total;
+    }
+
+    /**
+     * Turns new operations away and waits for those in progress to finish. A thread that registered before the
+     * flag was set is seen here, and one that registers after it sees the flag in enter().
+     */
+    void close() {
+        closed = true;
+        for (int stripe = 0; stripe <= mask; stripe++) {
+            while (cells.get(stripe * PAD + 1) != 0) {
+                LockSupport.parkNanos(10_000);
+            }
+        }
+    }
+
+    void reopen() {
+        closed = false;
+    }
+
+    boolean isClosed() {
+        return closed;
+    }
+
+    private boolean tryTake(int stripe, long amount) {
+        int index = stripe * PAD;
+        for (long available = cells.get(index); available >= amount; available = cells.get(index)) {
+            if (cells.compareAndSet(index, available, available - amount)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Slow path: no single stripe could cover the amount, so pool them and decide against the total.
+    private synchronized boolean reservePooled(long amount) {
+        long total = drain();
+        boolean reserved = total >= amount;
+        spread(reserved ? total - amount : total);
+        return reserved;
+    }
+
+    private long drain() {
+        long total = 0;
+        for (int stripe = 0; stripe <= mask; stripe++) {
+            total += cells.getAndSet(stripe * PAD, 0);
+        }
+        return total;
+    }
+
+    // Adds total back in even shares; a negative total stays on stripe 0 until releases bring it back up.
+    private void spread(long total) {
+        deficit = total < 0;
+        if (deficit) {
+            cells.getAndAdd(0, total);
+            return;
+        }
+        int stripes = mask + 1;
+        long share = total / stripes;
+        long rest = total % stripes;
+        for (int stripe = 0; stripe < stripes; stripe++) {
+            cells.getAndAdd(stripe * PAD, share + (stripe < rest ? 1 : 0));
+        }
+    }
+
+    private int homeStripe() {
+        long id = Thread.currentThread().threadId();
+        return (int) ((id * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+    }
+}
@@ -0,0 +1,461 @@
+package com.project.stock_service.service;
+
+import com.project.stock_service.exception.InsufficientStockException;
+import com.project.stock_service.exception.InvalidInputException;
+import com.project.stock_service.exception.ResourceNotFoundException;
+import com.project.stock_service.model.HotStockCheckpoint;
+import com.project.stock_service.model.Stock;
+import com.project.stock_service.model.StockMovement;
+import com.project.stock_service.repository.HotStockCheckpointRepository;
+import com.project.stock_service.repository.StockRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Opt-in hot-SKU mode (stock.hot.enabled) for products that take far more decrements than one database row can
+ * serialize, e.g. during a flash sale. A hot product's quantity lives in a striped in-memory HotStockCounter, so
+ * reads, reservations and releases never touch the database on the request path. Each change is made durable in the
+ * local HotStockJournal before the caller gets its answer. flush() then writes the journaled changes to the stock
+ * row as one signed update per product and to stock_movement, together with the journal checkpoint, in one
+ * transaction.
+ * After a crash, start() replays the journal entries past the checkpoint, so every acknowledged change reaches the
+ * database exactly once.
+ *
+ * The counter is the source of truth while a product is hot, and the stock row trails it by up to one flush interval.
+ * Only one stock-service instance may serve a hot product. PUT, adjust and delete are refused until the product
+ * leaves hot-SKU mode. reserveOnce() keeps referenced decrements idempotent as the database path does: the newest
+ * change of each reference that has not been flushed yet is kept in memory, older ones are read from stock_movement.
+ * If the row still changes behind the counter's back (its version moves unexpectedly), the next flush applies the
+ * difference to the counter.
+ *
+ * Flushed stock_movement rows carry the flush time, not the time the change was journaled: a change replayed after a
+ * long outage must not land before a stock snapshot taken in the meantime, or StockLedger would never count it.
+ */
+@Service
+public class HotStockEngine implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(HotStockEngine.class);
+
+    private static final long JOURNAL_SEGMENT_BYTES = 64L * 1024 * 1024;
+    private static final long DEMOTION_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final int REFERENCE_LOCKS = 64;
+
+    // In-memory state of one hot product. persistedQuantity/persistedVersion are what the stock row held after
+    // the last flush that touched it; only the flushing thread updates them.
+    private static final class HotSku {
+        private final HotStockCounter counter;
+        private final int reorderLevel;
+        private volatile long persistedQuantity;
+        private volatile long persistedVersion;
+
+        private HotSku(HotStockCounter counter, int reorderLevel, long persistedQuantity, long persistedVersion) {
+            this.counter = counter;
+            this.reorderLevel = reorderLevel;
+            this.persistedQuantity = persistedQuantity;
+            this.persistedVersion = persistedVersion;
+        }
+    }
+
+    private record ReferenceKey(long productId, String referenceId) {
+    }
+
+    private final StockRepository stockRepository;
+    private final StockLedger stockLedger;
+    private final HotStockCheckpointRepository checkpointRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final List<Long> configuredProductIds;
+    private final Path journalDirectory;
+    private final String journalName;
+    private final boolean journalFsync;
+    private final int stripes;
+    private final int flushBatchSize;
+
+    private final Map<Long, HotSku> skus = new ConcurrentHashMap<>();
+    // Journaled changes not yet in the database, in sequence order; the flusher takes them from the head.
+    private final ConcurrentLinkedQueue<HotStockJournal.Entry> unflushed = new ConcurrentLinkedQueue<>();
+    // A batch whose flush failed; it is retried before anything newer.
+    private final List<HotStockJournal.Entry> flushBatch = new ArrayList<>();
+    private final Object flushLock = new Object();
+    private final Object modeLock = new Object();
+    // Newest unflushed change per reference; an entry is removed only once its flush has committed.
+    private final Map<ReferenceKey, HotStockJournal.Entry> unflushedByReference = new ConcurrentHashMap<>();
+    // Serialize reserveOnce/releaseOnce calls for the same reference, so a repeat waits for the original to be journaled.
+    private final Object[] referenceLocks = new Object[REFERENCE_LOCKS];
+
+    private volatile HotStockJournal journal;
+
+    @Autowired
+    public HotStockEngine(StockRepository stockRepository,
+                          StockLedger stockLedger,
+                          HotStockCheckpointRepository checkpointRepository,
+                          TransactionTemplate transactionTemplate,
+                          @Value("${stock.hot.enabled:false}") boolean enabled,
+                          @Value("${stock.hot.product-ids:}") List<Long> configuredProductIds,
+                          @Value("${stock.hot.journal-dir:stock-service/hot-journal}") String journalDirectory,
+                          @Value("${stock.hot.journal-name:stock-service}") String journalName,
+                          @Value("${stock.hot.journal-fsync:true}") boolean journalFsync,
+                          @Value("${stock.hot.stripes:16}") int stripes,
+                          @Value("${stock.hot.flush-batch-size:5000}") int flushBatchSize) {
+        this.stockRepository = stockRepository;
+        this.stockLedger = stockLedger;
+        this.checkpointRepository = checkpointRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = enabled;
+        this.configuredProductIds = configuredProductIds;
+        this.journalDirectory = Path.of(journalDirectory);
+        this.journalName = journalName;
+        this.journalFsync = journalFsync;
+        this.stripes = stripes;
+        this.flushBatchSize = flushBatchSize;
+        for (int i = 0; i < REFERENCE_LOCKS; i++) {
+            referenceLocks[i] = new Object();
+        }
+    }
+
+    /**
+     * Replays journal entries the database has not seen yet, opens the journal for new changes and puts the products
+     * listed in stock.hot.product-ids into hot-SKU mode.
+     */
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            List<HotStockJournal.Entry> journaled = HotStockJournal.readAll(journalDirectory);
+            long checkpoint = checkpointRepository.findById(journalName).map(HotStockCheckpoint::getLastSequence).orElse(0L);
+            long lastJournaled = journaled.isEmpty() ? 0 : journaled.get(journaled.size() - 1).sequence();
+            journaled.stream().filter(entry -> entry.sequence() > checkpoint).forEach(this::journaled);
+            int replayed = unflushed.size();
+            journal = new HotStockJournal(journalDirectory, Math.max(checkpoint, lastJournaled) + 1, journalFsync,
+                    JOURNAL_SEGMENT_BYTES, this::journaled);
+            flushAll();
+            logger.info("Hot-SKU mode enabled (journal {} in {}); replayed {} journaled stock changes past sequence {}.",
+                    journalName, journalDirectory.toAbsolutePath(), replayed, checkpoint);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open the hot stock journal in " + journalDirectory.toAbsolutePath(), e);
+        }
+        for (Long productId : configuredProductIds) {
+            try {
+                enable(productId);
+            } catch (ResourceNotFoundException e) {
+                logger.warn("Product ID {} is listed in stock.hot.product-ids but has no stock row; left in normal mode.", productId);
+            }
+        }
+    }
+
+    public boolean isHot(Long productId) {
+        return productId != null && skus.containsKey(productId);
+    }
+
+    /**
+     * Puts a product into hot-SKU mode, loading its current quantity into a counter. Writers already on their way to
+     * the row may still land there; the next flush notices and corrects the counter, so enable a product before its
+     * traffic arrives.
+     */
+    public Stock enable(Long productId) {
+        if (!enabled || journal == null) {
+            throw new InvalidInputException("Hot-SKU mode is disabled (stock.hot.enabled=false).");
+        }
+        synchronized (modeLock) {
+            HotSku existing = skus.get(productId);
+            if (existing != null) {
+                return view(productId, existing);
+            }
+            Stock stock = stockRepository.findById(productId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Stock item not found with Product ID: " + productId));
+            HotSku sku = new HotSku(new HotStockCounter(stock.getQuantity(), stripes), stock.getReorderLevel(),
+                    stock.getQuantity(), stock.getVersion());
+            skus.put(productId, sku);
+            logger.info("Product ID {} is now in hot-SKU mode with {} units.", productId, stock.getQuantity());
+            return view(productId, sku);
+        }
+    }
+
+    /**
+     * Takes a product out of hot-SKU mode: waits for changes in progress, flushes everything journaled and hands the
+     * product back to the database paths. Changes arriving meanwhile wait and then go to the database. If the flush
+     * fails the product stays hot.
+     */
+    public Stock disable(Long productId) {
+        synchronized (modeLock) {
+            HotSku sku = skus.get(productId);
+            if (sku == null) {
+                throw new ResourceNotFoundException("Product ID " + productId + " is not in hot-SKU mode.");
+            }
+            sku.counter.close();
+            try {
+                flushAll();
+            } catch (RuntimeException e) {
+                sku.counter.reopen();
+                throw e;
+            }
+            skus.remove(productId);
+            logger.info("Product ID {} left hot-SKU mode.", productId);
+        }
+        return stockRepository.findById(productId)
+                .orElseThrow(() -> new ResourceNotFoundException("Stock item not found with Product ID: " + productId));
+    }
+
+    public List<Stock> getHotStocks() {
+        return skus.entrySet().stream()
+                .map(entry -> view(entry.getKey(), entry.getValue()))
+                .sorted(Comparator.comparing(Stock::getProductId))
+                .toList();
+    }
+
+    // The live stock of a hot product, read from its counter; empty when the product is not hot.
+    public Optional<Stock> getStock(Long productId) {
+        HotSku sku = productId != null ? skus.get(productId) : null;
+        return sku != null ? Optional.of(view(productId, sku)) : Optional.empty();
+    }
+
+    /**
+     * Takes amount units from a hot product and journals the change. Returns the stock afterwards, or empty when
+     * the product is not hot (any more) and the caller should use the database path.
+     * Throws InsufficientStockException when the units are not there.
+     */
+    public Optional<Stock> reserve(Long productId, int amount, String reason, String defaultReason, String referenceId) {
+        return change(productId, -amount, reason, defaultReason, referenceId);
+    }
+
+    /**
+     * Like reserve(), but with a referenceId the units are taken at most once while that reference holds units of
+     * the product: a repeat returns the stock unchanged. Whether the reference holds units is decided by its newest
+     * change, from memory if it has not been flushed yet and from stock_movement otherwise.
+     */
+    public Optional<Stock> reserveOnce(Long productId, int amount, String reason, String defaultReason, String referenceId) {
+        if (referenceId == null || !isHot(productId)) {
+            return change(productId, -amount, reason, defaultReason, referenceId);
+        }
+        return changeOnce(productId, -amount, reason, defaultReason, referenceId);
+    }
+
+    // Like release(), but gives the units back only while referenceId holds units of the product, so a repeat, or
+    // the release of a reservation that never happened, changes nothing.
+    public Optional<Stock> releaseOnce(Long productId, int amount, String reason, String defaultReason, String referenceId) {
+        if (!isHot(productId)) {
+            return Optional.empty();
+        }
+        return changeOnce(productId, amount, reason, defaultReason, referenceId);
+    }
+
+    // Gives amount units back to a hot product, e.g. restocking or a released reservation; empty when not hot.
+    public Optional<Stock> release(Long productId, int amount, String reason, String defaultReason, String referenceId) {
+        return change(productId, amount, reason, defaultReason, referenceId);
+    }
+
+    // Applies a reservation only while the reference holds nothing, and a release only while it holds units.
+    private Optional<Stock> changeOnce(Long productId, int delta, String reason, String defaultReason, String referenceId) {
+        ReferenceKey key = new ReferenceKey(productId, referenceId);
+        synchronized (referenceLocks[Math.floorMod(key.hashCode(), REFERENCE_LOCKS)]) {
+            HotStockJournal.Entry pending = unflushedByReference.get(key);
+            boolean held = pending != null ? pending.delta() < 0 : stockLedger.holdsReservation(productId, referenceId);
+            if (held == delta > 0) {
+                return change(productId, delta, reason, defaultReason, referenceId);
+            }
+            HotSku sku = skus.get(productId);
+            if (sku != null) {
+                logger.info("Reference {} {} stock of hot Product ID {}; not changing it again.",
+                        referenceId, held ? "already holds" : "holds no", productId);
+                return Optional.of(view(productId, sku));
+            }
+            return Optional.empty(); // Left hot-SKU mode meanwhile; the database path checks again
+        }
+    }
+
+    private Optional<Stock> change(Long productId, int delta, String reason, String defaultReason, String referenceId) {
+        String journalReason = stockLedger.reasonOrDefault(reason, defaultReason);
+        while (true) {
+            HotSku sku = skus.get(productId);
+            if (sku == null) {
+                return Optional.empty();
+            }
+            int stripe = sku.counter.enter();
+            if (stripe < 0) {
+                LockSupport.parkNanos(DEMOTION_WAIT_NANOS); // Leaving hot-SKU mode: ask again once that has settled
+                continue;
+            }
+            try {
+                if (delta < 0 && !sku.counter.tryReserve(stripe, -delta)) {
+                    throw new InsufficientStockException("Insufficient stock for Product ID " + productId + " to remove " + (-delta) + " units.");
+                }
+                try {
+                    journal.append(productId, delta, journalReason, referenceId).join();
+                } catch (CompletionException e) {
+                    if (delta < 0) {
+                        sku.counter.release(stripe, -delta);
+                    }
+                    throw new IllegalStateException("Could not journal the stock change for Product ID " + productId + ".", e.getCause());
+                }
+                if (delta > 0) {
+                    sku.counter.release(stripe, delta); // Sellable only once durable
+                }
+                return Optional.of(view(productId, sku));
+            } finally {
+                sku.counter.exit(stripe);
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${stock.hot.flush-interval-ms:200}")
+    public void flushOnSchedule() {
+        try {
+            flushAll();
+        } catch (RuntimeException e) {
+            logger.error("Hot stock flush failed; will retry: {}", e.getMessage(), e);
+        }
+    }
+
+    // Flushes until nothing journaled is left; returns the number of changes written.
+    public int flushAll() {
+        int total = 0;
+        for (int flushed = flush(); flushed > 0; flushed = flush()) {
+            total += flushed;
+        }
+        return total;
+    }
+
+    /**
+     * Writes up to stock.hot.flush-batch-size journaled changes to the database in one transaction: one signed
+     * update per product, one stock_movement row per change, and the journal checkpoint. Returns the number of
+     * changes written; on failure the same batch is retried next time.
+     */
+    public int flush() {
+        synchronized (flushLock) {
+            if (journal == null) {
+                return 0;
+            }
+            for (HotStockJournal.Entry entry; flushBatch.size() < flushBatchSize && (entry = unflushed.poll()) != null; ) {
+                flushBatch.add(entry);
+            }
+            if (flushBatch.isEmpty()) {
+                return 0;
+            }
+            // Stamped at flush time (see class comment): snapshots are at least stock.snapshot.min-age old, so this is
+            // always after the latest snapshot.
+            LocalDateTime flushedAt = LocalDateTime.now();
+            Map<Long, Integer> deltas = new LinkedHashMap<>();
+            List<StockMovement> movements = new ArrayList<>(flushBatch.size());
+            for (HotStockJournal.Entry entry : flushBatch) {
+                deltas.merge(entry.productId(), entry.delta(), Integer::sum);
+                movements.add(new StockMovement(entry.productId(), entry.delta(), entry.reason(), entry.referenceId(), flushedAt));
+            }
+            long lastSequence = flushBatch.get(flushBatch.size() - 1).sequence();
+
+            // Rows as they were before this flush's updates: [quantity, version] per product
+            Map<Long, long[]> rowsBefore = transactionTemplate.execute(status -> {
+                Map<Long, long[]> rows = new HashMap<>();
+                for (Object[] row : stockRepository.findQuantitiesAndVersions(deltas.keySet())) {
+                    rows.put((Long) row[0], new long[]{((Number) row[1]).longValue(), ((Number) row[2]).longValue()});
+                }
+                deltas.forEach((productId, delta) -> {
+                    // Signed and unchecked: the counter has already decided whether the units were there
+                    if (delta != 0 && stockRepository.incrementQuantity(productId, delta) == 0) {
+                        logger.error("Stock row for Product ID {} is missing; {} units of hot-SKU changes were only journaled to stock_movement.",
+                                productId, delta);
+                    }
+                });
+                stockLedger.recordAll(movements);
+                checkpointRepository.save(new HotStockCheckpoint(journalName, lastSequence, flushedAt));
+                return rows;
+            });
+
+            deltas.forEach((productId, delta) -> reconcile(productId, delta, rowsBefore.get(productId)));
+            for (HotStockJournal.Entry entry : flushBatch) {
+                if (entry.referenceId() != null) {
+                    unflushedByReference.remove(new ReferenceKey(entry.productId(), entry.referenceId()), entry);
+                }
+            }
+            journal.checkpoint(lastSequence);
+            int flushed = flushBatch.size();
+            flushBatch.clear();
+            logger.debug("Flushed {} hot-SKU stock changes for {} products up to journal sequence {}.", flushed, deltas.size(), lastSequence);
+            return flushed;
+        }
+    }
+
+    // Called in sequence order for every durable change, replayed or new.
+    private void journaled(HotStockJournal.Entry entry) {
+        if (entry.referenceId() != null) {
+            unflushedByReference.put(new ReferenceKey(entry.productId(), entry.referenceId()), entry);
+        }
+        unflushed.add(entry);
+    }
+
+    // After a committed flush: if the row moved since the previous one, something wrote it outside hot-SKU mode.
+    private void reconcile(Long productId, int delta, long[] rowBefore) {
+        HotSku sku = skus.get(productId);
+        if (sku == null || rowBefore == null) {
+            return;
+        }
+        if (rowBefore[1] != sku.persistedVersion) {
+            long drift = rowBefore[0] - sku.persistedQuantity;
+            logger.warn("Stock row for hot Product ID {} was changed outside hot-SKU mode (version {} -> {}); applying {} units to the counter.",
+                    productId, sku.persistedVersion, rowBefore[1], drift);
+            sku.counter.adjust(drift);
+        }
+        sku.persistedQuantity = rowBefore[0] + delta;
+        sku.persistedVersion = delta != 0 ? rowBefore[1] + 1 : rowBefore[1];
+    }
+
+    private Stock view(Long productId, HotSku sku) {
+        return new Stock(productId, (int) sku.counter.available(), sku.reorderLevel, sku.persistedVersion);
+    }
+
+    // Flushes what is journaled and closes the journal; anything that cannot be flushed is replayed on the next start.
+    @Override
+    public void destroy() {
+        HotStockJournal current = journal;
+        if (current == null) {
+            return;
+        }
+        current.close(); // Writes whatever is still queued
+        try {
+            flushAll();
+        } catch (RuntimeException e) {
+            logger.error("Final hot stock flush failed; the journal will be replayed on the next start: {}", e.getMessage());
+        }
+        halt();
+    }
+
+    // Drops all in-memory state without flushing, as a crash would; the journal still holds every change.
+    void halt() {
+        HotStockJournal current = journal;
+        journal = null;
+        if (current != null) {
+            current.close();
+        }
+        skus.clear();
+        unflushed.clear();
+        unflushedByReference.clear();
+        synchronized (flushLock) {
+            flushBatch.clear();
+        }
+    }
+}
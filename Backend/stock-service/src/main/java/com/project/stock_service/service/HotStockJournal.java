@@ -0,0 +1,306 @@
+package com.project.stock_service.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Local append-only journal of hot-SKU stock changes, the crash-recovery log for HotStockEngine. Request threads
+ * append and wait on a future. A single writer thread gives each change the next sequence number and writes whatever
+ * has queued up in one write, plus one fsync when enabled, so concurrent changes share the cost of making it durable.
+ * A change is handed to onDurable before its future completes.
+ * The journal is split into segment files named after their first sequence. Segments whose changes have all reached
+ * the database are deleted by checkpoint(). Each record carries a CRC, so a record torn by a crash ends the replay
+ * rather than corrupting it.
+ */
+final class HotStockJournal {
+
+    private static final Logger logger = LoggerFactory.getLogger(HotStockJournal.class);
+
+    private static final String SEGMENT_PREFIX = "hot-stock-";
+    private static final String SEGMENT_SUFFIX = ".journal";
+    private static final int MAX_RECORD_BYTES = 1024;
+    private static final int MAX_BATCH = 4096;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    record Entry(long sequence, long productId, int delta, String reason, String referenceId, LocalDateTime createdAt) {
+    }
+
+    private record PendingChange(long productId, int delta, String reason, String referenceId, LocalDateTime createdAt,
+                                 CompletableFuture<Entry> written) {
+    }
+
+    private final Path directory;
+    private final boolean fsync;
+    private final long segmentBytes;
+    private final Consumer<Entry> onDurable;
+    private final ConcurrentLinkedQueue<PendingChange> queue = new ConcurrentLinkedQueue<>();
+    private final ConcurrentSkipListMap<Long, Path> segments;
+    private final Thread writer;
+
+    private volatile boolean running = true;
+    private volatile IOException failure;
+
+    // Owned by the writer thread once it has started
+    private FileChannel channel;
+    private long nextSequence;
+    private final ByteArrayOutputStream batchBytes = new ByteArrayOutputStream();
+    private final ByteArrayOutputStream recordBytes = new ByteArrayOutputStream();
+
+    /**
+     * Opens the journal in directory, starting a new segment at nextSequence. Existing segments are kept until a
+     * checkpoint covers them, so read them with readAll() before appending.
+     */
+    HotStockJournal(Path directory, long nextSequence, boolean fsync, long segmentBytes, Consumer<Entry> onDurable) throws IOException {
+        Files.createDirectories(directory);
+        this.directory = directory;
+        this.fsync = fsync;
+        this.segmentBytes = segmentBytes;
+        this.onDurable = onDurable;
+        this.segments = listSegments(directory);
+        this.nextSequence = nextSequence;
+        openSegment(nextSequence);
+        this.writer = new Thread(this::runWriter, "hot-stock-journal");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Queues a change. The future completes with the journaled entry once it is written (and synced, if enabled),
+     * or exceptionally if the journal has failed or is closed.
+     */
+    CompletableFuture<Entry> append(long productId, int delta, String reason, String referenceId) {
+        IOException failed = failure;
+        if (failed != null) {
+            return CompletableFuture.failedFuture(new UncheckedIOException("Hot stock journal has failed.", failed));
+        }
+        PendingChange change = new PendingChange(productId, delta, reason, referenceId, LocalDateTime.now(), new CompletableFuture<>());
+        queue.offer(change);
+        if (!running && queue.remove(change)) { // Closed meanwhile and the writer will not see it
+            change.written.completeExceptionally(new IllegalStateException("Hot stock journal is closed."));
+        }
+        LockSupport.unpark(writer);
+        return change.written;
+    }
+
+    /**
+     * Deletes the segments whose changes all have a sequence up to lastSequence. A segment holds the sequences from
+     * its own first up to the next segment's first; the segment being written is never deleted.
+     */
+    void checkpoint(long lastSequence) {
+        for (Map.Entry<Long, Path> segment : segments.entrySet()) {
+            Long nextFirst = segments.higherKey(segment.getKey());
+            if (nextFirst == null || nextFirst - 1 > lastSequence) {
+                return;
+            }
+            try {
+                Files.deleteIfExists(segment.getValue());
+                segments.remove(segment.getKey());
+                logger.debug("Deleted hot stock journal segment {}", segment.getValue());
+            } catch (IOException e) {
+                logger.warn("Could not delete hot stock journal segment {}: {}", segment.getValue(), e.getMessage());
+                return;
+            }
+        }
+    }
+
+    // Stops the writer once the queue is empty and closes the current segment.
+    void close() {
+        running = false;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            logger.warn("Could not close hot stock journal segment: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Every intact entry in the directory's segments, in sequence order. Reading a segment stops at its first torn
+     * or corrupt record, which can only be the tail a crash cut short.
+     */
+    static List<Entry> readAll(Path directory) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return entries;
+        }
+        for (Path segment : listSegments(directory).values()) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(segment)))) {
+                while (true) {
+                    Entry entry = readRecord(in);
+                    if (entry == null) {
+                        break;
+                    }
+                    entries.add(entry);
+                }
+            } catch (IOException e) {
+                logger.warn("Stopped reading hot stock journal segment {} at a torn record: {}", segment, e.getMessage());
+            }
+        }
+        return entries;
+    }
+
+    private void runWriter() {
+        List<PendingChange> batch = new ArrayList<>();
+        while (running || !queue.isEmpty()) {
+            PendingChange change;
+            while (batch.size() < MAX_BATCH && (change = queue.poll()) != null) {
+                batch.add(change);
+            }
+            if (batch.isEmpty()) {
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                continue;
+            }
+            write(batch);
+            batch.clear();
+        }
+        for (PendingChange change; (change = queue.poll()) != null; ) {
+            change.written.completeExceptionally(new IllegalStateException("Hot stock journal is closed."));
+        }
+    }
+
+    private void write(List<PendingChange> batch) {
+        List<Entry> entries = new ArrayList<>(batch.size());
+        try {
+            if (failure != null) {
+                throw failure;
+            }
+            batchBytes.reset();
+            long sequence = nextSequence;
+            for (PendingChange change : batch) {
+                Entry entry = new Entry(sequence++, change.productId, change.delta, change.reason, change.referenceId, change.createdAt);
+                writeRecord(entry);
+                entries.add(entry);
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(batchBytes.toByteArray());
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            if (fsync) {
+                channel.force(false);
+            }
+            nextSequence = sequence;
+            if (channel.size() >= segmentBytes) {
+                openSegment(nextSequence);
+            }
+        } catch (IOException e) {
+            // A partly written batch would hide everything after it from recovery, so stop accepting changes.
+            if (failure == null) {
+                logger.error("Hot stock journal write failed; hot-SKU changes are rejected from now on: {}", e.getMessage(), e);
+                failure = e;
+            }
+            batch.forEach(change -> change.written.completeExceptionally(new UncheckedIOException("Hot stock journal write failed.", e)));
+            return;
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            onDurable.accept(entries.get(i));
+            batch.get(i).written.complete(entries.get(i));
+        }
+    }
+
+    private void openSegment(long firstSequence) throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
+        // A segment can only already exist under this name if nothing in it was readable (a torn first record),
+        // since readAll() moves the next sequence past every intact entry. Start it afresh.
+        Path segment = directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, firstSequence, SEGMENT_SUFFIX));
+        channel = FileChannel.open(segment, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        segments.put(firstSequence, segment);
+        logger.debug("Opened hot stock journal segment {}", segment);
+    }
+
+    // Record layout: length, CRC32 of the body, then the body.
+    private void writeRecord(Entry entry) throws IOException {
+        recordBytes.reset();
+        DataOutputStream body = new DataOutputStream(recordBytes);
+        body.writeLong(entry.sequence());
+        body.writeLong(entry.productId());
+        body.writeInt(entry.delta());
+        body.writeUTF(entry.reason());
+        body.writeBoolean(entry.referenceId() != null);
+        if (entry.referenceId() != null) {
+            body.writeUTF(entry.referenceId());
+        }
+        body.writeLong(entry.createdAt().toEpochSecond(ZoneOffset.UTC));
+        body.writeInt(entry.createdAt().getNano());
+
+        CRC32 crc = new CRC32();
+        crc.update(recordBytes.toByteArray());
+        DataOutputStream out = new DataOutputStream(batchBytes);
+        out.writeInt(recordBytes.size());
+        out.writeInt((int) crc.getValue());
+        recordBytes.writeTo(batchBytes);
+    }
+
+    // Next entry, or null at the clean end of a segment.
+    private static Entry readRecord(DataInputStream in) throws IOException {
+        int length;
+        try {
+            length = in.readInt();
+        } catch (EOFException e) {
+            return null;
+        }
+        if (length <= 0 || length > MAX_RECORD_BYTES) {
+            throw new IOException("invalid record length " + length);
+        }
+        int expectedCrc = in.readInt();
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        if ((int) crc.getValue() != expectedCrc) {
+            throw new IOException("record checksum mismatch");
+        }
+        DataInputStream body = new DataInputStream(new ByteArrayInputStream(bytes));
+        long sequence = body.readLong();
+        long productId = body.readLong();
+        int delta = body.readInt();
+        String reason = body.readUTF();
+        String referenceId = body.readBoolean() ? body.readUTF() : null;
+        LocalDateTime createdAt = LocalDateTime.ofEpochSecond(body.readLong(), body.readInt(), ZoneOffset.UTC);
+        return new Entry(sequence, productId, delta, reason, referenceId, createdAt);
+    }
+
+    private static ConcurrentSkipListMap<Long, Path> listSegments(Path directory) throws IOException {
+        ConcurrentSkipListMap<Long, Path> found = new ConcurrentSkipListMap<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path segment : stream) {
+                String name = segment.getFileName().toString();
+                found.put(Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())), segment);
+            }
+        }
+        return found;
+    }
+}
@@ -0,0 +1,99 @@
+package com.project.stock_service.service;
+
+import com.project.stock_service.feignclient.ProductClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Local answer to "does this product exist in Product Service?" for the stock write paths. Both answers are
+ * cached: a product that exists for ttl, one that does not for the much shorter negativeTtl, so a product created
+ * just after a failed lookup is not refused for long. Misses go to the lightweight existence endpoint, which reads
+ * only product IDs. Entries are evicted least-recently-used once maxEntries is reached.
+ */
+@Component
+public class ProductExistenceCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductExistenceCache.class);
+
+    private record Entry(boolean exists, long expiresAtMillis) {
+    }
+
+    private final ProductClient productClient;
+    private final Duration ttl;
+    private final Duration negativeTtl;
+    private final int maxEntries;
+    private final Clock clock;
+
+    private final LinkedHashMap<Long, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    @Autowired
+    public ProductExistenceCache(ProductClient productClient,
+                                 @Value("${stock.product-cache.ttl-seconds:300}") long ttlSeconds,
+                                 @Value("${stock.product-cache.negative-ttl-seconds:10}") long negativeTtlSeconds,
+                                 @Value("${stock.product-cache.max-entries:100000}") int maxEntries) {
+        this(productClient, Duration.ofSeconds(ttlSeconds), Duration.ofSeconds(negativeTtlSeconds), maxEntries, Clock.systemDefaultZone());
+    }
+
+    ProductExistenceCache(ProductClient productClient, Duration ttl, Duration negativeTtl, int maxEntries, Clock clock) {
+        this.productClient = productClient;
+        this.ttl = ttl;
+        this.negativeTtl = negativeTtl;
+        this.maxEntries = maxEntries;
+        this.clock = clock;
+    }
+
+    /**
+     * Whether the product exists, from the cache or else from Product Service. A failed lookup is not cached and
+     * its exception reaches the caller. Two concurrent misses for the same product may both ask Product Service.
+     */
+    public boolean exists(Long productId) {
+        long now = clock.millis();
+        synchronized (entries) {
+            Entry entry = entries.get(productId);
+            if (entry != null && entry.expiresAtMillis() > now) {
+                logger.debug("Product existence cache hit for productId {}: {}", productId, entry.exists());
+                return entry.exists();
+            }
+            if (entry != null) {
+                entries.remove(productId);
+            }
+        }
+        logger.debug("Product existence cache miss for productId {}", productId);
+
+        List<Long> existing = productClient.getExistingProductIds(List.of(productId));
+        boolean exists = existing != null && existing.contains(productId);
+        long expiresAt = clock.millis() + (exists ? ttl : negativeTtl).toMillis();
+        synchronized (entries) {
+            entries.put(productId, new Entry(exists, expiresAt));
+            Iterator<Map.Entry<Long, Entry>> eldest = entries.entrySet().iterator();
+            while (entries.size() > maxEntries && eldest.hasNext()) {
+                eldest.next();
+                eldest.remove();
+            }
+        }
+        return exists;
+    }
+
+    // Forgets the cached answer, e.g. when the product's stock is deleted because the product itself was.
+    public void evict(Long productId) {
+        synchronized (entries) {
+            entries.remove(productId);
+        }
+    }
+
+    int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package com.project.stock_service.service;
+
+import com.project.stock_service.dto.StockMovementSummaryDto;
+import com.project.stock_service.exception.InvalidInputException;
+import com.project.stock_service.model.StockMovement;
+import com.project.stock_service.model.StockSnapshot;
+import com.project.stock_service.repository.StockMovementRepository;
+import com.project.stock_service.repository.StockSnapshotRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeSet;
+
+/**
+ * Append-only journal of stock movements with periodic per-product snapshots. Every quantity change in
+ * StockServiceImpl is recorded here in the same transaction as the change itself. The balance at a time T
+ * is the latest snapshot before T plus the movements recorded between the two, so history queries scan one
+ * snapshot and a short tail instead of replaying the journal. Times are half-open: a snapshot or balance
+ * "at T" counts movements created before T.
+ */
+@Service
+public class StockLedger {
+
+    private static final Logger logger = LoggerFactory.getLogger(StockLedger.class);
+
+    public static final String REASON_OPENING = "OPENING"; // Stock that existed before the journal (V3 migration)
+    public static final String REASON_INITIAL = "INITIAL";
+    public static final String REASON_SET = "SET";
+    public static final String REASON_ADJUSTMENT = "ADJUSTMENT";
+    public static final String REASON_INCREMENT = "INCREMENT";
+    public static final String REASON_DECREMENT = "DECREMENT";
+    public static final String REASON_RESERVATION = "RESERVATION";
+    public static final String REASON_DELETED = "DELETED";
+
+    // Before any movement; the roll-forward starting point when there is no snapshot yet.
+    private static final LocalDateTime LEDGER_START = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    @Autowired
+    private StockMovementRepository movementRepository;
+
+    @Autowired
+    private StockSnapshotRepository snapshotRepository;
+
+    // Snapshots must be at least this old, so movements still being committed around the cutoff are included.
+    @Value("${stock.snapshot.min-age:PT5M}")
+    private Duration snapshotMinAge = Duration.ofMinutes(5);
+
+    /**
+     * Appends a movement; call it inside the transaction that changes the stock row. A null or blank reason
+     * falls back to defaultReason. Zero deltas are not recorded.
+     */
+    public void record(Long productId, int delta, String reason, String defaultReason, String referenceId) {
+        if (delta == 0) {
+            return;
+        }
+        String journalReason = reasonOrDefault(reason, defaultReason);
+        validateLabels(journalReason, referenceId);
+        movementRepository.save(new StockMovement(productId, delta, journalReason, referenceId, LocalDateTime.now()));
+        logger.debug("Recorded stock movement for productId {}: {} ({}, ref {})", productId, delta, journalReason, referenceId);
+    }
+
+    // Appends movements recorded elsewhere first, e.g. hot-SKU changes replayed from their local journal.
+    public void recordAll(List<StockMovement> movements) {
+        movementRepository.saveAll(movements);
+        logger.debug("Recorded {} stock movements", movements.size());
+    }
+
+    /**
+     * Whether the newest movement of referenceId on the product took units away, i.e. the reference still holds
+     * them. A later movement that gives them back under the same reference (a release) clears it again.
+     */
+    public boolean holdsReservation(Long productId, String referenceId) {
+        return movementRepository.findFirstByProductIdAndReferenceIdOrderByMovementIdDesc(productId, referenceId)
+                .map(movement -> movement.getDelta() < 0)
+                .orElse(false);
+    }
+
+    // The reason as journaled: trimmed and upper-cased, or defaultReason when none was given.
+    public String reasonOrDefault(String reason, String defaultReason) {
+        return reason == null || reason.isBlank() ? defaultReason : reason.trim().toUpperCase();
+    }
+
+    /**
+     * Checks caller-supplied reason and reference labels against the journal column sizes, so a bad label is
+     * rejected before the stock row is changed rather than failing the write afterwards.
+     */
+    public void validateLabels(String reason, String referenceId) {
+        if (reason != null && reason.trim().length() > 32) {
+            throw new InvalidInputException("Stock movement reason must be at most 32 characters.");
+        }
+        if (referenceId != null && referenceId.length() > 64) {
+            throw new InvalidInputException("Stock movement reference ID must be at most 64 characters.");
+        }
+    }
+
+    // Quantity of one product at the given time: its row in the latest snapshot before then, plus the tail.
+    @Transactional(readOnly = true)
+    public long balanceAt(Long productId, LocalDateTime at) {
+        Optional<LocalDateTime> snapshotAt = snapshotRepository.findLatestSnapshotAtOrBefore(at);
+        long base = snapshotAt
+                .flatMap(time -> snapshotRepository.findBySnapshotAtAndProductId(time, productId))
+                .map(StockSnapshot::getQuantity)
+                .orElse(0);
+        return base + movementRepository.sumDeltaForProduct(productId, snapshotAt.orElse(LEDGER_START), at);
+    }
+
+    // Quantity of every product with a non-zero balance at the given time, from one snapshot read and one tail query.
+    @Transactional(readOnly = true)
+    public Map<Long, Long> balancesAt(LocalDateTime at) {
+        Optional<LocalDateTime> snapshotAt = snapshotRepository.findLatestSnapshotAtOrBefore(at);
+        Map<Long, Long> balances = new HashMap<>();
+        snapshotAt.ifPresent(time -> snapshotRepository.findBySnapshotAt(time)
+                .forEach(row -> balances.put(row.getProductId(), (long) row.getQuantity())));
+        for (Object[] row : movementRepository.sumDeltaByProduct(snapshotAt.orElse(LEDGER_START), at)) {
+            balances.merge((Long) row[0], ((Number) row[1]).longValue(), Long::sum);
+        }
+        balances.values().removeIf(quantity -> quantity == 0);
+        return balances;
+    }
+
+    /**
+     * Opening balance, units added, units removed and closing balance per product for the inclusive date range.
+     * A null startDate means from the beginning of the journal, a null endDate means up to now. Products that
+     * had no stock at the start and did not move during the range are left out.
+     */
+    @Transactional(readOnly = true)
+    public List<StockMovementSummaryDto> summarize(LocalDate startDate, LocalDate endDate) {
+        if (startDate != null && endDate != null && endDate.isBefore(startDate)) {
+            throw new InvalidInputException("End date cannot be before the start date.");
+        }
+        LocalDateTime from = startDate != null ? startDate.atStartOfDay() : LEDGER_START;
+        LocalDateTime to = endDate != null ? endDate.plusDays(1).atStartOfDay() : LocalDateTime.now();
+
+        Map<Long, Long> opening = startDate != null ? balancesAt(from) : Map.of();
+        Map<Long, long[]> moved = new HashMap<>();
+        for (Object[] row : movementRepository.sumAddedAndRemovedByProduct(from, to)) {
+            moved.put((Long) row[0], new long[]{((Number) row[1]).longValue(), ((Number) row[2]).longValue()});
+        }
+
+        TreeSet<Long> productIds = new TreeSet<>(opening.keySet());
+        productIds.addAll(moved.keySet());
+        List<StockMovementSummaryDto> summary = new ArrayList<>(productIds.size());
+        for (Long productId : productIds) {
+            long openingQuantity = opening.getOrDefault(productId, 0L);
+            long[] addedRemoved = moved.getOrDefault(productId, new long[2]);
+            summary.add(new StockMovementSummaryDto(productId, openingQuantity, addedRemoved[0], addedRemoved[1],
+                    openingQuantity + addedRemoved[0] - addedRemoved[1]));
+        }
+        logger.info("Summarized stock movements for {} products between {} and {}.", summary.size(), from, to);
+        return summary;
+    }
+
+    /**
+     * Writes the snapshot at snapshotAt by rolling the previous one forward. Taking a snapshot that already
+     * exists is a no-op; snapshots must be later than the latest one and at least stock.snapshot.min-age old.
+     * Returns the number of product rows written.
+     */
+    @Transactional
+    public int takeSnapshot(LocalDateTime snapshotAt) {
+        if (snapshotAt.isAfter(LocalDateTime.now().minus(snapshotMinAge))) {
+            throw new InvalidInputException("Stock snapshots must be at least " + snapshotMinAge + " old, got " + snapshotAt + ".");
+        }
+        Optional<LocalDateTime> previous = snapshotRepository.findLatestSnapshotAt();
+        if (previous.isPresent() && !snapshotAt.isAfter(previous.get())) {
+            if (snapshotAt.equals(previous.get())) {
+                logger.info("Stock snapshot at {} already exists.", snapshotAt);
+                return 0;
+            }
+            throw new InvalidInputException("Stock snapshot at " + snapshotAt + " is not after the latest snapshot at " + previous.get() + ".");
+        }
+        int rows = snapshotRepository.insertRolledForward(previous.orElse(LEDGER_START), snapshotAt);
+        logger.info("Took stock snapshot at {} for {} products (rolled forward from {}).", snapshotAt, rows, previous.orElse(null));
+        return rows;
+    }
+
+    // Daily snapshot at midnight, taken shortly afterwards. Called on this bean directly, so takeSnapshot's
+    // checks and the insert (transactional in the repository) run in separate transactions.
+    @Scheduled(cron = "${stock.snapshot.cron:0 10 0 * * *}")
+    public void takeDailySnapshot() {
+        try {
+            takeSnapshot(LocalDate.now().atStartOfDay());
+        } catch (RuntimeException e) {
+            logger.error("Daily stock snapshot failed: {}", e.getMessage(), e);
+        }
+    }
+}
@@ -1,4 +1,6 @@
 package com.project.stock_service.service;
+import com.project.stock_service.dto.StockReservationDto;
+import com.project.stock_service.dto.StockReservationResultDto;
 import com.project.stock_service.model.Stock;
 import java.util.List;
 
@@ -7,5 +9,11 @@ public interface StockService {
     Stock updateStock(Long productId, Stock stock);
     void deleteStock(Long productId);
     List<Stock> getAllStock();
+    List<Stock> getStocksByProductIds(List<Long> productIds);
     Stock getStockByProductId(Long productId);
+    Stock decrementStock(Long productId, int amount, String reason, String referenceId);
+    Stock incrementStock(Long productId, int amount, String reason, String referenceId);
+    Stock releaseReservation(Long productId, int amount, String reason, String referenceId);
+    Stock adjustStock(Long productId, int quantityDelta, Integer reorderLevel, String reason, String referenceId);
+    List<StockReservationResultDto> decrementStockBatch(List<StockReservationDto> reservations);
 }
@@ -1,31 +1,67 @@
 package com.project.stock_service.service;
 
+import com.project.stock_service.exception.InsufficientStockException;
 import com.project.stock_service.exception.InvalidInputException;
 import com.project.stock_service.exception.ResourceNotFoundException;
 import com.project.stock_service.exception.StockAlreadyExistsException;
+import com.project.stock_service.exception.StockVersionConflictException;
 import com.project.stock_service.model.Stock;
 import com.project.stock_service.repository.StockRepository;
-import com.project.stock_service.feignclient.ProductClient; // Import the new Feign client
-import com.project.stock_service.dto.ProductDto; // Import the ProductDto
+import com.project.stock_service.dto.StockReservationDto;
+import com.project.stock_service.dto.StockReservationResultDto;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class StockServiceImpl implements StockService {
 
     private static final Logger logger = LoggerFactory.getLogger(StockServiceImpl.class);
 
+    // Primary keys per findAllById call in getStocksByProductIds.
+    private static final int BATCH_LOOKUP_SIZE = 1000;
+
     @Autowired
     private StockRepository stockRepository;
 
+    // Answers product existence for addStock/updateStock locally, asking Product Service only on a miss.
+    @Autowired
+    private ProductExistenceCache productExistenceCache;
+
     @Autowired
-    private ProductClient productClient; // Inject the ProductClient
+    private StockLedger stockLedger;
+
+    // Serves products in hot-SKU mode from memory; empty results mean "not hot, use the database".
+    @Autowired
+    private HotStockEngine hotStockEngine;
+
+    // Wraps a stock write and its journal entry where the method itself is not transactional,
+    // so no connection is held during Product Service calls or between adjustStock retries.
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    // Optimistic attempts per adjustStock call, and the base of the jittered pause between them.
+    @Value("${stock.adjust.max-attempts:50}")
+    private int adjustMaxAttempts;
+
+    @Value("${stock.adjust.backoff-ms:2}")
+    private long adjustBackoffMs;
 
     @Override
     public Stock addStock(Stock stock) {
@@ -37,8 +73,7 @@ public class StockServiceImpl implements StockService {
 
         // --- NEW VALIDATION: Check if product exists in Product Service ---
         try {
-            Optional<ProductDto> productDto = productClient.getProductById(stock.getProductId());
-            if (productDto.isEmpty()) {
+            if (!productExistenceCache.exists(stock.getProductId())) {
                 logger.error("Product with ID {} not found in Product Service. Cannot add stock.", stock.getProductId());
                 throw new InvalidInputException("Product with ID " + stock.getProductId() + " does not exist.");
             }
@@ -56,7 +91,12 @@ public class StockServiceImpl implements StockService {
             throw new StockAlreadyExistsException("Stock item with Product ID " + stock.getProductId() + " already exists.");
         }
 
-        Stock saved = stockRepository.save(stock);
+        stock.setVersion(null); // A new row starts at version 0
+        Stock saved = transactionTemplate.execute(status -> {
+            Stock created = stockRepository.save(stock);
+            stockLedger.record(created.getProductId(), created.getQuantity(), null, StockLedger.REASON_INITIAL, null);
+            return created;
+        });
         logger.info("Stock added successfully: {}", saved);
         return saved;
     }
@@ -68,10 +108,10 @@ public class StockServiceImpl implements StockService {
             logger.error("Path productId {} does not match request body productId {}.", productId, stockDetails.getProductId());
             throw new InvalidInputException("Product ID in path (" + productId + ") does not match Product ID in request body (" + stockDetails.getProductId() + ").");
         }
+        rejectIfHot(productId, "updated");
 
         try {
-            Optional<ProductDto> productDto = productClient.getProductById(productId); // Validate the productId being updated
-            if (productDto.isEmpty()) {
+            if (!productExistenceCache.exists(productId)) { // Validate the productId being updated
                 logger.error("Product with ID {} not found in Product Service for update. Cannot update stock.", productId);
                 throw new ResourceNotFoundException("Product with ID " + productId + " does not exist. Cannot update stock.");
             }
@@ -83,44 +123,343 @@ public class StockServiceImpl implements StockService {
         // --- END NEW VALIDATION ---
 
 
-        Stock existingStock = stockRepository.findById(productId)
-                .orElseThrow(() -> {
-                    logger.error("Stock not found for productId during update: {}", productId);
-                    return new ResourceNotFoundException("Stock item not found with Product ID: " + productId);
-                });
+        if (stockDetails.getVersion() == null) {
+            if (!stockRepository.existsById(productId)) {
+                logger.error("Stock not found for productId during update: {}", productId);
+                throw new ResourceNotFoundException("Stock item not found with Product ID: " + productId);
+            }
+            logger.warn("Stock update for productId {} did not carry a version.", productId);
+            throw new InvalidInputException("Stock updates must include the version they were read at (Product ID " + productId + ").");
+        }
 
-        logger.debug("Found existing stock: {}", existingStock);
+        // Compare-and-set: only applies if nobody has written the row since the caller read it. The row is read
+        // first so the journal can record the change in quantity, in the same transaction as the write.
+        Stock updated = transactionTemplate.execute(status -> {
+            Stock current = stockRepository.findById(productId)
+                    .orElseThrow(() -> {
+                        logger.error("Stock not found for productId during update: {}", productId);
+                        return new ResourceNotFoundException("Stock item not found with Product ID: " + productId);
+                    });
+            if (!stockDetails.getVersion().equals(current.getVersion())
+                    || stockRepository.updateIfVersion(productId, stockDetails.getQuantity(), stockDetails.getReorderLevel(), stockDetails.getVersion()) == 0) {
+                Long currentVersion = stockRepository.findById(productId).map(Stock::getVersion).orElse(null);
+                logger.warn("Stock update for productId {} expected version {} but found {}.", productId, stockDetails.getVersion(), currentVersion);
+                throw new StockVersionConflictException("Stock for Product ID " + productId + " was changed concurrently (expected version "
+                        + stockDetails.getVersion() + ", current " + currentVersion + ").", currentVersion);
+            }
+            stockLedger.record(productId, stockDetails.getQuantity() - current.getQuantity(), null, StockLedger.REASON_SET, null);
+            return new Stock(productId, stockDetails.getQuantity(), stockDetails.getReorderLevel(), current.getVersion() + 1);
+        });
+        logger.info("Stock updated successfully for productId {}: {}", productId, updated);
+        return updated;
+    }
 
-        existingStock.setQuantity(stockDetails.getQuantity());
-        existingStock.setReorderLevel(stockDetails.getReorderLevel());
+    /**
+     * Applies a signed quantity change and/or a new reorder level with optimistic retries: read the row, compute the
+     * new values, write them only if the version is unchanged, and on a lost race re-read and try again after a short
+     * jittered pause. No lock is held between attempts. After adjustMaxAttempts lost races the conflict is returned to
+     * the caller (409) with the current version. Plain increments and decrements use the single-statement paths instead.
+     */
+    @Override
+    public Stock adjustStock(Long productId, int quantityDelta, Integer reorderLevel, String reason, String referenceId) {
+        logger.debug("Attempting to adjust stock for productId {} by {} (reorder level {})", productId, quantityDelta, reorderLevel);
+        if (quantityDelta == 0 && reorderLevel == null) {
+            throw new InvalidInputException("Stock adjustment for Product ID " + productId + " changes nothing.");
+        }
+        if (reorderLevel != null && reorderLevel < 0) {
+            throw new InvalidInputException("Reorder level must not be negative, got " + reorderLevel + ".");
+        }
+        stockLedger.validateLabels(reason, referenceId);
+        rejectIfHot(productId, "adjusted");
+        int maxAttempts = Math.max(1, adjustMaxAttempts);
+        for (int attempt = 1; ; attempt++) {
+            Stock current = getStockByProductId(productId);
+            int newQuantity = current.getQuantity() + quantityDelta;
+            if (newQuantity < 0) {
+                logger.warn("Insufficient stock for productId {} to remove {} units.", productId, -quantityDelta);
+                throw new InsufficientStockException("Insufficient stock for Product ID " + productId + " to remove " + (-quantityDelta) + " units.");
+            }
+            int newReorderLevel = reorderLevel != null ? reorderLevel : current.getReorderLevel();
+            // The write and its journal entry commit together; nothing is held between attempts.
+            Boolean written = transactionTemplate.execute(status -> {
+                if (stockRepository.updateIfVersion(productId, newQuantity, newReorderLevel, current.getVersion()) == 0) {
+                    return false;
+                }
+                stockLedger.record(productId, quantityDelta, reason, StockLedger.REASON_ADJUSTMENT, referenceId);
+                return true;
+            });
+            if (Boolean.TRUE.equals(written)) {
+                Stock updated = new Stock(productId, newQuantity, newReorderLevel, current.getVersion() + 1);
+                logger.info("Stock adjusted for productId {} by {} after {} attempt(s). New quantity: {}", productId, quantityDelta, attempt, newQuantity);
+                return updated;
+            }
+            if (attempt >= maxAttempts) {
+                Long currentVersion = stockRepository.findById(productId).map(Stock::getVersion).orElse(null);
+                logger.warn("Giving up adjusting stock for productId {} after {} conflicting attempts.", productId, attempt);
+                throw new StockVersionConflictException("Stock for Product ID " + productId + " kept changing concurrently; gave up after "
+                        + attempt + " attempts.", currentVersion);
+            }
+            pauseBeforeRetry(attempt);
+        }
+    }
 
-        Stock updated = stockRepository.save(existingStock);
-        logger.info("Stock updated successfully for productId {}: {}", productId, updated);
+    // Random pause of up to adjustBackoffMs x attempt (capped at 8), so retrying writers spread out instead of colliding again.
+    private void pauseBeforeRetry(int attempt) {
+        long maxPauseMs = adjustBackoffMs * Math.min(attempt, 8);
+        if (maxPauseMs <= 0) {
+            Thread.onSpinWait();
+            return;
+        }
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(maxPauseMs + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while retrying a stock adjustment.", e);
+        }
+    }
+
+    /**
+     * Hot products are served from memory; everything else is one conditional UPDATE plus its journal entry.
+     * A decrement with a referenceId is applied at most once while that reference holds units of the product, so
+     * a caller retrying after a lost response (e.g. an order fulfilment timing out) does not reserve twice; the
+     * repeat returns the current stock. Once the units are released under the same reference it applies again.
+     */
+    @Override
+    public Stock decrementStock(Long productId, int amount, String reason, String referenceId) {
+        logger.debug("Attempting to decrement stock for productId {} by {}", productId, amount);
+        validateAdjustmentAmount(amount);
+        stockLedger.validateLabels(reason, referenceId);
+
+        Optional<Stock> hot = hotStockEngine.reserveOnce(productId, amount, reason, StockLedger.REASON_DECREMENT, referenceId);
+        if (hot.isPresent()) {
+            logger.debug("Hot stock decremented for productId {} by {}. New quantity: {}", productId, amount, hot.get().getQuantity());
+            return hot.get();
+        }
+        Stock updated = transactionTemplate.execute(status -> {
+            if (referenceId != null) {
+                // Lock the row first, so a repeat racing the original waits for it and then sees its movement
+                List<Stock> locked = stockRepository.findAllForUpdate(List.of(productId));
+                if (!locked.isEmpty() && stockLedger.holdsReservation(productId, referenceId)) {
+                    logger.info("Reference {} already holds stock of productId {}; not decrementing again.", referenceId, productId);
+                    return locked.get(0);
+                }
+            }
+            int updatedRows = stockRepository.decrementQuantity(productId, amount);
+            if (updatedRows == 0) {
+                if (!stockRepository.existsById(productId)) {
+                    logger.warn("Stock not found for productId during decrement: {}", productId);
+                    throw new ResourceNotFoundException("Stock item not found with Product ID: " + productId);
+                }
+                logger.warn("Insufficient stock for productId {} to remove {} units.", productId, amount);
+                throw new InsufficientStockException("Insufficient stock for Product ID " + productId + " to remove " + amount + " units.");
+            }
+            stockLedger.record(productId, -amount, reason, StockLedger.REASON_DECREMENT, referenceId);
+            return getStockByProductId(productId);
+        });
+        logger.info("Stock decremented for productId {} by {}. New quantity: {}", productId, amount, updated.getQuantity());
         return updated;
     }
 
     @Override
+    public Stock incrementStock(Long productId, int amount, String reason, String referenceId) {
+        logger.debug("Attempting to increment stock for productId {} by {}", productId, amount);
+        validateAdjustmentAmount(amount);
+        stockLedger.validateLabels(reason, referenceId);
+
+        Optional<Stock> hot = hotStockEngine.release(productId, amount, reason, StockLedger.REASON_INCREMENT, referenceId);
+        if (hot.isPresent()) {
+            logger.debug("Hot stock incremented for productId {} by {}. New quantity: {}", productId, amount, hot.get().getQuantity());
+            return hot.get();
+        }
+        Stock updated = transactionTemplate.execute(status -> {
+            int updatedRows = stockRepository.incrementQuantity(productId, amount);
+            if (updatedRows == 0) {
+                logger.warn("Stock not found for productId during increment: {}", productId);
+                throw new ResourceNotFoundException("Stock item not found with Product ID: " + productId);
+            }
+            stockLedger.record(productId, amount, reason, StockLedger.REASON_INCREMENT, referenceId);
+            return getStockByProductId(productId);
+        });
+        logger.info("Stock incremented for productId {} by {}. New quantity: {}", productId, amount, updated.getQuantity());
+        return updated;
+    }
+
+    /**
+     * Gives back units reserved under referenceId, at most once: only while the reference's newest movement on the
+     * product is a reservation. Otherwise (never reserved, or already released) the stock is returned unchanged,
+     * so a caller that cannot tell whether its reservation went through can always release it.
+     */
+    @Override
+    public Stock releaseReservation(Long productId, int amount, String reason, String referenceId) {
+        logger.debug("Attempting to release reservation {} of productId {} ({} units)", referenceId, productId, amount);
+        validateAdjustmentAmount(amount);
+        if (referenceId == null || referenceId.isBlank()) {
+            throw new InvalidInputException("A referenceId is required to release a reservation.");
+        }
+        stockLedger.validateLabels(reason, referenceId);
+
+        Optional<Stock> hot = hotStockEngine.releaseOnce(productId, amount, reason, StockLedger.REASON_INCREMENT, referenceId);
+        if (hot.isPresent()) {
+            return hot.get();
+        }
+        Stock released = transactionTemplate.execute(status -> {
+            List<Stock> locked = stockRepository.findAllForUpdate(List.of(productId));
+            if (locked.isEmpty()) {
+                logger.warn("Stock not found for productId during release: {}", productId);
+                throw new ResourceNotFoundException("Stock item not found with Product ID: " + productId);
+            }
+            if (!stockLedger.holdsReservation(productId, referenceId)) {
+                logger.info("Reference {} holds no stock of productId {}; nothing to release.", referenceId, productId);
+                return locked.get(0);
+            }
+            stockRepository.incrementQuantity(productId, amount);
+            stockLedger.record(productId, amount, reason, StockLedger.REASON_INCREMENT, referenceId);
+            return getStockByProductId(productId);
+        });
+        logger.info("Released reservation {} of productId {}. Quantity now: {}", referenceId, productId, released.getQuantity());
+        return released;
+    }
+
+    /**
+     * Reserves stock for many lines at once. Lines for hot products are reserved in memory; the rows for the
+     * rest are locked with one query and allocated in request order, so each line is reserved or rejected on
+     * its own and the changed rows are written back when the transaction commits. Results are returned in
+     * request order.
+     */
+    @Override
+    public List<StockReservationResultDto> decrementStockBatch(List<StockReservationDto> reservations) {
+        logger.debug("Attempting to reserve stock for {} lines", reservations.size());
+        reservations.forEach(reservation -> stockLedger.validateLabels(reservation.getReason(), reservation.getReferenceId()));
+        StockReservationResultDto[] results = new StockReservationResultDto[reservations.size()];
+        List<Integer> databaseLines = new ArrayList<>(reservations.size());
+        for (int line = 0; line < reservations.size(); line++) {
+            StockReservationDto reservation = reservations.get(line);
+            if (reservation.getQuantity() <= 0 || !hotStockEngine.isHot(reservation.getProductId())) {
+                databaseLines.add(line);
+                continue;
+            }
+            try {
+                if (hotStockEngine.reserve(reservation.getProductId(), reservation.getQuantity(), reservation.getReason(),
+                        StockLedger.REASON_RESERVATION, reservation.getReferenceId()).isPresent()) {
+                    results[line] = new StockReservationResultDto(reservation.getProductId(), reservation.getQuantity(), true, null);
+                } else {
+                    databaseLines.add(line); // Left hot-SKU mode meanwhile
+                }
+            } catch (InsufficientStockException e) {
+                results[line] = new StockReservationResultDto(reservation.getProductId(), reservation.getQuantity(), false, e.getMessage());
+            }
+        }
+        if (!databaseLines.isEmpty()) {
+            transactionTemplate.execute(status -> {
+                reserveFromDatabase(reservations, databaseLines, results);
+                return null;
+            });
+        }
+        long reservedLines = Arrays.stream(results).filter(StockReservationResultDto::isReserved).count();
+        logger.info("Reserved stock for {} of {} lines ({} from hot-SKU counters).", reservedLines, reservations.size(),
+                reservations.size() - databaseLines.size());
+        return Arrays.asList(results);
+    }
+
+    // The database part of decrementStockBatch; runs in one transaction holding the row locks.
+    private void reserveFromDatabase(List<StockReservationDto> reservations, List<Integer> lines, StockReservationResultDto[] results) {
+        Set<Long> productIds = lines.stream()
+                .map(line -> reservations.get(line).getProductId())
+                .filter(productId -> productId != null)
+                .collect(Collectors.toSet());
+        Map<Long, Stock> stocksById = productIds.isEmpty() ? Map.of() : stockRepository.findAllForUpdate(productIds).stream()
+                .collect(Collectors.toMap(Stock::getProductId, Function.identity()));
+
+        for (int line : lines) {
+            StockReservationDto reservation = reservations.get(line);
+            Long productId = reservation.getProductId();
+            int amount = reservation.getQuantity();
+            Stock stock = productId != null ? stocksById.get(productId) : null;
+            String message = null;
+            if (amount <= 0) {
+                message = "Stock adjustment quantity must be positive, got " + amount + ".";
+            } else if (stock == null) {
+                message = "Stock item not found with Product ID: " + productId;
+            } else if (stock.getQuantity() < amount) {
+                message = "Insufficient stock for Product ID " + productId + " to remove " + amount + " units.";
+            } else {
+                stock.setQuantity(stock.getQuantity() - amount);
+                stockLedger.record(productId, -amount, reservation.getReason(), StockLedger.REASON_RESERVATION, reservation.getReferenceId());
+            }
+            results[line] = new StockReservationResultDto(productId, amount, message == null, message);
+        }
+    }
+
+    // PUT, adjust and delete work on the stock row, which trails the in-memory counter while a product is hot.
+    private void rejectIfHot(Long productId, String action) {
+        if (hotStockEngine.isHot(productId)) {
+            logger.warn("Stock for productId {} cannot be {} while it is in hot-SKU mode.", productId, action);
+            throw new InvalidInputException("Stock for Product ID " + productId + " is in hot-SKU mode and cannot be " + action
+                    + "; take it out with DELETE /api/stocks/" + productId + "/hot first.");
+        }
+    }
+
+    private void validateAdjustmentAmount(int amount) {
+        if (amount <= 0) {
+            logger.error("Invalid stock adjustment amount: {}", amount);
+            throw new InvalidInputException("Stock adjustment quantity must be positive, got " + amount + ".");
+        }
+    }
+
+    @Override
+    @Transactional
     public void deleteStock(Long productId) {
         logger.debug("Attempting to delete stock for productId: {}", productId);
-        if (!stockRepository.existsById(productId)) {
-            logger.warn("Attempted to delete non-existent stock for productId: {}", productId);
-            throw new ResourceNotFoundException("Stock item not found with Product ID: " + productId + ". Cannot delete.");
-        }
+        rejectIfHot(productId, "deleted");
+        Stock stock = stockRepository.findById(productId)
+                .orElseThrow(() -> {
+                    logger.warn("Attempted to delete non-existent stock for productId: {}", productId);
+                    return new ResourceNotFoundException("Stock item not found with Product ID: " + productId + ". Cannot delete.");
+                });
         stockRepository.deleteById(productId);
+        stockLedger.record(productId, -stock.getQuantity(), null, StockLedger.REASON_DELETED, null); // Journal balance back to zero
+        productExistenceCache.evict(productId); // Product Service deletes stock when it deletes the product
         logger.info("Stock deleted for productId: {}", productId);
     }
 
     @Override
     public List<Stock> getAllStock() {
         logger.debug("Attempting to retrieve all stocks");
-        List<Stock> stocks = stockRepository.findAll();
+        List<Stock> stocks = withHotQuantities(stockRepository.findAll());
         logger.info("Retrieved {} stocks.", stocks.size());
         return stocks;
     }
 
+    /**
+     * Stock rows for the given products, looked up by primary key in chunks of BATCH_LOOKUP_SIZE IDs so no single
+     * IN list grows unbounded. Duplicate and null IDs are ignored; products without a stock row are simply absent.
+     */
+    @Override
+    public List<Stock> getStocksByProductIds(List<Long> productIds) {
+        List<Long> ids = productIds.stream().filter(Objects::nonNull).distinct().toList();
+        logger.debug("Attempting to retrieve stock for {} productIds", ids.size());
+        List<Stock> stocks = new ArrayList<>(ids.size());
+        for (int from = 0; from < ids.size(); from += BATCH_LOOKUP_SIZE) {
+            stocks.addAll(stockRepository.findAllById(ids.subList(from, Math.min(from + BATCH_LOOKUP_SIZE, ids.size()))));
+        }
+        logger.info("Retrieved {} stocks for {} requested productIds.", stocks.size(), ids.size());
+        return withHotQuantities(stocks);
+    }
+
+    // Rows for hot products trail their counters, so those are replaced by the live values.
+    private List<Stock> withHotQuantities(List<Stock> stocks) {
+        return stocks.stream()
+                .map(stock -> hotStockEngine.getStock(stock.getProductId()).orElse(stock))
+                .toList();
+    }
+
     @Override
     public Stock getStockByProductId(Long productId) {
         logger.debug("Attempting to retrieve stock by productId: {}", productId);
+        Optional<Stock> hot = hotStockEngine.getStock(productId);
+        if (hot.isPresent()) {
+            return hot.get();
+        }
         Stock stock = stockRepository.findById(productId)
                 .orElseThrow(() -> {
                     logger.warn("No stock found for productId during retrieval: {}", productId);
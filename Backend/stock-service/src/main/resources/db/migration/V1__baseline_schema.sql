@@ -0,0 +1,10 @@
+-- Schema as previously created by Hibernate (ddl-auto=update). IF NOT EXISTS lets this run against
+-- databases that already have the table; Flyway is configured to baseline them at version 0.
+-- Every stock query looks rows up by product_id, which is the primary key, so no secondary indexes are needed.
+
+CREATE TABLE IF NOT EXISTS stock (
+    product_id    BIGINT NOT NULL,
+    quantity      INT    NOT NULL,
+    reorder_level INT    NOT NULL,
+    PRIMARY KEY (product_id)
+) ENGINE=InnoDB;
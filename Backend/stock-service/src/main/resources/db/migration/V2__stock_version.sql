@@ -0,0 +1,2 @@
+-- Optimistic locking for Stock (@Version): conditional writes compare and bump this column.
+ALTER TABLE stock ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
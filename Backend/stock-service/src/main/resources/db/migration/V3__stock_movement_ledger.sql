@@ -0,0 +1,31 @@
+-- Append-only journal of every stock quantity change, plus periodic per-product balance snapshots.
+-- The balance at time T is the latest snapshot at or before T plus the deltas recorded since, so
+-- balance queries scan one snapshot and a short tail rather than replaying the whole journal.
+
+CREATE TABLE stock_movement (
+    movement_id  BIGINT       NOT NULL AUTO_INCREMENT,
+    product_id   BIGINT       NOT NULL,
+    delta        INT          NOT NULL,
+    reason       VARCHAR(32)  NOT NULL,
+    reference_id VARCHAR(64)  NULL,
+    created_at   DATETIME(6)  NOT NULL,
+    PRIMARY KEY (movement_id)
+) ENGINE=InnoDB;
+
+-- Per-product tail since a snapshot (balance of one product as of a time).
+CREATE INDEX idx_movement_product_time ON stock_movement (product_id, created_at, delta);
+-- Covers the grouped "added/removed per product in a time range" query and snapshot roll-forward.
+CREATE INDEX idx_movement_time_product ON stock_movement (created_at, product_id, delta);
+
+-- Balance of each product at snapshot_at, counting movements created strictly before it.
+-- Zero balances are not stored: a product without a row at a snapshot had nothing in stock then.
+CREATE TABLE stock_snapshot (
+    snapshot_at DATETIME(6) NOT NULL,
+    product_id  BIGINT      NOT NULL,
+    quantity    INT         NOT NULL,
+    PRIMARY KEY (snapshot_at, product_id)
+) ENGINE=InnoDB;
+
+-- Opening entries, so existing stock is part of the journal.
+INSERT INTO stock_movement (product_id, delta, reason, reference_id, created_at)
+SELECT product_id, quantity, 'OPENING', NULL, CURRENT_TIMESTAMP(6) FROM stock WHERE quantity <> 0;
@@ -0,0 +1,9 @@
+-- Write-behind checkpoint for hot-SKU mode: the last local journal sequence whose changes are already in the
+-- stock and stock_movement tables. It is updated in the same transaction as each flush, so recovery after a
+-- crash replays exactly the journal entries after it.
+CREATE TABLE hot_stock_checkpoint (
+    journal_name  VARCHAR(64) NOT NULL,
+    last_sequence BIGINT      NOT NULL,
+    updated_at    DATETIME(6) NOT NULL,
+    PRIMARY KEY (journal_name)
+) ENGINE=InnoDB;
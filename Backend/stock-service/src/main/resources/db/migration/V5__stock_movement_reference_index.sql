@@ -0,0 +1,2 @@
+-- Newest movement per reference and product, so a decrement carrying a reference ID can be applied at most once.
+CREATE INDEX idx_movement_reference ON stock_movement (reference_id, product_id, movement_id);
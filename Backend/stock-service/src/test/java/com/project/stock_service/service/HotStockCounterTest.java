@@ -0,0 +1,105 @@
+package com.project.stock_service.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HotStockCounterTest {
+
+    @Test
+    @DisplayName("tryReserve should pool the stripes when no single stripe covers the amount, and refuse more than the total")
+    void tryReserve_shouldDecideAgainstTheTotal() {
+        // Arrange: 10 units over 4 stripes (3, 3, 2, 2)
+        HotStockCounter counter = new HotStockCounter(10, 4);
+
+        // Act & Assert
+        assertTrue(counter.tryReserve(0, 9));
+        assertEquals(1, counter.available());
+        assertFalse(counter.tryReserve(0, 2));
+        assertEquals(1, counter.available());
+        assertTrue(counter.tryReserve(3, 1));
+        assertEquals(0, counter.available());
+    }
+
+    @Test
+    @DisplayName("Concurrent reservations should take exactly the available units and never go below zero")
+    void tryReserve_shouldNeverOversellUnderContention() throws Exception {
+        // Arrange
+        HotStockCounter counter = new HotStockCounter(1_000, 8);
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+
+        // Act: 16 threads try to take 500 units each, one at a time
+        List<Future<Integer>> futures = new ArrayList<>();
+        for (int t = 0; t < 16; t++) {
+            futures.add(executor.submit(() -> {
+                int taken = 0;
+                for (int i = 0; i < 500; i++) {
+                    int stripe = counter.enter();
+                    try {
+                        if (counter.tryReserve(stripe, 1)) {
+                            taken++;
+                        }
+                    } finally {
+                        counter.exit(stripe);
+                    }
+                }
+                return taken;
+            }));
+        }
+        int taken = 0;
+        for (Future<Integer> future : futures) {
+            taken += future.get();
+        }
+        executor.shutdownNow();
+
+        // Assert
+        assertEquals(1_000, taken);
+        assertEquals(0, counter.available());
+    }
+
+    @Test
+    @DisplayName("close should wait for operations in progress and turn new ones away until reopened")
+    void close_shouldWaitForOperationsInProgress() throws Exception {
+        // Arrange
+        HotStockCounter counter = new HotStockCounter(5, 2);
+        int stripe = counter.enter();
+
+        // Act
+        CompletableFuture<Void> closing = CompletableFuture.runAsync(counter::close);
+
+        // Assert
+        assertThrows(TimeoutException.class, () -> closing.get(100, TimeUnit.MILLISECONDS));
+        counter.exit(stripe);
+        closing.get(5, TimeUnit.SECONDS);
+        assertEquals(-1, counter.enter());
+        counter.reopen();
+        assertTrue(counter.enter() >= 0);
+    }
+
+    @Test
+    @DisplayName("adjust should apply a correction; a negative total blocks reservations until releases cover it")
+    void adjust_shouldApplyCorrections() {
+        // Arrange
+        HotStockCounter counter = new HotStockCounter(5, 4);
+
+        // Act & Assert
+        counter.adjust(-8);
+        assertEquals(-3, counter.available());
+        assertFalse(counter.tryReserve(1, 1));
+        counter.release(2, 4);
+        assertTrue(counter.tryReserve(1, 1));
+        assertEquals(0, counter.available());
+        counter.adjust(6);
+        assertEquals(6, counter.available());
+    }
+}
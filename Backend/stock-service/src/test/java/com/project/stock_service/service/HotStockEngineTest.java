@@ -0,0 +1,320 @@
+package com.project.stock_service.service;
+
+import com.project.stock_service.exception.InsufficientStockException;
+import com.project.stock_service.feignclient.ProductClient;
+import com.project.stock_service.model.Stock;
+import com.project.stock_service.repository.StockRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Hot-SKU mode end to end against the Flyway schema on an in-memory H2 database in MySQL mode: reservations under
+ * contention, write-behind flushes, crash recovery from the local journal and hand-back to the database paths.
+ * Also compares contended decrement throughput of the hot-SKU counter with the single-statement row-lock path;
+ * that comparison runs only with -Pbenchmark.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:stock-hot;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.datasource.hikari.maximum-pool-size=" + HotStockEngineTest.THREADS,
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false",
+        "logging.level.org.hibernate.SQL=INFO",
+        "logging.level.org.hibernate.type.descriptor.sql=INFO",
+        "stock.hot.enabled=true",
+        "stock.hot.journal-fsync=false",
+        "stock.hot.flush-interval-ms=3600000", // Tests flush explicitly
+        "stock.snapshot.min-age=PT0S"}) // Lets a test snapshot while changes are still unflushed
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({StockServiceImpl.class, StockLedger.class, HotStockEngine.class, ProductExistenceCache.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // Every service call commits on its own, as in production
+class HotStockEngineTest {
+
+    static final int THREADS = 16;
+
+    @TempDir
+    static Path journalDirectory;
+
+    @DynamicPropertySource
+    static void journalProperties(DynamicPropertyRegistry registry) {
+        registry.add("stock.hot.journal-dir", () -> journalDirectory.toString());
+    }
+
+    @Autowired
+    private StockService stockService;
+
+    @Autowired
+    private HotStockEngine hotStockEngine;
+
+    @Autowired
+    private StockRepository stockRepository;
+
+    @Autowired
+    private StockLedger stockLedger;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockitoBean
+    private ProductClient productClient; // Not consulted by the paths under test
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM stock");
+        jdbcTemplate.update("DELETE FROM stock_movement");
+        jdbcTemplate.update("DELETE FROM stock_snapshot");
+    }
+
+    @AfterEach
+    void tearDown() {
+        hotStockEngine.getHotStocks().forEach(stock -> hotStockEngine.disable(stock.getProductId()));
+    }
+
+    @Test
+    @DisplayName("Concurrent decrements of a hot product should take exactly the available units and reach the row on flush")
+    void decrement_shouldNeverOversellUnderContention() throws Exception {
+        // Arrange
+        stockRepository.save(new Stock(1L, 1_000, 10));
+        hotStockEngine.enable(1L);
+        AtomicInteger refused = new AtomicInteger();
+
+        // Act: 2,000 single-unit decrements for 1,000 units
+        run(2_000, i -> {
+            try {
+                stockService.decrementStock(1L, 1, null, null);
+            } catch (InsufficientStockException e) {
+                refused.incrementAndGet();
+            }
+        });
+
+        // Assert
+        assertEquals(1_000, refused.get());
+        assertEquals(0, stockService.getStockByProductId(1L).getQuantity());
+        assertEquals(1_000, stockRepository.findById(1L).orElseThrow().getQuantity()); // Not flushed yet
+        hotStockEngine.flushAll();
+        assertEquals(0, stockRepository.findById(1L).orElseThrow().getQuantity());
+        assertEquals(-1_000, stockLedger.balanceAt(1L, LocalDateTime.now().plusSeconds(1))); // Row was seeded directly
+    }
+
+    @Test
+    @DisplayName("flush should write the net change per product, one movement per change and the journal checkpoint")
+    void flush_shouldWriteChangesMovementsAndCheckpoint() {
+        // Arrange
+        stockRepository.save(new Stock(2L, 50, 5));
+        hotStockEngine.enable(2L);
+        stockService.decrementStock(2L, 3, "order", "order-1");
+        stockService.incrementStock(2L, 10, "restock", null);
+
+        // Act
+        int flushed = hotStockEngine.flushAll();
+
+        // Assert
+        assertEquals(2, flushed);
+        assertEquals(0, hotStockEngine.flushAll());
+        Stock row = stockRepository.findById(2L).orElseThrow();
+        assertEquals(57, row.getQuantity());
+        assertEquals(1, row.getVersion()); // One signed update for both changes
+        assertEquals(List.of("ORDER:order-1:-3", "RESTOCK:null:10"), jdbcTemplate.queryForList(
+                "SELECT CONCAT(reason, ':', COALESCE(reference_id, 'null'), ':', delta) FROM stock_movement WHERE product_id = 2 ORDER BY movement_id",
+                String.class));
+        Long checkpoint = jdbcTemplate.queryForObject("SELECT last_sequence FROM hot_stock_checkpoint", Long.class);
+        assertTrue(checkpoint >= 2);
+    }
+
+    @Test
+    @DisplayName("A restart should replay exactly the journaled changes that had not been flushed before the crash")
+    void restart_shouldReplayOnlyUnflushedChanges() {
+        // Arrange
+        stockRepository.save(new Stock(3L, 20, 2));
+        hotStockEngine.enable(3L);
+        stockService.decrementStock(3L, 2, null, null);
+        stockService.decrementStock(3L, 2, null, null);
+        hotStockEngine.flushAll();
+        stockService.decrementStock(3L, 5, null, "order-9");
+
+        // Act: crash with the last change journaled but not flushed, then restart twice
+        hotStockEngine.halt();
+        assertEquals(16, stockRepository.findById(3L).orElseThrow().getQuantity());
+        hotStockEngine.start();
+        int rowAfterFirstRestart = stockRepository.findById(3L).orElseThrow().getQuantity();
+        hotStockEngine.halt();
+        hotStockEngine.start();
+
+        // Assert
+        assertEquals(11, rowAfterFirstRestart);
+        assertEquals(11, stockRepository.findById(3L).orElseThrow().getQuantity());
+        assertEquals(3, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM stock_movement WHERE product_id = 3", Integer.class));
+        assertFalse(hotStockEngine.isHot(3L)); // Only stock.hot.product-ids come back hot
+    }
+
+    @Test
+    @DisplayName("Changes replayed after a snapshot taken during the outage should still count in the ledger balance")
+    void restart_shouldKeepReplayedChangesAfterSnapshotInLedger() {
+        // Arrange: one flushed change, one journaled before the crash, and a snapshot taken while it was unflushed
+        stockRepository.save(new Stock(13L, 20, 2));
+        hotStockEngine.enable(13L);
+        stockService.decrementStock(13L, 2, null, null);
+        hotStockEngine.flushAll();
+        stockService.decrementStock(13L, 5, null, "order-13");
+        hotStockEngine.halt();
+        stockLedger.takeSnapshot(LocalDateTime.now());
+
+        // Act
+        hotStockEngine.start();
+
+        // Assert
+        assertEquals(13, stockRepository.findById(13L).orElseThrow().getQuantity());
+        assertEquals(-7, stockLedger.balanceAt(13L, LocalDateTime.now().plusSeconds(1)));
+    }
+
+    @Test
+    @DisplayName("flush should carry a change made to the row outside hot-SKU mode over to the counter")
+    void flush_shouldReconcileRowChangedOutsideHotMode() {
+        // Arrange
+        stockRepository.save(new Stock(4L, 100, 10));
+        hotStockEngine.enable(4L);
+        stockService.decrementStock(4L, 10, null, null);
+        hotStockEngine.flushAll();
+        jdbcTemplate.update("UPDATE stock SET quantity = quantity + 50, version = version + 1 WHERE product_id = 4");
+        stockService.decrementStock(4L, 1, null, null);
+
+        // Act
+        hotStockEngine.flushAll();
+
+        // Assert
+        assertEquals(139, stockRepository.findById(4L).orElseThrow().getQuantity());
+        assertEquals(139, stockService.getStockByProductId(4L).getQuantity());
+    }
+
+    @Test
+    @DisplayName("disable should flush pending changes and hand the product back to the database paths")
+    void disable_shouldFlushAndHandBack() {
+        // Arrange
+        stockRepository.save(new Stock(5L, 10, 1));
+        hotStockEngine.enable(5L);
+        stockService.decrementStock(5L, 4, null, null);
+
+        // Act
+        Stock handedBack = hotStockEngine.disable(5L);
+        stockService.decrementStock(5L, 1, null, null);
+
+        // Assert
+        assertEquals(6, handedBack.getQuantity());
+        assertFalse(hotStockEngine.isHot(5L));
+        assertEquals(5, stockRepository.findById(5L).orElseThrow().getQuantity()); // Written straight to the row
+    }
+
+    @Test
+    @DisplayName("A repeated referenced decrement of a hot product should reserve once, before and after a flush")
+    void decrement_shouldApplyEachReferenceOnceWhenHot() {
+        // Arrange
+        stockRepository.save(new Stock(6L, 10, 1));
+        hotStockEngine.enable(6L);
+
+        // Act
+        stockService.decrementStock(6L, 2, "order", "order-5");
+        stockService.decrementStock(6L, 2, "order", "order-5"); // Still unflushed
+        hotStockEngine.flushAll();
+        stockService.decrementStock(6L, 2, "order", "order-5"); // Decided from stock_movement
+        int afterRepeats = stockService.getStockByProductId(6L).getQuantity();
+        stockService.incrementStock(6L, 2, "order_release", "order-5");
+        stockService.decrementStock(6L, 2, "order", "order-5");
+        hotStockEngine.flushAll();
+
+        // Assert
+        assertEquals(8, afterRepeats);
+        assertEquals(8, stockRepository.findById(6L).orElseThrow().getQuantity());
+        assertEquals(3, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM stock_movement WHERE product_id = 6", Integer.class));
+    }
+
+    @Test
+    @DisplayName("releaseReservation should give a hot product's units back once, and only for references that hold some")
+    void releaseReservation_shouldApplyOnlyWhileReferenceHoldsUnitsWhenHot() {
+        // Arrange
+        stockRepository.save(new Stock(12L, 10, 1));
+        hotStockEngine.enable(12L);
+        stockService.decrementStock(12L, 3, "order", "order-8");
+
+        // Act
+        stockService.releaseReservation(12L, 3, "order_release", "order-8");
+        stockService.releaseReservation(12L, 3, "order_release", "order-8"); // Still unflushed
+        hotStockEngine.flushAll();
+        stockService.releaseReservation(12L, 3, "order_release", "order-8"); // Decided from stock_movement
+        stockService.releaseReservation(12L, 3, "order_release", "order-9"); // Never reserved
+        hotStockEngine.flushAll();
+
+        // Assert
+        assertEquals(10, stockService.getStockByProductId(12L).getQuantity());
+        assertEquals(10, stockRepository.findById(12L).orElseThrow().getQuantity());
+        assertEquals(2, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM stock_movement WHERE product_id = 12", Integer.class));
+    }
+
+    @Test
+    @Tag("benchmark")
+    @DisplayName("Contended decrements: hot-SKU counter versus the single-statement row-lock path")
+    void decrementThroughput_hotCounterVersusRowLock() throws Exception {
+        // Arrange
+        int operations = 4_000;
+        stockRepository.save(new Stock(10L, 1_000_000, 10));
+        stockRepository.save(new Stock(11L, 1_000_000, 10));
+        hotStockEngine.enable(11L);
+
+        // Act
+        double rowLockOpsPerSecond = run(operations, i -> stockService.decrementStock(10L, 1, null, null));
+        double hotOpsPerSecond = run(operations, i -> stockService.decrementStock(11L, 1, null, null));
+        hotStockEngine.flushAll();
+
+        // Assert
+        assertTrue(hotOpsPerSecond > rowLockOpsPerSecond,
+                "Hot-SKU counter should outrun the row-lock path: " + hotOpsPerSecond + " vs " + rowLockOpsPerSecond + " ops/s");
+        assertEquals(1_000_000 - operations, stockRepository.findById(10L).orElseThrow().getQuantity());
+        assertEquals(1_000_000 - operations, stockRepository.findById(11L).orElseThrow().getQuantity());
+    }
+
+    // Runs the operation the given number of times on THREADS threads and returns operations per second.
+    private static double run(int operations, IntConsumer operation) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            long start = System.nanoTime();
+            List<Future<?>> futures = new ArrayList<>(operations);
+            for (int i = 0; i < operations; i++) {
+                int n = i;
+                futures.add(executor.submit(() -> operation.accept(n)));
+            }
+            for (Future<?> future : futures) {
+                future.get(); // Rethrows any failed operation
+            }
+            return operations / ((System.nanoTime() - start) / 1e9);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
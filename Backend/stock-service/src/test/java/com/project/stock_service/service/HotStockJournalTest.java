@@ -0,0 +1,92 @@
+package com.project.stock_service.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HotStockJournalTest {
+
+    @TempDir
+    private Path directory;
+
+    private final List<HotStockJournal.Entry> durable = new CopyOnWriteArrayList<>();
+
+    @Test
+    @DisplayName("append should number changes in order, hand them on once written and read them back")
+    void append_shouldWriteEntriesThatReadBack() throws Exception {
+        // Arrange
+        HotStockJournal journal = new HotStockJournal(directory, 1, true, 1 << 20, durable::add);
+
+        // Act
+        HotStockJournal.Entry first = journal.append(1L, -2, "ORDER", "order-7").join();
+        HotStockJournal.Entry second = journal.append(1L, 5, "INCREMENT", null).join();
+        journal.close();
+
+        // Assert
+        assertEquals(1, first.sequence());
+        assertEquals(2, second.sequence());
+        assertEquals(List.of(first, second), durable);
+        assertEquals(List.of(first, second), HotStockJournal.readAll(directory));
+    }
+
+    @Test
+    @DisplayName("readAll should stop at a record torn by a crash, and reopening should carry on after the intact ones")
+    void readAll_shouldIgnoreTornTail() throws Exception {
+        // Arrange
+        HotStockJournal journal = new HotStockJournal(directory, 1, false, 1 << 20, durable::add);
+        for (int i = 0; i < 3; i++) {
+            journal.append(2L, -1, "ORDER", null).join();
+        }
+        journal.close();
+        Files.write(segments().get(0), new byte[]{0, 0, 0, 40, 1, 2, 3}, StandardOpenOption.APPEND); // Half a record
+
+        // Act
+        List<HotStockJournal.Entry> recovered = HotStockJournal.readAll(directory);
+        HotStockJournal reopened = new HotStockJournal(directory, 4, false, 1 << 20, durable::add);
+        reopened.append(2L, 1, "INCREMENT", null).join();
+        reopened.close();
+
+        // Assert
+        assertEquals(List.of(1L, 2L, 3L), recovered.stream().map(HotStockJournal.Entry::sequence).toList());
+        assertEquals(List.of(1L, 2L, 3L, 4L), HotStockJournal.readAll(directory).stream().map(HotStockJournal.Entry::sequence).toList());
+    }
+
+    @Test
+    @DisplayName("checkpoint should delete only segments whose changes are all flushed, never the one being written")
+    void checkpoint_shouldDeleteFlushedSegments() throws Exception {
+        // Arrange: a 1-byte segment size rolls to a new segment after every write
+        HotStockJournal journal = new HotStockJournal(directory, 1, false, 1, durable::add);
+        for (int i = 0; i < 3; i++) {
+            journal.append(3L, -1, "ORDER", null).join();
+        }
+        assertEquals(4, segments().size()); // Segments starting at 1, 2, 3 and the empty current one at 4
+
+        // Act
+        journal.checkpoint(2);
+        List<Path> afterFirst = segments();
+        journal.checkpoint(10);
+        List<Path> afterSecond = segments();
+        journal.close();
+
+        // Assert
+        assertEquals(2, afterFirst.size());
+        assertEquals(1, afterSecond.size());
+        assertTrue(afterSecond.get(0).getFileName().toString().contains("00000000000000000004"));
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.sorted().toList();
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.project.stock_service.service;
+
+import com.project.stock_service.feignclient.ProductClient;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProductExistenceCacheTest {
+
+    @Mock
+    private ProductClient productClient;
+
+    private final MutableClock clock = new MutableClock();
+    private ProductExistenceCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new ProductExistenceCache(productClient, Duration.ofSeconds(300), Duration.ofSeconds(10), 2, clock);
+    }
+
+    @Test
+    @DisplayName("exists should ask Product Service once and answer from the cache until the TTL runs out")
+    void exists_shouldCacheExistingProductsForTtl() {
+        // Arrange
+        when(productClient.getExistingProductIds(List.of(1L))).thenReturn(List.of(1L));
+
+        // Act & Assert
+        assertTrue(cache.exists(1L));
+        clock.advance(Duration.ofSeconds(299));
+        assertTrue(cache.exists(1L));
+        verify(productClient, times(1)).getExistingProductIds(List.of(1L));
+
+        clock.advance(Duration.ofSeconds(1));
+        assertTrue(cache.exists(1L));
+        verify(productClient, times(2)).getExistingProductIds(List.of(1L));
+    }
+
+    @Test
+    @DisplayName("exists should cache a missing product only for the negative TTL")
+    void exists_shouldCacheMissingProductsForNegativeTtl() {
+        // Arrange: product 2 is created in Product Service after the first lookup
+        when(productClient.getExistingProductIds(List.of(2L))).thenReturn(List.of(), List.of(2L));
+
+        // Act & Assert
+        assertFalse(cache.exists(2L));
+        assertFalse(cache.exists(2L));
+        verify(productClient, times(1)).getExistingProductIds(List.of(2L));
+
+        clock.advance(Duration.ofSeconds(10));
+        assertTrue(cache.exists(2L));
+        verify(productClient, times(2)).getExistingProductIds(List.of(2L));
+    }
+
+    @Test
+    @DisplayName("A failed lookup should reach the caller and not be cached")
+    void exists_shouldNotCacheFailures() {
+        // Arrange
+        when(productClient.getExistingProductIds(List.of(3L)))
+                .thenThrow(new RuntimeException("Connection refused"))
+                .thenReturn(List.of(3L));
+
+        // Act & Assert
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> cache.exists(3L));
+        assertEquals("Connection refused", exception.getMessage());
+        assertEquals(0, cache.size());
+        assertTrue(cache.exists(3L));
+    }
+
+    @Test
+    @DisplayName("The cache should evict least-recently-used entries beyond max-entries, and evict on request")
+    void exists_shouldStayBoundedAndSupportEviction() {
+        // Arrange
+        when(productClient.getExistingProductIds(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        cache.exists(1L);
+        cache.exists(2L);
+        cache.exists(1L); // 2 is now least recently used
+
+        // Act
+        cache.exists(3L);
+        cache.evict(3L);
+
+        // Assert
+        assertEquals(1, cache.size());
+        cache.exists(1L);
+        verify(productClient, times(1)).getExistingProductIds(List.of(1L));
+        cache.exists(2L);
+        cache.exists(3L);
+        verify(productClient, times(2)).getExistingProductIds(List.of(2L));
+        verify(productClient, times(2)).getExistingProductIds(List.of(3L));
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant now = Instant.parse("2026-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.project.stock_service.service;
+
+import com.project.stock_service.feignclient.ProductClient;
+import com.project.stock_service.model.Stock;
+import com.project.stock_service.repository.StockRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntConsumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Fires thousands of parallel stock changes at a single productId and checks that none is lost.
+ * Runs against the Flyway schema on an in-memory H2 database in MySQL mode, once through the optimistic
+ * adjustStock path (read, compare-and-set on version, retry) and once through the single-statement
+ * increment/decrement path. Those two take most of a minute, so they run only with -Pbenchmark; their throughput
+ * is published as a JUnit report entry and carried in the assertion messages.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:stock-concurrency;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.datasource.hikari.maximum-pool-size=" + StockConcurrencyTest.THREADS,
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false",
+        "logging.level.org.hibernate.SQL=INFO",
+        "logging.level.org.hibernate.type.descriptor.sql=INFO",
+        "stock.adjust.max-attempts=10000",
+        "stock.adjust.backoff-ms=1"})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({StockServiceImpl.class, StockLedger.class, HotStockEngine.class, ProductExistenceCache.class}) // Hot-SKU mode stays off (stock.hot.enabled)
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // Every service call commits on its own, as in production
+class StockConcurrencyTest {
+
+    static final int THREADS = 16;
+    private static final int OPERATIONS = 4_000; // Half add 3 units, half remove 2
+    private static final int REPEATS = 200; // Copies of one referenced reservation
+    private static final int INITIAL_QUANTITY = 10_000;
+    private static final int EXPECTED_QUANTITY = INITIAL_QUANTITY + (OPERATIONS / 2) * 3 - (OPERATIONS / 2) * 2;
+
+    @Autowired
+    private StockService stockService;
+
+    @Autowired
+    private StockRepository stockRepository;
+
+    @Autowired
+    private StockLedger stockLedger;
+
+    @MockitoBean
+    private ProductClient productClient; // Not consulted by the paths under test
+
+    @Test
+    @Tag("benchmark")
+    @DisplayName("adjustStock should apply every concurrent change exactly once via optimistic retries")
+    void adjustStock_shouldNotLoseUpdatesUnderContention(TestReporter reporter) throws Exception {
+        // Arrange
+        stockRepository.save(new Stock(1L, INITIAL_QUANTITY, 10));
+
+        // Act
+        String throughput = throughput(reporter, "adjustStock (optimistic retry)",
+                run(OPERATIONS, i -> stockService.adjustStock(1L, i % 2 == 0 ? 3 : -2, null, null, null)));
+
+        // Assert
+        Stock result = stockRepository.findById(1L).orElseThrow();
+        assertEquals(EXPECTED_QUANTITY, result.getQuantity(), throughput);
+        assertEquals(OPERATIONS, result.getVersion(), throughput); // One committed write per operation, no more
+        // The row was seeded directly, so the journal holds exactly the net of the concurrent changes
+        assertEquals(EXPECTED_QUANTITY - INITIAL_QUANTITY, stockLedger.balanceAt(1L, LocalDateTime.now().plusSeconds(1)), throughput);
+    }
+
+    @Test
+    @Tag("benchmark")
+    @DisplayName("incrementStock/decrementStock should apply every concurrent change exactly once")
+    void incrementAndDecrement_shouldNotLoseUpdatesUnderContention(TestReporter reporter) throws Exception {
+        // Arrange
+        stockRepository.save(new Stock(2L, INITIAL_QUANTITY, 10));
+
+        // Act
+        String throughput = throughput(reporter, "increment/decrementStock (single statement)", run(OPERATIONS, i -> {
+            if (i % 2 == 0) {
+                stockService.incrementStock(2L, 3, null, null);
+            } else {
+                stockService.decrementStock(2L, 2, null, null);
+            }
+        }));
+
+        // Assert
+        Stock result = stockRepository.findById(2L).orElseThrow();
+        assertEquals(EXPECTED_QUANTITY, result.getQuantity(), throughput);
+        assertEquals(OPERATIONS, result.getVersion(), throughput);
+        assertEquals(EXPECTED_QUANTITY - INITIAL_QUANTITY, stockLedger.balanceAt(2L, LocalDateTime.now().plusSeconds(1)), throughput);
+    }
+
+    @Test
+    @DisplayName("Concurrent repeats of a referenced decrementStock should reserve once, and again only after a release")
+    void decrementStock_shouldApplyEachReferenceOnce() throws Exception {
+        // Arrange
+        stockRepository.save(new Stock(3L, 100, 10));
+
+        // Act: the same order's reservation sent REPEATS times, as retries after lost responses would
+        run(REPEATS, i -> stockService.decrementStock(3L, 5, "order", "order-77"));
+        int afterRepeats = stockRepository.findById(3L).orElseThrow().getQuantity();
+        stockService.incrementStock(3L, 5, "order_release", "order-77");
+        stockService.decrementStock(3L, 5, "order", "order-77");
+        stockService.decrementStock(3L, 5, "order", "order-78");
+
+        // Assert
+        assertEquals(95, afterRepeats);
+        assertEquals(90, stockRepository.findById(3L).orElseThrow().getQuantity());
+        assertEquals(-10, stockLedger.balanceAt(3L, LocalDateTime.now().plusSeconds(1)));
+    }
+
+    @Test
+    @DisplayName("Concurrent releases of a reservation should give the units back once, and nothing for unknown references")
+    void releaseReservation_shouldApplyOnlyWhileReferenceHoldsUnits() throws Exception {
+        // Arrange
+        stockRepository.save(new Stock(4L, 100, 10));
+        stockService.decrementStock(4L, 5, "order", "order-90");
+
+        // Act: the rejected order's release sent REPEATS times, plus one for an order that never reserved
+        run(REPEATS, i -> stockService.releaseReservation(4L, 5, "order_release", "order-90"));
+        stockService.releaseReservation(4L, 5, "order_release", "order-91");
+
+        // Assert
+        assertEquals(100, stockRepository.findById(4L).orElseThrow().getQuantity());
+        assertEquals(0, stockLedger.balanceAt(4L, LocalDateTime.now().plusSeconds(1)));
+    }
+
+    // Runs the operations on THREADS threads and returns the throughput in operations per second.
+    private static double run(int operations, IntConsumer operation) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            long start = System.nanoTime();
+            List<Future<?>> futures = new ArrayList<>(operations);
+            for (int i = 0; i < operations; i++) {
+                int n = i;
+                futures.add(executor.submit(() -> operation.accept(n)));
+            }
+            for (Future<?> future : futures) {
+                future.get(); // Rethrows any failed operation
+            }
+            return operations / ((System.nanoTime() - start) / 1e9);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static String throughput(TestReporter reporter, String label, double opsPerSecond) {
+        String throughput = String.format("%s: %d operations on %d threads, %.0f ops/s", label, OPERATIONS, THREADS, opsPerSecond);
+        reporter.publishEntry(label, String.format("%.0f ops/s", opsPerSecond));
+        return throughput;
+    }
+}
@@ -0,0 +1,132 @@
+package com.project.stock_service.service;
+
+import com.project.stock_service.dto.StockMovementSummaryDto;
+import com.project.stock_service.exception.InvalidInputException;
+import com.project.stock_service.model.StockMovement;
+import com.project.stock_service.repository.StockMovementRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Movement journal and snapshots against the Flyway schema on an in-memory H2 database in MySQL mode.
+ * Balances read through a snapshot must equal a full replay of the journal.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:stock-ledger;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false",
+        "logging.level.org.hibernate.SQL=INFO",
+        "logging.level.org.hibernate.type.descriptor.sql=INFO"})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(StockLedger.class)
+class StockLedgerTest {
+
+    private static final LocalDateTime MAY_1 = LocalDate.of(2024, 5, 1).atStartOfDay();
+    private static final LocalDateTime REPLAY_FROM = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    @Autowired
+    private StockLedger stockLedger;
+
+    @Autowired
+    private StockMovementRepository movementRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM stock_snapshot");
+        jdbcTemplate.update("DELETE FROM stock_movement");
+        // Product 1: +100 on Apr 20, -30 on May 1 10:00, +50 on May 3, -20 on May 10
+        // Product 2: +10 on Apr 25, -10 on Apr 28 (zero at the end of April), +5 on May 2
+        movement(1L, 100, "INITIAL", MAY_1.minusDays(11));
+        movement(1L, -30, "ORDER", MAY_1.plusHours(10));
+        movement(1L, 50, "RESTOCK", MAY_1.plusDays(2));
+        movement(1L, -20, "ORDER", MAY_1.plusDays(9));
+        movement(2L, 10, "INITIAL", MAY_1.minusDays(6));
+        movement(2L, -10, "ORDER", MAY_1.minusDays(3));
+        movement(2L, 5, "RESTOCK", MAY_1.plusDays(1));
+    }
+
+    @Test
+    @DisplayName("balanceAt should equal a full replay of the journal, with and without snapshots")
+    void balanceAt_shouldMatchFullReplay() {
+        // Act
+        int firstRows = stockLedger.takeSnapshot(MAY_1);
+        int secondRows = stockLedger.takeSnapshot(MAY_1.plusDays(5));
+
+        // Assert
+        assertEquals(1, firstRows); // Product 2 was at zero on May 1, so it has no row
+        assertEquals(2, secondRows);
+        for (LocalDateTime at : List.of(MAY_1.minusDays(1), MAY_1, MAY_1.plusHours(12), MAY_1.plusDays(5), MAY_1.plusDays(20))) {
+            for (Long productId : List.of(1L, 2L)) {
+                assertEquals(movementRepository.sumDeltaForProduct(productId, REPLAY_FROM, at), stockLedger.balanceAt(productId, at),
+                        "product " + productId + " at " + at);
+            }
+        }
+        assertEquals(70, stockLedger.balanceAt(1L, MAY_1.plusDays(1)));
+        assertEquals(100, stockLedger.balanceAt(1L, MAY_1.plusDays(20)));
+    }
+
+    @Test
+    @DisplayName("summarize should report opening, added, removed and closing per product for the range")
+    void summarize_shouldGroupMovementsPerProduct() {
+        // Arrange
+        stockLedger.takeSnapshot(MAY_1.minusDays(2));
+
+        // Act
+        List<StockMovementSummaryDto> summary = stockLedger.summarize(LocalDate.of(2024, 5, 1), LocalDate.of(2024, 5, 5));
+
+        // Assert
+        assertEquals(List.of(
+                new StockMovementSummaryDto(1L, 100, 50, 30, 120),
+                new StockMovementSummaryDto(2L, 0, 5, 0, 5)), summary);
+    }
+
+    @Test
+    @DisplayName("takeSnapshot should be idempotent and refuse snapshots earlier than the latest or too recent")
+    void takeSnapshot_shouldValidateSnapshotTime() {
+        // Arrange
+        stockLedger.takeSnapshot(MAY_1);
+
+        // Act & Assert
+        assertEquals(0, stockLedger.takeSnapshot(MAY_1));
+        assertThrows(InvalidInputException.class, () -> stockLedger.takeSnapshot(MAY_1.minusDays(1)));
+        assertThrows(InvalidInputException.class, () -> stockLedger.takeSnapshot(LocalDateTime.now()));
+    }
+
+    @Test
+    @DisplayName("record should default the reason, skip zero deltas and reject oversized labels")
+    void record_shouldNormaliseAndValidateLabels() {
+        // Act
+        stockLedger.record(3L, 4, null, StockLedger.REASON_INCREMENT, null);
+        stockLedger.record(3L, -1, " order ", StockLedger.REASON_DECREMENT, "order-7");
+        stockLedger.record(3L, 0, "noop", StockLedger.REASON_ADJUSTMENT, null);
+
+        // Assert
+        List<String> reasons = jdbcTemplate.queryForList(
+                "SELECT reason FROM stock_movement WHERE product_id = 3 ORDER BY movement_id", String.class);
+        assertEquals(List.of("INCREMENT", "ORDER"), reasons);
+        assertThrows(InvalidInputException.class, () -> stockLedger.record(3L, 1, "x".repeat(33), StockLedger.REASON_INCREMENT, null));
+        assertThrows(InvalidInputException.class, () -> stockLedger.record(3L, 1, null, StockLedger.REASON_INCREMENT, "x".repeat(65)));
+    }
+
+    private void movement(Long productId, int delta, String reason, LocalDateTime createdAt) {
+        movementRepository.save(new StockMovement(productId, delta, reason, null, createdAt));
+    }
+}
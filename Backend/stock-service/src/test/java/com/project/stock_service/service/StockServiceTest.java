@@ -1,12 +1,14 @@
 package com.project.stock_service.service;
 
+import com.project.stock_service.exception.InsufficientStockException;
 import com.project.stock_service.exception.InvalidInputException;
 import com.project.stock_service.exception.ResourceNotFoundException;
 import com.project.stock_service.exception.StockAlreadyExistsException;
+import com.project.stock_service.exception.StockVersionConflictException;
 import com.project.stock_service.model.Stock;
 import com.project.stock_service.repository.StockRepository;
-import com.project.stock_service.feignclient.ProductClient;
-import com.project.stock_service.dto.ProductDto;
+import com.project.stock_service.dto.StockReservationDto;
+import com.project.stock_service.dto.StockReservationResultDto;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -15,13 +17,21 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.LongStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -31,20 +41,31 @@ class StockServiceTest {
     private StockRepository stockRepository;
 
     @Mock
-    private ProductClient productClient; // Mock the Feign client
+    private ProductExistenceCache productExistenceCache; // Stands in for the Product Service lookup
+
+    @Mock
+    private StockLedger stockLedger;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private HotStockEngine hotStockEngine; // No product is hot unless a test says so
+
 
     @InjectMocks
     private StockServiceImpl stockService; // Inject the service to be tested
 
     private Stock stock1;
     private Stock stock2;
-    private ProductDto existingProductDto;
 
     @BeforeEach
     void setUp() {
         stock1 = new Stock(1L, 100, 10);
         stock2 = new Stock(2L, 50, 5);
-        existingProductDto = new ProductDto(1L, "Test Product", "Description", 99.99, 10, "url"); // Mock product data
+        // Run transactionTemplate callbacks inline
+        lenient().when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(mock(TransactionStatus.class)));
     }
 
     // --- addStock Tests ---
@@ -53,7 +74,7 @@ class StockServiceTest {
     @DisplayName("addStock should successfully add a new stock item when product exists and stock doesn't")
     void addStock_shouldAddStock_whenProductExistsAndStockDoesNotExist() {
         // Arrange
-        when(productClient.getProductById(stock1.getProductId())).thenReturn(Optional.of(existingProductDto)); // Product exists
+        when(productExistenceCache.exists(stock1.getProductId())).thenReturn(true); // Product exists
         when(stockRepository.existsById(stock1.getProductId())).thenReturn(false); // Stock does not exist
         when(stockRepository.save(any(Stock.class))).thenReturn(stock1); // Save returns the stock
 
@@ -66,9 +87,10 @@ class StockServiceTest {
         assertEquals(stock1.getQuantity(), result.getQuantity());
         assertEquals(stock1.getReorderLevel(), result.getReorderLevel());
 
-        verify(productClient, times(1)).getProductById(stock1.getProductId());
+        verify(productExistenceCache, times(1)).exists(stock1.getProductId());
         verify(stockRepository, times(1)).existsById(stock1.getProductId());
         verify(stockRepository, times(1)).save(stock1);
+        verify(stockLedger).record(1L, 100, null, StockLedger.REASON_INITIAL, null); // Opening journal entry
     }
 
     @Test
@@ -83,7 +105,7 @@ class StockServiceTest {
         );
 
         assertEquals("Product ID cannot be null for a new stock item.", exception.getMessage());
-        verifyNoInteractions(productClient); // Should not call product client
+        verifyNoInteractions(productExistenceCache); // Should not ask Product Service
         verifyNoInteractions(stockRepository); // Should not call repository
     }
 
@@ -91,7 +113,7 @@ class StockServiceTest {
     @DisplayName("addStock should throw StockAlreadyExistsException when stock with productId already exists")
     void addStock_shouldThrowStockAlreadyExistsException_whenStockAlreadyExists() {
         // Arrange
-        when(productClient.getProductById(stock1.getProductId())).thenReturn(Optional.of(existingProductDto)); // Product exists
+        when(productExistenceCache.exists(stock1.getProductId())).thenReturn(true); // Product exists
         when(stockRepository.existsById(stock1.getProductId())).thenReturn(true); // Stock already exists
 
         // Act & Assert
@@ -100,7 +122,7 @@ class StockServiceTest {
         );
 
         assertEquals("Stock item with Product ID " + stock1.getProductId() + " already exists.", exception.getMessage());
-        verify(productClient, times(1)).getProductById(stock1.getProductId());
+        verify(productExistenceCache, times(1)).exists(stock1.getProductId());
         verify(stockRepository, times(1)).existsById(stock1.getProductId());
         verify(stockRepository, never()).save(any(Stock.class)); // Should not save
     }
@@ -109,7 +131,7 @@ class StockServiceTest {
     @DisplayName("addStock should throw RuntimeException with InvalidInputException as cause when product does not exist in Product Service")
     void addStock_shouldThrowRuntimeException_whenProductDoesNotExistInProductService() {
         // Arrange
-        when(productClient.getProductById(stock1.getProductId())).thenReturn(Optional.empty()); // Product not found
+        when(productExistenceCache.exists(stock1.getProductId())).thenReturn(false); // Product not found
 
         // Act & Assert
         RuntimeException exception = assertThrows(RuntimeException.class, () ->
@@ -122,7 +144,7 @@ class StockServiceTest {
         assertTrue(exception.getCause() instanceof InvalidInputException);
         assertEquals("Product with ID " + stock1.getProductId() + " does not exist.", exception.getCause().getMessage());
 
-        verify(productClient, times(1)).getProductById(stock1.getProductId());
+        verify(productExistenceCache, times(1)).exists(stock1.getProductId());
         verify(stockRepository, never()).existsById(anyLong()); // Should not call existsById
         verify(stockRepository, never()).save(any(Stock.class)); // Should not save
     }
@@ -132,7 +154,7 @@ class StockServiceTest {
     void addStock_shouldThrowRuntimeException_whenProductClientCommunicationFails() {
         // Arrange
         // Simulate a Feign client exception (e.g., network error, service down)
-        when(productClient.getProductById(stock1.getProductId())).thenThrow(new RuntimeException("Connection refused"));
+        when(productExistenceCache.exists(stock1.getProductId())).thenThrow(new RuntimeException("Connection refused"));
 
         // Act & Assert
         RuntimeException exception = assertThrows(RuntimeException.class, () ->
@@ -144,7 +166,7 @@ class StockServiceTest {
         assertEquals("Connection refused", exception.getCause().getMessage());
 
 
-        verify(productClient, times(1)).getProductById(stock1.getProductId());
+        verify(productExistenceCache, times(1)).exists(stock1.getProductId());
         verify(stockRepository, never()).existsById(anyLong());
         verify(stockRepository, never()).save(any(Stock.class));
     }
@@ -156,10 +178,10 @@ class StockServiceTest {
     @DisplayName("updateStock should successfully update an existing stock item")
     void updateStock_shouldUpdateStockSuccessfully() {
         // Arrange
-        Stock updatedStockDetails = new Stock(1L, 150, 15);
-        when(productClient.getProductById(stock1.getProductId())).thenReturn(Optional.of(existingProductDto)); // Product exists
-        when(stockRepository.findById(stock1.getProductId())).thenReturn(Optional.of(stock1)); // Existing stock found
-        when(stockRepository.save(any(Stock.class))).thenReturn(updatedStockDetails); // Save returns updated stock
+        Stock updatedStockDetails = new Stock(1L, 150, 15, 3L); // Read at version 3
+        when(productExistenceCache.exists(stock1.getProductId())).thenReturn(true); // Product exists
+        when(stockRepository.findById(stock1.getProductId())).thenReturn(Optional.of(new Stock(1L, 100, 10, 3L)));
+        when(stockRepository.updateIfVersion(1L, 150, 15, 3L)).thenReturn(1); // Version still matches
 
         // Act
         Stock result = stockService.updateStock(stock1.getProductId(), updatedStockDetails);
@@ -169,10 +191,41 @@ class StockServiceTest {
         assertEquals(stock1.getProductId(), result.getProductId());
         assertEquals(updatedStockDetails.getQuantity(), result.getQuantity());
         assertEquals(updatedStockDetails.getReorderLevel(), result.getReorderLevel());
+        assertEquals(4L, result.getVersion());
 
-        verify(productClient, times(1)).getProductById(stock1.getProductId());
-        verify(stockRepository, times(1)).findById(stock1.getProductId());
-        verify(stockRepository, times(1)).save(stock1); // It saves the *modified* existing stock object
+        verify(productExistenceCache, times(1)).exists(stock1.getProductId());
+        verify(stockRepository, times(1)).updateIfVersion(1L, 150, 15, 3L);
+        verify(stockRepository, never()).save(any(Stock.class)); // No read-modify-write of the entity
+        verify(stockLedger).record(1L, 50, null, StockLedger.REASON_SET, null); // Journals 100 -> 150
+    }
+
+    @Test
+    @DisplayName("updateStock should throw StockVersionConflictException carrying the current version when the row changed")
+    void updateStock_shouldThrowConflict_whenVersionIsStale() {
+        // Arrange
+        Stock staleDetails = new Stock(1L, 150, 15, 3L);
+        when(productExistenceCache.exists(1L)).thenReturn(true);
+        when(stockRepository.findById(1L)).thenReturn(Optional.of(new Stock(1L, 90, 10, 5L))); // Someone else wrote first
+
+        // Act & Assert
+        StockVersionConflictException exception = assertThrows(StockVersionConflictException.class, () ->
+                stockService.updateStock(1L, staleDetails)
+        );
+        assertEquals(5L, exception.getCurrentVersion());
+        verify(stockRepository, never()).updateIfVersion(anyLong(), anyInt(), anyInt(), any());
+        verifyNoInteractions(stockLedger);
+    }
+
+    @Test
+    @DisplayName("updateStock should throw InvalidInputException when the body carries no version")
+    void updateStock_shouldThrowInvalidInputException_whenVersionMissing() {
+        // Arrange
+        when(productExistenceCache.exists(1L)).thenReturn(true);
+        when(stockRepository.existsById(1L)).thenReturn(true);
+
+        // Act & Assert
+        assertThrows(InvalidInputException.class, () -> stockService.updateStock(1L, new Stock(1L, 150, 15)));
+        verify(stockRepository, never()).updateIfVersion(anyLong(), anyInt(), anyInt(), any());
     }
 
     @Test
@@ -188,7 +241,7 @@ class StockServiceTest {
         );
 
         assertEquals("Product ID in path (" + pathProductId + ") does not match Product ID in request body (" + stockDetailsWithMismatch.getProductId() + ").", exception.getMessage());
-        verifyNoInteractions(productClient);
+        verifyNoInteractions(productExistenceCache);
         verifyNoInteractions(stockRepository);
     }
 
@@ -197,9 +250,9 @@ class StockServiceTest {
     void updateStock_shouldThrowResourceNotFoundException_whenStockNotFoundInRepository() {
         // Arrange
         Long nonExistentProductId = 99L;
-        Stock updatedStockDetails = new Stock(99L, 150, 15);
+        Stock updatedStockDetails = new Stock(99L, 150, 15, 0L);
         // Even if product exists, if stock isn't found later, it's a ResourceNotFound
-        when(productClient.getProductById(nonExistentProductId)).thenReturn(Optional.of(existingProductDto));
+        when(productExistenceCache.exists(nonExistentProductId)).thenReturn(true);
         when(stockRepository.findById(nonExistentProductId)).thenReturn(Optional.empty()); // Stock not found
 
         // Act & Assert
@@ -208,7 +261,7 @@ class StockServiceTest {
         );
 
         assertEquals("Stock item not found with Product ID: " + nonExistentProductId, exception.getMessage());
-        verify(productClient, times(1)).getProductById(nonExistentProductId);
+        verify(productExistenceCache, times(1)).exists(nonExistentProductId);
         verify(stockRepository, times(1)).findById(nonExistentProductId);
         verify(stockRepository, never()).save(any(Stock.class));
     }
@@ -217,7 +270,7 @@ class StockServiceTest {
     @DisplayName("updateStock should throw RuntimeException with ResourceNotFoundException as cause when product does not exist in Product Service")
     void updateStock_shouldThrowRuntimeException_whenProductDoesNotExistInProductService() {
         // Arrange
-        when(productClient.getProductById(stock1.getProductId())).thenReturn(Optional.empty()); // Product not found
+        when(productExistenceCache.exists(stock1.getProductId())).thenReturn(false); // Product not found
 
         // Act & Assert
         RuntimeException exception = assertThrows(RuntimeException.class, () ->
@@ -230,7 +283,7 @@ class StockServiceTest {
         assertTrue(exception.getCause() instanceof ResourceNotFoundException);
         assertEquals("Product with ID " + stock1.getProductId() + " does not exist. Cannot update stock.", exception.getCause().getMessage());
 
-        verify(productClient, times(1)).getProductById(stock1.getProductId());
+        verify(productExistenceCache, times(1)).exists(stock1.getProductId());
         verify(stockRepository, never()).findById(anyLong()); // Should not call findById
         verify(stockRepository, never()).save(any(Stock.class));
     }
@@ -239,7 +292,7 @@ class StockServiceTest {
     @DisplayName("updateStock should throw RuntimeException when Product Client communication fails")
     void updateStock_shouldThrowRuntimeException_whenProductClientFails() {
         // Arrange
-        when(productClient.getProductById(stock1.getProductId())).thenThrow(new RuntimeException("Service Unavailable"));
+        when(productExistenceCache.exists(stock1.getProductId())).thenThrow(new RuntimeException("Service Unavailable"));
 
         // Act & Assert
         RuntimeException exception = assertThrows(RuntimeException.class, () ->
@@ -250,7 +303,7 @@ class StockServiceTest {
         assertTrue(exception.getCause() instanceof RuntimeException);
         assertEquals("Service Unavailable", exception.getCause().getMessage());
 
-        verify(productClient, times(1)).getProductById(stock1.getProductId());
+        verify(productExistenceCache, times(1)).exists(stock1.getProductId());
         verify(stockRepository, never()).findById(anyLong());
         verify(stockRepository, never()).save(any(Stock.class));
     }
@@ -262,14 +315,16 @@ class StockServiceTest {
     @DisplayName("deleteStock should successfully delete an existing stock item")
     void deleteStock_shouldDeleteStockSuccessfully() {
         // Arrange
-        when(stockRepository.existsById(stock1.getProductId())).thenReturn(true);
+        when(stockRepository.findById(stock1.getProductId())).thenReturn(Optional.of(stock1));
 
         // Act
         stockService.deleteStock(stock1.getProductId());
 
         // Assert
-        verify(stockRepository, times(1)).existsById(stock1.getProductId());
+        verify(stockRepository, times(1)).findById(stock1.getProductId());
         verify(stockRepository, times(1)).deleteById(stock1.getProductId());
+        verify(stockLedger).record(1L, -100, null, StockLedger.REASON_DELETED, null); // Journal balance back to zero
+        verify(productExistenceCache).evict(stock1.getProductId());
     }
 
     @Test
@@ -277,7 +332,7 @@ class StockServiceTest {
     void deleteStock_shouldThrowResourceNotFoundException_whenStockNotFound() {
         // Arrange
         Long nonExistentProductId = 99L;
-        when(stockRepository.existsById(nonExistentProductId)).thenReturn(false);
+        when(stockRepository.findById(nonExistentProductId)).thenReturn(Optional.empty());
 
         // Act & Assert
         ResourceNotFoundException exception = assertThrows(ResourceNotFoundException.class, () ->
@@ -285,7 +340,7 @@ class StockServiceTest {
         );
 
         assertEquals("Stock item not found with Product ID: " + nonExistentProductId + ". Cannot delete.", exception.getMessage());
-        verify(stockRepository, times(1)).existsById(nonExistentProductId);
+        verify(stockRepository, times(1)).findById(nonExistentProductId);
         verify(stockRepository, never()).deleteById(anyLong()); // Should not attempt to delete
     }
 
@@ -324,6 +379,27 @@ class StockServiceTest {
         verify(stockRepository, times(1)).findAll();
     }
 
+    // --- getStocksByProductIds Tests ---
+
+    @Test
+    @DisplayName("getStocksByProductIds should look IDs up in chunks, ignoring duplicates and nulls")
+    void getStocksByProductIds_shouldChunkLookups() {
+        // Arrange: 1500 distinct IDs plus a duplicate and a null
+        List<Long> ids = new ArrayList<>(LongStream.rangeClosed(1, 1500).boxed().toList());
+        ids.add(1L);
+        ids.add(null);
+        when(stockRepository.findAllById(any())).thenReturn(List.of(stock1), List.of(stock2));
+
+        // Act
+        List<Stock> result = stockService.getStocksByProductIds(ids);
+
+        // Assert
+        assertEquals(List.of(stock1, stock2), result);
+        verify(stockRepository, times(1)).findAllById(LongStream.rangeClosed(1, 1000).boxed().toList());
+        verify(stockRepository, times(1)).findAllById(LongStream.rangeClosed(1001, 1500).boxed().toList());
+        verifyNoInteractions(productExistenceCache);
+    }
+
     // --- getStockByProductId Tests ---
 
     @Test
@@ -356,4 +432,218 @@ class StockServiceTest {
         assertEquals("Stock item not found with Product ID: " + nonExistentProductId, exception.getMessage());
         verify(stockRepository, times(1)).findById(nonExistentProductId);
     }
-}
\ No newline at end of file
+
+    // --- decrementStock / incrementStock Tests ---
+
+    @Test
+    @DisplayName("decrementStock should apply a single conditional update and return the new quantity")
+    void decrementStock_shouldReturnUpdatedStock_whenEnoughStock() {
+        // Arrange
+        when(stockRepository.decrementQuantity(1L, 30)).thenReturn(1);
+        when(stockRepository.findById(1L)).thenReturn(Optional.of(new Stock(1L, 70, 10)));
+
+        // Act
+        Stock result = stockService.decrementStock(1L, 30, "order", "42");
+
+        // Assert
+        assertEquals(70, result.getQuantity());
+        verify(stockRepository, times(1)).decrementQuantity(1L, 30);
+        verify(stockLedger).record(1L, -30, "order", StockLedger.REASON_DECREMENT, "42");
+        verify(stockRepository, never()).save(any(Stock.class)); // No read-modify-write
+        verifyNoInteractions(productExistenceCache); // No Product Service validation on the hot path
+    }
+
+    @Test
+    @DisplayName("decrementStock should not decrement again for a reference that already holds the product's stock")
+    void decrementStock_shouldReturnCurrentStock_whenReferenceAlreadyHoldsStock() {
+        // Arrange: the first call committed but its response was lost
+        when(stockRepository.findAllForUpdate(List.of(1L))).thenReturn(List.of(new Stock(1L, 70, 10, 1L)));
+        when(stockLedger.holdsReservation(1L, "42")).thenReturn(true);
+
+        // Act
+        Stock result = stockService.decrementStock(1L, 30, "order", "42");
+
+        // Assert
+        assertEquals(70, result.getQuantity());
+        verify(stockRepository, never()).decrementQuantity(anyLong(), anyInt());
+        verify(stockLedger, never()).record(anyLong(), anyInt(), any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("decrementStock should throw InsufficientStockException when the conditional update matches no row")
+    void decrementStock_shouldThrowInsufficientStockException_whenNotEnoughStock() {
+        // Arrange
+        when(stockRepository.decrementQuantity(1L, 500)).thenReturn(0);
+        when(stockRepository.existsById(1L)).thenReturn(true);
+
+        // Act & Assert
+        assertThrows(InsufficientStockException.class, () -> stockService.decrementStock(1L, 500, null, null));
+        verify(stockRepository, never()).findById(anyLong());
+        verify(stockLedger, never()).record(anyLong(), anyInt(), any(), any(), any()); // Nothing moved, nothing journaled
+    }
+
+    @Test
+    @DisplayName("decrementStock should throw ResourceNotFoundException when there is no stock row")
+    void decrementStock_shouldThrowResourceNotFoundException_whenStockMissing() {
+        // Arrange
+        when(stockRepository.decrementQuantity(99L, 1)).thenReturn(0);
+        when(stockRepository.existsById(99L)).thenReturn(false);
+
+        // Act & Assert
+        assertThrows(ResourceNotFoundException.class, () -> stockService.decrementStock(99L, 1, null, null));
+    }
+
+    @Test
+    @DisplayName("decrementStock should be served by the hot-SKU counter without touching the database when the product is hot")
+    void decrementStock_shouldUseHotCounter_whenProductIsHot() {
+        // Arrange
+        when(hotStockEngine.reserveOnce(1L, 3, "order", StockLedger.REASON_DECREMENT, "42"))
+                .thenReturn(Optional.of(new Stock(1L, 97, 10, 5L)));
+
+        // Act
+        Stock result = stockService.decrementStock(1L, 3, "order", "42");
+
+        // Assert
+        assertEquals(97, result.getQuantity());
+        verifyNoInteractions(stockRepository, transactionTemplate);
+        verify(stockLedger, never()).record(anyLong(), anyInt(), any(), any(), any()); // Journaled by the engine, flushed later
+    }
+
+    @Test
+    @DisplayName("updateStock, adjustStock and deleteStock should be refused while the product is hot")
+    void stockRowWrites_shouldBeRejected_whenProductIsHot() {
+        // Arrange
+        when(hotStockEngine.isHot(1L)).thenReturn(true);
+
+        // Act & Assert
+        assertThrows(InvalidInputException.class, () -> stockService.updateStock(1L, new Stock(1L, 5, 1, 0L)));
+        assertThrows(InvalidInputException.class, () -> stockService.adjustStock(1L, -1, null, null, null));
+        assertThrows(InvalidInputException.class, () -> stockService.deleteStock(1L));
+        verifyNoInteractions(stockRepository, productExistenceCache);
+    }
+
+    @Test
+    @DisplayName("increment/decrement should reject non-positive amounts without touching the database")
+    void adjustStock_shouldThrowInvalidInputException_whenAmountNotPositive() {
+        assertThrows(InvalidInputException.class, () -> stockService.decrementStock(1L, 0, null, null));
+        assertThrows(InvalidInputException.class, () -> stockService.incrementStock(1L, -5, null, null));
+        verifyNoInteractions(stockRepository);
+    }
+
+    @Test
+    @DisplayName("incrementStock should add units and throw ResourceNotFoundException for a missing row")
+    void incrementStock_shouldAddUnits_orThrowWhenMissing() {
+        // Arrange
+        when(stockRepository.incrementQuantity(1L, 5)).thenReturn(1);
+        when(stockRepository.findById(1L)).thenReturn(Optional.of(new Stock(1L, 105, 10)));
+        when(stockRepository.incrementQuantity(99L, 5)).thenReturn(0);
+
+        // Act & Assert
+        assertEquals(105, stockService.incrementStock(1L, 5, null, null).getQuantity());
+        assertThrows(ResourceNotFoundException.class, () -> stockService.incrementStock(99L, 5, null, null));
+    }
+
+    // --- adjustStock Tests ---
+
+    @Test
+    @DisplayName("adjustStock should re-read and retry when another writer bumps the version in between")
+    void adjustStock_shouldRetryOnVersionConflict() {
+        // Arrange: first read sees version 0, but the row is at version 1 by the time we write
+        when(stockRepository.findById(1L)).thenReturn(Optional.of(new Stock(1L, 100, 10, 0L)), Optional.of(new Stock(1L, 95, 10, 1L)));
+        when(stockRepository.updateIfVersion(1L, 97, 10, 0L)).thenReturn(0);
+        when(stockRepository.updateIfVersion(1L, 92, 10, 1L)).thenReturn(1);
+        ReflectionTestUtils.setField(stockService, "adjustMaxAttempts", 5);
+
+        // Act
+        Stock result = stockService.adjustStock(1L, -3, null, null, null);
+
+        // Assert
+        assertEquals(92, result.getQuantity());
+        assertEquals(2L, result.getVersion());
+        verify(stockRepository, times(2)).findById(1L);
+        verify(stockLedger, times(1)).record(1L, -3, null, StockLedger.REASON_ADJUSTMENT, null); // Only the winning attempt
+        verifyNoInteractions(productExistenceCache);
+    }
+
+    @Test
+    @DisplayName("adjustStock should give up with the current version once attempts run out")
+    void adjustStock_shouldThrowConflict_whenAttemptsExhausted() {
+        // Arrange
+        when(stockRepository.findById(1L)).thenReturn(Optional.of(new Stock(1L, 100, 10, 7L)));
+        when(stockRepository.updateIfVersion(1L, 105, 12, 7L)).thenReturn(0);
+        ReflectionTestUtils.setField(stockService, "adjustMaxAttempts", 2);
+
+        // Act & Assert
+        StockVersionConflictException exception = assertThrows(StockVersionConflictException.class, () ->
+                stockService.adjustStock(1L, 5, 12, null, null)
+        );
+        assertEquals(7L, exception.getCurrentVersion());
+        verify(stockRepository, times(2)).updateIfVersion(1L, 105, 12, 7L);
+    }
+
+    @Test
+    @DisplayName("adjustStock should throw InsufficientStockException instead of going negative")
+    void adjustStock_shouldThrowInsufficientStock_whenResultNegative() {
+        // Arrange
+        when(stockRepository.findById(1L)).thenReturn(Optional.of(new Stock(1L, 2, 10, 0L)));
+
+        // Act & Assert
+        assertThrows(InsufficientStockException.class, () -> stockService.adjustStock(1L, -3, null, null, null));
+        verify(stockRepository, never()).updateIfVersion(anyLong(), anyInt(), anyInt(), any());
+    }
+
+    // --- decrementStockBatch Tests ---
+
+    @Test
+    @DisplayName("decrementStockBatch should lock all rows once and reserve or reject each line in order")
+    void decrementStockBatch_shouldAllocateLinesInOrder() {
+        // Arrange: product 1 has 100 units, product 2 has 50, product 99 has no stock row
+        when(stockRepository.findAllForUpdate(any())).thenReturn(List.of(stock1, stock2));
+        List<StockReservationDto> lines = List.of(
+                new StockReservationDto(1L, 60),
+                new StockReservationDto(2L, 10),
+                new StockReservationDto(1L, 50), // Only 40 left after the first line
+                new StockReservationDto(99L, 1),
+                new StockReservationDto(1L, 40),
+                new StockReservationDto(2L, 0));
+
+        // Act
+        List<StockReservationResultDto> results = stockService.decrementStockBatch(lines);
+
+        // Assert
+        assertEquals(List.of(true, true, false, false, true, false),
+                results.stream().map(StockReservationResultDto::isReserved).toList());
+        assertTrue(results.get(2).getMessage().contains("Insufficient stock"));
+        assertTrue(results.get(3).getMessage().contains("not found"));
+        assertEquals(0, stock1.getQuantity());
+        assertEquals(40, stock2.getQuantity());
+        verify(stockRepository, times(1)).findAllForUpdate(any());
+        verify(stockRepository, never()).decrementQuantity(anyLong(), anyInt());
+        verify(stockLedger, times(3)).record(anyLong(), anyInt(), isNull(), eq(StockLedger.REASON_RESERVATION), isNull()); // Reserved lines only
+        verifyNoInteractions(productExistenceCache);
+    }
+
+    @Test
+    @DisplayName("decrementStockBatch should reserve hot lines in memory and lock only the rows of the other products")
+    void decrementStockBatch_shouldSplitHotAndDatabaseLines() {
+        // Arrange: product 7 is hot with 5 units left
+        when(hotStockEngine.isHot(7L)).thenReturn(true);
+        when(hotStockEngine.reserve(7L, 4, null, StockLedger.REASON_RESERVATION, null)).thenReturn(Optional.of(new Stock(7L, 1, 0, 3L)));
+        when(hotStockEngine.reserve(7L, 2, null, StockLedger.REASON_RESERVATION, null))
+                .thenThrow(new InsufficientStockException("Insufficient stock for Product ID 7 to remove 2 units."));
+        when(stockRepository.findAllForUpdate(any())).thenReturn(List.of(stock2));
+        List<StockReservationDto> lines = List.of(
+                new StockReservationDto(7L, 4),
+                new StockReservationDto(2L, 10),
+                new StockReservationDto(7L, 2));
+
+        // Act
+        List<StockReservationResultDto> results = stockService.decrementStockBatch(lines);
+
+        // Assert
+        assertEquals(List.of(true, true, false), results.stream().map(StockReservationResultDto::isReserved).toList());
+        assertTrue(results.get(2).getMessage().contains("Insufficient stock"));
+        assertEquals(40, stock2.getQuantity());
+        verify(stockRepository).findAllForUpdate(argThat(ids -> ids.size() == 1 && ids.contains(2L)));
+    }
+}
@@ -10,6 +10,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/suppliers")
@@ -75,4 +76,9 @@ public class SupplierController {
             return ResponseEntity.internalServerError().body(0L);
         }
     }
-}
\ No newline at end of file
+
+    @GetMapping("/products-supplied-counts")
+    public ResponseEntity<Map<Long, Long>> getProductsSuppliedCounts() {
+        return ResponseEntity.ok(supplierService.getProductsSuppliedCounts());
+    }
+}
@@ -2,7 +2,14 @@ package com.project.supplier_service.repository;
 
 import com.project.supplier_service.model.Supplier;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
 
 public interface SupplierRepository extends JpaRepository<Supplier, Long> {
-	
+
+    // Returns [supplierId, productCount] rows for every supplier in one query,
+    // so callers don't have to load each supplier just to count its product ids.
+    @Query("SELECT s.supplierId, COUNT(p) FROM Supplier s LEFT JOIN s.providedProductIds p GROUP BY s.supplierId")
+    List<Object[]> countProvidedProductsGroupedBySupplier();
 }
\ No newline at end of file
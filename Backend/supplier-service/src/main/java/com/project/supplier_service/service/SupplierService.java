@@ -4,6 +4,7 @@ import com.project.supplier_service.dto.SupplierResponseDto;
 import com.project.supplier_service.model.Supplier;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public interface SupplierService {
@@ -14,4 +15,6 @@ public interface SupplierService {
     List<SupplierResponseDto> getAllSuppliers(); // Changed return type
 
     Long getProductsSuppliedCountBySupplier(Long supplierId);
+
+    Map<Long, Long> getProductsSuppliedCounts();
 }
\ No newline at end of file
@@ -13,7 +13,9 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
@@ -161,4 +163,15 @@ public class SupplierServiceImpl implements SupplierService {
         log.info("Supplier ID {} has no provided product IDs.", supplierId);
         return 0L;
     }
-}
\ No newline at end of file
+
+    @Override
+    public Map<Long, Long> getProductsSuppliedCounts() {
+        log.info("Calculating products supplied count for all suppliers.");
+        Map<Long, Long> counts = new HashMap<>();
+        for (Object[] row : supplierRepository.countProvidedProductsGroupedBySupplier()) {
+            counts.put((Long) row[0], ((Number) row[1]).longValue());
+        }
+        log.info("Calculated products supplied count for {} suppliers.", counts.size());
+        return counts;
+    }
+}
@@ -0,0 +1,15 @@
+-- Schema as previously created by Hibernate (ddl-auto=update). IF NOT EXISTS lets this run against
+-- databases that already have the tables; Flyway is configured to baseline them at version 0.
+
+CREATE TABLE IF NOT EXISTS supplier (
+    supplier_id  BIGINT       NOT NULL AUTO_INCREMENT,
+    name         VARCHAR(255),
+    contact_info VARCHAR(255),
+    PRIMARY KEY (supplier_id)
+) ENGINE=InnoDB;
+
+CREATE TABLE IF NOT EXISTS supplier_provided_product_ids (
+    supplier_id BIGINT NOT NULL,
+    product_id  BIGINT,
+    CONSTRAINT fk_supplier_products_supplier FOREIGN KEY (supplier_id) REFERENCES supplier (supplier_id)
+) ENGINE=InnoDB;
@@ -0,0 +1,2 @@
+-- Covers loading a supplier's product ids and the per-supplier product counts without touching table rows.
+CREATE INDEX idx_supplier_products_supplier_product ON supplier_provided_product_ids (supplier_id, product_id);
@@ -0,0 +1,47 @@
+package com.project.supplier_service.repository;
+
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.MigrationInfoService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Applies the Flyway migrations to an in-memory H2 database in MySQL mode and lets Hibernate validate the entity
+ * mappings against the result (ddl-auto=validate). Unlike SupplierServiceApplicationTests, this needs no MySQL server, so a
+ * migration that does not match the entities fails the default build.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:supplier-schema;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=validate",
+        "spring.jpa.show-sql=false",
+        "logging.level.org.hibernate.SQL=INFO",
+        "logging.level.org.hibernate.type.descriptor.sql=INFO"})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class FlywaySchemaTest {
+
+    @Autowired
+    private Flyway flyway;
+
+    @Autowired
+    private SupplierRepository supplierRepository;
+
+    @Test
+    @DisplayName("Every migration should apply and the entity mappings should validate against the result")
+    void migrations_shouldApplyAndMatchEntityMappings() {
+        // Act: the context starts only if Flyway migrated and Hibernate validated the schema
+        MigrationInfoService migrations = flyway.info();
+
+        // Assert
+        assertNotNull(migrations.current());
+        assertEquals(0, migrations.pending().length);
+        assertEquals(0, supplierRepository.count());
+    }
+}
@@ -17,6 +17,7 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -261,4 +262,19 @@ public class SupplierServiceTest {
 
         verify(supplierRepository, times(1)).findById(99L);
     }
-}
\ No newline at end of file
+
+    // --- getProductsSuppliedCounts Tests ---
+    @Test
+    void getProductsSuppliedCounts_shouldReturnCountsForAllSuppliersFromSingleQuery() {
+        when(supplierRepository.countProvidedProductsGroupedBySupplier()).thenReturn(Arrays.asList(
+                new Object[]{1L, 2L},
+                new Object[]{2L, 0L}
+        ));
+
+        Map<Long, Long> counts = supplierService.getProductsSuppliedCounts();
+
+        assertThat(counts).containsEntry(1L, 2L).containsEntry(2L, 0L).hasSize(2);
+        verify(supplierRepository, times(1)).countProvidedProductsGroupedBySupplier();
+        verify(supplierRepository, never()).findById(anyLong());
+    }
+}
@@ -12,14 +12,19 @@ import Search from "../Search";
 import Footer from "../Footer";
 import NotificationPopup from "../NotificationPopup";
 
+const ORDER_PAGE_SIZE = 100;
+
 const OrderComponent = () => {
   const { userData } = useContext(UserContext);
   const navigate = useNavigate();
   const [orders, setOrders] = useState([]);
   const [searchTerm, setSearchTerm] = useState("");
   const [notification, setNotification] = useState(null);
+  const [nextCursor, setNextCursor] = useState(null);
 
   const [showForm, setShowForm] = useState(false);
+  // One key per order being entered, so a retried submit cannot create the order twice
+  const [idempotencyKey, setIdempotencyKey] = useState(() => crypto.randomUUID());
   const [orderData, setOrderData] = useState({
     customerId: "",
     productId: "",
@@ -30,7 +35,7 @@ const OrderComponent = () => {
 
   const token = localStorage.getItem("userToken");
 
-  const fetchOrders = useCallback(async () => {
+  const fetchOrders = useCallback(async (after = null) => {
     if (!token) {
       // Added notification and navigation for consistency with ProductPage
       setNotification({ message: "Authentication required. Please log in.", type: "error" });
@@ -39,52 +44,25 @@ const OrderComponent = () => {
     }
 
     try {
-      // Adjusted API call to fetch orders which now include productName
+      // One request per page: each order already carries productName, unitPrice and lineTotal.
       const response = await axios.get("http://localhost:8080/api/orders", {
         headers: { Authorization: `Bearer ${token}` },
+        params: { limit: ORDER_PAGE_SIZE, ...(after != null && { after }) },
       });
 
-      // The backend now provides productName directly in the OrderResponseDto,
-      // so the enrichment logic here becomes simpler or can be removed if the
-      // backend already provides all necessary fields.
-      const enrichedOrders = await Promise.all(
-        response.data.map(async (order) => {
-          try {
-            const priceRes = await axios.get(
-              `http://localhost:8080/api/orders/${order.orderId}/product-price`,
-              { headers: { Authorization: `Bearer ${token}` } }
-            );
-
-            const totalRes = await axios.get(
-              `http://localhost:8080/api/orders/${order.orderId}/total-price`,
-              { headers: { Authorization: `Bearer ${token}` } }
-            );
-
-            return {
-              ...order,
-              productPrice: priceRes.data,
-              totalPrice: totalRes.data,
-              // productName is now expected directly from the backend response.
-              // Ensure order.status is correctly parsed if it comes as a stringified JSON.
-              status:
-                typeof order.status === "string" && order.status.startsWith("{")
-                  ? JSON.parse(order.status).status
-                  : order.status,
-            };
-          } catch (err) {
-            console.error("Error fetching additional order details:", err);
-            // Return with default values if fetching additional details fails
-            return {
-              ...order,
-              productPrice: 0,
-              totalPrice: 0,
-              productName: order.productName || "Unknown Product",
-            };
-          }
-        })
-      );
+      const pageOrders = response.data.items.map((order) => ({
+        ...order,
+        productPrice: order.unitPrice,
+        totalPrice: order.lineTotal,
+        // Ensure order.status is correctly parsed if it comes as a stringified JSON.
+        status:
+          typeof order.status === "string" && order.status.startsWith("{")
+            ? JSON.parse(order.status).status
+            : order.status,
+      }));
 
-      setOrders(enrichedOrders);
+      setOrders((prevOrders) => (after != null ? [...prevOrders, ...pageOrders] : pageOrders));
+      setNextCursor(response.data.hasMore ? response.data.nextCursor : null);
     } catch (err) {
       console.error("Error fetching orders:", err);
       // Added notification for consistency
@@ -140,9 +118,13 @@ const OrderComponent = () => {
   const handleSubmit = async () => {
     try {
       await axios.post("http://localhost:8080/api/orders", orderData, {
-        headers: { Authorization: `Bearer ${token}` },
+        headers: {
+          Authorization: `Bearer ${token}`,
+          "Idempotency-Key": idempotencyKey,
+        },
       });
 
+      setIdempotencyKey(crypto.randomUUID());
       fetchOrders();
       setShowForm(false);
       setOrderData({
@@ -200,6 +182,10 @@ const OrderComponent = () => {
         return "bg-yellow-500 text-black";
       case "Pending":
         return "bg-red-500 text-white";
+      case "Accepted":
+        return "bg-blue-500 text-white";
+      case "Rejected":
+        return "bg-gray-700 text-gray-300";
       default:
         return "bg-gray-500 text-white";
     }
@@ -322,6 +308,9 @@ const OrderComponent = () => {
                           order.status
                         )}`}
                       >
+                        {/* Set by the fulfilment worker for async orders, not by hand */}
+                        <option value="Accepted" disabled>Accepted</option>
+                        <option value="Rejected" disabled>Rejected</option>
                         <option value="Pending">Pending</option>
                         <option value="Shipped">Shipped</option>
                         <option value="Completed">Completed</option>
@@ -346,6 +335,14 @@ const OrderComponent = () => {
               )}
             </tbody>
           </table>
+          {nextCursor != null && (
+            <button
+              onClick={() => fetchOrders(nextCursor)}
+              className="mt-4 bg-gray-700 hover:bg-gray-600 px-4 py-2 rounded-md text-sm font-semibold text-white transition-colors duration-200"
+            >
+              Load more
+            </button>
+          )}
         </div>
       </main>
 